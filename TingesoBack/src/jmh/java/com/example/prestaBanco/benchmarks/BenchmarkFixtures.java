@@ -0,0 +1,41 @@
+package com.example.prestaBanco.benchmarks;
+
+import com.example.prestaBanco.metrics.CreditMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Proxy;
+
+/**
+ * Wiring helpers so the benchmarks can build services without a Spring context or a database.
+ */
+final class BenchmarkFixtures {
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * A repository whose {@code method} always returns {@code result}; every other call fails.
+     */
+    @SuppressWarnings("unchecked")
+    static <T> T repository(Class<T> type, String method, Object result) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, m, args) -> {
+            if (m.getName().equals(method)) {
+                return result;
+            }
+            throw new UnsupportedOperationException(m.getName());
+        });
+    }
+
+    /**
+     * Metrics backed by an in-memory registry, so the timers of the services are part of the measurement.
+     */
+    static CreditMetrics metrics() {
+        return inject(new CreditMetrics(), "meterRegistry", new SimpleMeterRegistry());
+    }
+
+    static <T> T inject(T target, String field, Object value) {
+        ReflectionTestUtils.setField(target, field, value);
+        return target;
+    }
+}
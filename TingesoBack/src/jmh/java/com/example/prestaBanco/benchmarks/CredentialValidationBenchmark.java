@@ -0,0 +1,125 @@
+package com.example.prestaBanco.benchmarks;
+
+import com.example.prestaBanco.cache.RutBloomFilter;
+import com.example.prestaBanco.entities.ClientEntity;
+import com.example.prestaBanco.services.ClientService;
+import com.example.prestaBanco.validation.CredentialValidator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Compares the credential checks done on login and registration:
+ * the old {@code String.matches} path, the same regexes precompiled, and {@link CredentialValidator}.
+ * Every invocation validates one RUT, one email and one password from a mixed valid/invalid sample.
+ * {@code validateClientFields} measures the whole registration check, with an empty RUT filter so the
+ * uniqueness lookup never reaches the repository.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = "-XX:+UseParallelGC")
+public class CredentialValidationBenchmark {
+
+    private static final String RUT_REGEX = "^[0-9]{7,8}-[0-9kK]{1}$";
+    private static final String EMAIL_REGEX = "^[A-Za-z0-9+_.-]+@(.+)$";
+    private static final String PASSWORD_REGEX = "^(?=.*[A-Z])(?=.*[0-9]).{8,}$";
+
+    private static final Pattern RUT_PATTERN = Pattern.compile(RUT_REGEX);
+    private static final Pattern EMAIL_PATTERN = Pattern.compile(EMAIL_REGEX);
+    private static final Pattern PASSWORD_PATTERN = Pattern.compile(PASSWORD_REGEX);
+
+    private final String[] ruts = {"12345678-5", "20637464-K", "1234567-4", "12.345.678-5", "123456-0", "10000013-k"};
+    private final String[] emails = {"test.user@example.com", "cliente+credito@banco.cl", "sin-arroba.cl", "@dominio.cl", "a@b", "x_y-z@correo.com"};
+    private final String[] passwords = {"Password1", "password1", "PASSWORD", "Abc12345", "corta1A", "ContraseñaSegura2024"};
+
+    private static final MethodHandle VALIDATE_CLIENT_FIELDS;
+
+    static {
+        try {
+            VALIDATE_CLIENT_FIELDS = MethodHandles.privateLookupIn(ClientService.class, MethodHandles.lookup())
+                    .findVirtual(ClientService.class, "validateClientFields", MethodType.methodType(String.class, ClientEntity.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final CredentialValidator validator = new CredentialValidator();
+
+    private ClientService clientService;
+    private ClientEntity[] clients;
+
+    private int index;
+
+    @Setup
+    public void setup() {
+        RutBloomFilter rutBloomFilter = new RutBloomFilter(1000, 0.01);
+        rutBloomFilter.markReady();
+        clientService = new ClientService();
+        BenchmarkFixtures.inject(clientService, "credentialValidator", validator);
+        BenchmarkFixtures.inject(clientService, "rutBloomFilter", rutBloomFilter);
+
+        clients = new ClientEntity[ruts.length];
+        for (int i = 0; i < ruts.length; i++) {
+            ClientEntity client = new ClientEntity();
+            client.setName("Nombre");
+            client.setLastName("Apellido");
+            client.setRut(ruts[i]);
+            client.setEmail(emails[i]);
+            client.setPassword(passwords[i]);
+            client.setDateOfBirth(LocalDate.of(1990, 1, 1));
+            clients[i] = client;
+        }
+    }
+
+    private int next() {
+        index = index + 1 == ruts.length ? 0 : index + 1;
+        return index;
+    }
+
+    @Benchmark
+    public void stringMatches(Blackhole bh) {
+        int i = next();
+        bh.consume(ruts[i].matches(RUT_REGEX));
+        bh.consume(emails[i].matches(EMAIL_REGEX));
+        bh.consume(passwords[i].matches(PASSWORD_REGEX));
+    }
+
+    @Benchmark
+    public void precompiledPattern(Blackhole bh) {
+        int i = next();
+        bh.consume(RUT_PATTERN.matcher(ruts[i]).matches());
+        bh.consume(EMAIL_PATTERN.matcher(emails[i]).matches());
+        bh.consume(PASSWORD_PATTERN.matcher(passwords[i]).matches());
+    }
+
+    @Benchmark
+    public void credentialValidator(Blackhole bh) {
+        int i = next();
+        bh.consume(validator.checkRut(ruts[i]));
+        bh.consume(validator.checkEmail(emails[i]));
+        bh.consume(validator.checkPassword(passwords[i]));
+    }
+
+    @Benchmark
+    public Object validateClientFields() throws Throwable {
+        return (String) VALIDATE_CLIENT_FIELDS.invokeExact(clientService, clients[next()]);
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.prestaBanco.benchmarks;
+
+import com.example.prestaBanco.cache.LoanCatalog;
+import com.example.prestaBanco.entities.ApplicantProfile;
+import com.example.prestaBanco.entities.CreditRequestEntity;
+import com.example.prestaBanco.evaluation.CreditRuleEngine;
+import com.example.prestaBanco.evaluation.EvaluationPolicy;
+import com.example.prestaBanco.evaluation.RuleReport;
+import com.example.prestaBanco.repositories.CreditRequestRepository;
+import com.example.prestaBanco.services.ClientService;
+import com.example.prestaBanco.services.CreditEvaluationService;
+import com.example.prestaBanco.services.CreditRequestService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Evaluation hot paths. The request lookup of calculateTotalCosts is answered by an in-memory
+ * repository, so the numbers cover the service code and not the database.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class CreditEvaluationBenchmark {
+
+    private CreditEvaluationService creditEvaluationService;
+
+    private final LocalDate dateOfBirth = LocalDate.of(1985, 6, 15);
+
+    private CreditRuleEngine creditRuleEngine;
+    private CreditRequestEntity request;
+    private ApplicantProfile applicant;
+
+    @Setup
+    public void setup() {
+        request = new CreditRequestEntity();
+        request.setId(1L);
+        request.setTypeLoan("firstHome");
+        request.setMaximumAmount(100000000);
+        request.setTerm(20);
+        request.setInterestRate(4.5);
+
+        CreditRequestService creditRequestService = BenchmarkFixtures.inject(new CreditRequestService(), "creditRequestRepository",
+                BenchmarkFixtures.repository(CreditRequestRepository.class, "findById", Optional.of(request)));
+        creditEvaluationService = new CreditEvaluationService();
+        BenchmarkFixtures.inject(creditEvaluationService, "creditRequestService", creditRequestService);
+        BenchmarkFixtures.inject(creditEvaluationService, "clientService",
+                BenchmarkFixtures.inject(new ClientService(), "creditMetrics", BenchmarkFixtures.metrics()));
+
+        creditRuleEngine = BenchmarkFixtures.inject(new CreditRuleEngine(), "loanCatalog", new LoanCatalog());
+        creditRuleEngine.compile(new EvaluationPolicy(35, 1, 2, 50, Map.of("firstHome", 80.0), 70, 5, 10, 50, 5, 2, 20, 10, 30));
+        applicant = new ApplicantProfile(2000000L, 300000L, 150000000L, 3.0, false, null, false, dateOfBirth,
+                20000000L, 3.0, 150000L, 20.0, 10.0);
+    }
+
+    @Benchmark
+    public int calculateTotalCosts() {
+        return creditEvaluationService.calculateTotalCosts(1L);
+    }
+
+    @Benchmark
+    public RuleReport rulesFullReport() {
+        return creditRuleEngine.evaluate(request, applicant, CreditRuleEngine.Mode.FULL_REPORT);
+    }
+
+    @Benchmark
+    public boolean ageApplicant() {
+        return creditEvaluationService.AgeApplicant(dateOfBirth, 25);
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.prestaBanco.benchmarks;
+
+import com.example.prestaBanco.dtos.CreditStatusRow;
+import com.example.prestaBanco.entities.RequestState;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization of the executive listing rows: a whole list at once, as a /requestStatus page, and
+ * row by row through a generator, as the streamed export.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class CreditStatusJsonBenchmark {
+
+    @Param({"100", "10000"})
+    private int rows;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private List<CreditStatusRow> listing;
+
+    @Setup
+    public void setup() {
+        String[] types = {"firstHome", "secondHome", "commercial", "remodeling"};
+        RequestState[] states = {RequestState.INITIAL_REVIEW, RequestState.IN_EVALUATION, RequestState.PRE_APPROVED,
+                RequestState.APPROVED, RequestState.REJECTED};
+        listing = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            listing.add(new CreditStatusRow((long) i + 1, (10000000 + i) + "-" + (i % 10), "Nombre" + i, "Apellido" + i,
+                    types[i % types.length], states[i % states.length]));
+        }
+    }
+
+    @Benchmark
+    public void wholeList() throws IOException {
+        objectMapper.writeValue(OutputStream.nullOutputStream(), listing);
+    }
+
+    @Benchmark
+    public void streamed() throws IOException {
+        try (JsonGenerator json = objectMapper.createGenerator(OutputStream.nullOutputStream())) {
+            json.writeStartArray();
+            for (CreditStatusRow row : listing) {
+                json.writeObject(row);
+            }
+            json.writeEndArray();
+        }
+    }
+}
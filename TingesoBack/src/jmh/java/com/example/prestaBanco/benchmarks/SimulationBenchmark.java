@@ -0,0 +1,68 @@
+package com.example.prestaBanco.benchmarks;
+
+import com.example.prestaBanco.services.ClientService;
+import com.example.prestaBanco.simulation.AmortizationEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loan simulation: the single installment behind /simulation/{amount}/{interestRate}/{term},
+ * the full amortization schedule and a batch grid.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class SimulationBenchmark {
+
+    @Param({"10", "20", "30"})
+    private int term;
+
+    private final AmortizationEngine engine = new AmortizationEngine();
+    private ClientService clientService;
+
+    private int[] gridAmounts;
+    private final double[] gridRates = {3.5, 4.0, 4.5, 5.0, 5.5, 6.0};
+    private final int[] gridTerms = {5, 10, 15, 20, 25, 30};
+
+    @Setup
+    public void setup() {
+        clientService = BenchmarkFixtures.inject(new ClientService(), "creditMetrics", BenchmarkFixtures.metrics());
+        gridAmounts = new int[100];
+        for (int i = 0; i < gridAmounts.length; i++) {
+            gridAmounts[i] = 10000000 + i * 1000000;
+        }
+    }
+
+    @Benchmark
+    public int simulation() {
+        return clientService.simulation(100000000, 4.5, term);
+    }
+
+    @Benchmark
+    public void schedule(Blackhole bh) {
+        bh.consume(engine.schedule(100000000, 4.5, term));
+    }
+
+    /**
+     * 100 amounts x 6 rates x 6 terms = 3 600 scenarios per call (does not depend on {@code term}).
+     */
+    @Benchmark
+    public void batchGrid(Blackhole bh) {
+        bh.consume(engine.simulateGrid(gridAmounts, gridRates, gridTerms));
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.prestaBanco.cache;
+
+import com.example.prestaBanco.entities.LoanEntity;
+import com.example.prestaBanco.notifications.NotificationListener;
+import com.example.prestaBanco.notifications.PgNotificationBus;
+import com.example.prestaBanco.repositories.LoanRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * In-memory copy of the loans table, indexed by form code and by display name.
+ * <p>
+ * The whole catalog is swapped at once on reload, so readers never see a half loaded state.
+ * A trigger on loans publishes on {@value #CHANNEL} after every change, which makes all the
+ * backends reload without a restart.
+ * <p>
+ * The first load happens when the context starts, before the web server, so requests are never
+ * checked against an empty catalog; if it fails the application does not start.
+ */
+@Component
+public class LoanCatalog implements SmartLifecycle, NotificationListener {
+
+    public static final String CHANNEL = "loans_changed";
+
+    private static final Logger log = LoggerFactory.getLogger(LoanCatalog.class);
+
+    @Autowired
+    private LoanRepository loanRepository;
+
+    @Autowired
+    private PgNotificationBus notificationBus;
+
+    private volatile Map<String, LoanProduct> products = Map.of();
+
+    private volatile boolean running;
+
+    @Override
+    public void start() {
+        // Se carga antes de aceptar peticiones; onListen vuelve a cargar una vez activo el LISTEN
+        reload();
+        notificationBus.subscribe(CHANNEL, this);
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Antes del servidor web, que arranca en DEFAULT_PHASE - 2048
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    /**
+     * @param loanType the form code (firstHome) or the display name (Primera Vivienda)
+     */
+    public Optional<LoanProduct> find(String loanType) {
+        return loanType == null ? Optional.empty() : Optional.ofNullable(products.get(loanType));
+    }
+
+    public void load(List<LoanEntity> loans) {
+        Map<String, LoanProduct> index = new HashMap<>();
+        for (LoanEntity loan : loans) {
+            LoanProduct product = toProduct(loan);
+            if (product.typeLoan() != null) {
+                index.put(product.typeLoan(), product);
+            }
+            if (product.name() != null) {
+                index.put(product.name(), product);
+            }
+        }
+        products = Map.copyOf(index);
+    }
+
+    @Override
+    public void onNotification(String payload) {
+        reload();
+    }
+
+    @Override
+    public void onListen() {
+        reload();
+    }
+
+    private void reload() {
+        List<LoanEntity> loans = loanRepository.findAll();
+        load(loans);
+        log.info("Loaded {} loan products into the catalog", loans.size());
+    }
+
+    private static LoanProduct toProduct(LoanEntity loan) {
+        Map<String, String> info = new LinkedHashMap<>();
+        info.put("Plazo", formatYears(loan.getMaximumTerm()) + " años");
+        info.put("Tasa Interés (Anual)", loan.getInterestRateMin() + "% - " + loan.getInterestRateMax() + "%");
+        String etag = "\"" + Integer.toHexString(Objects.hash(loan.getTypeLoan(), loan.getName(), loan.getMaximumTerm(),
+                loan.getInterestRateMin(), loan.getInterestRateMax(), loan.getMaximumAmount())) + "\"";
+        return new LoanProduct(loan.getTypeLoan(), loan.getName(), loan.getMaximumTerm(), loan.getInterestRateMin(),
+                loan.getInterestRateMax(), loan.getMaximumAmount(), Map.copyOf(info), etag);
+    }
+
+    private static String formatYears(double years) {
+        return years == Math.rint(years) ? Long.toString((long) years) : Double.toString(years);
+    }
+}
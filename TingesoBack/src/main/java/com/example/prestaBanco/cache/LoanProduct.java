@@ -0,0 +1,37 @@
+package com.example.prestaBanco.cache;
+
+import java.util.Map;
+
+/**
+ * Immutable view of a row of the loans table, as kept by {@link LoanCatalog}.
+ *
+ * @param typeLoan code used by the request forms (firstHome, secondHome, commercial, remodeling)
+ * @param name display name (Primera Vivienda, ...)
+ * @param maximumTerm maximum term in years
+ * @param interestRateMin minimum annual interest rate
+ * @param interestRateMax maximum annual interest rate
+ * @param maximumAmount maximum amount of the loan
+ * @param info the /loanTypes/{loanType} response, built once
+ * @param etag entity tag of {@code info}; equal on every backend for the same data
+ */
+public record LoanProduct(String typeLoan, String name, double maximumTerm, double interestRateMin, double interestRateMax,
+                          double maximumAmount, Map<String, String> info, String etag) {
+
+    /**
+     * Checks the values against the limits of the product; null values are not checked.
+     *
+     * @return the message for the first limit exceeded, or null if all of them are respected
+     */
+    public String checkBounds(Integer term, Double interestRate, Integer amount) {
+        if (term != null && term > maximumTerm) {
+            return "El plazo máximo para " + name + " es " + info.get("Plazo");
+        }
+        if (interestRate != null && (interestRate < interestRateMin || interestRate > interestRateMax)) {
+            return "La tasa de interés para " + name + " debe estar entre " + interestRateMin + "% y " + interestRateMax + "%";
+        }
+        if (amount != null && amount > maximumAmount) {
+            return "El monto máximo para " + name + " es " + (long) maximumAmount;
+        }
+        return null;
+    }
+}
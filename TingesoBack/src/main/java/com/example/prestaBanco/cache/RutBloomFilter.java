@@ -0,0 +1,226 @@
+package com.example.prestaBanco.cache;
+
+import com.example.prestaBanco.notifications.NotificationListener;
+import com.example.prestaBanco.notifications.PgNotificationBus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * In-memory Bloom filter of the registered RUTs, used to skip the findByRut round trip for
+ * RUTs that were never registered (the usual case during signup).
+ * <p>
+ * It only answers "definitely absent"; any other answer must still go to the database, and so
+ * does every lookup until the initial load finishes. RUTs are normalized to
+ * {@code body * 11 + verifier} so that "12.345.678-5" and "12345678-5" share one key; values that
+ * cannot be normalized are never reported as absent.
+ * <p>
+ * Each backend loads the filter once it listens on the {@value #CHANNEL} channel and learns about
+ * clients registered on the other backends through it. While the connection is down those
+ * notifications are lost, so the filter stops answering until it is loaded again after the reconnect.
+ */
+@Component
+@Order(2)
+public class RutBloomFilter implements ApplicationRunner, NotificationListener {
+
+    public static final String CHANNEL = "client_registered";
+
+    // pg_notify admite hasta 8000 bytes por aviso
+    private static final int MAX_PAYLOAD = 7_900;
+
+    private static final Logger log = LoggerFactory.getLogger(RutBloomFilter.class);
+
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashCount;
+
+    private volatile boolean ready;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PgNotificationBus notificationBus;
+
+    public RutBloomFilter(@Value("${client.rut-filter.expected-insertions:100000}") int expectedInsertions,
+                          @Value("${client.rut-filter.false-positive-rate:0.01}") double falsePositiveRate) {
+        long m = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int words = (int) Math.max(1, (m + 63) / 64);
+        this.bits = new AtomicLongArray(words);
+        this.bitCount = words * 64L;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * Math.log(2)));
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        // La carga inicial se hace en onListen, cuando ya no se puede perder ningún aviso
+        notificationBus.subscribe(CHANNEL, this);
+    }
+
+    /**
+     * @return true only when the RUT is certainly not registered
+     */
+    public boolean isDefinitelyAbsent(String rut) {
+        if (!ready) {
+            return false;
+        }
+        long key = normalize(rut);
+        if (key < 0) {
+            return false;
+        }
+        long h1 = mix(key);
+        long h2 = mix(h1) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Adds a newly registered RUT and tells the other backends about it.
+     */
+    public void register(String rut) {
+        add(rut);
+        notificationBus.publish(CHANNEL, rut);
+    }
+
+    /**
+     * Adds a batch of newly registered RUTs and tells the other backends about them, several RUTs per
+     * notification.
+     */
+    public void registerAll(Collection<String> ruts) {
+        StringBuilder payload = new StringBuilder();
+        for (String rut : ruts) {
+            add(rut);
+            if (payload.length() > 0 && payload.length() + rut.length() + 1 > MAX_PAYLOAD) {
+                notificationBus.publish(CHANNEL, payload.toString());
+                payload.setLength(0);
+            }
+            if (payload.length() > 0) {
+                payload.append(',');
+            }
+            payload.append(rut);
+        }
+        if (payload.length() > 0) {
+            notificationBus.publish(CHANNEL, payload.toString());
+        }
+    }
+
+    public void add(String rut) {
+        long key = normalize(rut);
+        if (key < 0) {
+            return;
+        }
+        long h1 = mix(key);
+        long h2 = mix(h1) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current;
+            while (((current = bits.get(word)) & mask) == 0 && !bits.compareAndSet(word, current, current | mask)) {
+                // reintentar hasta que el bit quede marcado
+            }
+        }
+    }
+
+    /**
+     * Marks the filter as ready once every RUT has been added.
+     */
+    public void markReady() {
+        ready = true;
+    }
+
+    @Override
+    public void onNotification(String payload) {
+        // Un aviso trae uno o varios RUT separados por comas
+        int start = 0;
+        for (int comma = payload.indexOf(','); comma >= 0; comma = payload.indexOf(',', start)) {
+            add(payload.substring(start, comma));
+            start = comma + 1;
+        }
+        add(payload.substring(start));
+    }
+
+    @Override
+    public void onListen() {
+        reload();
+    }
+
+    @Override
+    public void onDisconnect() {
+        // Sin LISTEN se pierden los RUT registrados en los otros backends: todo va a la base hasta recargar
+        ready = false;
+        log.info("Registration filter disabled until the notification connection is back");
+    }
+
+    private void reload() {
+        long start = System.nanoTime();
+        int[] loaded = {0};
+        jdbcTemplate.query("SELECT rut FROM clients", rs -> {
+            add(rs.getString(1));
+            loaded[0]++;
+        });
+        markReady();
+        log.info("Loaded {} RUTs into the registration filter in {} ms", loaded[0], (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Turns "12.345.678-5", "12345678-5" or "123456785" into {@code 12345678 * 11 + 5} (K counts as 10).
+     *
+     * @return the key, or -1 when the value is not a RUT
+     */
+    static long normalize(String rut) {
+        if (rut == null) {
+            return -1;
+        }
+        int end = rut.length();
+        while (end > 0 && rut.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        if (end == 0) {
+            return -1;
+        }
+        char last = rut.charAt(end - 1);
+        int verifier;
+        if (last >= '0' && last <= '9') {
+            verifier = last - '0';
+        } else if (last == 'k' || last == 'K') {
+            verifier = 10;
+        } else {
+            return -1;
+        }
+        long body = 0;
+        int digits = 0;
+        for (int i = 0; i < end - 1; i++) {
+            char c = rut.charAt(i);
+            if (c >= '0' && c <= '9') {
+                body = body * 10 + (c - '0');
+                if (++digits > 9) {
+                    return -1;
+                }
+            } else if (c != '.' && c != '-' && c > ' ') {
+                return -1;
+            }
+        }
+        return digits == 0 ? -1 : body * 11 + verifier;
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
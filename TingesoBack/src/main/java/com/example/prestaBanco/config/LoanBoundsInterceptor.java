@@ -0,0 +1,74 @@
+package com.example.prestaBanco.config;
+
+import com.example.prestaBanco.cache.LoanCatalog;
+import com.example.prestaBanco.services.LoanDocumentProfile;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.util.UriComponentsBuilder;
+import org.springframework.web.util.UriUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Early check of the product limits on the credit request uploads.
+ * <p>
+ * The forms repeat term, interest rate and amount in the query string as declaredTerm,
+ * declaredInterestRate and declaredAmount. Multipart parsing is lazy
+ * (spring.servlet.multipart.resolve-lazily), so this runs before any document byte is read and a
+ * request outside the limits is answered with 400 straight away. Only the query string is read here:
+ * getParameter would make the container parse the multipart body. The service checks the real
+ * values again, so clients that do not send these parameters are still validated.
+ */
+public class LoanBoundsInterceptor implements HandlerInterceptor {
+
+    static final Map<String, String> PRODUCTS = Arrays.stream(LoanDocumentProfile.values())
+            .collect(Collectors.toUnmodifiableMap(profile -> "/api/v1/creditRequest/" + profile.form(), LoanDocumentProfile::product));
+
+    private final LoanCatalog loanCatalog;
+
+    public LoanBoundsInterceptor(LoanCatalog loanCatalog) {
+        this.loanCatalog = loanCatalog;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws IOException {
+        String product = PRODUCTS.get(request.getRequestURI().substring(request.getContextPath().length()));
+        if (product == null || request.getQueryString() == null) {
+            return true;
+        }
+        MultiValueMap<String, String> query = UriComponentsBuilder.newInstance().query(request.getQueryString()).build().getQueryParams();
+        String violation;
+        try {
+            Integer term = parse(query.getFirst("declaredTerm"), Integer::valueOf);
+            Double interestRate = parse(query.getFirst("declaredInterestRate"), Double::valueOf);
+            Integer amount = parse(query.getFirst("declaredAmount"), Integer::valueOf);
+            violation = loanCatalog.find(product)
+                    .map(loan -> loan.checkBounds(term, interestRate, amount))
+                    .orElse(null);
+        } catch (NumberFormatException e) {
+            violation = "Valores declarados inválidos";
+        }
+        if (violation == null) {
+            return true;
+        }
+        response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+        response.setHeader(HttpHeaders.CONNECTION, "close");
+        response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.getWriter().write(violation);
+        return false;
+    }
+
+    private static <T> T parse(String value, Function<String, T> parser) {
+        return value == null ? null : parser.apply(UriUtils.decode(value, StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.prestaBanco.config;
+
+import com.example.prestaBanco.cache.LoanCatalog;
+import com.example.prestaBanco.metrics.CreditMetrics;
+import com.example.prestaBanco.metrics.QueryCountInterceptor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    // Opcionales para que los tests de capa web no necesiten el catálogo ni las métricas
+    @Autowired
+    private ObjectProvider<LoanCatalog> loanCatalog;
+
+    @Autowired
+    private ObjectProvider<CreditMetrics> creditMetrics;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        creditMetrics.ifAvailable(metrics -> registry.addInterceptor(new QueryCountInterceptor(metrics))
+                .addPathPatterns("/api/v1/**"));
+        loanCatalog.ifAvailable(catalog -> registry.addInterceptor(new LoanBoundsInterceptor(catalog))
+                .addPathPatterns(LoanBoundsInterceptor.PRODUCTS.keySet().toArray(String[]::new)));
+    }
+}
@@ -1,10 +1,24 @@
 package com.example.prestaBanco.controllers;
 
+import com.example.prestaBanco.dtos.IngestionResult;
+import com.example.prestaBanco.dtos.SimulationBatchRequest;
 import com.example.prestaBanco.entities.ClientEntity;
+import com.example.prestaBanco.services.BulkIngestionService;
 import com.example.prestaBanco.services.ClientService;
+import com.example.prestaBanco.simulation.AmortizationSchedule;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/v1/clients")
@@ -14,6 +28,9 @@ public class ClientController {
     @Autowired
     private ClientService clientService;
 
+    @Autowired
+    private BulkIngestionService bulkIngestionService;
+
     /**
      * Saves a new client.
      *
@@ -28,6 +45,29 @@ public class ClientController {
     }
 
 
+    /**
+     * Loads clients of the previous system in JDBC batches; the RUTs already registered are skipped.
+     *
+     * @param clients the clients to insert
+     * @return how many rows were inserted and skipped, and the throughput
+     */
+    @PostMapping("/bulk")
+    public ResponseEntity<IngestionResult> bulkClients(@RequestBody List<ClientEntity> clients) {
+        return ResponseEntity.ok(bulkIngestionService.ingestClients(clients));
+    }
+
+    /**
+     * Imports clients from a CSV upload (the raw file as the body), read and validated a chunk at a time.
+     *
+     * @param csv the file, with the column names in the first line
+     * @return the rows that were rejected, with their line and reason, and the totals, written as the file is read
+     */
+    @PostMapping(value = "/import", consumes = {"text/csv", MediaType.TEXT_PLAIN_VALUE, MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    public ResponseEntity<StreamingResponseBody> importClients(InputStream csv) {
+        StreamingResponseBody body = out -> bulkIngestionService.importClients(csv, out);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
     /**
      * Simulates a loan calculation.
      *
@@ -41,6 +81,47 @@ public class ClientController {
         return ResponseEntity.ok(clientService.simulation(amount, interestRate, term));
     }
 
+    /**
+     * Simulates many scenarios in one call.
+     *
+     * @param request a list of scenarios, or the amounts, interest rates and terms to combine
+     * @return the scenarios and their monthly payments as parallel arrays
+     */
+    @PostMapping("/simulation/batch")
+    public ResponseEntity<?> simulationBatch(@RequestBody SimulationBatchRequest request) {
+        try {
+            return ResponseEntity.ok(clientService.simulationBatch(request));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    /**
+     * Full amortization schedule of a loan, streamed month by month.
+     *
+     * @param amount the amount of the loan
+     * @param interestRate the annual interest rate of the loan
+     * @param term the term of the loan in years
+     * @param format "json" (default) or "csv"
+     * @return interest, principal, insurance and balance for every month
+     */
+    @GetMapping("/simulation/schedule")
+    public ResponseEntity<StreamingResponseBody> simulationSchedule(@RequestParam int amount, @RequestParam double interestRate, @RequestParam int term,
+                                                                    @RequestParam(defaultValue = "json") String format) {
+        AmortizationSchedule schedule;
+        try {
+            schedule = clientService.simulationSchedule(amount, interestRate, term);
+        } catch (IllegalArgumentException e) {
+            byte[] message = e.getMessage().getBytes(StandardCharsets.UTF_8);
+            return ResponseEntity.badRequest().contentType(MediaType.TEXT_PLAIN).body(out -> out.write(message));
+        }
+        boolean csv = "csv".equalsIgnoreCase(format);
+        StreamingResponseBody body = out -> clientService.writeSchedule(schedule, csv, out);
+        return ResponseEntity.ok()
+                .contentType(csv ? new MediaType("text", "csv") : MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+
     /**
      * statusRequest method to get the status of a request
      * @param rut
@@ -52,18 +133,65 @@ public class ClientController {
         return ResponseEntity.ok(clientService.statusRequestClient(rut));
     }
 
+    /**
+     * Server-sent events with the state changes of the requests of the client, sent as they happen
+     * on any backend. Each event is named "status" and carries the id, the state label and the type of loan.
+     * @param rut
+     * @return the event stream, or 404 if the client does not exist
+     */
+    @GetMapping(value = "/statusRequest/{rut}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> statusRequestEvents(@PathVariable String rut) {
+        return clientService.subscribeStatus(rut)
+                .map(emitter -> ResponseEntity.ok().header("X-Accel-Buffering", "no").body(emitter))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
     @GetMapping("/validateRutAndPassword/{rut}/{password}")
     public ResponseEntity<?> validateRutAndPassword(@PathVariable String rut, @PathVariable String password) {
         return ResponseEntity.ok(clientService.validateClient(rut, password));
     }
 
+    /**
+     * Page of the clients, without their passwords.
+     * @param afterId the nextAfterId of the previous page, omitted for the first page
+     * @param rut filter by the start of the RUT
+     * @param name filter by the start of the name or the last name
+     * @param size the maximum number of rows of the page
+     * @return the page and the cursor of the next one
+     */
     @GetMapping("/allClients")
-    public ResponseEntity<?> allClients() {
-        return ResponseEntity.ok(clientService.allClients());
+    public ResponseEntity<?> allClients(@RequestParam(required = false) Long afterId,
+                                        @RequestParam(required = false) String rut,
+                                        @RequestParam(required = false) String name,
+                                        @RequestParam(defaultValue = "50") int size) {
+        return ResponseEntity.ok(clientService.getClientPage(afterId, rut, name, size));
+    }
+
+    /**
+     * Full export of the clients, streamed as a JSON array.
+     * @param rut filter by the start of the RUT
+     * @param name filter by the start of the name or the last name
+     * @return the rows, written while they are read from the database
+     */
+    @GetMapping("/allClients/export")
+    public ResponseEntity<StreamingResponseBody> exportClients(@RequestParam(required = false) String rut,
+                                                               @RequestParam(required = false) String name) {
+        StreamingResponseBody body = out -> clientService.exportClients(rut, name, out);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
     }
 
     @GetMapping("/validateRut/{rut}")
     public ResponseEntity<?> validateRut(@PathVariable String rut) {
         return ResponseEntity.ok(clientService.validateRut(rut));
     }
+
+    /**
+     * This backend has too many event streams open: the browser retries on its own.
+     */
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<String> tooManyStreams(RejectedExecutionException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "5")
+                .body("Hay demasiadas conexiones abiertas, intenta nuevamente en unos segundos");
+    }
 }
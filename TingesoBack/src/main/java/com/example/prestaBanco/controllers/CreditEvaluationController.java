@@ -1,34 +1,142 @@
 package com.example.prestaBanco.controllers;
 
+import com.example.prestaBanco.dtos.EvaluationTicket;
+import com.example.prestaBanco.dtos.RuleEvaluationRequest;
+import com.example.prestaBanco.dtos.RuleEvaluationResult;
 import com.example.prestaBanco.entities.CreditEvaluationEntity;
+import com.example.prestaBanco.entities.RescoreJobEntity;
+import com.example.prestaBanco.evaluation.CreditRuleEngine;
 import com.example.prestaBanco.services.CreditEvaluationService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
 @RestController
 @RequestMapping("api/v1/creditEvaluation")
 @CrossOrigin("*")
 public class CreditEvaluationController {
 
+    // Máximo de espera de una consulta, por debajo del timeout de las peticiones asíncronas
+    private static final long MAX_WAIT_SECONDS = 25;
+
     @Autowired
     private CreditEvaluationService creditEvaluationService;
 
 
+    /**
+     * Queues the evaluation and answers 202 with the ticket; its Location is where to poll the result.
+     * @param evaluation
+     * @return the pending ticket
+     */
     @PostMapping("/dataEvaluation")
-    public ResponseEntity<?> dataEvaluation(@RequestBody CreditEvaluationEntity evaluation) {
-        return ResponseEntity.ok(creditEvaluationService.evaluateCredit(evaluation));
+    public ResponseEntity<EvaluationTicket> dataEvaluation(@RequestBody CreditEvaluationEntity evaluation) {
+        EvaluationTicket ticket = creditEvaluationService.submitEvaluation(evaluation);
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/v1/creditEvaluation/dataEvaluation/" + ticket.ticket()))
+                .body(ticket);
     }
 
-    @GetMapping("/totalCosts/{id}")
-    public ResponseEntity<?> totalCosts(@PathVariable Long id) {
-        return ResponseEntity.ok(creditEvaluationService.calculateTotalCosts(id));
+    /**
+     * State of a queued evaluation. With wait (seconds, at most 25) a pending evaluation is answered when
+     * it is saved, without holding a request thread meanwhile.
+     * @param ticket
+     * @param wait
+     * @return the ticket, or 404 if it does not exist
+     */
+    @GetMapping("/dataEvaluation/{ticket}")
+    public CompletableFuture<ResponseEntity<EvaluationTicket>> evaluationStatus(@PathVariable String ticket,
+                                                                                @RequestParam(defaultValue = "0") long wait) {
+        Duration timeout = Duration.ofSeconds(Math.min(Math.max(wait, 0), MAX_WAIT_SECONDS));
+        return creditEvaluationService.awaitEvaluation(ticket, timeout)
+                .thenApply(result -> result.map(ResponseEntity::ok).orElseGet(() -> ResponseEntity.notFound().build()));
     }
 
+    /**
+     * Scores credit requests with the current policy, without saving anything. Requests sent without
+     * applicant are scored with the inputs saved with their last evaluation.
+     * @param requests
+     * @param mode FULL_REPORT (the default) or SHORT_CIRCUIT
+     * @return one result per request, in the same order
+     */
+    @PostMapping("/rules/evaluate")
+    public ResponseEntity<List<RuleEvaluationResult>> evaluateRules(@RequestBody List<RuleEvaluationRequest> requests,
+                                                                    @RequestParam(defaultValue = "FULL_REPORT") CreditRuleEngine.Mode mode) {
+        return ResponseEntity.ok(creditEvaluationService.scoreRequests(requests, mode));
+    }
 
+    /**
+     * Starts re-scoring every request in evaluation or pre-approved with the current policy. Answers 202;
+     * its Location is where to follow the progress.
+     * @param mode FULL_REPORT (the default) or SHORT_CIRCUIT
+     * @return the new job
+     */
+    @PostMapping("/rescore")
+    public ResponseEntity<RescoreJobEntity> startRescore(@RequestParam(defaultValue = "FULL_REPORT") CreditRuleEngine.Mode mode) {
+        RescoreJobEntity job = creditEvaluationService.startRescore(mode);
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/v1/creditEvaluation/rescore/" + job.getId()))
+                .body(job);
+    }
 
+    /**
+     * Progress of the last re-scoring job.
+     */
+    @GetMapping("/rescore")
+    public ResponseEntity<RescoreJobEntity> lastRescore() {
+        return ResponseEntity.of(creditEvaluationService.getRescore(null));
+    }
 
+    @GetMapping("/rescore/{id}")
+    public ResponseEntity<RescoreJobEntity> rescore(@PathVariable Long id) {
+        return ResponseEntity.of(creditEvaluationService.getRescore(id));
+    }
 
+    /**
+     * Continues a failed or stalled re-scoring job from the last request it saved.
+     */
+    @PostMapping("/rescore/{id}/resume")
+    public ResponseEntity<RescoreJobEntity> resumeRescore(@PathVariable Long id) {
+        return creditEvaluationService.resumeRescore(id)
+                .map(job -> ResponseEntity.accepted().body(job))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
 
+    @GetMapping("/totalCosts/{id}")
+    public ResponseEntity<?> totalCosts(@PathVariable Long id) {
+        return ResponseEntity.ok(creditEvaluationService.calculateTotalCosts(id));
+    }
 
+    /**
+     * Too many requests to score, or requests that do not exist, are answered with 400.
+     */
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> invalidRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+
+    /**
+     * A re-scoring job is already running.
+     */
+    @ExceptionHandler(IllegalStateException.class)
+    public ResponseEntity<String> conflict(IllegalStateException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+    }
+
+    /**
+     * The queue is full: the client should retry shortly.
+     */
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<String> queueFull(RejectedExecutionException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body("Hay demasiadas evaluaciones en curso, intenta nuevamente en unos segundos");
+    }
 }
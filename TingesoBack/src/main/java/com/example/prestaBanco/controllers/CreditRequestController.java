@@ -1,16 +1,37 @@
 package com.example.prestaBanco.controllers;
 
+import com.example.prestaBanco.cache.LoanProduct;
+import com.example.prestaBanco.dtos.DocumentCompressionStats;
+import com.example.prestaBanco.dtos.DocumentStorageStats;
+import com.example.prestaBanco.dtos.HistoricalRequest;
+import com.example.prestaBanco.dtos.IngestionResult;
+import com.example.prestaBanco.entities.CreditDocumentEntity;
+import com.example.prestaBanco.services.BulkIngestionService;
 import com.example.prestaBanco.services.CreditRequestService;
+import com.example.prestaBanco.services.LoanDocumentProfile;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
 import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
 
 
 @RestController
@@ -21,165 +42,162 @@ public class CreditRequestController {
     @Autowired
     private CreditRequestService creditRequestService;
 
+    @Autowired
+    private BulkIngestionService bulkIngestionService;
+
 
     /**
-     * Saves a new credit request for a first house.
+     * Saves a new credit request from one of the loan forms (firstHouse, secondHouse, commercialProperty
+     * or remodeling). The documents each form must attach are listed in {@link LoanDocumentProfile}.
+     * @param form
      * @param rut
      * @param typeLoan
      * @param term
      * @param interestRate
      * @param maximumAmount
-     * @param proofIncome
-     * @param creditHistory
-     * @param appraisalCertificate
-     * @param bankAccountState
-     * @param workCertificate
+     * @param documents the uploaded documents by document type (proofIncome, workCertificate...)
      * @return the saved credit request entity
      * @throws IOException
      */
-    @PostMapping("/firstHouse")
-    public ResponseEntity<?> firstHouse(
+    @PostMapping("/{form:firstHouse|secondHouse|commercialProperty|remodeling}")
+    public ResponseEntity<?> createRequest(
+            @PathVariable String form,
             @RequestParam("rut") String rut,
             @RequestParam("typeLoan") String typeLoan,
             @RequestParam("term") int term,
             @RequestParam("interestRate") double interestRate,
             @RequestParam("maximumAmount") int maximumAmount,
-            @RequestParam("proofIncome") MultipartFile proofIncome,
-            @RequestParam("creditHistory") MultipartFile creditHistory,
-            @RequestParam("appraisalCertificate") MultipartFile appraisalCertificate,
-            @RequestParam("bankAccountState") MultipartFile bankAccountState,
-            @RequestParam("workCertificate") MultipartFile workCertificate) throws IOException {
-        return ResponseEntity.ok(creditRequestService.saveFirstHouse(rut, typeLoan, term, interestRate, maximumAmount, proofIncome, creditHistory, appraisalCertificate, bankAccountState, workCertificate));
+            @RequestParam Map<String, MultipartFile> documents) throws IOException {
+        LoanDocumentProfile profile = LoanDocumentProfile.fromForm(form).orElseThrow();
+        return ResponseEntity.ok(creditRequestService.createRequest(profile, rut, typeLoan, term, interestRate, maximumAmount, documents));
     }
 
 
     /**
-     *  Saves a new credit request for a second house.
-     * @param rut
-     * @param typeLoan
-     * @param term
-     * @param interestRate
-     * @param maximumAmount
-     * @param proofIncome
-     * @param creditHistory
-     * @param appraisalCertificate
-     * @param propertyWriting
-     * @param bankAccountState
-     * @param workCertificate
-     * @return the saved credit request entity
-     * @throws IOException
+     * Loads credit requests of the previous system in JDBC batches, without documents or evaluation.
+     *
+     * @param requests the requests, each with the RUT of a registered client
+     * @return how many rows were inserted and skipped (client not found), and the throughput
      */
-    @PostMapping("/secondHouse")
-    public ResponseEntity<?> secondHouse(
-            @RequestParam("rut") String rut,
-            @RequestParam("typeLoan") String typeLoan,
-            @RequestParam("term") int term,
-            @RequestParam("interestRate") double interestRate,
-            @RequestParam("maximumAmount") int maximumAmount,
-            @RequestParam("proofIncome") MultipartFile proofIncome,
-            @RequestParam("creditHistory") MultipartFile creditHistory,
-            @RequestParam("appraisalCertificate") MultipartFile appraisalCertificate,
-            @RequestParam("propertyWriting") MultipartFile propertyWriting,
-            @RequestParam("bankAccountState") MultipartFile bankAccountState,
-            @RequestParam("workCertificate") MultipartFile workCertificate) throws IOException {
-        return ResponseEntity.ok(creditRequestService.saveSecondHouse(rut, typeLoan, term, interestRate, maximumAmount, proofIncome, creditHistory, appraisalCertificate, propertyWriting, bankAccountState, workCertificate));
+    @PostMapping("/bulk")
+    public ResponseEntity<IngestionResult> bulkRequests(@RequestBody List<HistoricalRequest> requests) {
+        return ResponseEntity.ok(bulkIngestionService.ingestRequests(requests));
     }
 
-
     /**
-     * Saves a new credit request for a commercial property.
-     * @param rut
-     * @param typeLoan
-     * @param term
-     * @param interestRate
-     * @param maximumAmount
-     * @param proofIncome
-     * @param appraisalCertificate
-     * @param businessFinancialStatement
-     * @param businessPlan
-     * @param bankAccountState
-     * @param workCertificate
-     * @return the saved credit request entity
-     * @throws IOException
+     * Page of the requests with their client, for the executive dashboard.
+     * @param afterId the nextAfterId of the previous page, omitted for the first page
+     * @param status filter by state of the request
+     * @param typeLoan filter by type of loan
+     * @param size the maximum number of rows of the page
+     * @return the page and the cursor of the next one
      */
-    @PostMapping("/commercialProperty")
-    public ResponseEntity<?> commercialProperty(
-            @RequestParam("rut") String rut,
-            @RequestParam("typeLoan") String typeLoan,
-            @RequestParam("term") int term,
-            @RequestParam("interestRate") double interestRate,
-            @RequestParam("maximumAmount") int maximumAmount,
-            @RequestParam("proofIncome") MultipartFile proofIncome,
-            @RequestParam("appraisalCertificate") MultipartFile appraisalCertificate,
-            @RequestParam("businessFinancialStatement") MultipartFile businessFinancialStatement,
-            @RequestParam("businessPlan") MultipartFile businessPlan,
-            @RequestParam("bankAccountState") MultipartFile bankAccountState,
-            @RequestParam("workCertificate") MultipartFile workCertificate) throws IOException {
-        return ResponseEntity.ok(creditRequestService.saveCommercialProperty(rut, typeLoan, term, interestRate, maximumAmount, proofIncome, appraisalCertificate, businessFinancialStatement, businessPlan, bankAccountState, workCertificate));
+    @GetMapping("/requestStatus")
+    public ResponseEntity<?> requestStatusPage(@RequestParam(required = false) Long afterId,
+                                               @RequestParam(required = false) String status,
+                                               @RequestParam(required = false) String typeLoan,
+                                               @RequestParam(defaultValue = "50") int size) {
+        return ResponseEntity.ok(creditRequestService.getCreditStatusPage(afterId, status, typeLoan, size));
     }
 
-
     /**
-     * Saves a new credit request for a remodeling.
-     * @param rut
-     * @param typeLoan
-     * @param term
-     * @param interestRate
-     * @param maximumAmount
-     * @param proofIncome
-     * @param appraisalCertificate
-     * @param remodelingBudget
-     * @param bankAccountState
-     * @param workCertificate
-     * @return the saved credit request entity
-     * @throws IOException
+     * Full export of the requests with their client, streamed as a JSON array.
+     * @param status filter by state of the request
+     * @param typeLoan filter by type of loan
+     * @return the rows, written while they are read from the database
      */
-    @PostMapping("/remodeling")
-    public ResponseEntity<?> remodeling(
-            @RequestParam("rut") String rut,
-            @RequestParam("typeLoan") String typeLoan,
-            @RequestParam("term") int term,
-            @RequestParam("interestRate") double interestRate,
-            @RequestParam("maximumAmount") int maximumAmount,
-            @RequestParam("proofIncome") MultipartFile proofIncome,
-            @RequestParam("appraisalCertificate") MultipartFile appraisalCertificate,
-            @RequestParam("remodelingBudget") MultipartFile remodelingBudget,
-            @RequestParam("bankAccountState") MultipartFile bankAccountState,
-            @RequestParam("workCertificate") MultipartFile workCertificate) throws IOException {
-        return ResponseEntity.ok(creditRequestService.saveRemodeling(rut, typeLoan, term, interestRate, maximumAmount, proofIncome, appraisalCertificate, remodelingBudget, bankAccountState, workCertificate));
-    }
-
-
-    @GetMapping("/allRquestStatus/")
-    public ResponseEntity<?> allRequestStatus() {
-        return ResponseEntity.ok(creditRequestService.getClientsWithCreditStatus());
+    @GetMapping("/requestStatus/export")
+    public ResponseEntity<StreamingResponseBody> exportRequestStatus(@RequestParam(required = false) String status,
+                                                                     @RequestParam(required = false) String typeLoan) {
+        StreamingResponseBody body = out -> creditRequestService.exportCreditStatus(status, typeLoan, out);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
     }
 
 
+    /**
+     * Streams a document of the credit request from the document store.
+     * Range requests are answered with 206 and only the requested bytes, and the SHA-256 of the
+     * document is used as ETag so that If-None-Match revalidations are answered with 304.
+     * @param id
+     * @param documentType
+     * @return the document content
+     * @throws IOException
+     */
     @GetMapping("/{id}/documents/{documentType}")
-    public ResponseEntity<byte[]> getSpecificCreditDocument(@PathVariable Long id, @PathVariable String documentType) throws IOException {
-        Optional<byte[]> documentBytesOpt = creditRequestService.getCreditDocumentByType(id, documentType);
-
-        if (documentBytesOpt.isPresent()) {
-            byte[] documentBytes = documentBytesOpt.get();
+    public ResponseEntity<Resource> getSpecificCreditDocument(@PathVariable Long id, @PathVariable String documentType) throws IOException {
+        Optional<CreditDocumentEntity> documentOpt = creditRequestService.getCreditDocumentByType(id, documentType);
 
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
-            headers.setContentDispositionFormData("attachment", documentType + ".pdf");
-            headers.setContentLength(documentBytes.length);
+        if (documentOpt.isPresent()) {
+            CreditDocumentEntity document = documentOpt.get();
+            String fileName = document.getFileName() != null ? document.getFileName() : documentType + ".pdf";
 
-            return new ResponseEntity<>(documentBytes, headers, HttpStatus.OK);
+            return ResponseEntity.ok()
+                    .contentType(contentType(document, fileName))
+                    .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(fileName, StandardCharsets.UTF_8).build().toString())
+                    .eTag(document.getSha256())
+                    .cacheControl(CacheControl.noCache().cachePrivate())
+                    .body(creditRequestService.getDocumentContent(document));
         }
 
         return ResponseEntity.notFound().build();
     }
 
+    private MediaType contentType(CreditDocumentEntity document, String fileName) {
+        if (document.getContentType() != null) {
+            try {
+                return MediaType.parseMediaType(document.getContentType());
+            } catch (InvalidMediaTypeException e) {
+                // se usa el tipo según la extensión del archivo
+            }
+        }
+        return MediaTypeFactory.getMediaType(fileName).orElse(MediaType.APPLICATION_OCTET_STREAM);
+    }
+
+    /**
+     * Space used by the documents: uncompressed, on disk, and with one copy per request document.
+     */
+    @GetMapping("/documents/stats")
+    public ResponseEntity<DocumentStorageStats> documentStorageStats() {
+        return ResponseEntity.ok(creditRequestService.getDocumentStorageStats());
+    }
+
+    /**
+     * Codec, size on disk and write time of each document of a request.
+     * @param id
+     * @return the compression of each document, by document type
+     */
+    @GetMapping("/{id}/documents/compression")
+    public ResponseEntity<List<DocumentCompressionStats>> documentCompression(@PathVariable Long id) {
+        return ResponseEntity.ok(creditRequestService.getDocumentCompression(id));
+    }
+
     @GetMapping("/getRequest/{id}")
     public ResponseEntity<?> getRequest(@PathVariable Long id) {
         return ResponseEntity.ok(creditRequestService.getRequest(id));
     }
 
 
+    /**
+     * Number of requests in each state, for the executive dashboard.
+     * @return the state labels with their count
+     */
+    @GetMapping("/requestStatus/counts")
+    public ResponseEntity<?> requestStatusCounts() {
+        return ResponseEntity.ok(creditRequestService.getStateCounts());
+    }
+
+
+    /**
+     * Server-sent events with the state changes of every request, sent as they happen on any backend.
+     * Each event is named "status" and carries the id, the state label and the type of loan.
+     * @return the event stream
+     */
+    @GetMapping(value = "/requestStatus/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> requestStatusEvents() {
+        return ResponseEntity.ok().header("X-Accel-Buffering", "no").body(creditRequestService.subscribeStatus());
+    }
+
+
     @PutMapping("/EditStatus/{id}/{state}")
     public ResponseEntity<?> editStatus(@PathVariable String state, @PathVariable Long id) {
         return ResponseEntity.ok(creditRequestService.editStatus(state, id));
@@ -187,16 +205,59 @@ public class CreditRequestController {
 
 
     @DeleteMapping("/delete/{id}")
-    public ResponseEntity<?> deleteRequest(@PathVariable Long id) {
+    public ResponseEntity<?> deleteRequest(@PathVariable Long id) throws IOException {
         return ResponseEntity.ok(creditRequestService.deleteRequest(id));
     }
 
+    /**
+     * Term and interest range of a loan product. The answer comes from the in-memory catalog; browsers
+     * keep it for a minute and then revalidate with If-None-Match, getting a 304 while it is unchanged.
+     * @param loanType the form code (firstHome) or the display name (Primera Vivienda)
+     * @return the product information, or an empty object if the product does not exist
+     */
     @GetMapping("/loanTypes/{loanType}")
     public ResponseEntity<?> getLoanTypes(@PathVariable String loanType) {
-        return ResponseEntity.ok(creditRequestService.getLoanTypeInfo(loanType));
+        Optional<LoanProduct> product = creditRequestService.getLoanProduct(loanType);
+        if (product.isEmpty()) {
+            return ResponseEntity.ok(Map.of());
+        }
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(Duration.ofMinutes(1)).cachePublic())
+                .eTag(product.get().etag())
+                .body(product.get().info());
     }
 
+    /**
+     * Validation errors of the service (limits of the product, missing documents) are answered with 400.
+     */
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> invalidRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
 
+    /**
+     * A move between states that is not allowed is answered with 409.
+     */
+    @ExceptionHandler(IllegalStateException.class)
+    public ResponseEntity<String> invalidTransition(IllegalStateException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+    }
 
+    /**
+     * The request was changed by someone else between reading and saving it.
+     */
+    @ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+    public ResponseEntity<String> concurrentChange(ObjectOptimisticLockingFailureException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body("La solicitud fue modificada por otro usuario, vuelva a cargarla");
+    }
 
+    /**
+     * This backend has too many event streams open: the browser retries on its own.
+     */
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<String> tooManyStreams(RejectedExecutionException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "5")
+                .body("Hay demasiadas conexiones abiertas, intenta nuevamente en unos segundos");
+    }
 }
@@ -0,0 +1,10 @@
+package com.example.prestaBanco.dtos;
+
+import java.util.List;
+
+/**
+ * A page of the client listing. {@code nextAfterId} is the cursor for the next page,
+ * or null when there are no more rows.
+ */
+public record ClientPage(List<ClientSummary> items, Long nextAfterId) {
+}
@@ -0,0 +1,7 @@
+package com.example.prestaBanco.dtos;
+
+/**
+ * One row of the client listing: the contact data of the client, without its password.
+ */
+public record ClientSummary(Long id, String rut, String name, String lastName, String email) {
+}
@@ -0,0 +1,9 @@
+package com.example.prestaBanco.dtos;
+
+import com.example.prestaBanco.entities.RequestState;
+
+/**
+ * One row of the executive listing: a credit request together with the client that filed it.
+ */
+public record CreditStatusRow(Long id, String rut, String name, String lastName, String typeLoan, RequestState status) {
+}
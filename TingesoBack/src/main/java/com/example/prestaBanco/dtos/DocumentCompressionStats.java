@@ -0,0 +1,12 @@
+package com.example.prestaBanco.dtos;
+
+/**
+ * How a document of a request is stored: its size, what it takes on disk with the chosen codec, and
+ * the time spent hashing, compressing and writing it when it was uploaded.
+ */
+public record DocumentCompressionStats(String documentType, String codec, long size, long storedSize, double ratio, long writeMicros) {
+
+    public DocumentCompressionStats(String documentType, String codec, long size, long storedSize, long writeMicros) {
+        this(documentType, codec, size, storedSize, size == 0 ? 1.0 : (double) storedSize / size, writeMicros);
+    }
+}
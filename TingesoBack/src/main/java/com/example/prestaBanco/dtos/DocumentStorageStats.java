@@ -0,0 +1,9 @@
+package com.example.prestaBanco.dtos;
+
+/**
+ * Space used by the documents: {@code storedBytes} is their uncompressed size, {@code diskBytes} what
+ * the store actually holds once compressed, and {@code referencedBytes} what it would hold with one
+ * uncompressed copy per request document.
+ */
+public record DocumentStorageStats(long documents, long references, long storedBytes, long diskBytes, long referencedBytes) {
+}
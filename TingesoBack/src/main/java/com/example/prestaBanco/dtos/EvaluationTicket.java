@@ -0,0 +1,17 @@
+package com.example.prestaBanco.dtos;
+
+/**
+ * Acknowledgment of a queued credit evaluation, and its state when polled.
+ * {@code state} is the code the request moves to (E4 or E7); {@code evaluationId} is only set once the
+ * evaluation has been saved, and {@code message} once it is DONE or FAILED.
+ */
+public record EvaluationTicket(String ticket, String status, String state, Long evaluationId, String message) {
+
+    public static final String PENDING = "PENDING";
+    public static final String DONE = "DONE";
+    public static final String FAILED = "FAILED";
+
+    public static EvaluationTicket pending(String ticket, String state) {
+        return new EvaluationTicket(ticket, PENDING, state, null, null);
+    }
+}
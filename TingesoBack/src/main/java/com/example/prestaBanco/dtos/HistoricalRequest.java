@@ -0,0 +1,11 @@
+package com.example.prestaBanco.dtos;
+
+import com.example.prestaBanco.entities.RequestState;
+
+/**
+ * A credit request of the previous system, loaded by the bulk ingestion. The client is found by
+ * {@code rut}; a null state is stored as "En Revisión Inicial".
+ */
+public record HistoricalRequest(String rut, String typeLoan, int term, double interestRate, int maximumAmount,
+                                RequestState state) {
+}
@@ -0,0 +1,8 @@
+package com.example.prestaBanco.dtos;
+
+/**
+ * A row of an import that was not inserted: the line of the file where it starts, its RUT when it
+ * could be read, and why it was rejected.
+ */
+public record ImportError(long line, String rut, String message) {
+}
@@ -0,0 +1,21 @@
+package com.example.prestaBanco.dtos;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk ingestion: rows received, rows inserted, rows skipped (RUT already registered,
+ * or client not found), the RUTs of the skipped rows in the order received, and how long it took.
+ */
+public record IngestionResult(int received, int inserted, int skipped, List<String> skippedRuts,
+                              long elapsedMillis, long rowsPerSecond) {
+
+    public static IngestionResult of(int received, int inserted, long startNanos) {
+        return of(received, inserted, List.of(), startNanos);
+    }
+
+    public static IngestionResult of(int received, int inserted, List<String> skippedRuts, long startNanos) {
+        long elapsedNanos = Math.max(1, System.nanoTime() - startNanos);
+        return new IngestionResult(received, inserted, received - inserted, skippedRuts, elapsedNanos / 1_000_000,
+                inserted * 1_000_000_000L / elapsedNanos);
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.prestaBanco.dtos;
+
+import com.example.prestaBanco.entities.RequestState;
+
+/**
+ * Data of a "status" server-sent event: the request and the label of its new state.
+ */
+public record RequestStatusEvent(Long id, RequestState status, String typeLoan) {
+}
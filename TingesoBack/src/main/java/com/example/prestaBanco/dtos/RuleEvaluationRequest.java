@@ -0,0 +1,10 @@
+package com.example.prestaBanco.dtos;
+
+import com.example.prestaBanco.entities.ApplicantProfile;
+
+/**
+ * A credit request to score with the evaluation rules. Without {@code applicant} the inputs saved with
+ * the last evaluation of the request are used.
+ */
+public record RuleEvaluationRequest(Long requestId, ApplicantProfile applicant) {
+}
@@ -0,0 +1,10 @@
+package com.example.prestaBanco.dtos;
+
+import java.util.Map;
+
+/**
+ * Score of a credit request. {@code criteria} has the criteria that were evaluated, by the name of the
+ * field of the evaluation form; a short-circuit evaluation only lists them up to the first one not met.
+ */
+public record RuleEvaluationResult(Long requestId, boolean approved, String state, Map<String, Boolean> criteria) {
+}
@@ -0,0 +1,11 @@
+package com.example.prestaBanco.dtos;
+
+import java.util.List;
+
+/**
+ * Scenarios of a batch simulation, either as an explicit list or as a grid.
+ * With {@code scenarios} every entry is evaluated as given; otherwise every combination of
+ * {@code interestRates} x {@code terms} x {@code amounts} is evaluated, amounts varying fastest.
+ */
+public record SimulationBatchRequest(List<SimulationScenario> scenarios, int[] amounts, double[] interestRates, int[] terms) {
+}
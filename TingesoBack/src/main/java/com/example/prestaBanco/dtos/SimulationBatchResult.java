@@ -0,0 +1,8 @@
+package com.example.prestaBanco.dtos;
+
+/**
+ * Columnar result of a batch simulation: row i is
+ * {@code amount[i], interestRate[i], term[i] -> monthlyPayment[i]}.
+ */
+public record SimulationBatchResult(int[] amount, double[] interestRate, int[] term, int[] monthlyPayment) {
+}
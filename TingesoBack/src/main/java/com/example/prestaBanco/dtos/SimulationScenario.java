@@ -0,0 +1,7 @@
+package com.example.prestaBanco.dtos;
+
+/**
+ * One amount / annual rate / term (years) combination of a batch simulation.
+ */
+public record SimulationScenario(int amount, double interestRate, int term) {
+}
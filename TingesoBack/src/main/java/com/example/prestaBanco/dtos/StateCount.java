@@ -0,0 +1,9 @@
+package com.example.prestaBanco.dtos;
+
+import com.example.prestaBanco.entities.RequestState;
+
+/**
+ * Number of requests in a state; {@code state} is null for the legacy requests without a recognised state.
+ */
+public record StateCount(RequestState state, long count) {
+}
@@ -0,0 +1,45 @@
+package com.example.prestaBanco.entities;
+
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Inputs of the applicant used by the evaluation rules. They are stored with the evaluation, so a
+ * request can be scored again when the policy changes. Every field is optional; a criterion whose
+ * inputs are missing is not met.
+ */
+@Embeddable
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ApplicantProfile {
+
+    // Ingresos y deudas mensuales
+    private Long monthlyIncome;
+    private Long currentDebts;
+
+    // Valor de tasación de la propiedad
+    private Long propertyValue;
+
+    // Antigüedad laboral (años); los independientes acreditan años de ingresos estables
+    private Double employmentYears;
+    private Boolean selfEmployed;
+    private Double incomeHistoryYears;
+
+    // Morosidades o deudas impagas recientes en DICOM
+    private Boolean recentDelinquencies;
+
+    private LocalDate birthDate;
+
+    // Cuenta de ahorros
+    private Long savingsBalance;
+    private Double savingsAccountYears;
+    private Long monthlyDeposits;
+    // Mayor retiro, en % del saldo, de los últimos 12 y 6 meses
+    private Double maxWithdrawal12m;
+    private Double maxWithdrawal6m;
+}
@@ -14,8 +14,10 @@ import java.time.LocalDate;
 @NoArgsConstructor
 public class ClientEntity {
 
+    // Secuencia con ids de a 50: Hibernate reserva un bloque por consulta y puede agrupar los INSERT en lotes JDBC
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "clients_seq")
+    @SequenceGenerator(name = "clients_seq", sequenceName = "clients_seq", allocationSize = 50)
     @Column(unique = true, nullable = false)
     private Long id;
 
@@ -26,7 +28,4 @@ public class ClientEntity {
     private LocalDate dateOfBirth;
     private String email;
 
-    private String ListRequestId;
-
-
 }
@@ -0,0 +1,31 @@
+package com.example.prestaBanco.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Document attached to a credit request. Only the reference to the document store is kept here,
+ * in its own table, so reading or updating a request never loads its documents.
+ */
+@Entity
+@Table(name = "credit_document")
+@IdClass(CreditDocumentId.class)
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CreditDocumentEntity {
+
+    @Id
+    private Long requestId;
+
+    @Id
+    private String documentType;
+
+    private String storageId;
+    private long size;
+    private String sha256;
+    private String contentType;
+    private String fileName;
+}
@@ -0,0 +1,16 @@
+package com.example.prestaBanco.entities;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CreditDocumentId implements Serializable {
+
+    private Long requestId;
+    private String documentType;
+}
@@ -5,8 +5,13 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.UUID;
+
 @Entity
-@Table(name = "credit_evaluation")
+@Table(name = "credit_evaluation", indexes = {
+        @Index(name = "idx_credit_evaluation_ticket", columnList = "ticket"),
+        @Index(name = "idx_credit_evaluation_request", columnList = "id_rquest, id")
+})
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
@@ -27,6 +32,13 @@ public class CreditEvaluationEntity {
 
     private long idRquest;
 
+    // Ticket de la cola de evaluaciones, para consultar el resultado desde cualquier backend
+    private UUID ticket;
+
+    // Datos del solicitante con los que el servidor calculó la evaluación (vacíos si la envió el formulario)
+    @Embedded
+    private ApplicantProfile applicant;
+
     //----------------------------------------------
 
 
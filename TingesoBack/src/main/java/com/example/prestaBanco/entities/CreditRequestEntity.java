@@ -7,40 +7,34 @@ import lombok.NoArgsConstructor;
 
 @Entity
 @Data
-@Table(name = "form_credit")
+@Table(name = "form_credit", indexes = {
+        @Index(name = "idx_form_credit_client_id", columnList = "client_id"),
+        @Index(name = "idx_form_credit_state", columnList = "state, id")
+})
 @NoArgsConstructor
 @AllArgsConstructor
 public class CreditRequestEntity {
 
+    // Secuencia con ids de a 50: Hibernate reserva un bloque por consulta y puede agrupar los INSERT en lotes JDBC
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "form_credit_seq")
+    @SequenceGenerator(name = "form_credit_seq", sequenceName = "form_credit_seq", allocationSize = 50)
     private Long id;
 
+    @Column(name = "client_id")
+    private Long clientId;
+
     // datos prestamo
     String typeLoan;
     int term;
     double interestRate;
     int maximumAmount;
 
-    // Documentos requeridos
-    @Lob
-    private byte[] proofIncome;
-    @Lob
-    private byte[] appraisalCertificate;
-    @Lob
-    private byte[] creditHistory;
-    @Lob
-    private byte[] propertyWriting;
-    @Lob
-    private byte[] businessFinancialStatement;
-    @Lob
-    private byte[] businessPlan;
-    @Lob
-    private byte[] remodelingBudget;
-    @Lob
-    private byte[] bankAccountState;
-    @Lob
-    private byte[] workCertificate;
+    // Estado como smallint (ver RequestState); la descripción se resuelve al responder
+    @Column(name = "state")
+    private RequestState StateRequest;
 
-    private String StateRequest;
+    // Bloqueo optimista: dos cambios de estado simultáneos no se pisan
+    @Version
+    private Long version;
 }
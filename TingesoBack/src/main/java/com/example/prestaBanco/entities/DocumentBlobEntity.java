@@ -0,0 +1,33 @@
+package com.example.prestaBanco.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A document of the store and how many request documents point to it. Identical uploads share one
+ * stored copy; it is deleted when the last reference is released (see DocumentReferences).
+ */
+@Entity
+@Table(name = "document_blob")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class DocumentBlobEntity {
+
+    // Id en el almacén: el SHA-256 del contenido (los documentos anteriores conservan su UUID)
+    @Id
+    private String storageId;
+
+    private String sha256;
+    private long size;
+    // Cómo está guardado (NONE, GZIP) y cuánto ocupa en disco; nulos en las filas anteriores a la compresión
+    private String codec;
+    private Long storedSize;
+    private Long writeMicros;
+    private int refCount;
+    private LocalDateTime createdAt;
+}
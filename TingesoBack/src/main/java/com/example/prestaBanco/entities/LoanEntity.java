@@ -17,6 +17,7 @@ public class LoanEntity {
     private Long id;
 
     String typeLoan;
+    String name;
     double maximumTerm;
     double interestRateMin;
     double interestRateMax;
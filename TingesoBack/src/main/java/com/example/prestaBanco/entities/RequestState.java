@@ -0,0 +1,138 @@
+package com.example.prestaBanco.entities;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * State of a credit request. It is stored as its number (a smallint, see {@link RequestStateConverter}),
+ * the forms and the API use the code (E1 to E9), and the label is what the JSON shows.
+ */
+public enum RequestState {
+
+    INITIAL_REVIEW(1, "En Revisión Inicial."),
+    PENDING_DOCUMENTATION(2, "Pendiente de Documentación"),
+    IN_EVALUATION(3, "En Evaluación"),
+    PRE_APPROVED(4, "Pre-Aprobada"),
+    FINAL_APPROVAL(5, "En Aprobación Final"),
+    APPROVED(6, "Aprobada"),
+    REJECTED(7, "Rechazada"),
+    CANCELLED(8, "Cancelada por el Cliente"),
+    DISBURSEMENT(9, "En Desembolso");
+
+    private static final RequestState[] BY_ID = new RequestState[values().length + 1];
+    private static final Map<RequestState, Set<RequestState>> TRANSITIONS = new EnumMap<>(RequestState.class);
+
+    static {
+        for (RequestState state : values()) {
+            BY_ID[state.id] = state;
+        }
+        // Desde cada estado, los estados a los que se puede pasar. Rechazada, Cancelada y En Desembolso son finales
+        TRANSITIONS.put(INITIAL_REVIEW, EnumSet.of(PENDING_DOCUMENTATION, IN_EVALUATION, PRE_APPROVED, REJECTED, CANCELLED));
+        TRANSITIONS.put(PENDING_DOCUMENTATION, EnumSet.of(INITIAL_REVIEW, IN_EVALUATION, PRE_APPROVED, REJECTED, CANCELLED));
+        TRANSITIONS.put(IN_EVALUATION, EnumSet.of(PENDING_DOCUMENTATION, PRE_APPROVED, REJECTED, CANCELLED));
+        TRANSITIONS.put(PRE_APPROVED, EnumSet.of(IN_EVALUATION, FINAL_APPROVAL, REJECTED, CANCELLED));
+        TRANSITIONS.put(FINAL_APPROVAL, EnumSet.of(APPROVED, REJECTED, CANCELLED));
+        TRANSITIONS.put(APPROVED, EnumSet.of(DISBURSEMENT, CANCELLED));
+        TRANSITIONS.put(REJECTED, EnumSet.noneOf(RequestState.class));
+        TRANSITIONS.put(CANCELLED, EnumSet.noneOf(RequestState.class));
+        TRANSITIONS.put(DISBURSEMENT, EnumSet.noneOf(RequestState.class));
+    }
+
+    private final short id;
+    private final String label;
+
+    RequestState(int id, String label) {
+        this.id = (short) id;
+        this.label = label;
+    }
+
+    /**
+     * @return the number stored in form_credit.state
+     */
+    public short id() {
+        return id;
+    }
+
+    /**
+     * @return the code used by the forms, E1 to E9
+     */
+    public String code() {
+        return "E" + id;
+    }
+
+    @JsonValue
+    public String label() {
+        return label;
+    }
+
+    /**
+     * Whether a request in this state can be moved to {@code target}. Staying in the same state is allowed.
+     */
+    public boolean canMoveTo(RequestState target) {
+        return target == this || TRANSITIONS.get(this).contains(target);
+    }
+
+    /**
+     * The states from which a request can be moved to {@code target}, including {@code target} itself.
+     */
+    public static Set<RequestState> predecessors(RequestState target) {
+        Set<RequestState> states = EnumSet.noneOf(RequestState.class);
+        for (RequestState state : values()) {
+            if (state.canMoveTo(target)) {
+                states.add(state);
+            }
+        }
+        return Collections.unmodifiableSet(states);
+    }
+
+    /**
+     * Whether a request in {@code current} can be moved to {@code target}. Requests without a state (legacy
+     * rows with a description that was not recognised) can be moved to any state.
+     */
+    public static boolean canMove(RequestState current, RequestState target) {
+        return current == null || current.canMoveTo(target);
+    }
+
+    public static RequestState fromId(short id) {
+        if (id < 1 || id >= BY_ID.length) {
+            throw new IllegalArgumentException("Estado no reconocido");
+        }
+        return BY_ID[id];
+    }
+
+    /**
+     * @param code the code of the state, E1 to E9
+     * @throws IllegalArgumentException if the code is not a state
+     */
+    public static RequestState fromCode(String code) {
+        if (code != null && code.length() == 2 && code.charAt(0) == 'E' && code.charAt(1) >= '1' && code.charAt(1) <= '9') {
+            return BY_ID[code.charAt(1) - '0'];
+        }
+        throw new IllegalArgumentException("Estado no reconocido");
+    }
+
+    public static Optional<RequestState> fromLabel(String label) {
+        for (RequestState state : values()) {
+            if (state.label.equals(label)) {
+                return Optional.of(state);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Reads a state sent by a client either as its code (E4) or as its label (Pre-Aprobada).
+     * @throws IllegalArgumentException if it is neither
+     */
+    @JsonCreator
+    public static RequestState parse(String value) {
+        return fromLabel(value).orElseGet(() -> fromCode(value));
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.prestaBanco.entities;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Stores {@link RequestState} as its number, so the column is a smallint instead of the label.
+ */
+@Converter(autoApply = true)
+public class RequestStateConverter implements AttributeConverter<RequestState, Short> {
+
+    @Override
+    public Short convertToDatabaseColumn(RequestState state) {
+        return state == null ? null : state.id();
+    }
+
+    @Override
+    public RequestState convertToEntityAttribute(Short id) {
+        return id == null ? null : RequestState.fromId(id);
+    }
+}
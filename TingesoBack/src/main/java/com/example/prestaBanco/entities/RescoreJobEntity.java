@@ -0,0 +1,44 @@
+package com.example.prestaBanco.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "rescore_job")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class RescoreJobEntity {
+
+    public static final String RUNNING = "RUNNING";
+    public static final String DONE = "DONE";
+    public static final String FAILED = "FAILED";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private String status;
+
+    // Modo de evaluación de las reglas (FULL_REPORT o SHORT_CIRCUIT)
+    private String mode;
+
+    // Avance: solicitudes a revisar al iniciar, revisadas, con cambio de estado y sin datos del solicitante
+    private long total;
+    private long processed;
+    private long changed;
+    private long skipped;
+
+    // Última solicitud revisada; el trabajo se reanuda desde la siguiente
+    private long lastRequestId;
+
+    private LocalDateTime startedAt;
+    private LocalDateTime updatedAt;
+    private LocalDateTime finishedAt;
+
+    private String error;
+}
@@ -0,0 +1,47 @@
+package com.example.prestaBanco.evaluation;
+
+import com.example.prestaBanco.entities.CreditEvaluationEntity;
+
+import java.util.function.BiConsumer;
+
+/**
+ * The seven criteria of the credit evaluation (R1 to R7), in the order of the form.
+ */
+public enum CreditCriterion {
+
+    INCOME_QUOTA("incomeQuota", CreditEvaluationEntity::setIncomeQuota),
+    CREDIT_HISTORY("creditHistory", CreditEvaluationEntity::setCreditHistory),
+    EMPLOYMENT_SENIORITY("employmentSeniority", CreditEvaluationEntity::setEmploymentSeniority),
+    INCOME_DEBT_RELATION("incomeDebtRelation", CreditEvaluationEntity::setIncomeDebtRelation),
+    FINANCING_LIMIT("financingLimit", CreditEvaluationEntity::setFinancingLimit),
+    APPLICANT_AGE("applicantAge", CreditEvaluationEntity::setApplicantAge),
+    SAVINGS_CAPACITY("savingsCapacity", CreditEvaluationEntity::setSavingsCapacity);
+
+    /**
+     * Mask with the bit of every criterion set.
+     */
+    public static final int ALL = (1 << values().length) - 1;
+
+    private final String field;
+    private final BiConsumer<CreditEvaluationEntity, Boolean> setter;
+
+    CreditCriterion(String field, BiConsumer<CreditEvaluationEntity, Boolean> setter) {
+        this.field = field;
+        this.setter = setter;
+    }
+
+    /**
+     * @return the name of the field in {@link CreditEvaluationEntity} and in the JSON of the form
+     */
+    public String field() {
+        return field;
+    }
+
+    public int bit() {
+        return 1 << ordinal();
+    }
+
+    void set(CreditEvaluationEntity evaluation, boolean met) {
+        setter.accept(evaluation, met);
+    }
+}
@@ -0,0 +1,339 @@
+package com.example.prestaBanco.evaluation;
+
+import com.example.prestaBanco.cache.LoanCatalog;
+import com.example.prestaBanco.cache.LoanProduct;
+import com.example.prestaBanco.dtos.EvaluationTicket;
+import com.example.prestaBanco.entities.ApplicantProfile;
+import com.example.prestaBanco.entities.CreditEvaluationEntity;
+import com.example.prestaBanco.entities.RequestState;
+import com.example.prestaBanco.metrics.CreditMetrics;
+import com.example.prestaBanco.metrics.QueryCounter;
+import com.example.prestaBanco.notifications.RequestStatusChanged;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded in-process queue of credit evaluations. A single worker takes whatever is queued, up to
+ * the batch size, and writes it in one transaction: one JDBC batch updates the state of the requests
+ * and another inserts the evaluations of the requests it moved. An evaluation whose request is missing,
+ * or in a state that cannot move to the new one, is not saved and its ticket fails. A full queue
+ * rejects new evaluations instead of holding the request thread. Each evaluation gets a ticket whose
+ * future completes when its batch is committed; finished tickets are kept in memory for the retention
+ * time, and the ticket is also stored with the evaluation so the other backends can answer for it.
+ */
+@Component
+public class CreditEvaluationQueue implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(CreditEvaluationQueue.class);
+
+    private static final long POLL_TIMEOUT_MS = 500;
+    private static final long STOP_TIMEOUT_MS = 10_000;
+
+    // Solo se actualizan las solicitudes que pueden pasar al nuevo estado
+    private static final String UPDATE_STATE = "UPDATE form_credit SET state = ?, version = version + 1 "
+            + "WHERE id = ? AND (state IS NULL OR state = ANY (?))";
+    private static final String INSERT_EVALUATION = "INSERT INTO credit_evaluation (income_quota, credit_history, "
+            + "employment_seniority, income_debt_relation, financing_limit, applicant_age, savings_capacity, id_rquest, ticket, "
+            + "monthly_income, current_debts, property_value, employment_years, self_employed, income_history_years, "
+            + "recent_delinquencies, birth_date, savings_balance, savings_account_years, monthly_deposits, "
+            + "max_withdrawal12m, max_withdrawal6m) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private LoanCatalog loanCatalog;
+
+    @Autowired
+    private CreditMetrics creditMetrics;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${credit-evaluation.queue.capacity:1000}")
+    private int capacity;
+
+    @Value("${credit-evaluation.queue.batch-size:100}")
+    private int batchSize;
+
+    @Value("${credit-evaluation.queue.retention:10m}")
+    private Duration retention;
+
+    private final Map<String, Pending> tickets = new ConcurrentHashMap<>();
+    // Solo lo usa el hilo de la cola
+    private final Queue<Pending> finished = new ArrayDeque<>();
+
+    private volatile BlockingQueue<Pending> queue;
+    private volatile boolean running;
+    private Thread worker;
+
+    /**
+     * Queues an evaluation.
+     * @param evaluation the evaluation to save
+     * @param state the code the request moves to
+     * @return the pending ticket
+     * @throws RejectedExecutionException if the queue is full or stopped
+     */
+    public EvaluationTicket submit(CreditEvaluationEntity evaluation, String state) {
+        if (!running) {
+            throw new RejectedExecutionException("The credit evaluation queue is not running");
+        }
+        Pending pending = new Pending(UUID.randomUUID(), evaluation, state, creditMetrics.start());
+        evaluation.setTicket(pending.ticket);
+        tickets.put(pending.ticket.toString(), pending);
+        if (!queue.offer(pending)) {
+            tickets.remove(pending.ticket.toString());
+            throw new RejectedExecutionException("The credit evaluation queue is full");
+        }
+        return EvaluationTicket.pending(pending.ticket.toString(), state);
+    }
+
+    /**
+     * State of a ticket handed out by this backend.
+     * @param ticket
+     * @return the ticket, or empty if it is unknown here or its retention has passed
+     */
+    public Optional<EvaluationTicket> status(String ticket) {
+        return Optional.ofNullable(tickets.get(ticket)).map(Pending::ticket);
+    }
+
+    /**
+     * Completion handle of a ticket handed out by this backend.
+     * @param ticket
+     * @return a future completed with the DONE or FAILED ticket, or empty if the ticket is unknown here
+     */
+    public Optional<CompletableFuture<EvaluationTicket>> completion(String ticket) {
+        return Optional.ofNullable(tickets.get(ticket)).map(pending -> pending.future);
+    }
+
+    @Override
+    public void start() {
+        queue = new ArrayBlockingQueue<>(capacity);
+        creditMetrics.queueSize(CreditMetrics.EVALUATION_QUEUE, queue);
+        running = true;
+        worker = new Thread(this::drain, "credit-evaluation-queue");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Stops taking evaluations and waits for the queued ones to be saved.
+     */
+    @Override
+    public void stop() {
+        running = false;
+        if (worker != null) {
+            try {
+                worker.join(STOP_TIMEOUT_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Arranca antes y se detiene después del servidor web, así no quedan evaluaciones aceptadas sin guardar
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    private void drain() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, batchSize - 1);
+                    flush(batch);
+                    batch.clear();
+                }
+                expire();
+            } catch (InterruptedException e) {
+                // se sigue vaciando la cola hasta que stop() la cierre
+            }
+        }
+    }
+
+    private void flush(List<Pending> batch) {
+        QueryCounter.reset();
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    jdbcTemplate.execute((ConnectionCallback<Void>) connection -> write(connection, batch)));
+        } catch (RuntimeException e) {
+            creditMetrics.queries(CreditMetrics.JOB, CreditMetrics.EVALUATION_QUEUE, CreditMetrics.ALL, CreditMetrics.ALL, QueryCounter.count());
+            log.error("Could not save a batch of {} credit evaluations", batch.size(), e);
+            for (Pending pending : batch) {
+                finish(pending, new EvaluationTicket(pending.ticket.toString(), EvaluationTicket.FAILED, pending.state, null,
+                        "No se pudo guardar la evaluación"));
+            }
+            return;
+        }
+        creditMetrics.queries(CreditMetrics.JOB, CreditMetrics.EVALUATION_QUEUE, CreditMetrics.ALL, CreditMetrics.ALL, QueryCounter.count());
+        for (Pending pending : batch) {
+            if (pending.updated) {
+                eventPublisher.publishEvent(new RequestStatusChanged(pending.evaluation.getIdRquest(), pending.clientId,
+                        RequestState.fromCode(pending.state), pending.loanType));
+            }
+            finish(pending, pending.updated
+                    ? new EvaluationTicket(pending.ticket.toString(), EvaluationTicket.DONE, pending.state,
+                            pending.evaluation.getId(), "Estado actualizado correctamente")
+                    : new EvaluationTicket(pending.ticket.toString(), EvaluationTicket.FAILED, pending.state, null,
+                            "Solicitud de crédito no encontrada o en un estado que no permite el cambio"));
+        }
+    }
+
+    private Void write(Connection connection, List<Pending> batch) throws SQLException {
+        try (PreparedStatement update = connection.prepareStatement(UPDATE_STATE, new String[]{"type_loan", "client_id"})) {
+            for (Pending pending : batch) {
+                RequestState target = RequestState.fromCode(pending.state);
+                update.setShort(1, target.id());
+                update.setLong(2, pending.evaluation.getIdRquest());
+                update.setArray(3, connection.createArrayOf("int2", predecessors(target)));
+                update.addBatch();
+            }
+            int[] counts = update.executeBatch();
+            try (ResultSet keys = update.getGeneratedKeys()) {
+                for (int i = 0; i < counts.length; i++) {
+                    // Las solicitudes inexistentes, o en un estado que no puede pasar al nuevo, no devuelven fila
+                    if (counts[i] > 0 && keys.next()) {
+                        batch.get(i).updated = true;
+                        batch.get(i).loanType = keys.getString(1);
+                        batch.get(i).clientId = keys.getObject(2, Long.class);
+                    }
+                }
+            }
+        }
+        // Solo se guarda la evaluación de las solicitudes que cambiaron de estado
+        List<Pending> updated = batch.stream().filter(pending -> pending.updated).toList();
+        if (updated.isEmpty()) {
+            return null;
+        }
+        try (PreparedStatement insert = connection.prepareStatement(INSERT_EVALUATION, new String[]{"id"})) {
+            for (Pending pending : updated) {
+                CreditEvaluationEntity evaluation = pending.evaluation;
+                insert.setBoolean(1, evaluation.isIncomeQuota());
+                insert.setBoolean(2, evaluation.isCreditHistory());
+                insert.setBoolean(3, evaluation.isEmploymentSeniority());
+                insert.setBoolean(4, evaluation.isIncomeDebtRelation());
+                insert.setBoolean(5, evaluation.isFinancingLimit());
+                insert.setBoolean(6, evaluation.isApplicantAge());
+                insert.setBoolean(7, evaluation.isSavingsCapacity());
+                insert.setLong(8, evaluation.getIdRquest());
+                insert.setObject(9, pending.ticket);
+                setApplicant(insert, 10, evaluation.getApplicant() == null ? new ApplicantProfile() : evaluation.getApplicant());
+                insert.addBatch();
+            }
+            insert.executeBatch();
+            try (ResultSet keys = insert.getGeneratedKeys()) {
+                for (Pending pending : updated) {
+                    keys.next();
+                    pending.evaluation.setId(keys.getLong(1));
+                }
+            }
+        }
+        return null;
+    }
+
+    private static Short[] predecessors(RequestState target) {
+        return RequestState.predecessors(target).stream().map(RequestState::id).toArray(Short[]::new);
+    }
+
+    private static void setApplicant(PreparedStatement insert, int first, ApplicantProfile applicant) throws SQLException {
+        insert.setObject(first, applicant.getMonthlyIncome(), Types.BIGINT);
+        insert.setObject(first + 1, applicant.getCurrentDebts(), Types.BIGINT);
+        insert.setObject(first + 2, applicant.getPropertyValue(), Types.BIGINT);
+        insert.setObject(first + 3, applicant.getEmploymentYears(), Types.DOUBLE);
+        insert.setObject(first + 4, applicant.getSelfEmployed(), Types.BOOLEAN);
+        insert.setObject(first + 5, applicant.getIncomeHistoryYears(), Types.DOUBLE);
+        insert.setObject(first + 6, applicant.getRecentDelinquencies(), Types.BOOLEAN);
+        insert.setObject(first + 7, applicant.getBirthDate(), Types.DATE);
+        insert.setObject(first + 8, applicant.getSavingsBalance(), Types.BIGINT);
+        insert.setObject(first + 9, applicant.getSavingsAccountYears(), Types.DOUBLE);
+        insert.setObject(first + 10, applicant.getMonthlyDeposits(), Types.BIGINT);
+        insert.setObject(first + 11, applicant.getMaxWithdrawal12m(), Types.DOUBLE);
+        insert.setObject(first + 12, applicant.getMaxWithdrawal6m(), Types.DOUBLE);
+    }
+
+    private void finish(Pending pending, EvaluationTicket result) {
+        pending.result = result;
+        pending.finishedAt = System.nanoTime();
+        finished.add(pending);
+        creditMetrics.stop(pending.sample, CreditMetrics.EVALUATE_CREDIT,
+                pending.loanType == null ? CreditMetrics.NONE : loanCatalog.find(pending.loanType).map(LoanProduct::typeLoan).orElse("other"),
+                pending.state);
+        pending.future.complete(result);
+    }
+
+    private void expire() {
+        long now = System.nanoTime();
+        Pending oldest;
+        while ((oldest = finished.peek()) != null && now - oldest.finishedAt > retention.toNanos()) {
+            finished.poll();
+            tickets.remove(oldest.ticket.toString());
+        }
+    }
+
+    private static final class Pending {
+        private final UUID ticket;
+        private final CreditEvaluationEntity evaluation;
+        private final String state;
+        private final Timer.Sample sample;
+        private final CompletableFuture<EvaluationTicket> future = new CompletableFuture<>();
+        private boolean updated;
+        private String loanType;
+        private Long clientId;
+        private volatile EvaluationTicket result;
+        private long finishedAt;
+
+        private Pending(UUID ticket, CreditEvaluationEntity evaluation, String state, Timer.Sample sample) {
+            this.ticket = ticket;
+            this.evaluation = evaluation;
+            this.state = state;
+            this.sample = sample;
+        }
+
+        private EvaluationTicket ticket() {
+            EvaluationTicket done = result;
+            return done != null ? done : EvaluationTicket.pending(ticket.toString(), state);
+        }
+    }
+}
@@ -0,0 +1,296 @@
+package com.example.prestaBanco.evaluation;
+
+import com.example.prestaBanco.cache.LoanCatalog;
+import com.example.prestaBanco.cache.LoanProduct;
+import com.example.prestaBanco.entities.ApplicantProfile;
+import com.example.prestaBanco.entities.CreditRequestEntity;
+import com.example.prestaBanco.simulation.AmortizationEngine;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Server side evaluation of the seven criteria of a credit request.
+ * <p>
+ * The policy is compiled once into one predicate per criterion; every threshold is captured as a
+ * constant of its predicate, and the predicates only read the primitive facts of the applicant. The
+ * facts shared by several rules (the installment, the age at the end of the loan, the financing
+ * limit of the product) are worked out once per evaluation. Missing inputs are NaN, so every
+ * comparison against them fails and their criterion is not met.
+ */
+@Component
+public class CreditRuleEngine {
+
+    public enum Mode {
+        /** Stops at the first criterion not met; the cheapest rules are checked first. */
+        SHORT_CIRCUIT,
+        /** Evaluates the seven criteria. */
+        FULL_REPORT
+    }
+
+    // Por debajo de este tamaño no compensa repartir la evaluación entre hilos
+    private static final int PARALLEL_CHUNK = 4_096;
+
+    @Autowired
+    private LoanCatalog loanCatalog;
+
+    @Value("${credit-evaluation.policy.max-income-quota:35}")
+    private double maxIncomeQuota;
+
+    @Value("${credit-evaluation.policy.min-employment-years:1}")
+    private double minEmploymentYears;
+
+    @Value("${credit-evaluation.policy.min-self-employed-years:2}")
+    private double minSelfEmployedYears;
+
+    @Value("${credit-evaluation.policy.max-debt-income:50}")
+    private double maxDebtIncome;
+
+    @Value("#{${credit-evaluation.policy.financing-limits:{firstHome:80,secondHome:70,commercial:60,remodeling:50}}}")
+    private Map<String, Double> financingLimits;
+
+    @Value("${credit-evaluation.policy.max-age-at-end:70}")
+    private double maxAgeAtEnd;
+
+    @Value("${credit-evaluation.policy.savings.min-rules:5}")
+    private int minSavingsRules;
+
+    @Value("${credit-evaluation.policy.savings.min-balance:10}")
+    private double minSavingsBalance;
+
+    @Value("${credit-evaluation.policy.savings.max-withdrawal-12m:50}")
+    private double maxWithdrawal12m;
+
+    @Value("${credit-evaluation.policy.savings.min-monthly-deposits:5}")
+    private double minMonthlyDeposits;
+
+    @Value("${credit-evaluation.policy.savings.new-account-years:2}")
+    private double newAccountYears;
+
+    @Value("${credit-evaluation.policy.savings.new-account-balance:20}")
+    private double newAccountBalance;
+
+    @Value("${credit-evaluation.policy.savings.account-balance:10}")
+    private double accountBalance;
+
+    @Value("${credit-evaluation.policy.savings.max-withdrawal-6m:30}")
+    private double maxWithdrawal6m;
+
+    private volatile CompiledPolicy compiled;
+
+    @PostConstruct
+    void compileConfiguredPolicy() {
+        compile(new EvaluationPolicy(maxIncomeQuota, minEmploymentYears, minSelfEmployedYears, maxDebtIncome,
+                financingLimits, maxAgeAtEnd, minSavingsRules, minSavingsBalance, maxWithdrawal12m,
+                minMonthlyDeposits, newAccountYears, newAccountBalance, accountBalance, maxWithdrawal6m));
+    }
+
+    /**
+     * Replaces the policy; evaluations already running finish with the previous one.
+     */
+    public void compile(EvaluationPolicy policy) {
+        compiled = new CompiledPolicy(policy);
+    }
+
+    /**
+     * Scores one request.
+     *
+     * @param request the credit request, for the amount, rate, term and type of loan
+     * @param applicant the inputs of the applicant
+     * @param mode whether to stop at the first criterion not met
+     */
+    public RuleReport evaluate(CreditRequestEntity request, ApplicantProfile applicant, Mode mode) {
+        CompiledPolicy policy = compiled;
+        return policy.evaluate(facts(policy, request, applicant, LocalDate.now().getYear()), request.getId(), mode);
+    }
+
+    /**
+     * Scores a list of requests; the two lists are read position by position. Large lists are split
+     * between threads, all of them evaluated with the same policy.
+     *
+     * @return the reports, in the order of the requests
+     */
+    public RuleReport[] evaluateAll(List<CreditRequestEntity> requests, List<ApplicantProfile> applicants, Mode mode) {
+        int size = requests.size();
+        if (applicants.size() != size) {
+            throw new IllegalArgumentException("Requests and applicants must have the same length");
+        }
+        CompiledPolicy policy = compiled;
+        int year = LocalDate.now().getYear();
+        RuleReport[] reports = new RuleReport[size];
+        IntStream indexes = IntStream.range(0, size);
+        if (size >= PARALLEL_CHUNK) {
+            indexes = indexes.parallel();
+        }
+        indexes.forEach(i -> {
+            CreditRequestEntity request = requests.get(i);
+            reports[i] = policy.evaluate(facts(policy, request, applicants.get(i), year), request.getId(), mode);
+        });
+        return reports;
+    }
+
+    private Facts facts(CompiledPolicy policy, CreditRequestEntity request, ApplicantProfile applicant, int year) {
+        String loanType = loanCatalog.find(request.getTypeLoan()).map(LoanProduct::typeLoan).orElse(request.getTypeLoan());
+        Double limit = loanType == null ? null : policy.financingLimits.get(loanType);
+        return new Facts(request, applicant == null ? new ApplicantProfile() : applicant,
+                limit == null ? Double.NaN : limit, year);
+    }
+
+    @FunctionalInterface
+    private interface Rule {
+        boolean test(Facts facts);
+    }
+
+    private static final class CompiledPolicy {
+
+        // Orden de evaluación en modo SHORT_CIRCUIT: primero las reglas que no calculan la cuota
+        private static final CreditCriterion[] ORDER = {
+                CreditCriterion.CREDIT_HISTORY, CreditCriterion.EMPLOYMENT_SENIORITY, CreditCriterion.APPLICANT_AGE,
+                CreditCriterion.FINANCING_LIMIT, CreditCriterion.INCOME_QUOTA, CreditCriterion.INCOME_DEBT_RELATION,
+                CreditCriterion.SAVINGS_CAPACITY
+        };
+
+        private final Map<String, Double> financingLimits;
+        private final Rule[] rules = new Rule[ORDER.length];
+        private final int[] bits = new int[ORDER.length];
+
+        private CompiledPolicy(EvaluationPolicy policy) {
+            Map<String, Double> limits = new HashMap<>();
+            policy.financingLimits().forEach((loanType, percent) -> limits.put(loanType, percent / 100));
+            financingLimits = Map.copyOf(limits);
+            for (int i = 0; i < ORDER.length; i++) {
+                rules[i] = compile(ORDER[i], policy);
+                bits[i] = ORDER[i].bit();
+            }
+        }
+
+        private static Rule compile(CreditCriterion criterion, EvaluationPolicy policy) {
+            switch (criterion) {
+                case INCOME_QUOTA: {
+                    double quota = policy.maxIncomeQuota() / 100;
+                    return f -> f.payment() <= f.monthlyIncome * quota;
+                }
+                case CREDIT_HISTORY:
+                    return f -> f.delinquencies == 0;
+                case EMPLOYMENT_SENIORITY: {
+                    double years = policy.minEmploymentYears();
+                    double selfEmployedYears = policy.minSelfEmployedYears();
+                    return f -> f.employmentYears >= years || (f.selfEmployed && f.incomeHistoryYears >= selfEmployedYears);
+                }
+                case INCOME_DEBT_RELATION: {
+                    double ratio = policy.maxDebtIncome() / 100;
+                    return f -> f.currentDebts + f.payment() <= f.monthlyIncome * ratio;
+                }
+                case FINANCING_LIMIT:
+                    return f -> f.amount <= f.propertyValue * f.financingLimit;
+                case APPLICANT_AGE: {
+                    double age = policy.maxAgeAtEnd();
+                    return f -> f.ageAtEnd <= age;
+                }
+                case SAVINGS_CAPACITY: {
+                    int required = policy.minSavingsRules();
+                    double balance = policy.minSavingsBalance() / 100;
+                    double withdrawal12m = policy.maxWithdrawal12m();
+                    double deposits = policy.minMonthlyDeposits() / 100;
+                    double newAccountYears = policy.newAccountYears();
+                    double newAccountBalance = policy.newAccountBalance() / 100;
+                    double accountBalance = policy.accountBalance() / 100;
+                    double withdrawal6m = policy.maxWithdrawal6m();
+                    return f -> {
+                        int met = 0;
+                        if (f.savingsBalance >= f.amount * balance) met++;
+                        if (f.maxWithdrawal12m <= withdrawal12m) met++;
+                        if (f.monthlyDeposits >= f.monthlyIncome * deposits) met++;
+                        if (f.savingsBalance >= f.amount * (f.savingsAccountYears >= newAccountYears ? accountBalance : newAccountBalance)) met++;
+                        if (f.maxWithdrawal6m <= withdrawal6m) met++;
+                        return met >= required;
+                    };
+                }
+                default:
+                    throw new IllegalStateException("Unknown criterion " + criterion);
+            }
+        }
+
+        private RuleReport evaluate(Facts facts, Long requestId, Mode mode) {
+            int evaluated = 0;
+            int met = 0;
+            for (int i = 0; i < rules.length; i++) {
+                evaluated |= bits[i];
+                if (rules[i].test(facts)) {
+                    met |= bits[i];
+                } else if (mode == Mode.SHORT_CIRCUIT) {
+                    break;
+                }
+            }
+            return new RuleReport(requestId, evaluated, met);
+        }
+    }
+
+    /**
+     * Inputs of one evaluation as primitives, NaN when missing.
+     */
+    private static final class Facts {
+        private final double amount;
+        private final double monthlyRate;
+        private final int months;
+        private final double financingLimit;
+        private final double ageAtEnd;
+
+        private final double monthlyIncome;
+        private final double currentDebts;
+        private final double propertyValue;
+        private final double employmentYears;
+        private final boolean selfEmployed;
+        private final double incomeHistoryYears;
+        private final double delinquencies;
+        private final double savingsBalance;
+        private final double savingsAccountYears;
+        private final double monthlyDeposits;
+        private final double maxWithdrawal12m;
+        private final double maxWithdrawal6m;
+
+        // La calculan R1 y R4; se deja para cuando la pida la primera
+        private double payment = Double.NaN;
+
+        private Facts(CreditRequestEntity request, ApplicantProfile applicant, double financingLimit, int year) {
+            amount = request.getMaximumAmount() > 0 ? request.getMaximumAmount() : Double.NaN;
+            monthlyRate = request.getInterestRate() / 12 / 100;
+            months = request.getTerm() * 12;
+            this.financingLimit = financingLimit;
+            ageAtEnd = applicant.getBirthDate() == null ? Double.NaN : year - applicant.getBirthDate().getYear() + request.getTerm();
+
+            monthlyIncome = value(applicant.getMonthlyIncome());
+            currentDebts = value(applicant.getCurrentDebts());
+            propertyValue = value(applicant.getPropertyValue());
+            employmentYears = value(applicant.getEmploymentYears());
+            selfEmployed = Boolean.TRUE.equals(applicant.getSelfEmployed());
+            incomeHistoryYears = value(applicant.getIncomeHistoryYears());
+            delinquencies = applicant.getRecentDelinquencies() == null ? Double.NaN : applicant.getRecentDelinquencies() ? 1 : 0;
+            savingsBalance = value(applicant.getSavingsBalance());
+            savingsAccountYears = value(applicant.getSavingsAccountYears());
+            monthlyDeposits = value(applicant.getMonthlyDeposits());
+            maxWithdrawal12m = value(applicant.getMaxWithdrawal12m());
+            maxWithdrawal6m = value(applicant.getMaxWithdrawal6m());
+        }
+
+        private double payment() {
+            double p = payment;
+            if (Double.isNaN(p) && months > 0) {
+                p = AmortizationEngine.monthlyPayment(amount, monthlyRate, months);
+                payment = p;
+            }
+            return p;
+        }
+
+        private static double value(Number number) {
+            return number == null ? Double.NaN : number.doubleValue();
+        }
+    }
+}
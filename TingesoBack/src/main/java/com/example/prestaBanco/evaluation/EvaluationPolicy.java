@@ -0,0 +1,32 @@
+package com.example.prestaBanco.evaluation;
+
+import java.util.Map;
+
+/**
+ * Thresholds of the credit evaluation policy. Percentages are whole numbers (35 is 35%).
+ *
+ * @param maxIncomeQuota R1: highest installment, as a percentage of the monthly income
+ * @param minEmploymentYears R3: lowest seniority in the current job
+ * @param minSelfEmployedYears R3: lowest years of stable income of a self-employed applicant
+ * @param maxDebtIncome R4: highest debts plus the new installment, as a percentage of the monthly income
+ * @param financingLimits R5: highest amount, as a percentage of the property value, by loan type code
+ * @param maxAgeAtEnd R6: highest age of the applicant when the loan ends
+ * @param minSavingsRules R7: how many of the five savings checks must be met
+ * @param minSavingsBalance R7.1: lowest savings balance, as a percentage of the amount
+ * @param maxWithdrawal12m R7.2: highest withdrawal of the last 12 months, as a percentage of the balance
+ * @param minMonthlyDeposits R7.3: lowest monthly deposits, as a percentage of the monthly income
+ * @param newAccountYears R7.4: accounts younger than this need {@code newAccountBalance} instead of {@code accountBalance}
+ * @param newAccountBalance R7.4: lowest balance of a new account, as a percentage of the amount
+ * @param accountBalance R7.4: lowest balance of an older account, as a percentage of the amount
+ * @param maxWithdrawal6m R7.5: highest withdrawal of the last 6 months, as a percentage of the balance
+ */
+public record EvaluationPolicy(double maxIncomeQuota, double minEmploymentYears, double minSelfEmployedYears,
+                               double maxDebtIncome, Map<String, Double> financingLimits, double maxAgeAtEnd,
+                               int minSavingsRules, double minSavingsBalance, double maxWithdrawal12m,
+                               double minMonthlyDeposits, double newAccountYears, double newAccountBalance,
+                               double accountBalance, double maxWithdrawal6m) {
+
+    public EvaluationPolicy {
+        financingLimits = Map.copyOf(financingLimits);
+    }
+}
@@ -0,0 +1,395 @@
+package com.example.prestaBanco.evaluation;
+
+import com.example.prestaBanco.entities.ApplicantProfile;
+import com.example.prestaBanco.entities.CreditRequestEntity;
+import com.example.prestaBanco.entities.RequestState;
+import com.example.prestaBanco.entities.RescoreJobEntity;
+import com.example.prestaBanco.metrics.CreditMetrics;
+import com.example.prestaBanco.metrics.QueryCounter;
+import com.example.prestaBanco.notifications.RequestStatusChanged;
+import com.example.prestaBanco.repositories.RescoreJobRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Re-scores, with the current policy, every request that is "En Evaluación" or "Pre-Aprobada".
+ * <p>
+ * The requests are read by id in keyset chunks, together with the applicant inputs of their last
+ * evaluation, and scored on a fork-join pool of its own. Each chunk is written in one transaction:
+ * the new states and results in JDBC batches, and the progress and cursor of the job in its row of
+ * rescore_job. A crash therefore loses at most the chunk in flight, and the job goes on from the
+ * cursor when a backend starts again. A session advisory lock keeps a job running on one backend
+ * only. A state is only changed if the request is still in the state that was read, so a change made
+ * meanwhile by an executive is kept, and so are the results of its evaluation: they are only
+ * rewritten once the request is in the state they lead to. Requests whose evaluation has no
+ * applicant inputs are skipped. Once a chunk commits, every state it changed is published as a
+ * {@link RequestStatusChanged}, like the changes made one at a time.
+ */
+@Component
+@Order(4)
+public class RescoreJob implements ApplicationRunner, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(RescoreJob.class);
+
+    private static final long LOCK_ID = 4_003L;
+    private static final long STOP_TIMEOUT_SECONDS = 10;
+    // Solicitudes que evalúa cada tarea del fork-join
+    private static final int SLICE = 64;
+
+    private static final short EVALUATING = RequestState.IN_EVALUATION.id();
+    private static final short PRE_APPROVED = RequestState.PRE_APPROVED.id();
+
+    private static final String COUNT = "SELECT count(*) FROM form_credit WHERE state IN (?, ?)";
+    private static final String CHUNK = "SELECT f.id, f.client_id, f.type_loan, f.maximum_amount, f.term, f.interest_rate, f.state, "
+            + "e.id AS evaluation_id, e.monthly_income, e.current_debts, e.property_value, e.employment_years, e.self_employed, "
+            + "e.income_history_years, e.recent_delinquencies, e.birth_date, e.savings_balance, e.savings_account_years, "
+            + "e.monthly_deposits, e.max_withdrawal12m, e.max_withdrawal6m "
+            + "FROM form_credit f LEFT JOIN LATERAL (SELECT * FROM credit_evaluation c WHERE c.id_rquest = f.id "
+            + "ORDER BY c.id DESC LIMIT 1) e ON true "
+            + "WHERE f.state IN (?, ?) AND f.id > ? ORDER BY f.id LIMIT ?";
+    private static final String UPDATE_STATE = "UPDATE form_credit SET state = ?, version = version + 1 "
+            + "WHERE id = ? AND state = ?";
+    // Solo si la solicitud quedó en el estado que corresponde a los resultados
+    private static final String UPDATE_EVALUATION = "UPDATE credit_evaluation SET income_quota = ?, credit_history = ?, "
+            + "employment_seniority = ?, income_debt_relation = ?, financing_limit = ?, applicant_age = ?, savings_capacity = ? "
+            + "WHERE id = ? AND EXISTS (SELECT 1 FROM form_credit f WHERE f.id = ? AND f.state = ?)";
+    private static final String UPDATE_PROGRESS = "UPDATE rescore_job SET processed = processed + ?, changed = changed + ?, "
+            + "skipped = skipped + ?, last_request_id = ?, updated_at = ? WHERE id = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private RescoreJobRepository rescoreJobRepository;
+
+    @Autowired
+    private CreditRuleEngine creditRuleEngine;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private CreditMetrics creditMetrics;
+
+    @Value("${credit-evaluation.rescore.chunk-size:500}")
+    private int chunkSize;
+
+    // Por defecto la mitad de los núcleos, para dejar el resto a las peticiones
+    @Value("${credit-evaluation.rescore.parallelism:0}")
+    private int parallelism;
+
+    private final ExecutorService runner = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "credit-rescore");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile ForkJoinPool pool;
+    private volatile boolean stopping;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        // Un solo trabajo en curso, aunque lo pidan dos backends a la vez
+        jdbcTemplate.execute("CREATE UNIQUE INDEX IF NOT EXISTS uq_rescore_job_running ON rescore_job (status) WHERE status = 'RUNNING'");
+        for (RescoreJobEntity job : rescoreJobRepository.findByStatusOrderByIdAsc(RescoreJobEntity.RUNNING)) {
+            runner.execute(() -> execute(job.getId()));
+        }
+    }
+
+    /**
+     * Starts a job in the background.
+     * @param mode the mode of the rule evaluation
+     * @return the new job
+     * @throws IllegalStateException if another job is running
+     */
+    public RescoreJobEntity start(CreditRuleEngine.Mode mode) {
+        RescoreJobEntity job = new RescoreJobEntity();
+        job.setStatus(RescoreJobEntity.RUNNING);
+        job.setMode(mode.name());
+        job.setTotal(jdbcTemplate.queryForObject(COUNT, Long.class, EVALUATING, PRE_APPROVED));
+        job.setStartedAt(LocalDateTime.now());
+        job.setUpdatedAt(job.getStartedAt());
+        job = saveRunning(job);
+        long id = job.getId();
+        runner.execute(() -> execute(id));
+        return job;
+    }
+
+    /**
+     * Runs a failed job again from its cursor, or picks up a running job whose backend stopped.
+     * @param id the id of the job
+     * @return the job, or empty if it does not exist
+     * @throws IllegalStateException if another job is running
+     */
+    public Optional<RescoreJobEntity> resume(Long id) {
+        Optional<RescoreJobEntity> found = rescoreJobRepository.findById(id);
+        if (found.isEmpty() || RescoreJobEntity.DONE.equals(found.get().getStatus())) {
+            return found;
+        }
+        RescoreJobEntity job = found.get();
+        if (RescoreJobEntity.FAILED.equals(job.getStatus())) {
+            job.setStatus(RescoreJobEntity.RUNNING);
+            job.setError(null);
+            job.setFinishedAt(null);
+            job.setUpdatedAt(LocalDateTime.now());
+            job = saveRunning(job);
+        }
+        runner.execute(() -> execute(id));
+        return Optional.of(job);
+    }
+
+    public Optional<RescoreJobEntity> find(Long id) {
+        return rescoreJobRepository.findById(id);
+    }
+
+    public Optional<RescoreJobEntity> latest() {
+        return rescoreJobRepository.findFirstByOrderByIdDesc();
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        // El trabajo queda en RUNNING y sigue desde su cursor al volver a iniciar
+        stopping = true;
+        runner.shutdown();
+        runner.awaitTermination(STOP_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    private RescoreJobEntity saveRunning(RescoreJobEntity job) {
+        try {
+            return rescoreJobRepository.saveAndFlush(job);
+        } catch (DataIntegrityViolationException e) {
+            throw new IllegalStateException("Ya hay una re-evaluación en curso");
+        }
+    }
+
+    private void execute(long jobId) {
+        try (Connection lock = dataSource.getConnection()) {
+            if (!tryLock(lock)) {
+                log.info("Rescore job {} is running on another backend", jobId);
+                return;
+            }
+            try {
+                process(jobId);
+            } finally {
+                try (PreparedStatement unlock = lock.prepareStatement("SELECT pg_advisory_unlock(?)")) {
+                    unlock.setLong(1, LOCK_ID);
+                    unlock.execute();
+                }
+            }
+        } catch (SQLException | RuntimeException e) {
+            log.error("Rescore job {} failed", jobId, e);
+            jdbcTemplate.update("UPDATE rescore_job SET status = ?, error = ?, updated_at = ? WHERE id = ? AND status = ?",
+                    RescoreJobEntity.FAILED, String.valueOf(e.getMessage()), LocalDateTime.now(), jobId, RescoreJobEntity.RUNNING);
+        }
+    }
+
+    private static boolean tryLock(Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT pg_try_advisory_lock(?)")) {
+            statement.setLong(1, LOCK_ID);
+            try (ResultSet result = statement.executeQuery()) {
+                return result.next() && result.getBoolean(1);
+            }
+        }
+    }
+
+    private void process(long jobId) {
+        // Se vuelve a leer con el lock tomado: otro backend pudo terminarlo mientras tanto
+        RescoreJobEntity job = rescoreJobRepository.findById(jobId).orElse(null);
+        if (job == null || !RescoreJobEntity.RUNNING.equals(job.getStatus())) {
+            return;
+        }
+        CreditRuleEngine.Mode mode = CreditRuleEngine.Mode.valueOf(job.getMode());
+        long cursor = job.getLastRequestId();
+        log.info("Rescore job {} started after request {}", jobId, cursor);
+        while (!stopping) {
+            QueryCounter.reset();
+            List<Row> rows = jdbcTemplate.query(CHUNK, (rs, n) -> row(rs), EVALUATING, PRE_APPROVED, cursor, chunkSize);
+            if (rows.isEmpty()) {
+                jdbcTemplate.update("UPDATE rescore_job SET status = ?, finished_at = ?, updated_at = ? WHERE id = ?",
+                        RescoreJobEntity.DONE, LocalDateTime.now(), LocalDateTime.now(), jobId);
+                log.info("Rescore job {} finished", jobId);
+                return;
+            }
+            RuleReport[] reports = new RuleReport[rows.size()];
+            pool().invoke(new ScoreTask(rows, reports, mode, 0, rows.size()));
+            List<RequestStatusChanged> changes = new ArrayList<>();
+            transactionTemplate.executeWithoutResult(status ->
+                    jdbcTemplate.execute((ConnectionCallback<Void>) connection -> write(connection, jobId, rows, reports, changes)));
+            creditMetrics.queries(CreditMetrics.JOB, CreditMetrics.RESCORE, CreditMetrics.ALL, CreditMetrics.ALL, QueryCounter.count());
+            changes.forEach(eventPublisher::publishEvent);
+            cursor = rows.get(rows.size() - 1).request.getId();
+        }
+    }
+
+    private ForkJoinPool pool() {
+        if (pool == null) {
+            int threads = parallelism > 0 ? parallelism : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+            pool = new ForkJoinPool(threads);
+        }
+        return pool;
+    }
+
+    // Deja en changes los cambios de estado que se aplicaron, para avisarlos después del commit
+    private Void write(Connection connection, long jobId, List<Row> rows, RuleReport[] reports,
+                       List<RequestStatusChanged> changes) throws SQLException {
+        List<RequestStatusChanged> moved = new ArrayList<>();
+        int changed = 0;
+        int skipped = 0;
+        try (PreparedStatement state = connection.prepareStatement(UPDATE_STATE);
+             PreparedStatement evaluation = connection.prepareStatement(UPDATE_EVALUATION)) {
+            for (int i = 0; i < rows.size(); i++) {
+                Row row = rows.get(i);
+                RuleReport report = reports[i];
+                if (report == null) {
+                    skipped++;
+                    continue;
+                }
+                RequestState target = RequestState.fromCode(report.state());
+                boolean moves = target != row.state && row.state.canMoveTo(target);
+                if (moves) {
+                    state.setShort(1, target.id());
+                    state.setLong(2, row.request.getId());
+                    state.setShort(3, row.state.id());
+                    state.addBatch();
+                    moved.add(new RequestStatusChanged(row.request.getId(), row.request.getClientId(), target,
+                            row.request.getTypeLoan()));
+                }
+
+                for (CreditCriterion criterion : CreditCriterion.values()) {
+                    evaluation.setBoolean(criterion.ordinal() + 1, report.isMet(criterion));
+                }
+                evaluation.setLong(8, row.evaluationId);
+                evaluation.setLong(9, row.request.getId());
+                evaluation.setShort(10, moves ? target.id() : row.state.id());
+                evaluation.addBatch();
+            }
+            // Primero los estados: la fila queda bloqueada y la evaluación ve el estado final
+            int[] counts = state.executeBatch();
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] == 1) {
+                    changes.add(moved.get(i));
+                    changed++;
+                }
+            }
+            evaluation.executeBatch();
+        }
+        try (PreparedStatement progress = connection.prepareStatement(UPDATE_PROGRESS)) {
+            progress.setLong(1, rows.size());
+            progress.setLong(2, changed);
+            progress.setLong(3, skipped);
+            progress.setLong(4, rows.get(rows.size() - 1).request.getId());
+            progress.setObject(5, LocalDateTime.now());
+            progress.setLong(6, jobId);
+            progress.executeUpdate();
+        }
+        return null;
+    }
+
+    private static Row row(ResultSet rs) throws SQLException {
+        CreditRequestEntity request = new CreditRequestEntity();
+        request.setId(rs.getLong("id"));
+        request.setClientId(rs.getObject("client_id", Long.class));
+        request.setTypeLoan(rs.getString("type_loan"));
+        request.setMaximumAmount(rs.getInt("maximum_amount"));
+        request.setTerm(rs.getInt("term"));
+        request.setInterestRate(rs.getDouble("interest_rate"));
+
+        Long evaluationId = rs.getObject("evaluation_id", Long.class);
+        ApplicantProfile applicant = new ApplicantProfile(
+                rs.getObject("monthly_income", Long.class),
+                rs.getObject("current_debts", Long.class),
+                rs.getObject("property_value", Long.class),
+                rs.getObject("employment_years", Double.class),
+                rs.getObject("self_employed", Boolean.class),
+                rs.getObject("income_history_years", Double.class),
+                rs.getObject("recent_delinquencies", Boolean.class),
+                rs.getObject("birth_date", LocalDate.class),
+                rs.getObject("savings_balance", Long.class),
+                rs.getObject("savings_account_years", Double.class),
+                rs.getObject("monthly_deposits", Long.class),
+                rs.getObject("max_withdrawal12m", Double.class),
+                rs.getObject("max_withdrawal6m", Double.class));
+        // Evaluaciones hechas por el formulario, sin datos del solicitante: no se pueden recalcular
+        boolean withInputs = evaluationId != null && !applicant.equals(new ApplicantProfile());
+        return new Row(request, RequestState.fromId(rs.getShort("state")), evaluationId, withInputs ? applicant : null);
+    }
+
+    private record Row(CreditRequestEntity request, RequestState state, Long evaluationId, ApplicantProfile applicant) {
+    }
+
+    private final class ScoreTask extends RecursiveAction {
+        private final List<Row> rows;
+        private final RuleReport[] reports;
+        private final CreditRuleEngine.Mode mode;
+        private final int from;
+        private final int to;
+
+        private ScoreTask(List<Row> rows, RuleReport[] reports, CreditRuleEngine.Mode mode, int from, int to) {
+            this.rows = rows;
+            this.reports = reports;
+            this.mode = mode;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > SLICE) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new ScoreTask(rows, reports, mode, from, middle), new ScoreTask(rows, reports, mode, middle, to));
+                return;
+            }
+            List<CreditRequestEntity> requests = new ArrayList<>(to - from);
+            List<ApplicantProfile> applicants = new ArrayList<>(to - from);
+            List<Integer> positions = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) {
+                Row row = rows.get(i);
+                if (row.applicant != null) {
+                    requests.add(row.request);
+                    applicants.add(row.applicant);
+                    positions.add(i);
+                }
+            }
+            RuleReport[] scored = creditRuleEngine.evaluateAll(requests, applicants, mode);
+            for (int i = 0; i < scored.length; i++) {
+                reports[positions.get(i)] = scored[i];
+            }
+        }
+    }
+}
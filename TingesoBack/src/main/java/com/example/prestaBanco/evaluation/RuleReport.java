@@ -0,0 +1,55 @@
+package com.example.prestaBanco.evaluation;
+
+import com.example.prestaBanco.dtos.RuleEvaluationResult;
+import com.example.prestaBanco.entities.CreditEvaluationEntity;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Outcome of {@link CreditRuleEngine} for one request, as two masks over {@link CreditCriterion#bit()}.
+ *
+ * @param requestId the id of the credit request
+ * @param evaluated the criteria that were evaluated; a short-circuit evaluation stops at the first one not met
+ * @param met the criteria that were met
+ */
+public record RuleReport(Long requestId, int evaluated, int met) {
+
+    public boolean approved() {
+        return met == CreditCriterion.ALL;
+    }
+
+    public boolean isEvaluated(CreditCriterion criterion) {
+        return (evaluated & criterion.bit()) != 0;
+    }
+
+    public boolean isMet(CreditCriterion criterion) {
+        return (met & criterion.bit()) != 0;
+    }
+
+    /**
+     * @return E4 (Pre-Aprobada) if every criterion is met, E7 (Rechazada) otherwise
+     */
+    public String state() {
+        return approved() ? "E4" : "E7";
+    }
+
+    /**
+     * Copies the result of every criterion to the evaluation; the ones not evaluated are left as not met.
+     */
+    public void applyTo(CreditEvaluationEntity evaluation) {
+        for (CreditCriterion criterion : CreditCriterion.values()) {
+            criterion.set(evaluation, isMet(criterion));
+        }
+    }
+
+    public RuleEvaluationResult toResult() {
+        Map<String, Boolean> criteria = new LinkedHashMap<>();
+        for (CreditCriterion criterion : CreditCriterion.values()) {
+            if (isEvaluated(criterion)) {
+                criteria.put(criterion.field(), isMet(criterion));
+            }
+        }
+        return new RuleEvaluationResult(requestId, approved(), state(), criteria);
+    }
+}
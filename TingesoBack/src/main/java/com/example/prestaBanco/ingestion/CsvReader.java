@@ -0,0 +1,154 @@
+package com.example.prestaBanco.ingestion;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads a CSV file one record at a time (RFC 4180): fields may be quoted, a quote inside a quoted
+ * field is written twice, and quoted fields may span lines. Blank lines are skipped.
+ * <p>
+ * The delimiter is ',' or ';' (what Excel writes with a Spanish locale), whichever appears first in
+ * the first line outside quotes. Only the record being read is kept in memory, and a record longer
+ * than {@value #MAX_RECORD} characters is rejected, so an unbalanced quote cannot swallow the file.
+ */
+public class CsvReader implements Closeable {
+
+    public static final int MAX_RECORD = 64 * 1024;
+
+    private final Reader in;
+    private final char[] buffer = new char[8192];
+    private int position;
+    private int limit;
+
+    private final char delimiter;
+    private long line = 1;
+    private long recordLine;
+
+    public CsvReader(Reader in) throws IOException {
+        this.in = in;
+        fill();
+        // Marca de orden de bytes que agrega Excel al guardar en UTF-8
+        if (limit > 0 && buffer[0] == '\uFEFF') {
+            position = 1;
+        }
+        delimiter = detectDelimiter();
+    }
+
+    /**
+     * @return the fields of the next record, or null at the end of the file
+     * @throws IllegalArgumentException if the record is too long or a quote is never closed
+     */
+    public List<String> next() throws IOException {
+        while (true) {
+            recordLine = line;
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            boolean blank = true;
+            int length = 0;
+            int c;
+            while ((c = read()) >= 0) {
+                if (++length > MAX_RECORD) {
+                    throw new IllegalArgumentException("Record at line " + recordLine + " is longer than " + MAX_RECORD + " characters");
+                }
+                if (c == '\n') {
+                    line++;
+                }
+                if (quoted) {
+                    if (c != '"') {
+                        field.append((char) c);
+                    } else if (peek() == '"') {
+                        read();
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                    blank = false;
+                } else if (c == delimiter) {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                    blank = false;
+                } else if (c == '\n') {
+                    break;
+                } else if (c == '\r') {
+                    if (peek() == '\n') {
+                        read();
+                        line++;
+                    }
+                    break;
+                } else {
+                    field.append((char) c);
+                    blank = false;
+                }
+            }
+            if (quoted) {
+                throw new IllegalArgumentException("Quote opened at line " + recordLine + " is never closed");
+            }
+            if (!blank) {
+                fields.add(field.toString());
+                return fields;
+            }
+            if (c < 0) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * @return the line of the file where the last record returned by {@link #next()} starts
+     */
+    public long recordLine() {
+        return recordLine;
+    }
+
+    public char delimiter() {
+        return delimiter;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    // Primer ',' o ';' fuera de comillas en lo ya leído de la primera línea
+    private char detectDelimiter() {
+        boolean quoted = false;
+        for (int i = position; i < limit; i++) {
+            char c = buffer[i];
+            if (c == '"') {
+                quoted = !quoted;
+            } else if (!quoted && (c == ',' || c == ';')) {
+                return c;
+            } else if (!quoted && (c == '\n' || c == '\r')) {
+                break;
+            }
+        }
+        return ',';
+    }
+
+    private int read() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position++];
+    }
+
+    private int peek() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position];
+    }
+
+    private boolean fill() throws IOException {
+        int read = in.read(buffer, 0, buffer.length);
+        position = 0;
+        limit = Math.max(read, 0);
+        return read > 0;
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.prestaBanco.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Business instruments of the backend, exported by /actuator/prometheus.
+ * Every instrument carries the loanType and state tags; {@link #NONE} is used when an operation
+ * has no loan type or state, so each meter always has the same set of tag keys.
+ * The tags an operation records are also kept as attributes of the current HTTP request, so that
+ * {@link QueryCountInterceptor} tags the statements of the request with them.
+ */
+@Component
+public class CreditMetrics {
+
+    public static final String NONE = "none";
+    public static final String ALL = "all";
+
+    // Atributos de la petición con los tags de la operación que atendió
+    public static final String LOAN_TYPE_ATTRIBUTE = CreditMetrics.class.getName() + ".loanType";
+    public static final String STATE_ATTRIBUTE = CreditMetrics.class.getName() + ".state";
+
+    // Método con el que se registran las sentencias del trabajo en segundo plano
+    public static final String JOB = "JOB";
+
+    public static final String EVALUATE_CREDIT = "prestabanco.credit.evaluation";
+    public static final String EDIT_STATUS = "prestabanco.credit.status.edit";
+    public static final String SIMULATION = "prestabanco.simulation";
+    public static final String CREDIT_STATUS_LISTING = "prestabanco.credit.status.listing";
+    public static final String EVALUATION_QUEUE = "prestabanco.credit.evaluation.queue";
+    public static final String RESCORE = "prestabanco.credit.rescore";
+    public static final String DB_QUERIES = "prestabanco.db.queries";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Los tags son pocos (productos x estados); se evita buscar el meter en el registro en cada llamada
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    public Timer.Sample start() {
+        return Timer.start(meterRegistry);
+    }
+
+    public void stop(Timer.Sample sample, String timer, String loanType, String state) {
+        String loanTypeTag = tag(loanType);
+        String stateTag = tag(state);
+        sample.stop(timers.computeIfAbsent(timer + '|' + loanTypeTag + '|' + stateTag, key -> Timer.builder(timer)
+                .tag("loanType", loanTypeTag)
+                .tag("state", stateTag)
+                .publishPercentileHistogram()
+                .register(meterRegistry)));
+        tagRequest(loanTypeTag, stateTag);
+    }
+
+    public void documentUploaded(String loanType, String state, String documentType, long bytes, boolean shared) {
+        tagRequest(tag(loanType), tag(state));
+        Counter.builder("prestabanco.documents.uploaded")
+                .baseUnit("bytes")
+                .tag("loanType", tag(loanType))
+                .tag("state", tag(state))
+                .tag("document", documentType)
+                .register(meterRegistry)
+                .increment(bytes);
+        // Bytes que no se guardaron de nuevo porque otra solicitud ya tenía el mismo documento
+        if (shared) {
+            Counter.builder("prestabanco.documents.deduplicated")
+                    .baseUnit("bytes")
+                    .tag("loanType", tag(loanType))
+                    .tag("state", tag(state))
+                    .tag("document", documentType)
+                    .register(meterRegistry)
+                    .increment(bytes);
+        }
+    }
+
+    /**
+     * Bytes written to disk by the uploads (0 for the shared ones) and the time spent hashing,
+     * compressing and writing them, by codec: with the uploaded bytes this gives the saving of the
+     * compression, and comparing the timer of each codec its CPU cost.
+     */
+    public void documentWritten(String loanType, String state, String documentType, String codec, long storedBytes, long writeMicros) {
+        Counter.builder("prestabanco.documents.stored")
+                .baseUnit("bytes")
+                .tag("loanType", tag(loanType))
+                .tag("state", tag(state))
+                .tag("document", documentType)
+                .tag("codec", codec)
+                .register(meterRegistry)
+                .increment(storedBytes);
+        Timer.builder("prestabanco.documents.write")
+                .tag("loanType", tag(loanType))
+                .tag("state", tag(state))
+                .tag("document", documentType)
+                .tag("codec", codec)
+                .register(meterRegistry)
+                .record(writeMicros, TimeUnit.MICROSECONDS);
+    }
+
+    /**
+     * Statements run by one HTTP request, or by one unit of background work (a batch of the evaluation
+     * queue, a chunk of a re-score) with {@link #JOB} as method and the name of the work as uri.
+     */
+    public void queries(String method, String uri, String loanType, String state, int count) {
+        DistributionSummary.builder(DB_QUERIES)
+                .tag("method", method)
+                .tag("uri", uri)
+                .tag("loanType", tag(loanType))
+                .tag("state", tag(state))
+                .register(meterRegistry)
+                .record(count);
+    }
+
+    public void queueSize(String gauge, Collection<?> queue) {
+        Gauge.builder(gauge, queue, Collection::size)
+                .tag("loanType", ALL)
+                .tag("state", ALL)
+                .register(meterRegistry);
+    }
+
+    /**
+     * State code as a tag; anything that is not E1..E9 comes from the path of the request and is grouped as "other".
+     */
+    public static String stateTag(String state) {
+        if (state != null && state.length() == 2 && state.charAt(0) == 'E' && state.charAt(1) >= '1' && state.charAt(1) <= '9') {
+            return state;
+        }
+        return "other";
+    }
+
+    private static void tagRequest(String loanType, String state) {
+        // Fuera de una petición (la cola de evaluación, los jobs) no hay a quién etiquetar
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request != null) {
+            request.setAttribute(LOAN_TYPE_ATTRIBUTE, loanType, RequestAttributes.SCOPE_REQUEST);
+            request.setAttribute(STATE_ATTRIBUTE, state, RequestAttributes.SCOPE_REQUEST);
+        }
+    }
+
+    private static String tag(String value) {
+        return value == null || value.isEmpty() ? NONE : value;
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.prestaBanco.metrics;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Records how many SQL statements each /api/v1/** request ran, tagged by route like http.server.requests
+ * and by the loan type and state that {@link CreditMetrics} recorded for the request, if any.
+ */
+public class QueryCountInterceptor implements HandlerInterceptor {
+
+    private final CreditMetrics creditMetrics;
+
+    public QueryCountInterceptor(CreditMetrics creditMetrics) {
+        this.creditMetrics = creditMetrics;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        QueryCounter.reset();
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        Object uri = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        creditMetrics.queries(request.getMethod(), uri == null ? "UNKNOWN" : uri.toString(),
+                (String) request.getAttribute(CreditMetrics.LOAN_TYPE_ATTRIBUTE),
+                (String) request.getAttribute(CreditMetrics.STATE_ATTRIBUTE),
+                QueryCounter.count());
+    }
+}
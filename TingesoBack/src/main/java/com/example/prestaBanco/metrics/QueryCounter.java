@@ -0,0 +1,105 @@
+package com.example.prestaBanco.metrics;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Counts the SQL statements executed on the current thread, whoever runs them: Hibernate, JdbcTemplate
+ * or plain JDBC. Every DataSource bean is wrapped so that the statements of its connections count each
+ * execute* call (a batch counts once); {@link QueryCountInterceptor} resets the count at the start of
+ * every request and records the total at the end, and the background jobs do the same per unit of work.
+ */
+@Component
+public class QueryCounter implements BeanPostProcessor {
+
+    private static final ThreadLocal<int[]> COUNT = ThreadLocal.withInitial(() -> new int[1]);
+
+    public static void reset() {
+        COUNT.get()[0] = 0;
+    }
+
+    public static int count() {
+        return COUNT.get()[0];
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource && !(bean instanceof CountingDataSource)) {
+            return new CountingDataSource(dataSource);
+        }
+        return bean;
+    }
+
+    /**
+     * Wraps a connection so that the statements it creates are counted.
+     */
+    static Connection counting(Connection connection) {
+        return (Connection) proxy(Connection.class, connection, (method, result) ->
+                result instanceof Statement statement ? proxy(method.getReturnType(), statement, (call, value) -> {
+                    if (call.getName().startsWith("execute")) {
+                        COUNT.get()[0]++;
+                    }
+                    return value;
+                }) : result);
+    }
+
+    private interface Result {
+        Object of(Method method, Object result);
+    }
+
+    private static Object proxy(Class<?> type, Object target, Result result) {
+        return Proxy.newProxyInstance(QueryCounter.class.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            // Spring compara las conexiones que tiene en la transacción con la que recibe
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    break;
+            }
+            try {
+                return result.of(method, method.invoke(target, args));
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            }
+        });
+    }
+
+    /**
+     * The application DataSource with counted connections. Closeable so the pool it wraps is still
+     * closed when the context shuts down.
+     */
+    static class CountingDataSource extends DelegatingDataSource implements AutoCloseable {
+
+        CountingDataSource(DataSource target) {
+            super(target);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return counting(super.getConnection());
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return counting(super.getConnection(username, password));
+        }
+
+        @Override
+        public void close() throws Exception {
+            if (obtainTargetDataSource() instanceof AutoCloseable pool) {
+                pool.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.prestaBanco.migrations;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Indexes of the client lookups and of the prefix filters of the client listing. They use
+ * text_pattern_ops, which JPA cannot declare, so that LIKE 'prefix%' can use them whatever the
+ * collation of the database; the rut index also serves the lookups by equality of the login.
+ * <p>
+ * The rut index is unique. Clients registered more than once before it existed are merged into the
+ * one with the lowest id, which keeps their credit requests, and the others are deleted.
+ */
+@Component
+@Order(4)
+public class ClientIndexMigration implements Migration {
+
+    private static final Logger log = LoggerFactory.getLogger(ClientIndexMigration.class);
+
+    private static final long LOCK_ID = 4_005L;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    @Transactional
+    public void migrate() {
+        jdbcTemplate.queryForObject("SELECT pg_advisory_xact_lock(?)", Object.class, LOCK_ID);
+        Boolean unique = jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM pg_indexes WHERE tablename = 'clients' AND indexname = 'uq_clients_rut')", Boolean.class);
+        if (!Boolean.TRUE.equals(unique)) {
+            List<String> repeated = jdbcTemplate.queryForList(
+                    "SELECT rut FROM clients WHERE rut IS NOT NULL GROUP BY rut HAVING count(*) > 1 ORDER BY rut", String.class);
+            if (!repeated.isEmpty()) {
+                // Las solicitudes de los repetidos pasan al cliente de menor id
+                int moved = jdbcTemplate.update("UPDATE form_credit f SET client_id = k.keep " +
+                        "FROM (SELECT id, min(id) OVER (PARTITION BY rut) AS keep FROM clients WHERE rut IS NOT NULL) k " +
+                        "WHERE f.client_id = k.id AND k.id <> k.keep");
+                int deleted = jdbcTemplate.update("DELETE FROM clients c USING clients k WHERE c.rut = k.rut AND c.id > k.id");
+                log.warn("RUTs {} were registered more than once: deleted {} repeated clients and moved their {} credit requests " +
+                        "to the client with the lowest id", repeated, deleted, moved);
+            }
+            jdbcTemplate.execute("CREATE UNIQUE INDEX uq_clients_rut ON clients (rut text_pattern_ops)");
+            jdbcTemplate.execute("DROP INDEX IF EXISTS idx_clients_rut");
+        }
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_clients_name ON clients (lower(name) text_pattern_ops)");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_clients_last_name ON clients (lower(last_name) text_pattern_ops)");
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.prestaBanco.migrations;
+
+import com.example.prestaBanco.storage.DocumentReferences;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Counts the references of the documents stored before document_blob existed (one row per storage
+ * id, with its number of request documents), and deletes the documents left without references by a
+ * release whose file could not be deleted. Documents stored before keep their UUID; only new
+ * uploads are shared. Rows counted before documents were compressed are marked as stored as is.
+ */
+@Component
+@Order(6)
+public class DocumentBlobMigration implements Migration {
+
+    private static final Logger log = LoggerFactory.getLogger(DocumentBlobMigration.class);
+
+    private static final long LOCK_ID = 4_007L;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private DocumentReferences documentReferences;
+
+    @Override
+    public void migrate() {
+        Integer counted = transactionTemplate.execute(status -> {
+            jdbcTemplate.queryForObject("SELECT pg_advisory_xact_lock(?)", Object.class, LOCK_ID);
+            int inserted = jdbcTemplate.update("INSERT INTO document_blob (storage_id, sha256, size, codec, stored_size, write_micros, ref_count, created_at) "
+                    + "SELECT storage_id, max(sha256), max(size), 'NONE', max(size), 0, count(*), now() FROM credit_document "
+                    + "WHERE storage_id IS NOT NULL GROUP BY storage_id ON CONFLICT (storage_id) DO NOTHING");
+            // Los documentos guardados antes de comprimir quedaron tal cual
+            jdbcTemplate.update("UPDATE document_blob SET codec = 'NONE', stored_size = size, write_micros = 0 WHERE codec IS NULL");
+            return inserted;
+        });
+        if (counted != null && counted > 0) {
+            log.info("Counted the references of {} documents stored before deduplication", counted);
+        }
+        List<String> orphans = jdbcTemplate.queryForList("SELECT storage_id FROM document_blob WHERE ref_count = 0", String.class);
+        orphans.forEach(documentReferences::purge);
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.prestaBanco.migrations;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Moves the legacy clients.list_request_id column ("12-15-40") into form_credit.client_id.
+ * Runs after Hibernate has updated the schema, takes an advisory lock so only one backend
+ * migrates at a time, and drops the legacy column once every listed request has its client id.
+ */
+@Component
+@Order(2)
+public class ListRequestIdMigration implements Migration {
+
+    private static final Logger log = LoggerFactory.getLogger(ListRequestIdMigration.class);
+
+    private static final long LOCK_ID = 4_001L;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    @Transactional
+    public void migrate() {
+        jdbcTemplate.queryForObject("SELECT pg_advisory_xact_lock(?)", Object.class, LOCK_ID);
+
+        Boolean legacyColumn = jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM information_schema.columns " +
+                        "WHERE table_name = 'clients' AND column_name = 'list_request_id')", Boolean.class);
+        if (Boolean.TRUE.equals(legacyColumn)) {
+            int migrated = jdbcTemplate.update(
+                    "UPDATE form_credit f SET client_id = c.id " +
+                            "FROM clients c CROSS JOIN LATERAL unnest(string_to_array(c.list_request_id, '-')) AS r(request_id) " +
+                            "WHERE r.request_id ~ '^[0-9]+$' AND f.id = r.request_id::bigint AND f.client_id IS NULL");
+            jdbcTemplate.execute("ALTER TABLE clients DROP COLUMN list_request_id");
+            log.info("Migrated {} credit requests from clients.list_request_id to form_credit.client_id", migrated);
+        }
+
+        jdbcTemplate.execute(
+                "DO $$ BEGIN " +
+                        "IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = 'fk_form_credit_client') THEN " +
+                        "ALTER TABLE form_credit ADD CONSTRAINT fk_form_credit_client FOREIGN KEY (client_id) REFERENCES clients (id); " +
+                        "END IF; END $$");
+    }
+}
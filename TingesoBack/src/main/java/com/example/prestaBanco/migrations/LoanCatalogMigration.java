@@ -0,0 +1,51 @@
+package com.example.prestaBanco.migrations;
+
+import com.example.prestaBanco.cache.LoanCatalog;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Seeds the loans table with the four products that used to be hard coded in getLoanTypeInfo
+ * (only when it is empty) and installs the trigger that notifies {@link LoanCatalog} of every change.
+ */
+@Component
+@Order(5)
+public class LoanCatalogMigration implements Migration {
+
+    private static final Logger log = LoggerFactory.getLogger(LoanCatalogMigration.class);
+
+    private static final long LOCK_ID = 4_002L;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    @Transactional
+    public void migrate() {
+        jdbcTemplate.queryForObject("SELECT pg_advisory_xact_lock(?)", Object.class, LOCK_ID);
+
+        Integer loans = jdbcTemplate.queryForObject("SELECT count(*) FROM loans", Integer.class);
+        if (loans != null && loans == 0) {
+            jdbcTemplate.update(
+                    "INSERT INTO loans (type_loan, name, maximum_term, interest_rate_min, interest_rate_max, maximum_amount) VALUES " +
+                            "('firstHome', 'Primera Vivienda', 30, 3.5, 5.0, 100000000), " +
+                            "('secondHome', 'Segunda Vivienda', 20, 4.0, 6.0, 100000000), " +
+                            "('commercial', 'Propiedades Comerciales', 25, 5.0, 7.0, 100000000), " +
+                            "('remodeling', 'Remodelación', 15, 4.5, 6.0, 100000000)");
+            log.info("Seeded the loans table with the default products");
+        }
+
+        jdbcTemplate.execute(
+                "CREATE OR REPLACE FUNCTION notify_loans_changed() RETURNS trigger AS $$ " +
+                        "BEGIN PERFORM pg_notify('" + LoanCatalog.CHANNEL + "', ''); RETURN NULL; END $$ LANGUAGE plpgsql");
+        jdbcTemplate.execute("DROP TRIGGER IF EXISTS loans_changed ON loans");
+        jdbcTemplate.execute(
+                "CREATE TRIGGER loans_changed AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON loans " +
+                        "FOR EACH STATEMENT EXECUTE FUNCTION notify_loans_changed()");
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.prestaBanco.migrations;
+
+/**
+ * A schema or data change applied at startup by {@link MigrationRunner}. Migrations run in the
+ * order of their {@code @Order}, each one on its own, and must be safe to run again on every start
+ * and on several backends at once (they take an advisory lock).
+ */
+public interface Migration {
+
+    void migrate();
+}
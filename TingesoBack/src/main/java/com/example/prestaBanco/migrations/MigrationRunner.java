@@ -0,0 +1,33 @@
+package com.example.prestaBanco.migrations;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import java.util.List;
+
+/**
+ * Applies the {@link Migration}s once every bean is created, that is after Hibernate has updated
+ * the schema and before the lifecycle beans start, so the web server only accepts requests on a
+ * migrated database. A failed migration stops the startup.
+ */
+@Component
+public class MigrationRunner implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(MigrationRunner.class);
+
+    // Ordenadas por su @Order
+    @Autowired
+    private List<Migration> migrations;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        for (Migration migration : migrations) {
+            log.debug("Running {}", ClassUtils.getUserClass(migration).getSimpleName());
+            migration.migrate();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.prestaBanco.migrations;
+
+import com.example.prestaBanco.entities.RequestState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Moves the legacy form_credit.state_request column ("Pre-Aprobada") into the numeric form_credit.state
+ * column, and starts the version of the existing requests at 0. Descriptions that are not a state are
+ * logged and left without state. Runs before the components that read the state, under an advisory
+ * lock, and drops the legacy column once it is migrated.
+ */
+@Component
+@Order(3)
+public class RequestStateMigration implements Migration {
+
+    private static final Logger log = LoggerFactory.getLogger(RequestStateMigration.class);
+
+    private static final long LOCK_ID = 4_004L;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    @Transactional
+    public void migrate() {
+        jdbcTemplate.queryForObject("SELECT pg_advisory_xact_lock(?)", Object.class, LOCK_ID);
+
+        Boolean legacyColumn = jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM information_schema.columns " +
+                        "WHERE table_name = 'form_credit' AND column_name = 'state_request')", Boolean.class);
+        if (Boolean.TRUE.equals(legacyColumn)) {
+            StringBuilder cases = new StringBuilder("CASE state_request");
+            for (RequestState state : RequestState.values()) {
+                cases.append(" WHEN '").append(state.label()).append("' THEN ").append(state.id());
+            }
+            cases.append(" END");
+            int migrated = jdbcTemplate.update("UPDATE form_credit SET state = " + cases + " WHERE state IS NULL");
+            List<Long> unknown = jdbcTemplate.queryForList(
+                    "SELECT id FROM form_credit WHERE state IS NULL AND state_request IS NOT NULL ORDER BY id", Long.class);
+            if (!unknown.isEmpty()) {
+                log.warn("Credit requests {} have a state_request that is not a state; they are left without state", unknown);
+            }
+            jdbcTemplate.execute("ALTER TABLE form_credit DROP COLUMN state_request");
+            log.info("Migrated {} credit requests from form_credit.state_request to form_credit.state", migrated - unknown.size());
+        }
+
+        jdbcTemplate.update("UPDATE form_credit SET version = 0 WHERE version IS NULL");
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.prestaBanco.migrations;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Map;
+
+/**
+ * Moves the ids of clients and form_credit from serial or identity columns to the pooled sequences of
+ * the entities (clients_seq and form_credit_seq, created by Hibernate with an increment of 50). An
+ * identity is dropped, the sequence is moved past the highest id in use, and the sequence becomes the
+ * default of the column in place of the old one, so rows inserted without an id (plain SQL, or a backend of the previous version) still
+ * take their id from it. Runs first, under an advisory lock, before anything inserts.
+ */
+@Component
+@Order(1)
+public class SequenceIdMigration implements Migration {
+
+    private static final Logger log = LoggerFactory.getLogger(SequenceIdMigration.class);
+
+    private static final long LOCK_ID = 4_006L;
+
+    // Tabla y secuencia de su id
+    private static final Map<String, String> SEQUENCES = Map.of("clients", "clients_seq", "form_credit", "form_credit_seq");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    @Transactional
+    public void migrate() {
+        jdbcTemplate.queryForObject("SELECT pg_advisory_xact_lock(?)", Object.class, LOCK_ID);
+        SEQUENCES.forEach(this::migrateTable);
+    }
+
+    private void migrateTable(String table, String sequence) {
+        Map<String, Object> column = jdbcTemplate.queryForMap(
+                "SELECT is_identity, column_default FROM information_schema.columns " +
+                        "WHERE table_name = ? AND column_name = 'id'", table);
+        if ("YES".equals(column.get("is_identity"))) {
+            jdbcTemplate.execute("ALTER TABLE " + table + " ALTER COLUMN id DROP IDENTITY");
+            log.info("Dropped the identity of {}.id, ids now come from {}", table, sequence);
+        }
+        // Con el optimizador pooled el siguiente bloque empieza en el valor de la secuencia + 1.
+        // Solo avanza: otro backend puede estar usando ya un bloque de la secuencia
+        jdbcTemplate.query("SELECT setval('" + sequence + "', max(id)) FROM " + table +
+                " HAVING max(id) > (SELECT last_value FROM " + sequence + ")", rs -> { });
+        String sequenceDefault = "nextval('" + sequence + "'::regclass)";
+        if (!sequenceDefault.equals(column.get("column_default"))) {
+            jdbcTemplate.execute("ALTER TABLE " + table + " ALTER COLUMN id SET DEFAULT " + sequenceDefault);
+            log.info("{}.id now defaults to {} (was {})", table, sequence, column.get("column_default"));
+        }
+    }
+}
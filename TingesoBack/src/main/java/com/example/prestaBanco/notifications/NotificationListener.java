@@ -0,0 +1,25 @@
+package com.example.prestaBanco.notifications;
+
+/**
+ * Receives the payloads published on a Postgres channel through {@link PgNotificationBus}.
+ */
+public interface NotificationListener {
+
+    void onNotification(String payload);
+
+    /**
+     * Called on the listener thread once LISTEN is active for the channel: first at startup and
+     * again after every reconnect. Nothing published before this point is delivered, so listeners
+     * that cache database state should (re)load it here.
+     */
+    default void onListen() {
+    }
+
+    /**
+     * Called on the listener thread when the LISTEN connection is lost. Until the next
+     * {@link #onListen()} nothing is delivered, so listeners whose answers depend on seeing every
+     * notification must stop trusting their state here.
+     */
+    default void onDisconnect() {
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.prestaBanco.notifications;
+
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Small LISTEN/NOTIFY bus shared by the backends behind the load balancer.
+ * Publishing goes through the regular pool with pg_notify, so a notification sent inside a
+ * transaction is only delivered on commit. Listening uses one dedicated connection outside the
+ * pool, polled by a daemon thread that reconnects on failure; listeners are told through
+ * {@link NotificationListener#onDisconnect()} when the connection is lost and through
+ * {@link NotificationListener#onListen()} every time their channel starts being listened to.
+ */
+@Component
+public class PgNotificationBus implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(PgNotificationBus.class);
+
+    private static final int POLL_TIMEOUT_MS = 500;
+
+    private final Map<String, List<NotificationListener>> listeners = new ConcurrentHashMap<>();
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${spring.datasource.url}")
+    private String url;
+
+    @Value("${spring.datasource.username}")
+    private String username;
+
+    @Value("${spring.datasource.password}")
+    private String password;
+
+    @Value("${notifications.reconnect-delay-ms:5000}")
+    private long reconnectDelayMs;
+
+    private volatile boolean running;
+    private Thread worker;
+
+    public void subscribe(String channel, NotificationListener listener) {
+        listeners.computeIfAbsent(channel, c -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+
+    public void publish(String channel, String payload) {
+        jdbcTemplate.queryForObject("SELECT pg_notify(?, ?)", Object.class, channel, payload);
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        worker = new Thread(this::listen, "pg-notification-listener");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void listen() {
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(url, username, password)) {
+                PGConnection pg = connection.unwrap(PGConnection.class);
+                Set<String> listening = new HashSet<>();
+                Set<NotificationListener> synced = new HashSet<>();
+                while (running) {
+                    listenNewChannels(connection, listening, synced);
+                    PGNotification[] notifications = pg.getNotifications(POLL_TIMEOUT_MS);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            dispatch(notification.getName(), notification.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Lost the notification connection, retrying in {} ms: {}", reconnectDelayMs, e.getMessage());
+                disconnected();
+                try {
+                    Thread.sleep(reconnectDelayMs);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void listenNewChannels(Connection connection, Set<String> listening, Set<NotificationListener> synced) throws SQLException {
+        for (Map.Entry<String, List<NotificationListener>> entry : listeners.entrySet()) {
+            if (listening.add(entry.getKey())) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN \"" + entry.getKey().replace("\"", "\"\"") + "\"");
+                }
+            }
+            for (NotificationListener listener : entry.getValue()) {
+                if (synced.add(listener)) {
+                    sync(listener);
+                }
+            }
+        }
+    }
+
+    private void dispatch(String channel, String payload) {
+        for (NotificationListener listener : listeners.getOrDefault(channel, List.of())) {
+            try {
+                listener.onNotification(payload);
+            } catch (RuntimeException e) {
+                log.error("Listener for channel {} failed", channel, e);
+            }
+        }
+    }
+
+    private void disconnected() {
+        for (List<NotificationListener> channelListeners : listeners.values()) {
+            for (NotificationListener listener : channelListeners) {
+                try {
+                    listener.onDisconnect();
+                } catch (RuntimeException e) {
+                    log.error("Listener failed to handle the lost connection", e);
+                }
+            }
+        }
+    }
+
+    private void sync(NotificationListener listener) {
+        try {
+            listener.onListen();
+        } catch (RuntimeException e) {
+            log.error("Listener failed to load its state", e);
+        }
+    }
+}
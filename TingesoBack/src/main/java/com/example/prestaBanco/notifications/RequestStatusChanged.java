@@ -0,0 +1,15 @@
+package com.example.prestaBanco.notifications;
+
+import com.example.prestaBanco.entities.RequestState;
+
+/**
+ * Application event published when a credit request moves to a new state. Listeners run after the
+ * transaction that saved the state commits, or right away when there is none.
+ *
+ * @param requestId the credit request
+ * @param clientId the owner of the request, null for legacy requests without client
+ * @param state the new state
+ * @param typeLoan the type of loan of the request
+ */
+public record RequestStatusChanged(Long requestId, Long clientId, RequestState state, String typeLoan) {
+}
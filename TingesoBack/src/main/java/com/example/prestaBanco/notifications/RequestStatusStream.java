@@ -0,0 +1,272 @@
+package com.example.prestaBanco.notifications;
+
+import com.example.prestaBanco.dtos.RequestStatusEvent;
+import com.example.prestaBanco.entities.RequestState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes the state changes of the credit requests to the browsers as server-sent events, so the
+ * status views do not have to poll. A client subscribes to its own requests and an executive to all
+ * of them.
+ * <p>
+ * Changes made on this backend arrive as {@link RequestStatusChanged} events once committed; they are
+ * sent to the local subscribers and published on the {@value #CHANNEL} channel for the other backends,
+ * which send them to theirs. Notifications carry the id of the backend that published them, so each
+ * change is sent only once per backend.
+ * <p>
+ * Each stream has its own bounded queue of events, written by at most one sender thread at a time, so
+ * neither the request that changed the state nor the other streams wait for a slow browser. A stream
+ * has fallen behind when a write takes longer than the send timeout or its queue fills up; it is then
+ * closed, and the browser reconnects and reloads. The heartbeat comment goes through the same queue,
+ * so it also finds the browsers that stopped reading or went away.
+ */
+@Component
+public class RequestStatusStream implements ApplicationRunner, NotificationListener, DisposableBean {
+
+    public static final String CHANNEL = "request_status";
+
+    private static final Logger log = LoggerFactory.getLogger(RequestStatusStream.class);
+
+    private final String origin = UUID.randomUUID().toString().substring(0, 8);
+
+    // Suscripciones de cada cliente y de los ejecutivos, que reciben todas las solicitudes
+    private final Map<Long, Set<Subscriber>> clients = new ConcurrentHashMap<>();
+    private final Set<Subscriber> executives = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger subscribers = new AtomicInteger();
+
+    // Cada suscripción usa a lo más un hilo, así que los hilos quedan acotados por max-subscribers
+    private final ExecutorService sender = Executors.newCachedThreadPool(r -> daemon(r, "request-status-sender"));
+    private final ScheduledExecutorService heartbeat = Executors.newSingleThreadScheduledExecutor(r -> daemon(r, "request-status-heartbeat"));
+
+    @Autowired
+    private PgNotificationBus notificationBus;
+
+    @Value("${request-events.timeout:30m}")
+    private Duration timeout;
+
+    @Value("${request-events.heartbeat:20s}")
+    private Duration heartbeatInterval;
+
+    @Value("${request-events.max-subscribers:2000}")
+    private int maxSubscribers;
+
+    @Value("${request-events.queue-capacity:1000}")
+    private int queueCapacity;
+
+    @Value("${request-events.send-timeout:10s}")
+    private Duration sendTimeout;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        notificationBus.subscribe(CHANNEL, this);
+        long period = heartbeatInterval.toMillis();
+        heartbeat.scheduleAtFixedRate(this::ping, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Opens the stream of the requests of a client.
+     * @param clientId the client
+     * @throws RejectedExecutionException if this backend already has the maximum number of streams open
+     */
+    public SseEmitter subscribeClient(Long clientId) {
+        Set<Subscriber> subscribed = clients.computeIfAbsent(clientId, id -> ConcurrentHashMap.newKeySet());
+        return subscribe(subscribed, () -> clients.computeIfPresent(clientId, (id, current) -> current.isEmpty() ? null : current));
+    }
+
+    /**
+     * Opens the stream of every request, for the executive views.
+     * @throws RejectedExecutionException if this backend already has the maximum number of streams open
+     */
+    public SseEmitter subscribeExecutive() {
+        return subscribe(executives, () -> { });
+    }
+
+    /**
+     * @return the streams open on this backend
+     */
+    public int subscribers() {
+        return subscribers.get();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStatusChanged(RequestStatusChanged event) {
+        deliver(event);
+        try {
+            notificationBus.publish(CHANNEL, encode(origin, event));
+        } catch (RuntimeException e) {
+            // el cambio ya está guardado; los otros backends lo verán al recargar
+            log.warn("Could not publish the state change of request {}: {}", event.requestId(), e.getMessage());
+        }
+    }
+
+    @Override
+    public void onNotification(String payload) {
+        String[] fields = payload.split(",", 5);
+        if (fields.length != 5 || origin.equals(fields[0])) {
+            return;
+        }
+        deliver(new RequestStatusChanged(Long.valueOf(fields[1]), fields[2].isEmpty() ? null : Long.valueOf(fields[2]),
+                RequestState.fromId(Short.parseShort(fields[3])), fields[4].isEmpty() ? null : fields[4]));
+    }
+
+    /**
+     * Payload of a notification: backend, request, client, state and type of loan, separated by commas.
+     * The type of loan goes last, so it is the only field that could contain a comma.
+     */
+    static String encode(String origin, RequestStatusChanged event) {
+        return origin + "," + event.requestId() + "," + (event.clientId() == null ? "" : event.clientId()) + ","
+                + event.state().id() + "," + (event.typeLoan() == null ? "" : event.typeLoan());
+    }
+
+    String origin() {
+        return origin;
+    }
+
+    @Override
+    public void destroy() {
+        heartbeat.shutdownNow();
+        sender.shutdownNow();
+        executives.forEach(subscriber -> subscriber.emitter.complete());
+        clients.values().forEach(subscribed -> subscribed.forEach(subscriber -> subscriber.emitter.complete()));
+    }
+
+    private SseEmitter subscribe(Set<Subscriber> subscribed, Runnable removed) {
+        if (subscribers.incrementAndGet() > maxSubscribers) {
+            subscribers.decrementAndGet();
+            throw new RejectedExecutionException("Too many request status streams open");
+        }
+        Subscriber subscriber = new Subscriber(new SseEmitter(timeout.toMillis()), subscribed, removed);
+        subscribed.add(subscriber);
+        subscriber.emitter.onCompletion(subscriber::remove);
+        subscriber.emitter.onTimeout(subscriber::remove);
+        subscriber.emitter.onError(e -> subscriber.remove());
+        return subscriber.emitter;
+    }
+
+    private void deliver(RequestStatusChanged event) {
+        if (event.state() == null) {
+            return;
+        }
+        Set<Subscriber> owners = event.clientId() == null ? Set.of() : clients.getOrDefault(event.clientId(), Set.of());
+        if (owners.isEmpty() && executives.isEmpty()) {
+            return;
+        }
+        RequestStatusEvent data = new RequestStatusEvent(event.requestId(), event.state(), event.typeLoan());
+        // Cada envío necesita su propio builder: build() le agrega el fin del evento
+        owners.forEach(subscriber -> subscriber.offer(SseEmitter.event().name("status").data(data)));
+        executives.forEach(subscriber -> subscriber.offer(SseEmitter.event().name("status").data(data)));
+    }
+
+    private void ping() {
+        executives.forEach(subscriber -> subscriber.offer(SseEmitter.event().comment("ping")));
+        clients.values().forEach(subscribed -> subscribed.forEach(subscriber -> subscriber.offer(SseEmitter.event().comment("ping"))));
+    }
+
+    /**
+     * An open stream and the events waiting to be written to it.
+     */
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final Set<Subscriber> subscribed;
+        private final Runnable removed;
+        private final BlockingQueue<SseEmitter.SseEventBuilder> pending = new ArrayBlockingQueue<>(queueCapacity);
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean dropped;
+        // Inicio del envío en curso, 0 si no hay ninguno
+        private volatile long sendingSince;
+
+        private Subscriber(SseEmitter emitter, Set<Subscriber> subscribed, Runnable removed) {
+            this.emitter = emitter;
+            this.subscribed = subscribed;
+            this.removed = removed;
+        }
+
+        void offer(SseEmitter.SseEventBuilder event) {
+            long since = sendingSince;
+            if ((since != 0 && System.nanoTime() - since > sendTimeout.toNanos()) || !pending.offer(event)) {
+                // Se quedó atrás: deja de recibir eventos y se cierra desde el hilo que le escribe,
+                // porque complete() espera a que termine el envío en curso
+                log.debug("Closing a request status stream that fell behind ({} events queued)", pending.size());
+                dropped = true;
+                pending.clear();
+                remove();
+            }
+            schedule();
+        }
+
+        void remove() {
+            if (subscribed.remove(this)) {
+                subscribers.decrementAndGet();
+                removed.run();
+            }
+        }
+
+        private void schedule() {
+            if (draining.compareAndSet(false, true)) {
+                try {
+                    sender.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    // el backend se está deteniendo
+                    draining.set(false);
+                }
+            }
+        }
+
+        private void drain() {
+            do {
+                SseEmitter.SseEventBuilder event;
+                while (!dropped && (event = pending.poll()) != null) {
+                    sendingSince = System.nanoTime();
+                    try {
+                        emitter.send(event);
+                    } catch (IOException | IllegalStateException e) {
+                        // el navegador se desconectó: completeWithError dispara onError, que quita la suscripción
+                        dropped = true;
+                        emitter.completeWithError(e);
+                        return;
+                    } finally {
+                        sendingSince = 0;
+                    }
+                }
+                if (dropped) {
+                    emitter.complete();
+                    return;
+                }
+                draining.set(false);
+                // Un evento que llegó después de vaciar la cola y antes de soltar la marca
+            } while (!pending.isEmpty() && draining.compareAndSet(false, true));
+        }
+    }
+
+    private static Thread daemon(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+}
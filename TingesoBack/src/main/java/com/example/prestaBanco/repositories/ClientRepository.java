@@ -1,16 +1,54 @@
 package com.example.prestaBanco.repositories;
 
+import com.example.prestaBanco.dtos.ClientSummary;
 import com.example.prestaBanco.entities.ClientEntity;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import jakarta.persistence.QueryHint;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 
 @Repository
 public interface ClientRepository extends JpaRepository<ClientEntity, Long> {
 
+    // Los filtros son prefijos LIKE ya escapados con '!', o null para no filtrar
+    String CLIENT_SUMMARIES = "select new com.example.prestaBanco.dtos.ClientSummary(c.id, c.rut, c.name, c.lastName, c.email) " +
+            "from ClientEntity c " +
+            "where (:rut is null or c.rut like :rut escape '!') " +
+            "and (:name is null or lower(c.name) like :name escape '!' or lower(c.lastName) like :name escape '!') ";
+
     Optional<ClientEntity> findByRut(String rut);
 
     Optional<ClientEntity> findByRutAndPassword(String rut, String password);
+
+    /**
+     * Keyset page of the client listing: the clients with an id greater than {@code afterId}.
+     */
+    @Query(CLIENT_SUMMARIES + "and c.id > :afterId order by c.id")
+    List<ClientSummary> findSummariesAfter(@Param("afterId") long afterId, @Param("rut") String rut,
+                                           @Param("name") String name, Limit limit);
+
+    /**
+     * Id and RUT of the clients registered with any of the given RUTs, in one query. The RUTs go as
+     * a single array parameter, so the statement is the same however many there are.
+     */
+    @Query(value = "select c.id, c.rut from clients c where c.rut = any(:ruts)", nativeQuery = true)
+    List<Object[]> findIdsByRut(@Param("ruts") String[] ruts);
+
+    /**
+     * Streams the client listing with a server side cursor. Must be consumed inside a transaction.
+     */
+    @Query(CLIENT_SUMMARIES + "order by c.id")
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    Stream<ClientSummary> streamSummaries(@Param("rut") String rut, @Param("name") String name);
 }
@@ -0,0 +1,14 @@
+package com.example.prestaBanco.repositories;
+
+import com.example.prestaBanco.entities.CreditDocumentEntity;
+import com.example.prestaBanco.entities.CreditDocumentId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface CreditDocumentRepository extends JpaRepository<CreditDocumentEntity, CreditDocumentId> {
+
+    List<CreditDocumentEntity> findByRequestId(Long requestId);
+}
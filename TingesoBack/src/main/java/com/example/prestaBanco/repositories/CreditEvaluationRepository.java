@@ -4,6 +4,15 @@ import com.example.prestaBanco.entities.CreditEvaluationEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
 @Repository
 public interface CreditEvaluationRepository extends JpaRepository<CreditEvaluationEntity, Long> {
+
+    Optional<CreditEvaluationEntity> findByTicket(UUID ticket);
+
+    List<CreditEvaluationEntity> findByIdRquestInOrderByIdAsc(Collection<Long> idRquest);
 }
@@ -1,12 +1,51 @@
 package com.example.prestaBanco.repositories;
 
+import com.example.prestaBanco.dtos.CreditStatusRow;
+import com.example.prestaBanco.dtos.StateCount;
 import com.example.prestaBanco.entities.CreditRequestEntity;
+import com.example.prestaBanco.entities.RequestState;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import jakarta.persistence.QueryHint;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 
 @Repository
 public interface CreditRequestRepository extends JpaRepository<CreditRequestEntity, Long> {
 
+    String CREDIT_STATUS_ROWS = "select new com.example.prestaBanco.dtos.CreditStatusRow(r.id, c.rut, c.name, c.lastName, r.typeLoan, r.StateRequest) " +
+            "from CreditRequestEntity r join ClientEntity c on c.id = r.clientId " +
+            "where (:status is null or r.StateRequest = :status) and (:typeLoan is null or r.typeLoan = :typeLoan) ";
+
+    List<CreditRequestEntity> findByClientIdOrderByIdAsc(Long clientId);
+
+    /**
+     * Number of requests in each state, read from the state index.
+     */
+    @Query("select new com.example.prestaBanco.dtos.StateCount(r.StateRequest, count(r)) from CreditRequestEntity r " +
+            "group by r.StateRequest order by r.StateRequest")
+    List<StateCount> countByState();
+
+    /**
+     * Keyset page of the executive listing: the rows with an id greater than {@code afterId}.
+     */
+    @Query(CREDIT_STATUS_ROWS + "and r.id > :afterId order by r.id")
+    List<CreditStatusRow> findCreditStatusAfter(@Param("afterId") long afterId, @Param("status") RequestState status,
+                                                @Param("typeLoan") String typeLoan, Limit limit);
+
+    /**
+     * Streams the executive listing with a server side cursor. Must be consumed inside a transaction.
+     */
+    @Query(CREDIT_STATUS_ROWS + "order by r.id")
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    Stream<CreditStatusRow> streamCreditStatus(@Param("status") RequestState status, @Param("typeLoan") String typeLoan);
 }
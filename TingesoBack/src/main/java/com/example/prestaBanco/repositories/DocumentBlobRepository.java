@@ -0,0 +1,26 @@
+package com.example.prestaBanco.repositories;
+
+import com.example.prestaBanco.dtos.DocumentCompressionStats;
+import com.example.prestaBanco.dtos.DocumentStorageStats;
+import com.example.prestaBanco.entities.DocumentBlobEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface DocumentBlobRepository extends JpaRepository<DocumentBlobEntity, String> {
+
+    @Query("select new com.example.prestaBanco.dtos.DocumentStorageStats(count(b), coalesce(sum(b.refCount), 0), " +
+            "coalesce(sum(b.size), 0), coalesce(sum(coalesce(b.storedSize, b.size)), 0), coalesce(sum(b.size * b.refCount), 0)) " +
+            "from DocumentBlobEntity b where b.refCount > 0")
+    DocumentStorageStats stats();
+
+    @Query("select new com.example.prestaBanco.dtos.DocumentCompressionStats(d.documentType, coalesce(b.codec, 'NONE'), " +
+            "b.size, coalesce(b.storedSize, b.size), coalesce(b.writeMicros, 0)) " +
+            "from CreditDocumentEntity d join DocumentBlobEntity b on b.storageId = d.storageId " +
+            "where d.requestId = :requestId order by d.documentType")
+    List<DocumentCompressionStats> findCompressionByRequestId(@Param("requestId") Long requestId);
+}
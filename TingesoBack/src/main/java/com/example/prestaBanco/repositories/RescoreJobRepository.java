@@ -0,0 +1,16 @@
+package com.example.prestaBanco.repositories;
+
+import com.example.prestaBanco.entities.RescoreJobEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface RescoreJobRepository extends JpaRepository<RescoreJobEntity, Long> {
+
+    List<RescoreJobEntity> findByStatusOrderByIdAsc(String status);
+
+    Optional<RescoreJobEntity> findFirstByOrderByIdDesc();
+}
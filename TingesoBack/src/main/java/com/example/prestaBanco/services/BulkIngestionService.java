@@ -0,0 +1,375 @@
+package com.example.prestaBanco.services;
+
+import com.example.prestaBanco.cache.RutBloomFilter;
+import com.example.prestaBanco.dtos.HistoricalRequest;
+import com.example.prestaBanco.dtos.ImportError;
+import com.example.prestaBanco.dtos.IngestionResult;
+import com.example.prestaBanco.entities.ClientEntity;
+import com.example.prestaBanco.entities.CreditRequestEntity;
+import com.example.prestaBanco.entities.RequestState;
+import com.example.prestaBanco.ingestion.CsvReader;
+import com.example.prestaBanco.repositories.ClientRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.format.ResolverStyle;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+/**
+ * Loads clients and credit requests of the previous system in bulk.
+ * <p>
+ * Rows are written in chunks, one transaction each. Ids come from the pooled sequences of the
+ * entities, so Hibernate needs no round trip per row and sends the INSERTs in JDBC batches
+ * ({@code hibernate.jdbc.batch_size}), which the driver rewrites into multi-row INSERTs. The
+ * persistence context is flushed and cleared after every batch so memory stays flat. The RUTs of
+ * each chunk are checked against the database in one query; a client registered by someone else
+ * after that query is caught by the unique index on clients.rut, and the chunk is saved again
+ * without it and reported as skipped.
+ * <p>
+ * A CSV import is read the same way, one chunk at a time: the rows of a chunk are validated in
+ * parallel and the errors are written to the report before the next chunk is read, so neither the
+ * file nor the report is ever held in memory.
+ */
+@Service
+public class BulkIngestionService {
+
+    private static final Logger log = LoggerFactory.getLogger(BulkIngestionService.class);
+
+    // Columnas del CSV de clientes; dateOfBirth es opcional, como en el registro
+    private static final String[] CLIENT_COLUMNS = {"name", "lastName", "rut", "password", "email", "dateOfBirth"};
+    private static final int DATE_OF_BIRTH = 5;
+    private static final DateTimeFormatter[] DATE_FORMATS = {
+            DateTimeFormatter.ISO_LOCAL_DATE,
+            DateTimeFormatter.ofPattern("dd-MM-uuuu").withResolverStyle(ResolverStyle.STRICT),
+            DateTimeFormatter.ofPattern("dd/MM/uuuu").withResolverStyle(ResolverStyle.STRICT)
+    };
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Autowired
+    private RutBloomFilter rutBloomFilter;
+
+    @Autowired
+    private ClientService clientService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int batchSize;
+
+    @Value("${ingestion.chunk-size:1000}")
+    private int chunkSize;
+
+    /**
+     * Inserts the clients whose RUT is not registered yet; repeated RUTs in the input keep the first row.
+     * The fields are stored as received, without the checks of the signup.
+     */
+    public IngestionResult ingestClients(List<ClientEntity> clients) {
+        long start = System.nanoTime();
+        Set<String> seen = new HashSet<>();
+        List<String> skippedRuts = new ArrayList<>();
+        int inserted = 0;
+        for (int from = 0; from < clients.size(); from += chunkSize) {
+            List<ClientEntity> chunk = clients.subList(from, Math.min(from + chunkSize, clients.size()));
+            Set<String> registered = registeredRuts(chunk.stream().map(ClientEntity::getRut).toList()).keySet();
+            List<ClientEntity> accepted = new ArrayList<>(chunk.size());
+            for (ClientEntity client : chunk) {
+                String rut = client.getRut();
+                if (rut != null && !rut.isBlank() && !registered.contains(rut) && seen.add(rut)) {
+                    accepted.add(client);
+                } else if (rut != null && !rut.isBlank()) {
+                    skippedRuts.add(rut);
+                }
+            }
+            Set<String> conflicts = persistClients(accepted);
+            for (ClientEntity client : accepted) {
+                if (conflicts.contains(client.getRut())) {
+                    skippedRuts.add(client.getRut());
+                } else {
+                    inserted++;
+                }
+            }
+        }
+        IngestionResult result = IngestionResult.of(clients.size(), inserted, skippedRuts, start);
+        log.info("Ingested {} of {} clients in {} ms ({} rows/s)", result.inserted(), result.received(),
+                result.elapsedMillis(), result.rowsPerSecond());
+        return result;
+    }
+
+    /**
+     * Inserts the requests of registered clients; the rows whose RUT is not registered are skipped.
+     */
+    public IngestionResult ingestRequests(List<HistoricalRequest> requests) {
+        long start = System.nanoTime();
+        List<String> skippedRuts = new ArrayList<>();
+        int inserted = 0;
+        for (int from = 0; from < requests.size(); from += chunkSize) {
+            List<HistoricalRequest> chunk = requests.subList(from, Math.min(from + chunkSize, requests.size()));
+            Map<String, Long> clientIds = registeredRuts(chunk.stream().map(HistoricalRequest::rut).toList());
+            List<CreditRequestEntity> accepted = new ArrayList<>(chunk.size());
+            for (HistoricalRequest request : chunk) {
+                Long clientId = clientIds.get(request.rut());
+                if (clientId != null) {
+                    RequestState state = request.state() == null ? RequestState.INITIAL_REVIEW : request.state();
+                    accepted.add(new CreditRequestEntity(null, clientId, request.typeLoan(), request.term(),
+                            request.interestRate(), request.maximumAmount(), state, null));
+                } else if (request.rut() != null) {
+                    skippedRuts.add(request.rut());
+                }
+            }
+            persistAll(accepted);
+            inserted += accepted.size();
+        }
+        IngestionResult result = IngestionResult.of(requests.size(), inserted, skippedRuts, start);
+        log.info("Ingested {} of {} credit requests in {} ms ({} rows/s)", result.inserted(), result.received(),
+                result.elapsedMillis(), result.rowsPerSecond());
+        return result;
+    }
+
+    /**
+     * Imports clients from a CSV file whose first line names the columns name, lastName, rut, password,
+     * email and, optionally, dateOfBirth (yyyy-MM-dd, dd-MM-yyyy or dd/MM/yyyy), in any order. Each row
+     * goes through the same checks as the signup; the rows that pass are inserted, and the others are
+     * reported with their line. A file that is not valid CSV is reported and imported up to the broken row.
+     * @param csv the file, in UTF-8
+     * @param out where the report is written, as {"errors": [...], "summary": {...}}
+     * @throws IOException
+     */
+    public void importClients(InputStream csv, OutputStream out) throws IOException {
+        long start = System.nanoTime();
+        int received = 0;
+        int inserted = 0;
+        try (CsvReader reader = new CsvReader(new InputStreamReader(csv, StandardCharsets.UTF_8));
+             JsonGenerator json = objectMapper.createGenerator(out)) {
+            json.writeStartObject();
+            json.writeArrayFieldStart("errors");
+            int[] columns = clientColumns(nextRecord(reader, json), json);
+            if (columns != null) {
+                List<ImportRow> chunk = new ArrayList<>(chunkSize);
+                List<String> fields;
+                while ((fields = nextRecord(reader, json)) != null) {
+                    chunk.add(new ImportRow(reader.recordLine(), fields));
+                    if (chunk.size() == chunkSize) {
+                        received += chunk.size();
+                        inserted += importChunk(chunk, columns, json);
+                        chunk.clear();
+                    }
+                }
+                received += chunk.size();
+                inserted += importChunk(chunk, columns, json);
+            }
+            json.writeEndArray();
+            IngestionResult result = IngestionResult.of(received, inserted, start);
+            json.writeObjectField("summary", result);
+            json.writeEndObject();
+            log.info("Imported {} of {} clients from CSV in {} ms ({} rows/s)", result.inserted(), result.received(),
+                    result.elapsedMillis(), result.rowsPerSecond());
+        }
+    }
+
+    // Siguiente fila; si el archivo está mal formado lo informa y termina la lectura
+    private static List<String> nextRecord(CsvReader reader, JsonGenerator json) throws IOException {
+        try {
+            return reader.next();
+        } catch (IllegalArgumentException e) {
+            log.warn("Client import stopped: {}", e.getMessage());
+            json.writeObject(new ImportError(reader.recordLine(), null,
+                    "El archivo no es un CSV válido desde esta línea, no se importó el resto"));
+            return null;
+        }
+    }
+
+    // Posición de cada columna en el archivo (-1 si falta), o null si el archivo está vacío o falta una obligatoria
+    private static int[] clientColumns(List<String> header, JsonGenerator json) throws IOException {
+        if (header == null) {
+            return null;
+        }
+        int[] columns = new int[CLIENT_COLUMNS.length];
+        for (int c = 0; c < CLIENT_COLUMNS.length; c++) {
+            columns[c] = -1;
+            for (int i = 0; i < header.size(); i++) {
+                if (header.get(i).trim().equalsIgnoreCase(CLIENT_COLUMNS[c])) {
+                    columns[c] = i;
+                }
+            }
+            if (columns[c] < 0 && c != DATE_OF_BIRTH) {
+                json.writeObject(new ImportError(1, null, "Falta la columna " + CLIENT_COLUMNS[c] + " en la primera línea"));
+                return null;
+            }
+        }
+        return columns;
+    }
+
+    // Valida en paralelo, comprueba los RUT con una consulta y guarda las filas válidas; devuelve cuántas se guardaron
+    private int importChunk(List<ImportRow> rows, int[] columns, JsonGenerator json) throws IOException {
+        int size = rows.size();
+        ClientEntity[] clients = new ClientEntity[size];
+        String[] errors = new String[size];
+        IntStream.range(0, size).parallel().forEach(i -> {
+            try {
+                clients[i] = toClient(rows.get(i).fields(), columns);
+                errors[i] = clientService.checkClientFields(clients[i]);
+            } catch (IllegalArgumentException e) {
+                errors[i] = e.getMessage();
+            }
+        });
+
+        List<String> ruts = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            if (errors[i] == null) {
+                ruts.add(clients[i].getRut());
+            }
+        }
+        Set<String> registered = registeredRuts(ruts).keySet();
+        Set<String> seen = new HashSet<>();
+        List<ClientEntity> accepted = new ArrayList<>(ruts.size());
+        for (int i = 0; i < size; i++) {
+            if (errors[i] != null) {
+                continue;
+            }
+            if (registered.contains(clients[i].getRut())) {
+                errors[i] = "El RUT ya está registrado";
+            } else if (!seen.add(clients[i].getRut())) {
+                errors[i] = "El RUT está repetido en el archivo";
+            } else {
+                accepted.add(clients[i]);
+            }
+        }
+        Set<String> conflicts = persistClients(accepted);
+        for (int i = 0; i < size; i++) {
+            if (errors[i] == null && conflicts.contains(clients[i].getRut())) {
+                errors[i] = "El RUT ya está registrado";
+            }
+        }
+
+        for (int i = 0; i < size; i++) {
+            if (errors[i] != null) {
+                List<String> fields = rows.get(i).fields();
+                String rut = columns[2] < fields.size() ? fields.get(columns[2]).trim() : null;
+                json.writeObject(new ImportError(rows.get(i).line(), rut, errors[i]));
+            }
+        }
+        // El informe avanza con cada lote
+        json.flush();
+        return accepted.size() - conflicts.size();
+    }
+
+    private static ClientEntity toClient(List<String> fields, int[] columns) {
+        for (int column : columns) {
+            if (column >= fields.size()) {
+                throw new IllegalArgumentException("La fila tiene " + fields.size() + " columnas, faltan datos");
+            }
+        }
+        ClientEntity client = new ClientEntity();
+        client.setName(fields.get(columns[0]).trim());
+        client.setLastName(fields.get(columns[1]).trim());
+        client.setRut(fields.get(columns[2]).trim());
+        client.setPassword(fields.get(columns[3]));
+        client.setEmail(fields.get(columns[4]).trim());
+        if (columns[DATE_OF_BIRTH] >= 0) {
+            client.setDateOfBirth(parseDate(fields.get(columns[DATE_OF_BIRTH]).trim()));
+        }
+        return client;
+    }
+
+    private static LocalDate parseDate(String value) {
+        if (value.isEmpty()) {
+            return null;
+        }
+        for (DateTimeFormatter format : DATE_FORMATS) {
+            try {
+                return LocalDate.parse(value, format);
+            } catch (DateTimeParseException e) {
+                // probar el siguiente formato
+            }
+        }
+        throw new IllegalArgumentException("La fecha de nacimiento " + value + " no es válida");
+    }
+
+    private record ImportRow(long line, List<String> fields) {
+    }
+
+    // RUT registrado -> id del cliente, con una sola consulta para todo el lote
+    private Map<String, Long> registeredRuts(List<String> ruts) {
+        Set<String> distinct = new HashSet<>(ruts);
+        distinct.remove(null);
+        Map<String, Long> ids = new HashMap<>();
+        if (!distinct.isEmpty()) {
+            for (Object[] client : clientRepository.findIdsByRut(distinct.toArray(String[]::new))) {
+                ids.put((String) client[1], ((Number) client[0]).longValue());
+            }
+        }
+        return ids;
+    }
+
+    // Guarda los clientes con su id de la secuencia; si el índice único rechaza el lote porque otro proceso
+    // registró alguno de sus RUT después de la consulta, se guarda de nuevo sin ellos. Devuelve esos RUT
+    private Set<String> persistClients(List<ClientEntity> clients) {
+        Set<String> conflicts = new HashSet<>();
+        List<ClientEntity> pending = clients;
+        while (true) {
+            pending.forEach(client -> client.setId(null));
+            try {
+                persistAll(pending);
+                rutBloomFilter.registerAll(pending.stream().map(ClientEntity::getRut).toList());
+                return conflicts;
+            } catch (PersistenceException e) {
+                Set<String> registered = registeredRuts(pending.stream().map(ClientEntity::getRut).toList()).keySet();
+                if (registered.isEmpty()) {
+                    throw e;
+                }
+                log.warn("Clients {} were registered during the ingestion, saving the chunk again without them", registered);
+                conflicts.addAll(registered);
+                pending = pending.stream().filter(client -> !registered.contains(client.getRut())).toList();
+            }
+        }
+    }
+
+    private void persistAll(List<?> entities) {
+        if (entities.isEmpty()) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < entities.size(); i++) {
+                entityManager.persist(entities.get(i));
+                if ((i + 1) % batchSize == 0) {
+                    entityManager.flush();
+                    entityManager.clear();
+                }
+            }
+            entityManager.flush();
+            entityManager.clear();
+        });
+    }
+}
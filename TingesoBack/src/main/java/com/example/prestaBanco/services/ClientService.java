@@ -1,29 +1,96 @@
 package com.example.prestaBanco.services;
 
+import com.example.prestaBanco.cache.RutBloomFilter;
+import com.example.prestaBanco.dtos.ClientPage;
+import com.example.prestaBanco.dtos.ClientSummary;
+import com.example.prestaBanco.dtos.SimulationBatchRequest;
+import com.example.prestaBanco.dtos.SimulationBatchResult;
+import com.example.prestaBanco.dtos.SimulationScenario;
 import com.example.prestaBanco.entities.ClientEntity;
 import com.example.prestaBanco.entities.CreditRequestEntity;
+import com.example.prestaBanco.metrics.CreditMetrics;
+import com.example.prestaBanco.notifications.RequestStatusStream;
 import com.example.prestaBanco.repositories.ClientRepository;
 import com.example.prestaBanco.repositories.CreditRequestRepository;
+import com.example.prestaBanco.simulation.AmortizationEngine;
+import com.example.prestaBanco.simulation.AmortizationSchedule;
+import com.example.prestaBanco.validation.CredentialError;
+import com.example.prestaBanco.validation.CredentialValidator;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.Period;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Service
 public class ClientService {
 
+    private static final int MAX_PAGE_SIZE = 500;
+
     @Autowired
     private ClientRepository clientRepository;
 
     @Autowired
     private CreditRequestRepository creditRequestRepository;
 
+    @Autowired
+    private CredentialValidator credentialValidator;
+
+    @Autowired
+    private RutBloomFilter rutBloomFilter;
+
+    @Autowired
+    private AmortizationEngine amortizationEngine;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private CreditMetrics creditMetrics;
+
+    @Autowired
+    private RequestStatusStream requestStatusStream;
 
     private String validateClientFields(ClientEntity client) {
+        String answer = checkClientFields(client);
+        if (answer != null) {
+            return answer;
+        }
+
+        // Validar unicidad de RUT
+        Optional<ClientEntity> existingClientByRut = findClient(client.getRut());
+        if (existingClientByRut.isPresent()) {
+            return "El RUT ya está registrado";
+        }
+        return null;
+    }
+
+    /**
+     * Checks the fields of a new client, except that the RUT is not registered yet. Reads nothing
+     * from the database, so it can run on many clients at once.
+     * @param client the client to check
+     * @return the message of the first check that fails, or null
+     */
+    public String checkClientFields(ClientEntity client) {
         // Validar campos obligatorios
         if (client.getName() == null || client.getName().trim().isEmpty()) {
             return "El nombre es obligatorio";
@@ -31,14 +98,17 @@ public class ClientService {
         if (client.getLastName() == null || client.getLastName().trim().isEmpty()) {
             return "El apellido es obligatorio";
         }
-        if (client.getRut() == null || client.getRut().trim().isEmpty()) {
-            return "El RUT es obligatorio";
+        CredentialError rutError = credentialValidator.checkRut(client.getRut());
+        if (rutError == CredentialError.RUT_REQUIRED) {
+            return rutError.getMessage();
         }
-        if (client.getPassword() == null || client.getPassword().trim().isEmpty()) {
-            return "La contraseña es obligatoria";
+        CredentialError passwordError = credentialValidator.checkPassword(client.getPassword());
+        if (passwordError == CredentialError.PASSWORD_REQUIRED) {
+            return passwordError.getMessage();
         }
-        if (client.getEmail() == null || client.getEmail().trim().isEmpty()) {
-            return "El email es obligatorio";
+        CredentialError emailError = credentialValidator.checkEmail(client.getEmail());
+        if (emailError == CredentialError.EMAIL_REQUIRED) {
+            return emailError.getMessage();
         }
 
         // Validar longitud de campos
@@ -49,19 +119,19 @@ public class ClientService {
             return "El apellido debe tener entre 2 y 50 caracteres";
         }
 
-        // Validar formato de RUT (formato chileno: 12345678-9)
-        if (!client.getRut().matches("^[0-9]{7,8}-[0-9kK]{1}$")) {
-            return "Formato de RUT inválido";
+        // Validar formato y dígito verificador de RUT (formato chileno: 12345678-9)
+        if (!rutError.isValid()) {
+            return rutError.getMessage();
         }
 
         // Validar formato de email
-        if (!client.getEmail().matches("^[A-Za-z0-9+_.-]+@(.+)$")) {
-            return "Formato de email inválido";
+        if (!emailError.isValid()) {
+            return emailError.getMessage();
         }
 
         // Validar contraseña (mínimo 8 caracteres, al menos una mayúscula y un número)
-        if (!client.getPassword().matches("^(?=.*[A-Z])(?=.*[0-9]).{8,}$")) {
-            return "La contraseña debe tener al menos 8 caracteres, una mayúscula y un número";
+        if (!passwordError.isValid()) {
+            return passwordError.getMessage();
         }
 
         // Validar edad (mayor de 18 años)
@@ -72,12 +142,6 @@ public class ClientService {
                 return "El cliente debe ser mayor de 18 años";
             }
         }
-
-        // Validar unicidad de RUT
-        Optional<ClientEntity> existingClientByRut = clientRepository.findByRut(client.getRut());
-        if (existingClientByRut.isPresent()) {
-            return "El RUT ya está registrado";
-        }
         return null;
     }
 
@@ -93,7 +157,13 @@ public class ClientService {
         if(answer != null){
             return answer;
         } else {
-            clientRepository.save(client);
+            try {
+                clientRepository.save(client);
+            } catch (DataIntegrityViolationException e) {
+                // Otro registro con el mismo RUT entró entre la validación y el INSERT
+                return "El RUT ya está registrado";
+            }
+            rutBloomFilter.register(client.getRut());
             return "Cliente guardado";
         }
     }
@@ -103,13 +173,13 @@ public class ClientService {
      * @return true if the combination is available, false otherwise
      */
     public boolean validateClient(String rut, String password) {
-        // Validar formato de RUT
-        if (!rut.matches("^[0-9]{7,8}-[0-9kK]{1}$")) {
+        // Solo el formato: hay cuentas registradas con un dígito verificador incorrecto
+        if (!credentialValidator.checkRutFormat(rut).isValid()) {
             return false;
         }
 
         // Validar formato de contraseña
-        if (!password.matches("^(?=.*[A-Z])(?=.*[0-9]).{8,}$")) {
+        if (!credentialValidator.checkPassword(password).isValid()) {
            return false;
         }
 
@@ -123,39 +193,184 @@ public class ClientService {
 
     // Los demás métodos permanecen igual
     public int simulation(int amount, double interestRate, int term) {
-        double p = amount;
+        Timer.Sample sample = creditMetrics.start();
         double r = interestRate / 12 / 100;
-        double n = term * 12;
-        return (int) (p * (r * Math.pow(1 + r, n)) / (Math.pow(1 + r, n) - 1));
+        int payment = (int) AmortizationEngine.monthlyPayment(amount, r, term * 12);
+        creditMetrics.stop(sample, CreditMetrics.SIMULATION, CreditMetrics.NONE, CreditMetrics.NONE);
+        return payment;
+    }
+
+    /**
+     * Builds the full amortization schedule of a loan.
+     * @param amount the amount of the loan
+     * @param interestRate the annual interest rate
+     * @param term the term of the loan in years
+     * @return the schedule with interest, principal, insurance and balance per month
+     */
+    public AmortizationSchedule simulationSchedule(int amount, double interestRate, int term) {
+        return amortizationEngine.schedule(amount, interestRate, term);
+    }
+
+    /**
+     * Evaluates many simulations in one call, either a list of scenarios or a grid of amounts, rates and terms.
+     * @param request the scenarios or the grid
+     * @return one column per field, one row per scenario
+     */
+    public SimulationBatchResult simulationBatch(SimulationBatchRequest request) {
+        if (request.scenarios() != null && !request.scenarios().isEmpty()) {
+            List<SimulationScenario> scenarios = request.scenarios();
+            int size = scenarios.size();
+            int[] amounts = new int[size];
+            double[] interestRates = new double[size];
+            int[] terms = new int[size];
+            for (int i = 0; i < size; i++) {
+                SimulationScenario scenario = scenarios.get(i);
+                amounts[i] = scenario.amount();
+                interestRates[i] = scenario.interestRate();
+                terms[i] = scenario.term();
+            }
+            return amortizationEngine.simulateScenarios(amounts, interestRates, terms);
+        }
+        if (request.amounts() == null || request.interestRates() == null || request.terms() == null) {
+            throw new IllegalArgumentException("Either scenarios or amounts, interestRates and terms must be provided");
+        }
+        return amortizationEngine.simulateGrid(request.amounts(), request.interestRates(), request.terms());
+    }
+
+    /**
+     * Writes a schedule as JSON or CSV, one month at a time. Amounts are rounded to whole pesos.
+     * @param schedule the schedule to write
+     * @param csv true for CSV, false for JSON
+     * @param out the response stream
+     * @throws IOException
+     */
+    public void writeSchedule(AmortizationSchedule schedule, boolean csv, OutputStream out) throws IOException {
+        if (csv) {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            writer.write("month,payment,interest,principal,insurance,balance\n");
+            long insurance = Math.round(schedule.getMonthlyInsurance());
+            for (int month = 1; month <= schedule.getMonths(); month++) {
+                writer.write(Integer.toString(month));
+                writer.write(',');
+                writer.write(Long.toString(Math.round(schedule.payment(month))));
+                writer.write(',');
+                writer.write(Long.toString(Math.round(schedule.interest(month))));
+                writer.write(',');
+                writer.write(Long.toString(Math.round(schedule.principal(month))));
+                writer.write(',');
+                writer.write(Long.toString(insurance));
+                writer.write(',');
+                writer.write(Long.toString(Math.round(schedule.balance(month))));
+                writer.write('\n');
+            }
+            writer.flush();
+            return;
+        }
+        try (JsonGenerator json = objectMapper.createGenerator(out)) {
+            json.writeStartObject();
+            json.writeNumberField("amount", schedule.getAmount());
+            json.writeNumberField("interestRate", schedule.getInterestRate());
+            json.writeNumberField("term", schedule.getTerm());
+            json.writeNumberField("months", schedule.getMonths());
+            json.writeNumberField("monthlyPayment", (int) schedule.getMonthlyPayment());
+            json.writeNumberField("monthlyInsurance", Math.round(schedule.getMonthlyInsurance()));
+            json.writeArrayFieldStart("rows");
+            for (int month = 1; month <= schedule.getMonths(); month++) {
+                json.writeStartObject();
+                json.writeNumberField("month", month);
+                json.writeNumberField("payment", Math.round(schedule.payment(month)));
+                json.writeNumberField("interest", Math.round(schedule.interest(month)));
+                json.writeNumberField("principal", Math.round(schedule.principal(month)));
+                json.writeNumberField("insurance", Math.round(schedule.getMonthlyInsurance()));
+                json.writeNumberField("balance", Math.round(schedule.balance(month)));
+                json.writeEndObject();
+            }
+            json.writeEndArray();
+            json.writeEndObject();
+        }
     }
 
     public List<String> statusRequestClient(String rut) {
-        Optional<ClientEntity> clientOpt = clientRepository.findByRut(rut);
+        Optional<ClientEntity> clientOpt = findClient(rut);
         if (clientOpt.isPresent()) {
-            ClientEntity client = clientOpt.get();
-            String listRequestId = client.getListRequestId();
-            if (listRequestId == null || listRequestId.isEmpty()) {
-                return new ArrayList<>();
-            }
-            String[] listRequestIdArray = listRequestId.split("-");
             List<String> statusList = new ArrayList<>();
-
-            for (String id : listRequestIdArray) {
-                Optional<CreditRequestEntity> creditRequest = creditRequestRepository.findById(Long.parseLong(id));
-                creditRequest.ifPresent(creditRequestEntity -> statusList.add(creditRequestEntity.getStateRequest()));
-                creditRequest.ifPresent(creditRequestEntity -> statusList.add(creditRequestEntity.getId().toString()));
+            for (CreditRequestEntity creditRequest : creditRequestRepository.findByClientIdOrderByIdAsc(clientOpt.get().getId())) {
+                statusList.add(creditRequest.getStateRequest() == null ? null : creditRequest.getStateRequest().label());
+                statusList.add(creditRequest.getId().toString());
             }
             return statusList;
         }
         return null;
     }
 
-    public List<ClientEntity> allClients() {
-        return clientRepository.findAll();
+    /**
+     * Stream of the state changes of the requests of a client.
+     * @param rut
+     * @return the server-sent event stream, or empty if the client does not exist
+     * @throws java.util.concurrent.RejectedExecutionException if too many streams are open
+     */
+    public Optional<SseEmitter> subscribeStatus(String rut) {
+        return findClient(rut).map(client -> requestStatusStream.subscribeClient(client.getId()));
+    }
+
+    /**
+     * Page of the client listing, ordered by id.
+     * @param afterId the nextAfterId of the previous page, or null for the first page
+     * @param rut filter by the start of the RUT, or null
+     * @param name filter by the start of the name or the last name, ignoring case, or null
+     * @param size the maximum number of rows, capped at 500
+     * @return the page and the cursor of the next one
+     */
+    public ClientPage getClientPage(Long afterId, String rut, String name, int size) {
+        int limit = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        List<ClientSummary> rows = clientRepository.findSummariesAfter(afterId != null ? afterId : 0L,
+                prefix(rut), prefix(lowerCase(name)), Limit.of(limit));
+        Long nextAfterId = rows.size() == limit ? rows.get(rows.size() - 1).id() : null;
+        return new ClientPage(rows, nextAfterId);
+    }
+
+    /**
+     * Writes every client of the listing as a JSON array, row by row, so the memory used does not
+     * depend on the number of clients
+     * @param rut filter by the start of the RUT, or null
+     * @param name filter by the start of the name or the last name, ignoring case, or null
+     * @param out
+     * @throws IOException
+     */
+    @Transactional(readOnly = true)
+    public void exportClients(String rut, String name, OutputStream out) throws IOException {
+        try (Stream<ClientSummary> rows = clientRepository.streamSummaries(prefix(rut), prefix(lowerCase(name)));
+             JsonGenerator json = objectMapper.createGenerator(out)) {
+            json.writeStartArray();
+            Iterator<ClientSummary> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                json.writeObject(iterator.next());
+            }
+            json.writeEndArray();
+        }
+    }
+
+    // Patrón LIKE que busca el texto al inicio, con los comodines escapados
+    private static String prefix(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        return value.trim().replace("!", "!!").replace("%", "!%").replace("_", "!_") + "%";
+    }
+
+    private static String lowerCase(String value) {
+        return value == null ? null : value.toLowerCase(Locale.ROOT);
     }
 
     public boolean validateRut(String rut) {
-        ClientEntity client = clientRepository.findByRut(rut).orElse(null);
+        ClientEntity client = findClient(rut).orElse(null);
         return client != null;
     }
+
+    private Optional<ClientEntity> findClient(String rut) {
+        if (rutBloomFilter.isDefinitelyAbsent(rut)) {
+            return Optional.empty();
+        }
+        return clientRepository.findByRut(rut);
+    }
 }
\ No newline at end of file
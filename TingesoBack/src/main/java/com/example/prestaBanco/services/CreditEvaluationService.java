@@ -1,16 +1,39 @@
 package com.example.prestaBanco.services;
 
+import com.example.prestaBanco.dtos.EvaluationTicket;
+import com.example.prestaBanco.dtos.RuleEvaluationRequest;
+import com.example.prestaBanco.dtos.RuleEvaluationResult;
+import com.example.prestaBanco.entities.ApplicantProfile;
 import com.example.prestaBanco.entities.CreditEvaluationEntity;
 import com.example.prestaBanco.entities.CreditRequestEntity;
+import com.example.prestaBanco.entities.RescoreJobEntity;
+import com.example.prestaBanco.evaluation.CreditEvaluationQueue;
+import com.example.prestaBanco.evaluation.CreditRuleEngine;
+import com.example.prestaBanco.evaluation.RescoreJob;
+import com.example.prestaBanco.evaluation.RuleReport;
 import com.example.prestaBanco.repositories.CreditEvaluationRepository;
+import com.example.prestaBanco.simulation.AmortizationEngine;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 @Service
 public class CreditEvaluationService {
 
+    public static final int MAX_SCORED_REQUESTS = 10_000;
+
     @Autowired
     private CreditEvaluationRepository creditEvaluationRepository;
 
@@ -20,25 +43,173 @@ public class CreditEvaluationService {
     @Autowired
     private ClientService clientService;
 
+    @Autowired
+    private CreditEvaluationQueue creditEvaluationQueue;
+
+    @Autowired
+    private CreditRuleEngine creditRuleEngine;
+
+    @Autowired
+    private RescoreJob rescoreJob;
+
     /**
-     * Evaluates the credit request.
+     * Queues the evaluation of the credit request. The new state of the request and the evaluation are
+     * saved in the same transaction, together with the rest of the evaluations of the batch.
      *
      * @param evaluation the credit evaluation entity
-     * @return the credit evaluation entity
+     * @return the pending ticket, to poll with {@link #getEvaluation(String)}
+     * @throws java.util.concurrent.RejectedExecutionException if the queue is full
+     */
+    public EvaluationTicket submitEvaluation(CreditEvaluationEntity evaluation) {
+        score(evaluation);
+        return creditEvaluationQueue.submit(evaluation, resultState(evaluation));
+    }
+
+    /**
+     * State of a queued evaluation. Tickets of other backends, or past their retention, are looked up in
+     * the saved evaluations.
+     *
+     * @param ticket the ticket returned by {@link #submitEvaluation(CreditEvaluationEntity)}
+     * @return the ticket, or empty if it does not exist (or was handed out by another backend and is not saved yet)
+     */
+    public Optional<EvaluationTicket> getEvaluation(String ticket) {
+        Optional<EvaluationTicket> queued = creditEvaluationQueue.status(ticket);
+        if (queued.isPresent()) {
+            return queued;
+        }
+        UUID id;
+        try {
+            id = UUID.fromString(ticket);
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+        return creditEvaluationRepository.findByTicket(id).map(evaluation ->
+                new EvaluationTicket(ticket, EvaluationTicket.DONE, resultState(evaluation), evaluation.getId(), null));
+    }
+
+    /**
+     * Like {@link #getEvaluation(String)}, but a pending ticket of this backend is answered when it is
+     * saved or when the wait runs out, whichever happens first.
+     *
+     * @param ticket the ticket returned by {@link #submitEvaluation(CreditEvaluationEntity)}
+     * @param wait the longest time to wait
+     * @return the ticket, or empty if it does not exist
      */
-    public CreditEvaluationEntity evaluateCredit(CreditEvaluationEntity evaluation) {
-        if (evaluation != null) {
-            boolean allTrue = evaluation.isIncomeQuota() && evaluation.isCreditHistory() && evaluation.isEmploymentSeniority() &&
-                    evaluation.isIncomeDebtRelation() && evaluation.isFinancingLimit() && evaluation.isApplicantAge() &&
-                    evaluation.isSavingsCapacity();
-
-            String state = allTrue ? "E4" : "E7";
-            creditRequestService.editStatus(state, evaluation.getIdRquest());
+    public CompletableFuture<Optional<EvaluationTicket>> awaitEvaluation(String ticket, Duration wait) {
+        Optional<CompletableFuture<EvaluationTicket>> completion = creditEvaluationQueue.completion(ticket);
+        Optional<EvaluationTicket> current = getEvaluation(ticket);
+        if (completion.isEmpty() || wait.isZero() || current.isEmpty() || !EvaluationTicket.PENDING.equals(current.get().status())) {
+            return CompletableFuture.completedFuture(current);
+        }
+        // copy() para que el timeout no complete el future compartido del ticket
+        return completion.get().copy()
+                .completeOnTimeout(current.get(), wait.toMillis(), TimeUnit.MILLISECONDS)
+                .thenApply(Optional::of);
+    }
+
+    /**
+     * Scores credit requests with the current policy, without saving anything. Requests sent without
+     * applicant inputs are scored with the inputs saved with their last evaluation, so this is also the
+     * way to preview the effect of a policy change on the requests already evaluated.
+     *
+     * @param inputs the requests, with or without applicant inputs
+     * @param mode whether to stop each request at its first criterion not met
+     * @return one result per input, in the same order
+     * @throws IllegalArgumentException if there are too many inputs, or a request does not exist
+     */
+    public List<RuleEvaluationResult> scoreRequests(List<RuleEvaluationRequest> inputs, CreditRuleEngine.Mode mode) {
+        if (inputs.size() > MAX_SCORED_REQUESTS) {
+            throw new IllegalArgumentException("Se pueden evaluar hasta " + MAX_SCORED_REQUESTS + " solicitudes por petición");
+        }
+        Set<Long> ids = new HashSet<>();
+        Set<Long> withoutApplicant = new HashSet<>();
+        for (RuleEvaluationRequest input : inputs) {
+            ids.add(input.requestId());
+            if (input.applicant() == null) {
+                withoutApplicant.add(input.requestId());
+            }
         }
-        if(evaluation != null){
-            return creditEvaluationRepository.save(evaluation);
+        Map<Long, CreditRequestEntity> requests = new HashMap<>();
+        for (CreditRequestEntity request : creditRequestService.findAllById(ids)) {
+            requests.put(request.getId(), request);
         }
-        return null;
+        Map<Long, ApplicantProfile> saved = new HashMap<>();
+        if (!withoutApplicant.isEmpty()) {
+            // La última evaluación de cada solicitud es la que tiene mayor id
+            for (CreditEvaluationEntity evaluation : creditEvaluationRepository.findByIdRquestInOrderByIdAsc(withoutApplicant)) {
+                if (evaluation.getApplicant() != null) {
+                    saved.put(evaluation.getIdRquest(), evaluation.getApplicant());
+                }
+            }
+        }
+
+        List<CreditRequestEntity> requestColumn = new ArrayList<>(inputs.size());
+        List<ApplicantProfile> applicantColumn = new ArrayList<>(inputs.size());
+        for (RuleEvaluationRequest input : inputs) {
+            CreditRequestEntity request = requests.get(input.requestId());
+            if (request == null) {
+                throw new IllegalArgumentException("Solicitud de crédito no encontrada: " + input.requestId());
+            }
+            requestColumn.add(request);
+            applicantColumn.add(input.applicant() != null ? input.applicant() : saved.get(input.requestId()));
+        }
+        RuleReport[] reports = creditRuleEngine.evaluateAll(requestColumn, applicantColumn, mode);
+        List<RuleEvaluationResult> results = new ArrayList<>(reports.length);
+        for (RuleReport report : reports) {
+            results.add(report.toResult());
+        }
+        return results;
+    }
+
+    /**
+     * Starts re-scoring, in the background, every request that is in evaluation or pre-approved.
+     *
+     * @param mode the mode of the rule evaluation
+     * @return the new job, to follow with {@link #getRescore(Long)}
+     * @throws IllegalStateException if another re-scoring is running
+     */
+    public RescoreJobEntity startRescore(CreditRuleEngine.Mode mode) {
+        return rescoreJob.start(mode);
+    }
+
+    /**
+     * Progress of a re-scoring job.
+     *
+     * @param id the id of the job, or null for the last one
+     * @return the job, or empty if it does not exist
+     */
+    public Optional<RescoreJobEntity> getRescore(Long id) {
+        return id == null ? rescoreJob.latest() : rescoreJob.find(id);
+    }
+
+    /**
+     * Continues a failed or stalled re-scoring job from the last request it saved.
+     *
+     * @param id the id of the job
+     * @return the job, or empty if it does not exist
+     * @throws IllegalStateException if another re-scoring is running
+     */
+    public Optional<RescoreJobEntity> resumeRescore(Long id) {
+        return rescoreJob.resume(id);
+    }
+
+    // Con los datos del solicitante la evaluación la calcula el servidor y no se usa la del formulario
+    private void score(CreditEvaluationEntity evaluation) {
+        if (evaluation.getApplicant() == null) {
+            return;
+        }
+        CreditRequestEntity request = creditRequestService.findById(evaluation.getIdRquest());
+        if (request != null) {
+            creditRuleEngine.evaluate(request, evaluation.getApplicant(), CreditRuleEngine.Mode.FULL_REPORT).applyTo(evaluation);
+        }
+    }
+
+    // E4 (Pre-Aprobada) si se cumplen todas las condiciones, E7 (Rechazada) si no
+    private static String resultState(CreditEvaluationEntity evaluation) {
+        boolean allTrue = evaluation.isIncomeQuota() && evaluation.isCreditHistory() && evaluation.isEmploymentSeniority() &&
+                evaluation.isIncomeDebtRelation() && evaluation.isFinancingLimit() && evaluation.isApplicantAge() &&
+                evaluation.isSavingsCapacity();
+        return allTrue ? "E4" : "E7";
     }
 
 
@@ -80,8 +251,8 @@ public class CreditEvaluationService {
         double monthlyPayment = clientService.simulation(loanAmount, annualInterestRate, termInYears);
 
         // Step 2: Calculate Insurance Costs
-        double monthlyLifeInsurance = loanAmount * 0.0003; // 0.03% of loan amount
-        double monthlyFireInsurance = 20000; // Fixed at 20,000 per month
+        double monthlyLifeInsurance = loanAmount * AmortizationEngine.LIFE_INSURANCE_RATE; // 0.03% of loan amount
+        double monthlyFireInsurance = AmortizationEngine.FIRE_INSURANCE; // Fixed at 20,000 per month
 
         // Step 3: Calculate Administration Commission
         double administrationCommission = loanAmount * 0.01; // 1% of loan amount
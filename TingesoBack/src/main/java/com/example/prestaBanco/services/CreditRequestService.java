@@ -1,336 +1,252 @@
 package com.example.prestaBanco.services;
 
+import com.example.prestaBanco.cache.LoanCatalog;
+import com.example.prestaBanco.cache.LoanProduct;
+import com.example.prestaBanco.cache.RutBloomFilter;
+import com.example.prestaBanco.dtos.DocumentCompressionStats;
+import com.example.prestaBanco.dtos.DocumentStorageStats;
+import com.example.prestaBanco.dtos.CreditStatusPage;
+import com.example.prestaBanco.dtos.CreditStatusRow;
+import com.example.prestaBanco.dtos.StateCount;
 import com.example.prestaBanco.entities.ClientEntity;
 import com.example.prestaBanco.entities.CreditRequestEntity;
+import com.example.prestaBanco.entities.CreditDocumentEntity;
+import com.example.prestaBanco.entities.CreditDocumentId;
+import com.example.prestaBanco.entities.RequestState;
+import com.example.prestaBanco.metrics.CreditMetrics;
+import com.example.prestaBanco.notifications.RequestStatusChanged;
+import com.example.prestaBanco.notifications.RequestStatusStream;
+import com.example.prestaBanco.repositories.CreditDocumentRepository;
+import com.example.prestaBanco.repositories.DocumentBlobRepository;
 import com.example.prestaBanco.repositories.CreditRequestRepository;
 import com.example.prestaBanco.repositories.ClientRepository;
+import com.example.prestaBanco.storage.DocumentReferences;
+import com.example.prestaBanco.storage.DocumentStore;
+import com.example.prestaBanco.storage.StoredDocument;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.Resource;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.*;
+import java.util.stream.Stream;
 
 
 @Service
 public class CreditRequestService {
 
+    private static final int MAX_PAGE_SIZE = 500;
+
+    // Códigos de producto de cada formulario en la tabla loans
+    public static final String FIRST_HOME = "firstHome";
+    public static final String SECOND_HOME = "secondHome";
+    public static final String COMMERCIAL = "commercial";
+    public static final String REMODELING = "remodeling";
+
+
     @Autowired
     private CreditRequestRepository creditRequestRepository;
 
     @Autowired
     private ClientRepository clientRepository;
 
+    @Autowired
+    private CreditDocumentRepository creditDocumentRepository;
 
-    /**
-     * Saves a new credit request for a first house.
-     * @param rut
-     * @param typeLoan
-     * @param term
-     * @param interestRate
-     * @param maximumAmount
-     * @param proofIncome
-     * @param creditHistory
-     * @param appraisalCertificate
-     * @param bankAccountState
-     * @param workCertificate
-     * @return the saved credit request entity
-     * @throws IOException
-     */
-    public CreditRequestEntity saveFirstHouse(String rut, String typeLoan, int term, double interestRate, int maximumAmount, MultipartFile proofIncome,
-                                              MultipartFile creditHistory, MultipartFile appraisalCertificate, MultipartFile bankAccountState, MultipartFile workCertificate) throws IOException {
+    @Autowired
+    private RutBloomFilter rutBloomFilter;
 
-        if (term <= 0) {
-            throw new IllegalArgumentException("Term must be greater than 0");
-        }
-        if (interestRate <= 0) {
-            throw new IllegalArgumentException("Interest rate must be greater than 0");
-        }
-        if (maximumAmount <= 0) {
-            throw new IllegalArgumentException("Maximum amount must be greater than 0");
-        }
-        if (proofIncome.isEmpty() || creditHistory.isEmpty() || appraisalCertificate.isEmpty() || bankAccountState.isEmpty() || workCertificate.isEmpty()) {
-            throw new IllegalArgumentException("All documents must be provided");
-        }
+    @Autowired
+    private LoanCatalog loanCatalog;
 
-        CreditRequestEntity creditClient = new CreditRequestEntity();
-        Optional<ClientEntity> clientOpt = clientRepository.findByRut(rut);
-        if (clientOpt.isPresent()) {
-            ClientEntity client = clientOpt.get();
-            creditClient.setTypeLoan(typeLoan);
-            creditClient.setTerm(term);
-            creditClient.setInterestRate(interestRate);
-            creditClient.setMaximumAmount(maximumAmount);
-            creditClient.setProofIncome(proofIncome.getBytes());
-            creditClient.setCreditHistory(creditHistory.getBytes());
-            creditClient.setAppraisalCertificate(appraisalCertificate.getBytes());
-            creditClient.setBankAccountState(bankAccountState.getBytes());
-            creditClient.setWorkCertificate(workCertificate.getBytes());
-            creditClient.setStateRequest("En Revisión Inicial.");
-            creditRequestRepository.save(creditClient);
-
-            // Obtiene el valor actual de listRequestId, agrega el nuevo ID y actualiza el campo
-            String existingListRequestId = client.getListRequestId();
-            String newId = String.valueOf(creditClient.getId());
-
-            // Si ya hay IDs en la lista, añade el nuevo ID separado por un guion; si no, asigna solo el nuevo ID
-            if (existingListRequestId == null || existingListRequestId.isEmpty()) {
-                client.setListRequestId(newId);
-            } else {
-                client.setListRequestId(existingListRequestId + "-" + newId);
-            }
+    @Autowired
+    private DocumentStore documentStore;
 
-            // Actualiza el cliente en la base de datos
-            clientRepository.save(client);
+    @Autowired
+    private DocumentReferences documentReferences;
 
-            return creditClient;
-        }
-        return null;
-    }
+    @Autowired
+    private DocumentBlobRepository documentBlobRepository;
 
+    @Autowired
+    private ObjectMapper objectMapper;
 
-    /**
-     * Saves a new credit request for a second house.
-     * @param rut
-     * @param typeLoan
-     * @param term
-     * @param interestRate
-     * @param maximumAmount
-     * @param proofIncome
-     * @param creditHistory
-     * @param appraisalCertificate
-     * @param propertyWriting
-     * @param bankAccountState
-     * @param workCertificate
-     * @return the saved credit request entity
-     * @throws IOException
-     */
-    public CreditRequestEntity saveSecondHouse(String rut, String typeLoan, int term, double interestRate, int maximumAmount, MultipartFile proofIncome, MultipartFile creditHistory, MultipartFile appraisalCertificate, MultipartFile propertyWriting, MultipartFile bankAccountState, MultipartFile workCertificate) throws IOException {
-        if (term <= 0) {
-            throw new IllegalArgumentException("Term must be greater than 0");
-        }
-        if (interestRate <= 0) {
-            throw new IllegalArgumentException("Interest rate must be greater than 0");
-        }
-        if (proofIncome.isEmpty() || creditHistory.isEmpty() || appraisalCertificate.isEmpty() || propertyWriting.isEmpty() || bankAccountState.isEmpty() || workCertificate.isEmpty()) {
-            throw new IllegalArgumentException("All documents must be provided");
-        }
-        Optional<ClientEntity> clientOpt = clientRepository.findByRut(rut);
-        if (clientOpt.isPresent()) {
-            ClientEntity client = clientOpt.get();
-            CreditRequestEntity creditClient = new CreditRequestEntity();
-            creditClient.setTypeLoan(typeLoan);
-            creditClient.setTerm(term);
-            creditClient.setInterestRate(interestRate);
-            creditClient.setMaximumAmount(maximumAmount);
-            creditClient.setProofIncome(proofIncome.getBytes());
-            creditClient.setCreditHistory(creditHistory.getBytes());
-            creditClient.setAppraisalCertificate(appraisalCertificate.getBytes());
-            creditClient.setPropertyWriting(propertyWriting.getBytes());
-            creditClient.setBankAccountState(bankAccountState.getBytes());
-            creditClient.setWorkCertificate(workCertificate.getBytes());
-            creditClient.setStateRequest("En Revisión Inicial.");
-            creditRequestRepository.save(creditClient);
-
-            String existingListRequestId = client.getListRequestId();
-            String newId = String.valueOf(creditClient.getId());
-
-            if (existingListRequestId == null || existingListRequestId.isEmpty()) {
-                client.setListRequestId(newId);
-            } else {
-                client.setListRequestId(existingListRequestId + "-" + newId);
-            }
+    @Autowired
+    private CreditMetrics creditMetrics;
 
-            clientRepository.save(client);
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private RequestStatusStream requestStatusStream;
 
-            return creditClient;
-        }
-        return null;
-    }
 
     /**
-     * Saves a new credit request for a commercial property.
+     * Creates a credit request with its documents. The request, its document references and their
+     * reference counts are committed together in one transaction, or not at all: if anything fails
+     * the stored files no other request uses are deleted. The client row is only read (the request
+     * points to it through client_id), so concurrent requests of one client never overwrite each other.
+     * @param profile the loan product and the documents it requires
      * @param rut
      * @param typeLoan
      * @param term
      * @param interestRate
      * @param maximumAmount
-     * @param proofIncome
-     * @param appraisalCertificate
-     * @param businessFinancialStatement
-     * @param businessPlan
-     * @param bankAccountState
-     * @param workCertificate
-     * @return the saved credit request entity
+     * @param documents the uploaded documents by document type; documents the product does not ask for are ignored
+     * @return the saved credit request entity, or null if the client does not exist
      * @throws IOException
      */
-    public CreditRequestEntity saveCommercialProperty(String rut, String typeLoan, int term, double interestRate, int maximumAmount, MultipartFile proofIncome, MultipartFile appraisalCertificate, MultipartFile businessFinancialStatement, MultipartFile businessPlan, MultipartFile bankAccountState, MultipartFile workCertificate) throws IOException {
+    @Transactional(rollbackFor = IOException.class)
+    public CreditRequestEntity createRequest(LoanDocumentProfile profile, String rut, String typeLoan, int term, double interestRate,
+                                             int maximumAmount, Map<String, MultipartFile> documents) throws IOException {
         if (term <= 0) {
             throw new IllegalArgumentException("Term must be greater than 0");
         }
         if (interestRate <= 0) {
             throw new IllegalArgumentException("Interest rate must be greater than 0");
         }
-        if (proofIncome.isEmpty() || appraisalCertificate.isEmpty() || businessFinancialStatement.isEmpty() || businessPlan.isEmpty() || bankAccountState.isEmpty() || workCertificate.isEmpty()) {
-            throw new IllegalArgumentException("All documents must be provided");
+        if (maximumAmount <= 0) {
+            throw new IllegalArgumentException("Maximum amount must be greater than 0");
         }
-        Optional<ClientEntity> clientOpt = clientRepository.findByRut(rut);
-        if (clientOpt.isPresent()) {
-            ClientEntity client = clientOpt.get();
-            CreditRequestEntity creditClient = new CreditRequestEntity();
-            creditClient.setTypeLoan(typeLoan);
-            creditClient.setTerm(term);
-            creditClient.setInterestRate(interestRate);
-            creditClient.setMaximumAmount(maximumAmount);
-            creditClient.setProofIncome(proofIncome.getBytes());
-            creditClient.setAppraisalCertificate(appraisalCertificate.getBytes());
-            creditClient.setBusinessFinancialStatement(businessFinancialStatement.getBytes());
-            creditClient.setBusinessPlan(businessPlan.getBytes());
-            creditClient.setBankAccountState(bankAccountState.getBytes());
-            creditClient.setWorkCertificate(workCertificate.getBytes());
-            creditClient.setStateRequest("En Revisión Inicial.");
-            creditRequestRepository.save(creditClient);
-
-            String existingListRequestId = client.getListRequestId();
-            String newId = String.valueOf(creditClient.getId());
-
-            if (existingListRequestId == null || existingListRequestId.isEmpty()) {
-                client.setListRequestId(newId);
-            } else {
-                client.setListRequestId(existingListRequestId + "-" + newId);
+        checkLoanBounds(profile.product(), term, interestRate, maximumAmount);
+        Map<String, MultipartFile> required = new LinkedHashMap<>();
+        for (String documentType : profile.documents()) {
+            MultipartFile file = documents.get(documentType);
+            if (file == null || file.isEmpty()) {
+                throw new IllegalArgumentException("All documents must be provided");
             }
+            required.put(documentType, file);
+        }
 
-            clientRepository.save(client);
-
-            return creditClient;
+        Optional<ClientEntity> clientOpt = findClient(rut);
+        if (clientOpt.isEmpty()) {
+            return null;
         }
-        return null;
+        CreditRequestEntity creditClient = new CreditRequestEntity();
+        creditClient.setClientId(clientOpt.get().getId());
+        creditClient.setTypeLoan(typeLoan);
+        creditClient.setTerm(term);
+        creditClient.setInterestRate(interestRate);
+        creditClient.setMaximumAmount(maximumAmount);
+        creditClient.setStateRequest(RequestState.INITIAL_REVIEW);
+        creditRequestRepository.save(creditClient);
+        attachDocuments(creditClient.getId(), storeDocuments(profile.product(), creditClient.getStateRequest().code(), required));
+
+        return creditClient;
     }
 
 
     /**
-     * Saves a new credit request for a remodeling.
-     * @param rut
-     * @param typeLoan
-     * @param term
-     * @param interestRate
-     * @param maximumAmount
-     * @param proofIncome
-     * @param appraisalCertificate
-     * @param remodelingBudget
-     * @param bankAccountState
-     * @param workCertificate
-     * @return the saved credit request entity
-     * @throws IOException
+     * Get a page of the requests with their client, ordered by id
+     * @param afterId the id of the last request of the previous page, or null for the first page
+     * @param status filter by state of the request, as its code (E4) or its label (Pre-Aprobada), or null
+     * @param typeLoan filter by type of loan, or null
+     * @param size the maximum number of rows
+     * @return the page and the cursor of the next one
      */
-    public CreditRequestEntity saveRemodeling(String rut, String typeLoan, int term, double interestRate, int maximumAmount, MultipartFile proofIncome, MultipartFile appraisalCertificate, MultipartFile remodelingBudget, MultipartFile bankAccountState, MultipartFile workCertificate) throws IOException {
-        if (term <= 0) {
-            throw new IllegalArgumentException("Term must be greater than 0");
-        }
-        if (interestRate <= 0) {
-            throw new IllegalArgumentException("Interest rate must be greater than 0");
+    public CreditStatusPage getCreditStatusPage(Long afterId, String status, String typeLoan, int size) {
+        int limit = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        RequestState state = stateFilter(status);
+        Timer.Sample sample = creditMetrics.start();
+        try {
+            List<CreditStatusRow> rows = creditRequestRepository.findCreditStatusAfter(afterId != null ? afterId : 0L,
+                    state, typeLoan, Limit.of(limit));
+            Long nextAfterId = rows.size() == limit ? rows.get(rows.size() - 1).id() : null;
+            return new CreditStatusPage(rows, nextAfterId);
+        } finally {
+            creditMetrics.stop(sample, CreditMetrics.CREDIT_STATUS_LISTING, typeLoan != null ? typeLoan : CreditMetrics.ALL,
+                    state != null ? state.code() : CreditMetrics.ALL);
         }
-        if (proofIncome.isEmpty() || appraisalCertificate.isEmpty() || remodelingBudget.isEmpty() || bankAccountState.isEmpty() || workCertificate.isEmpty()) {
-            throw new IllegalArgumentException("All documents must be provided");
-        }
-        Optional<ClientEntity> clientOpt = clientRepository.findByRut(rut);
-        if (clientOpt.isPresent()) {
-            ClientEntity client = clientOpt.get();
-            CreditRequestEntity creditClient = new CreditRequestEntity();
-            creditClient.setTypeLoan(typeLoan);
-            creditClient.setTerm(term);
-            creditClient.setInterestRate(interestRate);
-            creditClient.setMaximumAmount(maximumAmount);
-            creditClient.setProofIncome(proofIncome.getBytes());
-            creditClient.setAppraisalCertificate(appraisalCertificate.getBytes());
-            creditClient.setRemodelingBudget(remodelingBudget.getBytes());
-            creditClient.setBankAccountState(bankAccountState.getBytes());
-            creditClient.setWorkCertificate(workCertificate.getBytes());
-            creditClient.setStateRequest("En Revisión Inicial.");
-            creditRequestRepository.save(creditClient);
-
-            String existingListRequestId = client.getListRequestId();
-            String newId = String.valueOf(creditClient.getId());
-
-            if (existingListRequestId == null || existingListRequestId.isEmpty()) {
-                client.setListRequestId(newId);
-            } else {
-                client.setListRequestId(existingListRequestId + "-" + newId);
-            }
+    }
 
-            clientRepository.save(client);
+    /**
+     * Stream of the state changes of every request, for the executive views.
+     * @return the server-sent event stream
+     * @throws java.util.concurrent.RejectedExecutionException if too many streams are open
+     */
+    public SseEmitter subscribeStatus() {
+        return requestStatusStream.subscribeExecutive();
+    }
 
-            return creditClient;
-        }
-        return null;
+    /**
+     * Number of requests in each state of the portfolio
+     * @return the count of every state that has requests
+     */
+    public List<StateCount> getStateCounts() {
+        return creditRequestRepository.countByState();
     }
 
+    private static RequestState stateFilter(String status) {
+        return status == null || status.isEmpty() ? null : RequestState.parse(status);
+    }
 
     /**
-     * Save a new list whit the rut, name, lastName, the state of the request and the id of the request
-     * @return a list with the information of the clients
+     * Writes every request with its client as a JSON array, row by row, so the memory used does not
+     * depend on the number of requests
+     * @param status filter by state of the request, as its code (E4) or its label (Pre-Aprobada), or null
+     * @param typeLoan filter by type of loan, or null
+     * @param out
+     * @throws IOException
      */
-    public List<Map<String, Object>> getClientsWithCreditStatus() {
-        List<ClientEntity> clients = clientRepository.findAll();
-        List<Map<String, Object>> clientsWithCreditStatus = new ArrayList<>();
-
-        for (ClientEntity client : clients) {
-            String listRequestId = client.getListRequestId();
-            if (listRequestId == null || listRequestId.isEmpty()) {
-                continue; // Skip clients with no credit requests
-            }
-            String[] listRequestIdArray = listRequestId.split("-");
-            for (String id : listRequestIdArray) {
-                Optional<CreditRequestEntity> creditRequest = creditRequestRepository.findById(Long.parseLong(id));
-                if (creditRequest.isPresent()) {
-                    Map<String, Object> clientStatus = new HashMap<>();
-                    clientStatus.put("rut", client.getRut());
-                    clientStatus.put(("typeLoan"), creditRequest.get().getTypeLoan());
-                    clientStatus.put("name", client.getName());
-                    clientStatus.put("lastName", client.getLastName());
-                    clientStatus.put("status", creditRequest.get().getStateRequest());
-                    clientStatus.put("id", creditRequest.get().getId());
-                    clientsWithCreditStatus.add(clientStatus);
-                }
+    @Transactional(readOnly = true)
+    public void exportCreditStatus(String status, String typeLoan, OutputStream out) throws IOException {
+        try (Stream<CreditStatusRow> rows = creditRequestRepository.streamCreditStatus(stateFilter(status), typeLoan);
+             JsonGenerator json = objectMapper.createGenerator(out)) {
+            json.writeStartArray();
+            Iterator<CreditStatusRow> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                json.writeObject(iterator.next());
             }
+            json.writeEndArray();
         }
-
-        return clientsWithCreditStatus;
     }
 
 
 
     /**
-     * Get a specific document by type for the credit request
+     * Get the reference to a specific document by type for the credit request
      * @param id
      * @param documentType
-     * @return the specified document
+     * @return the document reference, without its content
      */
-    public Optional<byte[]> getCreditDocumentByType(Long id, String documentType) {
-        Optional<CreditRequestEntity> creditRequestOpt = creditRequestRepository.findById(id);
+    public Optional<CreditDocumentEntity> getCreditDocumentByType(Long id, String documentType) {
+        return creditDocumentRepository.findById(new CreditDocumentId(id, documentType))
+                .filter(document -> document.getSize() > 0);
+    }
 
-        if (creditRequestOpt.isPresent()) {
-            CreditRequestEntity creditRequest = creditRequestOpt.get();
+    /**
+     * Get the content of a document as a resource, so it can be streamed from the store to the client
+     * @param document
+     * @return the content of the document
+     * @throws IOException
+     */
+    public Resource getDocumentContent(CreditDocumentEntity document) throws IOException {
+        return documentStore.load(document.getStorageId());
+    }
 
-            byte[] document = switch (documentType) {
-                case "proofIncome" -> creditRequest.getProofIncome();
-                case "creditHistory" -> creditRequest.getCreditHistory();
-                case "appraisalCertificate" -> creditRequest.getAppraisalCertificate();
-                case "bankAccountState" -> creditRequest.getBankAccountState();
-                case "workCertificate" -> creditRequest.getWorkCertificate();
-                case "propertyWriting" -> creditRequest.getPropertyWriting();
-                case "businessFinancialStatement" -> creditRequest.getBusinessFinancialStatement();
-                case "businessPlan" -> creditRequest.getBusinessPlan();
-                case "remodelingBudget" -> creditRequest.getRemodelingBudget();
-                default -> null;
-            };
-
-            if (document != null && document.length > 0) {
-                return Optional.of(document);
-            }
-        }
+    /**
+     * Space used by the documents, and what it would be without sharing identical uploads.
+     */
+    public DocumentStorageStats getDocumentStorageStats() {
+        return documentBlobRepository.stats();
+    }
 
-        return Optional.empty();
+    /**
+     * How each document of a request is stored (codec, size on disk and write time).
+     * @param id
+     * @return one entry per document type
+     */
+    public List<DocumentCompressionStats> getDocumentCompression(Long id) {
+        return documentBlobRepository.findCompressionByRequestId(id);
     }
 
 
@@ -360,50 +276,51 @@ public class CreditRequestService {
     }
 
     /**
-     * Edit the status of the request
-     * @param state
+     * Edit the status of the request. The move must be allowed by {@link RequestState#canMoveTo(RequestState)},
+     * and the save fails if the request was changed since it was read.
+     * @param state the code of the new state, E1 to E9
      * @param id
      * @return the status of the request
+     * @throws IllegalArgumentException if the state code is not recognised
+     * @throws IllegalStateException if the request cannot move from its state to the new one
      */
     public String editStatus(String state, Long id) {
-        Optional<CreditRequestEntity> creditRequestOpt = creditRequestRepository.findById(id);
-        if (creditRequestOpt.isPresent()) {
-            CreditRequestEntity creditRequest = creditRequestOpt.get();
-            switch (state) {
-                case "E2":
-                    creditRequest.setStateRequest("Pendiente de Documentación");
-                    break;
-                case "E3":
-                    creditRequest.setStateRequest("En Evaluación");
-                    break;
-                case "E4":
-                    creditRequest.setStateRequest("Pre-Aprobada");
-                    break;
-                case "E5":
-                    creditRequest.setStateRequest("En Aprobación Final");
-                    break;
-                case "E6":
-                    creditRequest.setStateRequest("Aprobada");
-                    break;
-                case "E7":
-                    creditRequest.setStateRequest("Rechazada");
-                    break;
-                case "E8":
-                    creditRequest.setStateRequest("Cancelada por el Cliente");
-                    break;
-                case "E9":
-                    creditRequest.setStateRequest("En Desembolso");
-                    break;
-                default:
-                    throw new IllegalArgumentException("Estado no reconocido");
+        Timer.Sample sample = creditMetrics.start();
+        String loanType = CreditMetrics.NONE;
+        try {
+            RequestState target = RequestState.fromCode(state);
+            Optional<CreditRequestEntity> creditRequestOpt = creditRequestRepository.findById(id);
+            if (creditRequestOpt.isPresent()) {
+                CreditRequestEntity creditRequest = creditRequestOpt.get();
+                loanType = loanTypeTag(creditRequest.getTypeLoan());
+                RequestState current = creditRequest.getStateRequest();
+                if (!RequestState.canMove(current, target)) {
+                    throw new IllegalStateException("Una solicitud " + current.label() + " no puede pasar a " + target.label());
+                }
+                creditRequest.setStateRequest(target);
+                creditRequestRepository.save(creditRequest);
+                if (current != target) {
+                    eventPublisher.publishEvent(new RequestStatusChanged(creditRequest.getId(), creditRequest.getClientId(),
+                            target, creditRequest.getTypeLoan()));
+                }
+                return "Estado actualizado correctamente";
+            } else {
+                return "Solicitud de crédito no encontrada";
             }
-            creditRequestRepository.save(creditRequest);
-            return "Estado actualizado correctamente";
-        } else {
-            return "Solicitud de crédito no encontrada";
+        } finally {
+            creditMetrics.stop(sample, CreditMetrics.EDIT_STATUS, loanType, CreditMetrics.stateTag(state));
         }
     }
 
+    /**
+     * Product code of the loan type of a request, so the metrics do not get a tag per free-text value.
+     * @param typeLoan the type of loan as it was sent by the form
+     * @return the product code, or "other" if it is not in the catalog
+     */
+    private String loanTypeTag(String typeLoan) {
+        return loanCatalog.find(typeLoan).map(LoanProduct::typeLoan).orElse("other");
+    }
+
     /**
      * Find the credit request by the id
      * @param id
@@ -416,41 +333,101 @@ public class CreditRequestService {
         return creditRequestRepository.findById(id).orElse(null);
     }
 
-    public boolean deleteRequest(Long id) {
+    /**
+     * Find the credit requests with the given ids; the ones that do not exist are left out
+     * @param ids
+     * @return the credit requests
+     */
+    public List<CreditRequestEntity> findAllById(Collection<Long> ids) {
+        return creditRequestRepository.findAllById(ids);
+    }
+
+    /**
+     * Deletes a request with its documents, in one transaction: the references are released, and the
+     * files left without references deleted, only once it commits.
+     * @param id the id of the request
+     * @return false if no id was given
+     * @throws IOException
+     */
+    @Transactional(rollbackFor = IOException.class)
+    public boolean deleteRequest(Long id) throws IOException {
         if (id == null) {
             return false;
         }
+        List<CreditDocumentEntity> documents = creditDocumentRepository.findByRequestId(id);
+        creditDocumentRepository.deleteAll(documents);
         creditRequestRepository.deleteById(id);
+        // El archivo se borra solo si ninguna otra solicitud lo usa
+        for (CreditDocumentEntity document : documents) {
+            documentReferences.release(document.getStorageId());
+        }
         return true;
     }
 
+    /**
+     * Rejects a request outside the term, interest rate or amount limits of its product, before any
+     * document is stored. Products missing from the catalog are not checked.
+     */
+    private void checkLoanBounds(String product, int term, double interestRate, int maximumAmount) {
+        String violation = loanCatalog.find(product)
+                .map(loan -> loan.checkBounds(term, interestRate, maximumAmount))
+                .orElse(null);
+        if (violation != null) {
+            throw new IllegalArgumentException(violation);
+        }
+    }
+
+    private Optional<ClientEntity> findClient(String rut) {
+        if (rutBloomFilter.isDefinitelyAbsent(rut)) {
+            return Optional.empty();
+        }
+        return clientRepository.findByRut(rut);
+    }
+
+    /**
+     * Streams the uploaded documents into the document store; a document already stored by another
+     * request is shared with it.
+     * @param loanType the product code of the request, for the upload metrics
+     * @param state the state code of the request, for the upload metrics
+     * @param files the uploaded documents by document type
+     * @return the document references, not yet attached to a request
+     * @throws IOException
+     */
+    private List<CreditDocumentEntity> storeDocuments(String loanType, String state, Map<String, MultipartFile> files) throws IOException {
+        List<CreditDocumentEntity> documents = new ArrayList<>(files.size());
+        for (Map.Entry<String, MultipartFile> file : files.entrySet()) {
+            StoredDocument stored = documentStore.store(file.getValue());
+            boolean shared = documentReferences.acquire(stored, file.getValue());
+            creditMetrics.documentUploaded(loanType, state, file.getKey(), stored.getSize(), shared);
+            creditMetrics.documentWritten(loanType, state, file.getKey(), stored.getCodec().name(), shared ? 0 : stored.getStoredSize(), stored.getWriteMicros());
+            documents.add(new CreditDocumentEntity(null, file.getKey(), stored.getId(), stored.getSize(), stored.getSha256(),
+                    file.getValue().getContentType(), file.getValue().getOriginalFilename()));
+        }
+        return documents;
+    }
+
+    /**
+     * Saves the document references of a newly created request.
+     * @param requestId
+     * @param documents
+     */
+    private void attachDocuments(Long requestId, List<CreditDocumentEntity> documents) {
+        for (CreditDocumentEntity document : documents) {
+            document.setRequestId(requestId);
+        }
+        creditDocumentRepository.saveAll(documents);
+    }
+
+    /**
+     * Term and interest range of a loan product, from the in-memory catalog.
+     * @param loanType the form code (firstHome) or the display name (Primera Vivienda)
+     * @return the product, or empty if it does not exist
+     */
+    public Optional<LoanProduct> getLoanProduct(String loanType) {
+        return loanCatalog.find(loanType);
+    }
+
     public Map<String, String> getLoanTypeInfo(String loanType) {
-        Map<String, Map<String, String>> loanTypes = new HashMap<>();
-
-        // Primera Vivienda
-        Map<String, String> firstHouse = new HashMap<>();
-        firstHouse.put("Plazo", "30 años");
-        firstHouse.put("Tasa Interés (Anual)", "3.5% - 5.0%");
-        loanTypes.put("Primera Vivienda", firstHouse);
-
-        // Segunda Vivienda
-        Map<String, String> secondHouse = new HashMap<>();
-        secondHouse.put("Plazo", "20 años");
-        secondHouse.put("Tasa Interés (Anual)", "4.0% - 6.0%");
-        loanTypes.put("Segunda Vivienda", secondHouse);
-
-        // Propiedades Comerciales
-        Map<String, String> commercialProperty = new HashMap<>();
-        commercialProperty.put("Plazo", "25 años");
-        commercialProperty.put("Tasa Interés (Anual)", "5.0% - 7.0%");
-        loanTypes.put("Propiedades Comerciales", commercialProperty);
-
-        // Remodelación
-        Map<String, String> remodeling = new HashMap<>();
-        remodeling.put("Plazo", "15 años");
-        remodeling.put("Tasa Interés (Anual)", "4.5% - 6.0%");
-        loanTypes.put("Remodelación", remodeling);
-
-        return loanTypes.getOrDefault(loanType, new HashMap<>());
+        return loanCatalog.find(loanType).map(LoanProduct::info).orElse(Map.of());
     }
 }
@@ -0,0 +1,52 @@
+package com.example.prestaBanco.services;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * What each loan product asks for when a credit request is submitted: the form it comes from
+ * (/api/v1/creditRequest/{form}), its product code in the loans table and the documents that must
+ * be attached. Every product is created by {@link CreditRequestService#createRequest}; adding a
+ * product or a document is a change here only.
+ */
+public enum LoanDocumentProfile {
+
+    FIRST_HOME("firstHouse", CreditRequestService.FIRST_HOME,
+            "proofIncome", "creditHistory", "appraisalCertificate", "bankAccountState", "workCertificate"),
+    SECOND_HOME("secondHouse", CreditRequestService.SECOND_HOME,
+            "proofIncome", "creditHistory", "appraisalCertificate", "propertyWriting", "bankAccountState", "workCertificate"),
+    COMMERCIAL("commercialProperty", CreditRequestService.COMMERCIAL,
+            "proofIncome", "appraisalCertificate", "businessFinancialStatement", "businessPlan", "bankAccountState", "workCertificate"),
+    REMODELING("remodeling", CreditRequestService.REMODELING,
+            "proofIncome", "appraisalCertificate", "remodelingBudget", "bankAccountState", "workCertificate");
+
+    private final String form;
+    private final String product;
+    private final List<String> documents;
+
+    LoanDocumentProfile(String form, String product, String... documents) {
+        this.form = form;
+        this.product = product;
+        this.documents = List.of(documents);
+    }
+
+    public String form() {
+        return form;
+    }
+
+    public String product() {
+        return product;
+    }
+
+    /**
+     * @return the document types that must be uploaded, in the order of the form
+     */
+    public List<String> documents() {
+        return documents;
+    }
+
+    public static Optional<LoanDocumentProfile> fromForm(String form) {
+        return Arrays.stream(values()).filter(profile -> profile.form.equals(form)).findFirst();
+    }
+}
@@ -0,0 +1,200 @@
+package com.example.prestaBanco.simulation;
+
+import com.example.prestaBanco.dtos.SimulationBatchResult;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Builds amortization schedules for constant payment loans.
+ * {@code (1+r)^n} is computed once for the installment; every month after that is derived from the
+ * previous balance (interest = balance * r, principal = payment - interest).
+ */
+@Component
+public class AmortizationEngine {
+
+    public static final double LIFE_INSURANCE_RATE = 0.0003; // 0.03% del monto por mes
+    public static final double FIRE_INSURANCE = 20000; // Fijo de 20.000 por mes
+
+    public static final int MAX_TERM = 50;
+    public static final int MAX_SCENARIOS = 100_000;
+
+    // Por debajo de este tamaño no compensa repartir el cálculo entre hilos
+    private static final int PARALLEL_CHUNK = 4_096;
+
+    /**
+     * Monthly installment of a loan.
+     *
+     * @param amount the amount of the loan
+     * @param monthlyRate the monthly interest rate as a fraction (4.5% annual is 0.00375)
+     * @param months the number of installments
+     */
+    public static double monthlyPayment(double amount, double monthlyRate, int months) {
+        if (monthlyRate == 0) {
+            return amount / months;
+        }
+        double factor = Math.pow(1 + monthlyRate, months);
+        return amount * (monthlyRate * factor) / (factor - 1);
+    }
+
+    /**
+     * Builds the full schedule of a loan.
+     *
+     * @param amount the amount of the loan
+     * @param interestRate the annual interest rate, in percent
+     * @param term the term of the loan, in years
+     * @return the schedule, one entry per month
+     */
+    public AmortizationSchedule schedule(int amount, double interestRate, int term) {
+        checkScenario(amount, interestRate, term);
+        int months = term * 12;
+        double r = interestRate / 12 / 100;
+        double payment = monthlyPayment(amount, r, months);
+
+        double[] interest = new double[months];
+        double[] principal = new double[months];
+        double[] balance = new double[months];
+        double remaining = amount;
+        for (int k = 0; k < months; k++) {
+            double i = remaining * r;
+            // La última cuota salda el saldo que quede por redondeo
+            double p = k == months - 1 ? remaining : payment - i;
+            remaining -= p;
+            interest[k] = i;
+            principal[k] = p;
+            balance[k] = remaining;
+        }
+        double insurance = amount * LIFE_INSURANCE_RATE + FIRE_INSURANCE;
+        return new AmortizationSchedule(amount, interestRate, term, payment, insurance, interest, principal, balance);
+    }
+
+    /**
+     * Monthly payments of a list of scenarios; the three arrays are read position by position.
+     *
+     * @return the payments, truncated like {@code ClientService.simulation}
+     */
+    public SimulationBatchResult simulateScenarios(int[] amounts, double[] interestRates, int[] terms) {
+        int size = amounts.length;
+        if (interestRates.length != size || terms.length != size) {
+            throw new IllegalArgumentException("Scenario columns must have the same length");
+        }
+        checkBatchSize(size);
+        for (int i = 0; i < size; i++) {
+            checkScenario(amounts[i], interestRates[i], terms[i]);
+        }
+        double[] numerators = new double[size];
+        double[] denominators = new double[size];
+        int[] payments = new int[size];
+        forEachChunk(size, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                fillFactors(interestRates[i], terms[i], numerators, denominators, i, 1);
+            }
+            payments(amounts, numerators, denominators, payments, from, to);
+        });
+        return new SimulationBatchResult(amounts, interestRates, terms, payments);
+    }
+
+    /**
+     * Monthly payments of every rate x term x amount combination. {@code (1+r)^n} is computed once per
+     * rate and term; the loop over amounts is plain array arithmetic that the JIT can vectorize.
+     *
+     * @return the expanded columns, amounts varying fastest, then terms, then rates
+     */
+    public SimulationBatchResult simulateGrid(int[] amounts, double[] interestRates, int[] terms) {
+        long combinations = (long) amounts.length * interestRates.length * terms.length;
+        checkBatchSize(combinations);
+        for (int amount : amounts) {
+            checkScenario(amount, 0, 1);
+        }
+        for (double rate : interestRates) {
+            checkScenario(1, rate, 1);
+        }
+        for (int term : terms) {
+            checkScenario(1, 0, term);
+        }
+        int size = (int) combinations;
+        int[] amountColumn = new int[size];
+        double[] rateColumn = new double[size];
+        int[] termColumn = new int[size];
+        double[] numerators = new double[size];
+        double[] denominators = new double[size];
+        int row = 0;
+        for (double rate : interestRates) {
+            for (int term : terms) {
+                fillFactors(rate, term, numerators, denominators, row, amounts.length);
+                System.arraycopy(amounts, 0, amountColumn, row, amounts.length);
+                Arrays.fill(rateColumn, row, row + amounts.length, rate);
+                Arrays.fill(termColumn, row, row + amounts.length, term);
+                row += amounts.length;
+            }
+        }
+        int[] payments = new int[size];
+        forEachChunk(size, (from, to) -> payments(amountColumn, numerators, denominators, payments, from, to));
+        return new SimulationBatchResult(amountColumn, rateColumn, termColumn, payments);
+    }
+
+    /**
+     * Writes {@code r * (1+r)^n} and {@code (1+r)^n - 1} into {@code count} positions starting at
+     * {@code from}, so that {@code amount * numerator / denominator} gives exactly the same value as
+     * {@link #monthlyPayment}. A zero rate is written as {@code 1 / months}.
+     */
+    private static void fillFactors(double interestRate, int term, double[] numerators, double[] denominators, int from, int count) {
+        int months = term * 12;
+        double r = interestRate / 12 / 100;
+        double numerator;
+        double denominator;
+        if (r == 0) {
+            numerator = 1;
+            denominator = months;
+        } else {
+            double factor = Math.pow(1 + r, months);
+            numerator = r * factor;
+            denominator = factor - 1;
+        }
+        Arrays.fill(numerators, from, from + count, numerator);
+        Arrays.fill(denominators, from, from + count, denominator);
+    }
+
+    private static void payments(int[] amounts, double[] numerators, double[] denominators, int[] payments, int from, int to) {
+        for (int i = from; i < to; i++) {
+            payments[i] = (int) (amounts[i] * numerators[i] / denominators[i]);
+        }
+    }
+
+    private static void forEachChunk(int size, ChunkTask task) {
+        int chunks = (size + PARALLEL_CHUNK - 1) / PARALLEL_CHUNK;
+        if (chunks <= 1) {
+            task.run(0, size);
+            return;
+        }
+        IntStream.range(0, chunks).parallel()
+                .forEach(c -> task.run(c * PARALLEL_CHUNK, Math.min(size, (c + 1) * PARALLEL_CHUNK)));
+    }
+
+    private static void checkBatchSize(long size) {
+        if (size == 0) {
+            throw new IllegalArgumentException("At least one scenario is required");
+        }
+        if (size > MAX_SCENARIOS) {
+            throw new IllegalArgumentException("At most " + MAX_SCENARIOS + " scenarios can be simulated at once");
+        }
+    }
+
+    private static void checkScenario(int amount, double interestRate, int term) {
+        if (amount <= 0) {
+            throw new IllegalArgumentException("Amount must be greater than 0");
+        }
+        if (!(interestRate >= 0)) {
+            throw new IllegalArgumentException("Interest rate must not be negative");
+        }
+        if (term <= 0 || term > MAX_TERM) {
+            throw new IllegalArgumentException("Term must be between 1 and " + MAX_TERM + " years");
+        }
+    }
+
+    @FunctionalInterface
+    private interface ChunkTask {
+        void run(int from, int to);
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.prestaBanco.simulation;
+
+/**
+ * Month by month breakdown of a French (constant payment) loan.
+ * Columns are kept as primitive arrays indexed by month - 1, so a 30 year schedule is three
+ * double[360] and no per-row objects.
+ */
+public class AmortizationSchedule {
+
+    private final int amount;
+    private final double interestRate;
+    private final int term;
+    private final double monthlyPayment;
+    private final double monthlyInsurance;
+    private final double[] interest;
+    private final double[] principal;
+    private final double[] balance;
+
+    public AmortizationSchedule(int amount, double interestRate, int term, double monthlyPayment, double monthlyInsurance,
+                                double[] interest, double[] principal, double[] balance) {
+        this.amount = amount;
+        this.interestRate = interestRate;
+        this.term = term;
+        this.monthlyPayment = monthlyPayment;
+        this.monthlyInsurance = monthlyInsurance;
+        this.interest = interest;
+        this.principal = principal;
+        this.balance = balance;
+    }
+
+    public int getAmount() {
+        return amount;
+    }
+
+    public double getInterestRate() {
+        return interestRate;
+    }
+
+    public int getTerm() {
+        return term;
+    }
+
+    public int getMonths() {
+        return interest.length;
+    }
+
+    public double getMonthlyPayment() {
+        return monthlyPayment;
+    }
+
+    /**
+     * Life insurance (0.03% of the amount) plus fire insurance, charged every month.
+     */
+    public double getMonthlyInsurance() {
+        return monthlyInsurance;
+    }
+
+    public double interest(int month) {
+        return interest[month - 1];
+    }
+
+    public double principal(int month) {
+        return principal[month - 1];
+    }
+
+    /**
+     * @return the outstanding balance after the payment of the given month
+     */
+    public double balance(int month) {
+        return balance[month - 1];
+    }
+
+    /**
+     * @return the installment of the given month, without insurance
+     */
+    public double payment(int month) {
+        return interest[month - 1] + principal[month - 1];
+    }
+}
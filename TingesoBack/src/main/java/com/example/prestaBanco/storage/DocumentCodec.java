@@ -0,0 +1,23 @@
+package com.example.prestaBanco.storage;
+
+/**
+ * How a document is written on disk. The codec is chosen per document when it is stored, and the
+ * file name says which one was used, so reading never depends on the current configuration.
+ */
+public enum DocumentCodec {
+
+    // Ya comprimidos (PDF escaneados, JPEG): se guardan tal cual
+    NONE(""),
+    // Deflate con cabecera gzip, para poder revisarlos con zcat
+    GZIP(".gz");
+
+    private final String suffix;
+
+    DocumentCodec(String suffix) {
+        this.suffix = suffix;
+    }
+
+    public String suffix() {
+        return suffix;
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.prestaBanco.storage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+
+/**
+ * Reference counts of the stored documents, kept in document_blob.
+ * <p>
+ * The store names documents after their SHA-256, so every request that uploads the same file points
+ * to one copy. Each request document holds a reference; releasing the last one deletes the copy.
+ * The file is only deleted while the row is locked with no references, and an upload that brings a
+ * row back to one reference checks, after locking it, that the file is still there. So a document
+ * with references always has its file, whatever the order in which two backends upload and delete it.
+ * <p>
+ * Inside a transaction the counts change with it: a request that is rolled back releases the
+ * documents it acquired, and their files are deleted if nothing else uses them.
+ */
+@Component
+public class DocumentReferences {
+
+    private static final Logger log = LoggerFactory.getLogger(DocumentReferences.class);
+
+    private static final String ACQUIRE = "INSERT INTO document_blob (storage_id, sha256, size, codec, stored_size, write_micros, ref_count, created_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, 1, now()) ON CONFLICT (storage_id) DO UPDATE SET ref_count = document_blob.ref_count + 1 "
+            + "RETURNING ref_count";
+    private static final String RELEASE = "UPDATE document_blob SET ref_count = ref_count - 1 WHERE storage_id = ? AND ref_count > 0";
+    private static final String UNREFERENCED = "INSERT INTO document_blob (storage_id, sha256, size, codec, stored_size, write_micros, ref_count, created_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, 0, now()) ON CONFLICT (storage_id) DO NOTHING";
+    private static final String PURGE = "DELETE FROM document_blob WHERE storage_id = ? AND ref_count = 0";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Transacción propia: el borrado corre después del commit o del rollback de la que soltó la referencia
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private DocumentStore documentStore;
+
+    @Autowired
+    void setTransactionManager(PlatformTransactionManager transactionManager) {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Adds a reference to a document just stored. If the reference cannot be added, the document is
+     * discarded like a rolled back one, so a file written for it is not left without a row.
+     * @param stored what {@link DocumentStore#store(MultipartFile)} returned for the upload
+     * @param file the upload, written again if the copy was deleted meanwhile
+     * @return true if another request already had this document
+     * @throws IOException if the document had to be written again and could not be
+     */
+    public boolean acquire(StoredDocument stored, MultipartFile file) throws IOException {
+        // Antes del INSERT: si este falla, el rollback también descarta el archivo recién guardado
+        boolean transactional = TransactionSynchronizationManager.isSynchronizationActive();
+        if (transactional) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_ROLLED_BACK) {
+                        discard(stored);
+                    }
+                }
+            });
+        }
+        Integer references;
+        try {
+            references = jdbcTemplate.queryForObject(ACQUIRE, Integer.class, stored.getId(), stored.getSha256(), stored.getSize(),
+                    stored.getCodec().name(), stored.getStoredSize(), stored.getWriteMicros());
+        } catch (RuntimeException e) {
+            if (!transactional) {
+                discard(stored);
+            }
+            throw e;
+        }
+        if (references != null && references == 1 && !documentStore.exists(stored.getId())) {
+            // Otra solicitud soltó la última referencia entre que se guardó el archivo y se tomó la fila
+            documentStore.store(file);
+        }
+        return references != null && references > 1;
+    }
+
+    /**
+     * Releases a reference; the document is deleted once the transaction commits, if it was the last one.
+     * @param storageId the id of the document in the store
+     */
+    public void release(String storageId) {
+        jdbcTemplate.update(RELEASE, storageId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    purge(storageId);
+                }
+            });
+        } else {
+            purge(storageId);
+        }
+    }
+
+    /**
+     * Undoes an acquire that was rolled back. A row without references is added if the document has
+     * none (an upload of the same document running meanwhile waits for it, or keeps it if it commits
+     * first), and then the document is purged like any other released document.
+     * @param stored the document whose reference was rolled back
+     */
+    public void discard(StoredDocument stored) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.update(UNREFERENCED, stored.getId(), stored.getSha256(),
+                    stored.getSize(), stored.getCodec().name(), stored.getStoredSize(), stored.getWriteMicros()));
+        } catch (RuntimeException e) {
+            log.warn("Document {} of a rolled back request was not deleted: {}", stored.getId(), e.getMessage());
+            return;
+        }
+        purge(stored.getId());
+    }
+
+    /**
+     * Deletes the document if it has no references, holding the lock of its row meanwhile. If the file
+     * cannot be deleted the row is kept, and the next start tries again.
+     * @param storageId the id of the document in the store
+     */
+    public void purge(String storageId) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (jdbcTemplate.update(PURGE, storageId) == 1) {
+                    try {
+                        documentStore.delete(storageId);
+                    } catch (IOException e) {
+                        throw new IllegalStateException("Could not delete document " + storageId, e);
+                    }
+                }
+            });
+        } catch (RuntimeException e) {
+            log.warn("Document {} has no references but was not deleted: {}", storageId, e.getMessage());
+        }
+    }
+}
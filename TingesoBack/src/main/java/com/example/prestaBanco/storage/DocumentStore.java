@@ -0,0 +1,59 @@
+package com.example.prestaBanco.storage;
+
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Storage backend for the documents attached to a credit request.
+ * Implementations receive the uploaded file as a stream and only hand back a reference,
+ * so the document bytes never need to be held on the heap or in a database row.
+ */
+public interface DocumentStore {
+
+    /**
+     * Stores the uploaded document. The id is derived from the content, so storing the same bytes
+     * twice returns the same id and keeps a single copy; {@link DocumentReferences} counts who uses it.
+     * @param file the uploaded document
+     * @return the reference (id, size and SHA-256) of the stored document
+     * @throws IOException if the document could not be written
+     */
+    StoredDocument store(MultipartFile file) throws IOException;
+
+    /**
+     * @param documentId the id returned by {@link #store(MultipartFile)}
+     * @return true if the document is stored
+     * @throws IOException if the store could not be checked
+     */
+    boolean exists(String documentId) throws IOException;
+
+    /**
+     * Opens a stored document for reading.
+     * @param documentId the id returned by {@link #store(MultipartFile)}
+     * @return a stream with the document content
+     * @throws IOException if the document does not exist or could not be read
+     */
+    InputStream open(String documentId) throws IOException;
+
+    /**
+     * Returns a stored document as a resource that can be written straight to the response.
+     * Stores backed by files should return a resource with a known length, so that HTTP range
+     * requests can be served without reading the whole document.
+     * @param documentId the id returned by {@link #store(MultipartFile)}
+     * @return the stored document
+     * @throws IOException if the document does not exist or could not be read
+     */
+    default Resource load(String documentId) throws IOException {
+        return new InputStreamResource(open(documentId));
+    }
+
+    /**
+     * Deletes a stored document, ignoring ids that no longer exist.
+     * @param documentId the id returned by {@link #store(MultipartFile)}
+     * @throws IOException if the document could not be deleted
+     */
+    void delete(String documentId) throws IOException;
+}
@@ -0,0 +1,69 @@
+package com.example.prestaBanco.storage;
+
+import org.springframework.core.io.AbstractResource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * A gzip file served as its uncompressed content. The stream is inflated while it is written to the
+ * response, and the length comes from the gzip trailer, so Content-Length is known and range requests
+ * still work (the bytes before the range are inflated and skipped).
+ */
+public class GzipFileResource extends AbstractResource {
+
+    private static final int BUFFER = 64 * 1024;
+
+    private final Path path;
+    private final String filename;
+
+    public GzipFileResource(Path path, String filename) {
+        this.path = path;
+        this.filename = filename;
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        return new GZIPInputStream(Files.newInputStream(path), BUFFER);
+    }
+
+    /**
+     * The uncompressed length, from the ISIZE field that ends the file (the length modulo 2^32;
+     * uploads are far below that limit).
+     */
+    @Override
+    public long contentLength() throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer trailer = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+            channel.read(trailer, channel.size() - 4);
+            return trailer.getInt(0) & 0xFFFFFFFFL;
+        }
+    }
+
+    @Override
+    public long lastModified() throws IOException {
+        return Files.getLastModifiedTime(path).toMillis();
+    }
+
+    @Override
+    public boolean exists() {
+        return Files.isRegularFile(path);
+    }
+
+    @Override
+    public String getFilename() {
+        return filename;
+    }
+
+    @Override
+    public String getDescription() {
+        return "gzip file [" + path + "]";
+    }
+}
@@ -0,0 +1,244 @@
+package com.example.prestaBanco.storage;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Document store backed by a local (or shared, mounted) directory.
+ * Uploads are streamed into a temporary file while their SHA-256 is computed, and then moved into
+ * place under that hash, so a partially written document is never visible under its final id. When
+ * the hash is already stored the temporary file is dropped without syncing it.
+ * <p>
+ * Before writing, the first {@value #SAMPLE} bytes are deflated: if they shrink by at least the
+ * configured saving the whole document is written gzip-compressed (as {@code <hash>.gz}), otherwise
+ * as is. Scanned PDFs and images are already compressed and are left alone; text-based PDFs and
+ * spreadsheets usually are not.
+ */
+@Component
+@ConditionalOnProperty(prefix = "document.storage", name = "type", havingValue = "local", matchIfMissing = true)
+public class LocalFileDocumentStore implements DocumentStore {
+
+    private static final long TRANSFER_CHUNK = 1024 * 1024;
+    private static final int BUFFER = 64 * 1024;
+    private static final int SAMPLE = 64 * 1024;
+    // Con menos que esto la cabecera de gzip se come lo que se ahorra
+    private static final int MIN_COMPRESSIBLE = 1024;
+
+    private final Path root;
+    private final boolean compression;
+    private final int level;
+    private final int minSaving;
+
+    @Autowired
+    public LocalFileDocumentStore(@Value("${document.storage.path}") String root,
+                                  @Value("${document.storage.compression.enabled:true}") boolean compression,
+                                  @Value("${document.storage.compression.level:1}") int level,
+                                  @Value("${document.storage.compression.min-saving:10}") int minSaving) {
+        this.root = Path.of(root).toAbsolutePath().normalize();
+        this.compression = compression;
+        this.level = level;
+        this.minSaving = minSaving;
+    }
+
+    public LocalFileDocumentStore(String root) {
+        this(root, true, Deflater.BEST_SPEED, 10);
+    }
+
+    @Override
+    public StoredDocument store(MultipartFile file) throws IOException {
+        long start = System.nanoTime();
+        DocumentCodec codec = chooseCodec(file);
+        Path tmpDir = Files.createDirectories(root.resolve("tmp"));
+        Path tmp = Files.createTempFile(tmpDir, "upload-", ".part");
+        MessageDigest digest = sha256();
+        long size;
+        long storedSize;
+        String id;
+        DocumentCodec existing;
+        try (InputStream in = new DigestInputStream(file.getInputStream(), digest)) {
+            size = codec == DocumentCodec.GZIP ? writeCompressed(in, tmp) : write(in, tmp);
+            // Del temporal, que es solo de esta subida: el archivo definitivo puede borrarlo una purga concurrente
+            storedSize = codec == DocumentCodec.GZIP ? Files.size(tmp) : size;
+            id = HexFormat.of().formatHex(digest.digest());
+            existing = storedCodec(id);
+            if (existing == null) {
+                try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                    out.force(false);
+                }
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+
+        if (existing != null) {
+            Files.delete(tmp);
+            if (existing != codec) {
+                // Guardado antes con otra compresión
+                storedSize = storedSize(id, existing, size);
+                codec = existing;
+            }
+        } else {
+            Path target = resolve(id + codec.suffix());
+            Files.createDirectories(target.getParent());
+            // Si otra subida del mismo contenido llegó antes, se reemplaza por un archivo idéntico
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+        }
+        return new StoredDocument(id, size, id, codec, storedSize, (System.nanoTime() - start) / 1000);
+    }
+
+    @Override
+    public boolean exists(String documentId) {
+        return storedCodec(documentId) != null;
+    }
+
+    @Override
+    public InputStream open(String documentId) throws IOException {
+        Path compressed = resolve(documentId + DocumentCodec.GZIP.suffix());
+        if (Files.isRegularFile(compressed)) {
+            return new GZIPInputStream(Files.newInputStream(compressed), BUFFER);
+        }
+        return Files.newInputStream(resolve(documentId));
+    }
+
+    @Override
+    public Resource load(String documentId) throws IOException {
+        Path compressed = resolve(documentId + DocumentCodec.GZIP.suffix());
+        if (Files.isRegularFile(compressed)) {
+            return new GzipFileResource(compressed, documentId);
+        }
+        Path path = resolve(documentId);
+        if (!Files.isRegularFile(path)) {
+            throw new NoSuchFileException(documentId);
+        }
+        return new FileSystemResource(path);
+    }
+
+    @Override
+    public void delete(String documentId) throws IOException {
+        for (DocumentCodec codec : DocumentCodec.values()) {
+            Files.deleteIfExists(resolve(documentId + codec.suffix()));
+        }
+    }
+
+    /**
+     * Deflates the start of the upload and compares: the whole document is compressed only if the
+     * sample shrinks by at least {@code minSaving} %.
+     */
+    private DocumentCodec chooseCodec(MultipartFile file) throws IOException {
+        if (!compression || file.getSize() < MIN_COMPRESSIBLE) {
+            return DocumentCodec.NONE;
+        }
+        byte[] sample;
+        try (InputStream in = file.getInputStream()) {
+            sample = in.readNBytes(SAMPLE);
+        }
+        Deflater deflater = new Deflater(level, true);
+        try {
+            deflater.setInput(sample);
+            deflater.finish();
+            // Si no cabe en el tamaño de la muestra, no vale la pena comprimir
+            byte[] out = new byte[sample.length];
+            int compressed = 0;
+            while (!deflater.finished() && compressed < out.length) {
+                compressed += deflater.deflate(out, compressed, out.length - compressed);
+            }
+            boolean worth = deflater.finished() && compressed * 100L <= sample.length * (100L - minSaving);
+            return worth ? DocumentCodec.GZIP : DocumentCodec.NONE;
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static long write(InputStream in, Path tmp) throws IOException {
+        long size = 0;
+        try (ReadableByteChannel source = Channels.newChannel(in);
+             FileChannel out = FileChannel.open(tmp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            long transferred;
+            while ((transferred = out.transferFrom(source, size, TRANSFER_CHUNK)) > 0) {
+                size += transferred;
+            }
+        }
+        return size;
+    }
+
+    private long writeCompressed(InputStream in, Path tmp) throws IOException {
+        try (OutputStream out = new LeveledGzipOutputStream(Files.newOutputStream(tmp), level)) {
+            return in.transferTo(out);
+        }
+    }
+
+    // Tamaño en disco de un documento ya guardado; si una purga acaba de borrarlo se informa el tamaño sin comprimir
+    private long storedSize(String documentId, DocumentCodec codec, long size) throws IOException {
+        if (codec == DocumentCodec.NONE) {
+            return size;
+        }
+        try {
+            return Files.size(resolve(documentId + codec.suffix()));
+        } catch (NoSuchFileException e) {
+            return size;
+        }
+    }
+
+    private DocumentCodec storedCodec(String documentId) {
+        for (DocumentCodec codec : DocumentCodec.values()) {
+            if (Files.isRegularFile(resolve(documentId + codec.suffix()))) {
+                return codec;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Documents are spread over sub directories named after the first two characters of the id (of
+     * the hash, or of the UUID of the documents stored before deduplication), to keep directory listings short.
+     */
+    private Path resolve(String documentId) {
+        Path path = root.resolve(documentId.substring(0, 2)).resolve(documentId).normalize();
+        if (!path.startsWith(root)) {
+            throw new IllegalArgumentException("Invalid document id");
+        }
+        return path;
+    }
+
+    // GZIPOutputStream no recibe el nivel en el constructor
+    private static class LeveledGzipOutputStream extends GZIPOutputStream {
+
+        LeveledGzipOutputStream(OutputStream out, int level) throws IOException {
+            super(out, BUFFER);
+            def.setLevel(level);
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.prestaBanco.storage;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class StoredDocument {
+
+    private String id;
+    private long size;
+    private String sha256;
+    private DocumentCodec codec;
+    // Bytes en disco (menos que size si se comprimió)
+    private long storedSize;
+    // Tiempo de calcular el hash, comprimir y escribir la subida
+    private long writeMicros;
+
+    public StoredDocument(String id, long size, String sha256) {
+        this(id, size, sha256, DocumentCodec.NONE, size, 0);
+    }
+}
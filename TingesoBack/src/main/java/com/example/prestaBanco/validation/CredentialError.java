@@ -0,0 +1,31 @@
+package com.example.prestaBanco.validation;
+
+/**
+ * Structured result of {@link CredentialValidator}. {@link #NONE} means the value is valid;
+ * every other constant carries the message shown to the client.
+ */
+public enum CredentialError {
+
+    NONE(null),
+    RUT_REQUIRED("El RUT es obligatorio"),
+    RUT_FORMAT("Formato de RUT inválido"),
+    RUT_CHECK_DIGIT("Dígito verificador del RUT inválido"),
+    EMAIL_REQUIRED("El email es obligatorio"),
+    EMAIL_FORMAT("Formato de email inválido"),
+    PASSWORD_REQUIRED("La contraseña es obligatoria"),
+    PASSWORD_WEAK("La contraseña debe tener al menos 8 caracteres, una mayúscula y un número");
+
+    private final String message;
+
+    CredentialError(String message) {
+        this.message = message;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public boolean isValid() {
+        return this == NONE;
+    }
+}
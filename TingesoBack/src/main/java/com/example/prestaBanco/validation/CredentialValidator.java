@@ -0,0 +1,155 @@
+package com.example.prestaBanco.validation;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Validates RUT, email and password without regular expressions.
+ * Each check scans the characters once and allocates nothing, so it is cheap enough to run
+ * on every login and registration request.
+ */
+@Component
+public class CredentialValidator {
+
+    private static final int MIN_PASSWORD_LENGTH = 8;
+
+    /**
+     * Checks a Chilean RUT written as {@code 12345678-9}: 7 or 8 digits, a hyphen and the
+     * módulo 11 verifier digit (0-9 or K).
+     */
+    public CredentialError checkRut(CharSequence rut) {
+        CredentialError format = checkRutFormat(rut);
+        if (format != CredentialError.NONE) {
+            return format;
+        }
+        int length = rut.length();
+        int body = 0;
+        for (int i = 0; i < length - 2; i++) {
+            body = body * 10 + (rut.charAt(i) - '0');
+        }
+        char verifier = rut.charAt(length - 1);
+        if (verifier == 'k') {
+            verifier = 'K';
+        }
+        return verifier == checkDigit(body) ? CredentialError.NONE : CredentialError.RUT_CHECK_DIGIT;
+    }
+
+    /**
+     * Only the shape of {@link #checkRut}: 7 or 8 digits, a hyphen and 0-9 or K, whatever the verifier.
+     * Used on login, where accounts registered before the verifier digit was checked must still get in.
+     */
+    public CredentialError checkRutFormat(CharSequence rut) {
+        if (rut == null || isBlank(rut)) {
+            return CredentialError.RUT_REQUIRED;
+        }
+        int length = rut.length();
+        int digits = length - 2;
+        if (digits < 7 || digits > 8 || rut.charAt(digits) != '-') {
+            return CredentialError.RUT_FORMAT;
+        }
+        for (int i = 0; i < digits; i++) {
+            char c = rut.charAt(i);
+            if (c < '0' || c > '9') {
+                return CredentialError.RUT_FORMAT;
+            }
+        }
+        char verifier = rut.charAt(length - 1);
+        if ((verifier < '0' || verifier > '9') && verifier != 'K' && verifier != 'k') {
+            return CredentialError.RUT_FORMAT;
+        }
+        return CredentialError.NONE;
+    }
+
+    /**
+     * Same rule as the previous {@code ^[A-Za-z0-9+_.-]+@(.+)$} expression: a non empty local part
+     * made of letters, digits or {@code +_.-}, an at sign and a non empty domain without line breaks.
+     */
+    public CredentialError checkEmail(CharSequence email) {
+        if (email == null || isBlank(email)) {
+            return CredentialError.EMAIL_REQUIRED;
+        }
+        int length = email.length();
+        int at = 0;
+        while (at < length && email.charAt(at) != '@') {
+            if (!isLocalPartChar(email.charAt(at))) {
+                return CredentialError.EMAIL_FORMAT;
+            }
+            at++;
+        }
+        if (at == 0 || at >= length - 1) {
+            return CredentialError.EMAIL_FORMAT;
+        }
+        for (int i = at + 1; i < length; i++) {
+            if (isLineTerminator(email.charAt(i))) {
+                return CredentialError.EMAIL_FORMAT;
+            }
+        }
+        return CredentialError.NONE;
+    }
+
+    /**
+     * At least 8 characters without line breaks, one uppercase letter (A-Z) and one digit.
+     */
+    public CredentialError checkPassword(CharSequence password) {
+        if (password == null || isBlank(password)) {
+            return CredentialError.PASSWORD_REQUIRED;
+        }
+        int length = password.length();
+        int codePoints = 0;
+        boolean upper = false;
+        boolean digit = false;
+        for (int i = 0; i < length; i++) {
+            char c = password.charAt(i);
+            if (isLineTerminator(c)) {
+                return CredentialError.PASSWORD_WEAK;
+            }
+            if (!Character.isLowSurrogate(c) || i == 0 || !Character.isHighSurrogate(password.charAt(i - 1))) {
+                codePoints++;
+            }
+            upper |= c >= 'A' && c <= 'Z';
+            digit |= c >= '0' && c <= '9';
+        }
+        return codePoints >= MIN_PASSWORD_LENGTH && upper && digit
+                ? CredentialError.NONE
+                : CredentialError.PASSWORD_WEAK;
+    }
+
+    /**
+     * Computes the módulo 11 verifier digit of a RUT body: '0'-'9' or 'K'.
+     */
+    static char checkDigit(int body) {
+        int sum = 0;
+        int factor = 2;
+        while (body > 0) {
+            sum += (body % 10) * factor;
+            body /= 10;
+            factor = factor == 7 ? 2 : factor + 1;
+        }
+        int digit = 11 - (sum % 11);
+        if (digit == 11) {
+            return '0';
+        }
+        if (digit == 10) {
+            return 'K';
+        }
+        return (char) ('0' + digit);
+    }
+
+    private static boolean isLocalPartChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                || c == '+' || c == '_' || c == '.' || c == '-';
+    }
+
+    // Caracteres que el "." de java.util.regex no acepta por defecto
+    private static boolean isLineTerminator(char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+
+    private static boolean isBlank(CharSequence value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
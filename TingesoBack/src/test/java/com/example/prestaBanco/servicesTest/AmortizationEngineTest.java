@@ -0,0 +1,136 @@
+package com.example.prestaBanco.servicesTest;
+
+import com.example.prestaBanco.dtos.SimulationBatchResult;
+import com.example.prestaBanco.simulation.AmortizationEngine;
+import com.example.prestaBanco.simulation.AmortizationSchedule;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class AmortizationEngineTest {
+
+    private final AmortizationEngine engine = new AmortizationEngine();
+
+    @Test
+    void whenScheduleBuilt_thenOneEntryPerMonth() {
+        AmortizationSchedule schedule = engine.schedule(100000000, 4.5, 30);
+
+        assertEquals(360, schedule.getMonths());
+        assertEquals(506685, (int) schedule.getMonthlyPayment());
+    }
+
+    @Test
+    void whenScheduleBuilt_thenFirstMonthInterestIsBalanceTimesRate() {
+        AmortizationSchedule schedule = engine.schedule(100000000, 4.5, 20);
+
+        assertEquals(375000, schedule.interest(1), 1e-6);
+        assertEquals(schedule.getMonthlyPayment() - 375000, schedule.principal(1), 1e-6);
+        assertEquals(100000000 - schedule.principal(1), schedule.balance(1), 1e-6);
+    }
+
+    @Test
+    void whenScheduleBuilt_thenPrincipalAddsUpToAmountAndBalanceEndsAtZero() {
+        AmortizationSchedule schedule = engine.schedule(200000000, 5.0, 30);
+
+        double principal = 0;
+        for (int month = 1; month <= schedule.getMonths(); month++) {
+            principal += schedule.principal(month);
+            assertEquals(schedule.getMonthlyPayment(), schedule.payment(month), 1e-3);
+        }
+        assertEquals(200000000, principal, 1e-3);
+        assertEquals(0, schedule.balance(360), 1e-9);
+    }
+
+    @Test
+    void whenScheduleBuilt_thenInsuranceIsLifePlusFire() {
+        AmortizationSchedule schedule = engine.schedule(100000000, 4.5, 20);
+
+        assertEquals(100000000 * 0.0003 + 20000, schedule.getMonthlyInsurance(), 1e-9);
+    }
+
+    @Test
+    void whenInterestIsZero_thenPrincipalIsConstant() {
+        AmortizationSchedule schedule = engine.schedule(12000000, 0, 10);
+
+        assertEquals(100000, schedule.getMonthlyPayment(), 1e-9);
+        assertEquals(0, schedule.interest(60), 1e-9);
+        assertEquals(6000000, schedule.balance(60), 1e-6);
+    }
+
+    @Test
+    void whenInvalidValues_thenThrow() {
+        assertThrows(IllegalArgumentException.class, () -> engine.schedule(0, 4.5, 20));
+        assertThrows(IllegalArgumentException.class, () -> engine.schedule(100000000, -1, 20));
+        assertThrows(IllegalArgumentException.class, () -> engine.schedule(100000000, Double.NaN, 20));
+        assertThrows(IllegalArgumentException.class, () -> engine.schedule(100000000, 4.5, 0));
+        assertThrows(IllegalArgumentException.class, () -> engine.schedule(100000000, 4.5, 51));
+    }
+
+    //---------------------Simulación por lotes---------------------
+    private static int simulation(int amount, double interestRate, int term) {
+        double r = interestRate / 12 / 100;
+        double n = term * 12;
+        return (int) (amount * (r * Math.pow(1 + r, n)) / (Math.pow(1 + r, n) - 1));
+    }
+
+    @Test
+    void whenScenariosSimulated_thenSameAsSingleSimulation() {
+        int[] amounts = {100000000, 50000000, 200000000};
+        double[] rates = {4.5, 3.5, 5.0};
+        int[] terms = {20, 15, 30};
+
+        SimulationBatchResult result = engine.simulateScenarios(amounts, rates, terms);
+
+        assertArrayEquals(new int[]{632649, 357441, 1073643}, result.monthlyPayment());
+    }
+
+    @Test
+    void whenGridSimulated_thenEveryCombinationInOrder() {
+        int[] amounts = {10000000, 75000000, 120000000};
+        double[] rates = {3.5, 4.75};
+        int[] terms = {10, 25};
+
+        SimulationBatchResult result = engine.simulateGrid(amounts, rates, terms);
+
+        assertEquals(12, result.monthlyPayment().length);
+        int row = 0;
+        for (double rate : rates) {
+            for (int term : terms) {
+                for (int amount : amounts) {
+                    assertEquals(amount, result.amount()[row]);
+                    assertEquals(rate, result.interestRate()[row]);
+                    assertEquals(term, result.term()[row]);
+                    assertEquals(simulation(amount, rate, term), result.monthlyPayment()[row]);
+                    row++;
+                }
+            }
+        }
+    }
+
+    @Test
+    void whenLargeGridSimulated_thenParallelResultMatches() {
+        int[] amounts = new int[1000];
+        for (int i = 0; i < amounts.length; i++) {
+            amounts[i] = 5000000 + i * 250000;
+        }
+        double[] rates = {2.0, 3.25, 4.5, 5.75, 7.0};
+        int[] terms = {5, 10, 15, 20, 25, 30};
+
+        SimulationBatchResult result = engine.simulateGrid(amounts, rates, terms);
+
+        assertEquals(30000, result.monthlyPayment().length);
+        for (int i = 0; i < result.monthlyPayment().length; i++) {
+            assertEquals(simulation(result.amount()[i], result.interestRate()[i], result.term()[i]), result.monthlyPayment()[i]);
+        }
+    }
+
+    @Test
+    void whenBatchInvalid_thenThrow() {
+        assertThrows(IllegalArgumentException.class, () -> engine.simulateScenarios(new int[]{1}, new double[]{1, 2}, new int[]{1}));
+        assertThrows(IllegalArgumentException.class, () -> engine.simulateScenarios(new int[0], new double[0], new int[0]));
+        assertThrows(IllegalArgumentException.class, () -> engine.simulateGrid(new int[]{100}, new double[]{4.5}, new int[]{60}));
+        assertThrows(IllegalArgumentException.class, () -> engine.simulateGrid(new int[1000], new double[1000], new int[1000]));
+    }
+}
@@ -0,0 +1,244 @@
+package com.example.prestaBanco.servicesTest;
+
+import com.example.prestaBanco.cache.RutBloomFilter;
+import com.example.prestaBanco.dtos.HistoricalRequest;
+import com.example.prestaBanco.dtos.IngestionResult;
+import com.example.prestaBanco.entities.ClientEntity;
+import com.example.prestaBanco.entities.CreditRequestEntity;
+import com.example.prestaBanco.entities.RequestState;
+import com.example.prestaBanco.repositories.ClientRepository;
+import com.example.prestaBanco.services.BulkIngestionService;
+import com.example.prestaBanco.services.ClientService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+public class BulkIngestionServiceTest {
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private ClientRepository clientRepository;
+
+    @Mock
+    private RutBloomFilter rutBloomFilter;
+
+    @Mock
+    private ClientService clientService;
+
+    @InjectMocks
+    private BulkIngestionService bulkIngestionService;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    BulkIngestionServiceTest() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(bulkIngestionService, "batchSize", 50);
+        ReflectionTestUtils.setField(bulkIngestionService, "chunkSize", 100);
+        ReflectionTestUtils.setField(bulkIngestionService, "objectMapper", objectMapper);
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(mock(TransactionStatus.class));
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+
+    private static ClientEntity client(String rut) {
+        return new ClientEntity(99L, "Juan", "Pérez", rut, "Password1", LocalDate.of(1990, 1, 1), "juan@mail.com");
+    }
+
+    @Test
+    void whenClientsIngested_thenPersistedInBatchesOfFiftyAndOneTransactionPerChunk() {
+        // Given
+        List<ClientEntity> clients = new ArrayList<>();
+        for (int body = 10_000_000; body < 10_000_250; body++) {
+            clients.add(client(body + "-" + (body % 10)));
+        }
+        when(clientRepository.findIdsByRut(any())).thenReturn(List.of());
+
+        // When
+        IngestionResult result = bulkIngestionService.ingestClients(clients);
+
+        // Then: 3 lotes de 100, 100 y 50 filas
+        assertEquals(250, result.inserted());
+        assertEquals(0, result.skipped());
+        verify(transactionTemplate, times(3)).executeWithoutResult(any());
+        verify(clientRepository, times(3)).findIdsByRut(any());
+        verify(entityManager, times(250)).persist(any(ClientEntity.class));
+        verify(entityManager, times(8)).flush();
+        verify(rutBloomFilter, times(3)).registerAll(anyCollection());
+        assertNull(clients.get(0).getId());
+    }
+
+    @Test
+    void whenRutRegisteredOrRepeated_thenSkipped() {
+        // Given
+        List<ClientEntity> clients = List.of(client("12345678-5"), client("11111111-1"), client("11111111-1"), client(null));
+        when(clientRepository.findIdsByRut(any())).thenReturn(List.<Object[]>of(new Object[]{1L, "12345678-5"}));
+
+        // When
+        IngestionResult result = bulkIngestionService.ingestClients(clients);
+
+        // Then
+        assertEquals(4, result.received());
+        assertEquals(1, result.inserted());
+        assertEquals(3, result.skipped());
+        assertEquals(List.of("12345678-5", "11111111-1"), result.skippedRuts());
+        verify(entityManager, times(1)).persist(clients.get(1));
+        verify(rutBloomFilter).registerAll(List.of("11111111-1"));
+    }
+
+    @Test
+    void whenRutRegisteredDuringIngestion_thenChunkSavedAgainWithoutItAndReported() {
+        // Given: otro proceso registra 11111111-1 entre la consulta y el INSERT
+        List<ClientEntity> clients = List.of(client("11111111-1"), client("22222222-2"));
+        when(clientRepository.findIdsByRut(any()))
+                .thenReturn(List.of())
+                .thenReturn(List.<Object[]>of(new Object[]{5L, "11111111-1"}));
+        doThrow(new PersistenceException("duplicate key value violates unique constraint \"uq_clients_rut\""))
+                .doNothing()
+                .when(entityManager).flush();
+
+        // When
+        IngestionResult result = bulkIngestionService.ingestClients(clients);
+
+        // Then
+        assertEquals(1, result.inserted());
+        assertEquals(List.of("11111111-1"), result.skippedRuts());
+        verify(transactionTemplate, times(2)).executeWithoutResult(any());
+        verify(entityManager, times(2)).persist(clients.get(1));
+        verify(rutBloomFilter).registerAll(List.of("22222222-2"));
+        assertNull(clients.get(1).getId());
+    }
+
+    @Test
+    void whenInsertFailsForAnotherReason_thenTheErrorIsNotTakenForAConflict() {
+        // Given
+        when(clientRepository.findIdsByRut(any())).thenReturn(List.of());
+        doThrow(new PersistenceException("value too long")).when(entityManager).flush();
+
+        // When / Then
+        assertThrows(PersistenceException.class, () -> bulkIngestionService.ingestClients(List.of(client("11111111-1"))));
+        verify(rutBloomFilter, never()).registerAll(anyCollection());
+    }
+
+    @Test
+    void whenRequestsIngested_thenClientResolvedByRutAndUnknownSkipped() {
+        // Given
+        List<HistoricalRequest> requests = List.of(
+                new HistoricalRequest("12345678-5", "firstHome", 20, 4.5, 100000000, RequestState.APPROVED),
+                new HistoricalRequest("11111111-1", "remodeling", 10, 5.0, 20000000, null),
+                new HistoricalRequest("12345678-5", "commercial", 15, 6.0, 50000000, null));
+        when(clientRepository.findIdsByRut(any())).thenReturn(List.<Object[]>of(new Object[]{7L, "12345678-5"}));
+
+        // When
+        IngestionResult result = bulkIngestionService.ingestRequests(requests);
+
+        // Then
+        assertEquals(2, result.inserted());
+        assertEquals(1, result.skipped());
+        assertEquals(List.of("11111111-1"), result.skippedRuts());
+        ArgumentCaptor<CreditRequestEntity> persisted = ArgumentCaptor.forClass(CreditRequestEntity.class);
+        verify(entityManager, times(2)).persist(persisted.capture());
+        assertEquals(7L, persisted.getAllValues().get(0).getClientId());
+        assertEquals(RequestState.APPROVED, persisted.getAllValues().get(0).getStateRequest());
+        assertEquals(RequestState.INITIAL_REVIEW, persisted.getAllValues().get(1).getStateRequest());
+        assertNull(persisted.getAllValues().get(1).getId());
+    }
+
+    private JsonNode importCsv(String csv) throws Exception {
+        ByteArrayOutputStream report = new ByteArrayOutputStream();
+        bulkIngestionService.importClients(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), report);
+        return objectMapper.readTree(report.toByteArray());
+    }
+
+    @Test
+    void whenCsvImported_thenValidRowsInsertedAndRejectedRowsReportedWithTheirLine() throws Exception {
+        // Given
+        String csv = "email;rut;name;lastName;password;dateOfBirth\n" +
+                "ana@mail.com;12345678-5;Ana;Soto;Password1;15-03-1985\n" +
+                "juan@mail.com;11111111-1;Juan;Pérez;Password1;1990-01-01\n" +
+                "x@mail.com;10000013-K;X;Pérez;Password1;\n" +
+                "otra@mail.com;11111111-1;Juan;Pérez;Password1;\n" +
+                "mala@mail.com;1234567-4;Fecha;Mala;Password1;31-02-1990\n" +
+                "corta@mail.com;7654321-6\n";
+        when(clientService.checkClientFields(any())).thenAnswer(invocation ->
+                invocation.<ClientEntity>getArgument(0).getName().length() < 2 ? "El nombre debe tener entre 2 y 50 caracteres" : null);
+        when(clientRepository.findIdsByRut(any())).thenReturn(List.<Object[]>of(new Object[]{1L, "12345678-5"}));
+
+        // When
+        JsonNode report = importCsv(csv);
+
+        // Then
+        ArgumentCaptor<ClientEntity> persisted = ArgumentCaptor.forClass(ClientEntity.class);
+        verify(entityManager, times(1)).persist(persisted.capture());
+        assertEquals("11111111-1", persisted.getValue().getRut());
+        assertEquals("Juan", persisted.getValue().getName());
+        assertEquals(LocalDate.of(1990, 1, 1), persisted.getValue().getDateOfBirth());
+        verify(rutBloomFilter).registerAll(List.of("11111111-1"));
+
+        assertEquals(6, report.get("summary").get("received").asInt());
+        assertEquals(1, report.get("summary").get("inserted").asInt());
+        JsonNode errors = report.get("errors");
+        assertEquals(5, errors.size());
+        assertEquals(2, errors.get(0).get("line").asInt());
+        assertEquals("El RUT ya está registrado", errors.get(0).get("message").asText());
+        assertEquals(4, errors.get(1).get("line").asInt());
+        assertEquals("El nombre debe tener entre 2 y 50 caracteres", errors.get(1).get("message").asText());
+        assertEquals("El RUT está repetido en el archivo", errors.get(2).get("message").asText());
+        assertEquals("1234567-4", errors.get(3).get("rut").asText());
+        assertEquals(7, errors.get(4).get("line").asInt());
+    }
+
+    @Test
+    void whenColumnMissing_thenNothingImported() throws Exception {
+        // When
+        JsonNode report = importCsv("name,lastName,password,email\nAna,Soto,Password1,ana@mail.com\n");
+
+        // Then
+        assertEquals("Falta la columna rut en la primera línea", report.get("errors").get(0).get("message").asText());
+        assertEquals(0, report.get("summary").get("received").asInt());
+        verify(entityManager, never()).persist(any());
+    }
+
+    @Test
+    void whenFileBreaks_thenRowsBeforeAreImportedAndTheRestReported() throws Exception {
+        // Given
+        when(clientRepository.findIdsByRut(any())).thenReturn(List.of());
+
+        // When
+        JsonNode report = importCsv("name,lastName,rut,password,email\n" +
+                "Ana,Soto,12345678-5,Password1,ana@mail.com\n" +
+                "\"Juan,Pérez,11111111-1,Password1,juan@mail.com\n");
+
+        // Then
+        verify(entityManager, times(1)).persist(any(ClientEntity.class));
+        assertEquals(1, report.get("summary").get("inserted").asInt());
+        assertEquals(3, report.get("errors").get(0).get("line").asInt());
+    }
+}
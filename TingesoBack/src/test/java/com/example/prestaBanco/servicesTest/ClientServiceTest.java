@@ -1,27 +1,52 @@
 package com.example.prestaBanco.servicesTest;
 
 
+import com.example.prestaBanco.cache.RutBloomFilter;
+import com.example.prestaBanco.dtos.ClientPage;
+import com.example.prestaBanco.dtos.ClientSummary;
+import com.example.prestaBanco.dtos.SimulationBatchRequest;
+import com.example.prestaBanco.dtos.SimulationBatchResult;
+import com.example.prestaBanco.dtos.SimulationScenario;
 import com.example.prestaBanco.entities.ClientEntity;
 import com.example.prestaBanco.entities.CreditRequestEntity;
+import com.example.prestaBanco.entities.RequestState;
+import com.example.prestaBanco.metrics.CreditMetrics;
+import com.example.prestaBanco.notifications.RequestStatusStream;
 import com.example.prestaBanco.repositories.ClientRepository;
 import com.example.prestaBanco.repositories.CreditRequestRepository;
 import com.example.prestaBanco.services.ClientService;
+import com.example.prestaBanco.simulation.AmortizationEngine;
+import com.example.prestaBanco.simulation.AmortizationSchedule;
+import com.example.prestaBanco.validation.CredentialValidator;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
-
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @WebMvcTest(ClientService.class)
+@Import({CredentialValidator.class, AmortizationEngine.class})
 public class ClientServiceTest {
 
     @Autowired
@@ -33,6 +58,15 @@ public class ClientServiceTest {
     @MockBean
     private CreditRequestRepository creditRequestRepository;
 
+    @MockBean
+    private RutBloomFilter rutBloomFilter;
+
+    @MockBean
+    private CreditMetrics creditMetrics;
+
+    @MockBean
+    private RequestStatusStream requestStatusStream;
+
     //---------------------Test Para Simulation---------------------
     @Test
     void whenSimulationWithGivenValues_thenCorrect() {
@@ -110,6 +144,82 @@ public class ClientServiceTest {
     }
 
 
+    @Test
+    void whenSimulationWithZeroInterest_thenAmountOverMonths() {
+        assertEquals(100000, clientService.simulation(12000000, 0.0, 10));
+    }
+
+    //---------------------Test Para simulación por lotes---------------------
+    @Test
+    void whenSimulationBatchWithScenarios_thenSameAsSimulation() {
+        // Given
+        SimulationBatchRequest request = new SimulationBatchRequest(List.of(
+                new SimulationScenario(100000000, 4.5, 20),
+                new SimulationScenario(120000000, 4.75, 10)), null, null, null);
+
+        // When
+        SimulationBatchResult result = clientService.simulationBatch(request);
+
+        // Then
+        assertEquals(632649, result.monthlyPayment()[0]);
+        assertEquals(1258172, result.monthlyPayment()[1]);
+    }
+
+    @Test
+    void whenSimulationBatchWithGrid_thenAllCombinations() {
+        // Given
+        SimulationBatchRequest request = new SimulationBatchRequest(null,
+                new int[]{50000000, 200000000}, new double[]{3.5, 5.0}, new int[]{15, 30});
+
+        // When
+        SimulationBatchResult result = clientService.simulationBatch(request);
+
+        // Then
+        assertEquals(8, result.monthlyPayment().length);
+        assertEquals(357441, result.monthlyPayment()[0]);
+        assertEquals(1073643, result.monthlyPayment()[7]);
+    }
+
+    @Test
+    void whenSimulationBatchEmpty_thenThrow() {
+        SimulationBatchRequest request = new SimulationBatchRequest(List.of(), null, null, null);
+
+        assertThrows(IllegalArgumentException.class, () -> clientService.simulationBatch(request));
+    }
+
+    //---------------------Test Para tabla de amortización---------------------
+    @Test
+    void whenScheduleWrittenAsCsv_thenOneLinePerMonth() throws IOException {
+        // Given
+        AmortizationSchedule schedule = clientService.simulationSchedule(100000000, 4.5, 20);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When
+        clientService.writeSchedule(schedule, true, out);
+
+        // Then
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(241, lines.length);
+        assertEquals("month,payment,interest,principal,insurance,balance", lines[0]);
+        assertEquals("1,632649,375000,257649,50000,99742351", lines[1]);
+        assertTrue(lines[240].startsWith("240,") && lines[240].endsWith(",0"));
+    }
+
+    @Test
+    void whenScheduleWrittenAsJson_thenMonthlyPaymentMatchesSimulation() throws IOException {
+        // Given
+        AmortizationSchedule schedule = clientService.simulationSchedule(50000000, 3.5, 15);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When
+        clientService.writeSchedule(schedule, false, out);
+
+        // Then
+        String json = out.toString(StandardCharsets.UTF_8);
+        assertTrue(json.startsWith("{\"amount\":50000000,\"interestRate\":3.5,\"term\":15,\"months\":180,\"monthlyPayment\":357441,"));
+        assertTrue(json.contains("{\"month\":180,"));
+        assertTrue(json.endsWith("]}"));
+    }
 
     @Test
     void whenStatusRequestClientWithGivenRut_thenCorrect() {
@@ -119,7 +229,7 @@ public class ClientServiceTest {
         creditRequest.setTerm(12);
         creditRequest.setInterestRate(5.0);
         creditRequest.setMaximumAmount(10000);
-        creditRequest.setStateRequest("En Revisión Inicial.");
+        creditRequest.setStateRequest(RequestState.INITIAL_REVIEW);
         creditRequest.setId(1L);
 
         ClientEntity client = new ClientEntity();
@@ -129,10 +239,10 @@ public class ClientServiceTest {
         client.setPassword("password");
         client.setDateOfBirth(LocalDate.of(1990, 1, 1));
         client.setEmail("test.user@example.com");
-        client.setListRequestId("1");
+        client.setId(7L);
 
         when(clientRepository.findByRut("20637464")).thenReturn(Optional.of(client));
-        when(creditRequestRepository.findById(1L)).thenReturn(Optional.of(creditRequest));
+        when(creditRequestRepository.findByClientIdOrderByIdAsc(7L)).thenReturn(List.of(creditRequest));
 
         // When
         List<String> actualStatus = clientService.statusRequestClient("20637464");
@@ -146,19 +256,18 @@ public class ClientServiceTest {
         // Given
         CreditRequestEntity creditRequest1 = new CreditRequestEntity();
         creditRequest1.setId(1L);
-        creditRequest1.setStateRequest("En Revisión Inicial.");
+        creditRequest1.setStateRequest(RequestState.INITIAL_REVIEW);
 
         CreditRequestEntity creditRequest2 = new CreditRequestEntity();
         creditRequest2.setId(2L);
-        creditRequest2.setStateRequest("Aprobada");
+        creditRequest2.setStateRequest(RequestState.APPROVED);
 
         ClientEntity client = new ClientEntity();
         client.setRut("20637464");
-        client.setListRequestId("1-2");
+        client.setId(7L);
 
         when(clientRepository.findByRut("20637464")).thenReturn(Optional.of(client));
-        when(creditRequestRepository.findById(1L)).thenReturn(Optional.of(creditRequest1));
-        when(creditRequestRepository.findById(2L)).thenReturn(Optional.of(creditRequest2));
+        when(creditRequestRepository.findByClientIdOrderByIdAsc(7L)).thenReturn(List.of(creditRequest1, creditRequest2));
 
         // When
         List<String> actualStatus = clientService.statusRequestClient("20637464");
@@ -166,6 +275,7 @@ public class ClientServiceTest {
         // Then
         assertEquals("En Revisión Inicial.", actualStatus.get(0));
         assertEquals("Aprobada", actualStatus.get(2));
+        verify(creditRequestRepository, never()).findById(any());
     }
 
     @Test
@@ -173,9 +283,10 @@ public class ClientServiceTest {
         // Given
         ClientEntity client = new ClientEntity();
         client.setRut("20637464");
-        client.setListRequestId("");
+        client.setId(7L);
 
         when(clientRepository.findByRut("20637464")).thenReturn(Optional.of(client));
+        when(creditRequestRepository.findByClientIdOrderByIdAsc(7L)).thenReturn(List.of());
 
         // When
         List<String> actualStatus = clientService.statusRequestClient("20637464");
@@ -196,24 +307,95 @@ public class ClientServiceTest {
         assertNull(actualStatus);
     }
 
+    @Test
+    void whenClientPageIsFull_thenHasCursor() {
+        // Given
+        when(clientRepository.findSummariesAfter(0L, null, null, Limit.of(2))).thenReturn(List.of(
+                new ClientSummary(4L, "12345678-9", "Ana", "Pérez", "ana@example.com"),
+                new ClientSummary(9L, "98765432-1", "Luis", "Soto", "luis@example.com")));
+
+        // When
+        ClientPage page = clientService.getClientPage(null, null, null, 2);
+
+        // Then
+        assertEquals(2, page.items().size());
+        assertEquals(9L, page.nextAfterId());
+    }
+
+    @Test
+    void whenClientPageFiltered_thenPrefixesEscapedAndSizeCapped() {
+        // Given
+        when(clientRepository.findSummariesAfter(anyLong(), any(), any(), any(Limit.class))).thenReturn(List.of());
+
+        // When
+        ClientPage page = clientService.getClientPage(9L, "1234_", " Pé%rez ", 100000);
+
+        // Then
+        assertNull(page.nextAfterId());
+        verify(clientRepository).findSummariesAfter(9L, "1234!_%", "pé!%rez%", Limit.of(500));
+    }
+
+    @Test
+    void whenClientsExported_thenJsonArrayWithoutPasswords() throws IOException {
+        // Given
+        when(clientRepository.streamSummaries(null, "an%")).thenReturn(Stream.of(
+                new ClientSummary(4L, "12345678-9", "Ana", "Pérez", "ana@example.com")));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When
+        clientService.exportClients("", "An", out);
+
+        // Then
+        String json = out.toString(StandardCharsets.UTF_8);
+        assertEquals("[{\"id\":4,\"rut\":\"12345678-9\",\"name\":\"Ana\",\"lastName\":\"Pérez\",\"email\":\"ana@example.com\"}]", json);
+    }
+
+    @Test
+    void whenStatusEventsOfRegisteredClient_thenStreamOfItsRequests() {
+        // Given
+        ClientEntity client = new ClientEntity();
+        client.setId(7L);
+        SseEmitter emitter = new SseEmitter();
+        when(clientRepository.findByRut("20637464")).thenReturn(Optional.of(client));
+        when(requestStatusStream.subscribeClient(7L)).thenReturn(emitter);
+
+        // When
+        Optional<SseEmitter> stream = clientService.subscribeStatus("20637464");
+
+        // Then
+        assertSame(emitter, stream.orElseThrow());
+    }
+
+    @Test
+    void whenStatusEventsOfUnknownRut_thenNoStream() {
+        // Given
+        when(clientRepository.findByRut("invalidRut")).thenReturn(Optional.empty());
+
+        // When
+        Optional<SseEmitter> stream = clientService.subscribeStatus("invalidRut");
+
+        // Then
+        assertTrue(stream.isEmpty());
+        verify(requestStatusStream, never()).subscribeClient(any());
+    }
+
     @Test
     void whenStatusRequestClientWithMixedRequestStates_thenCorrect() {
         // Given
         CreditRequestEntity creditRequest1 = new CreditRequestEntity();
         creditRequest1.setId(1L);
-        creditRequest1.setStateRequest("En Revisión Inicial.");
+        creditRequest1.setStateRequest(RequestState.INITIAL_REVIEW);
 
         CreditRequestEntity creditRequest2 = new CreditRequestEntity();
         creditRequest2.setId(2L);
-        creditRequest2.setStateRequest("Rechazada");
+        creditRequest2.setStateRequest(RequestState.REJECTED);
 
         ClientEntity client = new ClientEntity();
         client.setRut("20637464");
-        client.setListRequestId("1-2");
+        client.setId(7L);
 
         when(clientRepository.findByRut("20637464")).thenReturn(Optional.of(client));
-        when(creditRequestRepository.findById(1L)).thenReturn(Optional.of(creditRequest1));
-        when(creditRequestRepository.findById(2L)).thenReturn(Optional.of(creditRequest2));
+        when(creditRequestRepository.findByClientIdOrderByIdAsc(7L)).thenReturn(List.of(creditRequest1, creditRequest2));
 
         // When
         List<String> actualStatus = clientService.statusRequestClient("20637464");
@@ -275,6 +457,25 @@ public class ClientServiceTest {
         assertTrue(result);
     }
 
+    @Test
+    void whenRegisteredRutHasWrongCheckDigit_thenLoginStillLooksItUp() {
+        // Given
+        String rut = "12345678-9";
+        String password = "Password1";
+        ClientEntity client = new ClientEntity();
+        client.setRut(rut);
+        client.setPassword(password);
+
+        when(clientRepository.findByRutAndPassword(rut, password)).thenReturn(Optional.of(client));
+
+        // When
+        boolean result = clientService.validateClient(rut, password);
+
+        // Then
+        assertFalse(result);
+        verify(clientRepository).findByRutAndPassword(rut, password);
+    }
+
     @Test
     void whenClientFoundWithNullRut_thenReturnFalse() {
         // Given
@@ -311,8 +512,74 @@ public class ClientServiceTest {
         assertFalse(result);
     }
 
-}
+    //---------------------Test Para filtro de RUT---------------------
+    @Test
+    void whenRutIsDefinitelyAbsent_thenSkipDatabase() {
+        // Given
+        when(rutBloomFilter.isDefinitelyAbsent("20637464-5")).thenReturn(true);
 
+        // When
+        boolean exists = clientService.validateRut("20637464-5");
 
+        // Then
+        assertFalse(exists);
+        verify(clientRepository, never()).findByRut(anyString());
+    }
+
+    @Test
+    void whenRutMightExist_thenAskDatabase() {
+        // Given
+        ClientEntity client = new ClientEntity();
+        client.setRut("20637464-5");
+        when(rutBloomFilter.isDefinitelyAbsent("20637464-5")).thenReturn(false);
+        when(clientRepository.findByRut("20637464-5")).thenReturn(Optional.of(client));
+
+        // When
+        boolean exists = clientService.validateRut("20637464-5");
+
+        // Then
+        assertTrue(exists);
+    }
 
+    @Test
+    void whenClientSaved_thenRutRegisteredInFilter() {
+        // Given
+        ClientEntity client = new ClientEntity();
+        client.setName("Test");
+        client.setLastName("User");
+        client.setRut("12345678-5");
+        client.setPassword("Password1");
+        client.setEmail("test.user@example.com");
+        client.setDateOfBirth(LocalDate.of(1990, 1, 1));
+        when(rutBloomFilter.isDefinitelyAbsent("12345678-5")).thenReturn(true);
 
+        // When
+        String answer = clientService.saveClient(client);
+
+        // Then
+        assertEquals("Cliente guardado", answer);
+        verify(clientRepository, never()).findByRut(anyString());
+        verify(rutBloomFilter).register("12345678-5");
+    }
+
+    @Test
+    void whenRutRegisteredConcurrently_thenSaveReportsItAsRegistered() {
+        // Given: la validación no lo encuentra, pero el índice único rechaza el INSERT
+        ClientEntity client = new ClientEntity();
+        client.setName("Test");
+        client.setLastName("User");
+        client.setRut("12345678-5");
+        client.setPassword("Password1");
+        client.setEmail("test.user@example.com");
+        client.setDateOfBirth(LocalDate.of(1990, 1, 1));
+        when(rutBloomFilter.isDefinitelyAbsent("12345678-5")).thenReturn(true);
+        when(clientRepository.save(client)).thenThrow(new DataIntegrityViolationException("uq_clients_rut"));
+
+        // When
+        String answer = clientService.saveClient(client);
+
+        // Then
+        assertEquals("El RUT ya está registrado", answer);
+        verify(rutBloomFilter, never()).register("12345678-5");
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.prestaBanco.servicesTest;
+
+import com.example.prestaBanco.validation.CredentialError;
+import com.example.prestaBanco.validation.CredentialValidator;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class CredentialValidatorTest {
+
+    private final CredentialValidator validator = new CredentialValidator();
+
+    //---------------------Test Para RUT---------------------
+    @Test
+    void whenRutHasValidCheckDigit_thenNone() {
+        assertEquals(CredentialError.NONE, validator.checkRut("12345678-5"));
+        assertEquals(CredentialError.NONE, validator.checkRut("1234567-4"));
+        assertEquals(CredentialError.NONE, validator.checkRut("11111111-1"));
+    }
+
+    @Test
+    void whenRutCheckDigitIsK_thenCaseInsensitive() {
+        assertEquals(CredentialError.NONE, validator.checkRut("10000013-K"));
+        assertEquals(CredentialError.NONE, validator.checkRut("10000013-k"));
+    }
+
+    @Test
+    void whenRutCheckDigitIsZero_thenNone() {
+        assertEquals(CredentialError.NONE, validator.checkRut("10000004-0"));
+    }
+
+    @Test
+    void whenRutHasWrongCheckDigit_thenCheckDigitError() {
+        assertEquals(CredentialError.RUT_CHECK_DIGIT, validator.checkRut("12345678-9"));
+        assertEquals(CredentialError.RUT_CHECK_DIGIT, validator.checkRut("12345678-K"));
+    }
+
+    @Test
+    void whenRutHasInvalidFormat_thenFormatError() {
+        assertEquals(CredentialError.RUT_FORMAT, validator.checkRut("123456-0"));
+        assertEquals(CredentialError.RUT_FORMAT, validator.checkRut("123456789-0"));
+        assertEquals(CredentialError.RUT_FORMAT, validator.checkRut("12.345.678-5"));
+        assertEquals(CredentialError.RUT_FORMAT, validator.checkRut("123456785"));
+        assertEquals(CredentialError.RUT_FORMAT, validator.checkRut("1234567a-5"));
+        assertEquals(CredentialError.RUT_FORMAT, validator.checkRut("12345678-X"));
+    }
+
+    @Test
+    void whenRutIsMissing_thenRequiredError() {
+        assertEquals(CredentialError.RUT_REQUIRED, validator.checkRut(null));
+        assertEquals(CredentialError.RUT_REQUIRED, validator.checkRut("   "));
+    }
+
+    //---------------------Test Para Email---------------------
+    @Test
+    void whenEmailIsValid_thenNone() {
+        assertEquals(CredentialError.NONE, validator.checkEmail("test.user+loan@example.com"));
+        assertEquals(CredentialError.NONE, validator.checkEmail("a@b"));
+    }
+
+    @Test
+    void whenEmailHasInvalidFormat_thenFormatError() {
+        assertEquals(CredentialError.EMAIL_FORMAT, validator.checkEmail("@example.com"));
+        assertEquals(CredentialError.EMAIL_FORMAT, validator.checkEmail("user@"));
+        assertEquals(CredentialError.EMAIL_FORMAT, validator.checkEmail("user.example.com"));
+        assertEquals(CredentialError.EMAIL_FORMAT, validator.checkEmail("us er@example.com"));
+        assertEquals(CredentialError.EMAIL_FORMAT, validator.checkEmail("user@exam\nple.com"));
+    }
+
+    @Test
+    void whenEmailIsMissing_thenRequiredError() {
+        assertEquals(CredentialError.EMAIL_REQUIRED, validator.checkEmail(null));
+        assertEquals(CredentialError.EMAIL_REQUIRED, validator.checkEmail(""));
+    }
+
+    //---------------------Test Para Password---------------------
+    @Test
+    void whenPasswordIsStrong_thenNone() {
+        assertEquals(CredentialError.NONE, validator.checkPassword("Password1"));
+        assertEquals(CredentialError.NONE, validator.checkPassword("1234567A"));
+    }
+
+    @Test
+    void whenPasswordIsWeak_thenWeakError() {
+        assertEquals(CredentialError.PASSWORD_WEAK, validator.checkPassword("Passw1"));
+        assertEquals(CredentialError.PASSWORD_WEAK, validator.checkPassword("password1"));
+        assertEquals(CredentialError.PASSWORD_WEAK, validator.checkPassword("Password"));
+        assertEquals(CredentialError.PASSWORD_WEAK, validator.checkPassword("Pass\nword1"));
+    }
+
+    @Test
+    void whenPasswordIsMissing_thenRequiredError() {
+        assertEquals(CredentialError.PASSWORD_REQUIRED, validator.checkPassword(null));
+        assertEquals(CredentialError.PASSWORD_REQUIRED, validator.checkPassword(" "));
+    }
+
+    //---------------------Paridad con las expresiones regulares anteriores---------------------
+    @Test
+    void whenComparedWithPreviousRegex_thenSameFormatDecision() {
+        String[] ruts = {"12345678-5", "1234567-4", "10000013-k", "123456-0", "12.345.678-5", "12345678-", "-5", "12345678-55"};
+        for (String rut : ruts) {
+            boolean regex = rut.matches("^[0-9]{7,8}-[0-9kK]{1}$");
+            CredentialError error = validator.checkRut(rut);
+            assertEquals(regex, error != CredentialError.RUT_FORMAT && error != CredentialError.RUT_REQUIRED, rut);
+        }
+        String[] emails = {"a@b", "a@@b", "a+b_c.d-e@x.cl", "a b@c", "@c", "a@", "ñ@c", "a@b\r"};
+        for (String email : emails) {
+            assertEquals(email.matches("^[A-Za-z0-9+_.-]+@(.+)$"), validator.checkEmail(email).isValid(), email);
+        }
+        String[] passwords = {"Password1", "PASSWORD1", "password1", "Pass1", "Contraseña1", "😀Abcdef1", "😀Abcde1"};
+        for (String password : passwords) {
+            assertEquals(password.matches("^(?=.*[A-Z])(?=.*[0-9]).{8,}$"), validator.checkPassword(password).isValid(), password);
+        }
+    }
+
+    @Test
+    void whenLogin_thenOnlyTheFormatOfTheRutIsChecked() {
+        assertEquals(CredentialError.NONE, validator.checkRutFormat("12345678-9"));
+        assertEquals(CredentialError.NONE, validator.checkRutFormat("10000013-k"));
+        assertEquals(CredentialError.RUT_FORMAT, validator.checkRutFormat("12.345.678-5"));
+        assertEquals(CredentialError.RUT_FORMAT, validator.checkRutFormat("12345678-X"));
+        assertEquals(CredentialError.RUT_REQUIRED, validator.checkRutFormat(" "));
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.prestaBanco.servicesTest;
+
+import com.example.prestaBanco.cache.LoanCatalog;
+import com.example.prestaBanco.dtos.EvaluationTicket;
+import com.example.prestaBanco.entities.CreditEvaluationEntity;
+import com.example.prestaBanco.entities.RequestState;
+import com.example.prestaBanco.evaluation.CreditEvaluationQueue;
+import com.example.prestaBanco.metrics.CreditMetrics;
+import com.example.prestaBanco.notifications.RequestStatusChanged;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.UncategorizedSQLException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.AdditionalMatchers.aryEq;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+public class CreditEvaluationQueueTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private LoanCatalog loanCatalog;
+
+    @Mock
+    private CreditMetrics creditMetrics;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private Connection connection;
+
+    @Mock
+    private PreparedStatement update;
+
+    @Mock
+    private PreparedStatement insert;
+
+    @Mock
+    private ResultSet updatedRows;
+
+    @Mock
+    private ResultSet insertedIds;
+
+    @InjectMocks
+    private CreditEvaluationQueue queue;
+
+    @SuppressWarnings("unchecked")
+    CreditEvaluationQueueTest() throws Exception {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(queue, "capacity", 2);
+        ReflectionTestUtils.setField(queue, "batchSize", 100);
+        ReflectionTestUtils.setField(queue, "retention", Duration.ofMinutes(10));
+        when(loanCatalog.find(anyString())).thenReturn(Optional.empty());
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(mock(TransactionStatus.class));
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        // Como JdbcTemplate, las SQLException se traducen a DataAccessException
+        when(jdbcTemplate.execute(any(ConnectionCallback.class))).thenAnswer(invocation -> {
+            try {
+                return invocation.<ConnectionCallback<?>>getArgument(0).doInConnection(connection);
+            } catch (SQLException e) {
+                throw new UncategorizedSQLException("batch", null, e);
+            }
+        });
+        when(connection.prepareStatement(startsWith("UPDATE"), any(String[].class))).thenReturn(update);
+        when(connection.prepareStatement(startsWith("INSERT"), any(String[].class))).thenReturn(insert);
+        when(update.getGeneratedKeys()).thenReturn(updatedRows);
+        when(insert.getGeneratedKeys()).thenReturn(insertedIds);
+    }
+
+    @AfterEach
+    void stop() {
+        queue.stop();
+    }
+
+    @Test
+    void whenEvaluationQueued_thenStateAndEvaluationSavedTogether() throws Exception {
+        // Given
+        when(update.executeBatch()).thenReturn(new int[]{1});
+        when(updatedRows.next()).thenReturn(true, false);
+        when(updatedRows.getString(1)).thenReturn("firstHome");
+        when(updatedRows.getObject(2, Long.class)).thenReturn(3L);
+        when(insertedIds.next()).thenReturn(true, false);
+        when(insertedIds.getLong(1)).thenReturn(42L);
+        queue.start();
+
+        // When
+        EvaluationTicket ticket = queue.submit(evaluation(5L), "E4");
+        EvaluationTicket done = queue.completion(ticket.ticket()).orElseThrow().get(5, TimeUnit.SECONDS);
+
+        // Then
+        assertEquals(EvaluationTicket.PENDING, ticket.status());
+        assertEquals(EvaluationTicket.DONE, done.status());
+        assertEquals(42L, done.evaluationId());
+        assertEquals("Estado actualizado correctamente", done.message());
+        assertEquals(done, queue.status(ticket.ticket()).orElseThrow());
+        verify(update).setShort(1, (short) 4);
+        verify(update).setLong(2, 5L);
+        // Pre-Aprobada se alcanza desde En Revisión Inicial, Pendiente de Documentación, En Evaluación y ella misma
+        verify(connection).createArrayOf(eq("int2"), aryEq(new Short[]{1, 2, 3, 4}));
+        verify(insert).setLong(8, 5L);
+        verify(transactionTemplate, times(1)).executeWithoutResult(any());
+        verify(eventPublisher).publishEvent(new RequestStatusChanged(5L, 3L, RequestState.PRE_APPROVED, "firstHome"));
+    }
+
+    @Test
+    void whenRequestDoesNotExist_thenEvaluationNotSavedAndTicketFailed() throws Exception {
+        // Given
+        when(update.executeBatch()).thenReturn(new int[]{0});
+        when(updatedRows.next()).thenReturn(false);
+        queue.start();
+
+        // When
+        EvaluationTicket ticket = queue.submit(evaluation(99L), "E7");
+        EvaluationTicket failed = queue.completion(ticket.ticket()).orElseThrow().get(5, TimeUnit.SECONDS);
+
+        // Then
+        assertEquals(EvaluationTicket.FAILED, failed.status());
+        assertNull(failed.evaluationId());
+        assertEquals("Solicitud de crédito no encontrada o en un estado que no permite el cambio", failed.message());
+        verify(connection, never()).prepareStatement(startsWith("INSERT"), any(String[].class));
+        verify(creditMetrics).stop(any(), eq(CreditMetrics.EVALUATE_CREDIT), eq(CreditMetrics.NONE), eq("E7"));
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+    }
+
+    @Test
+    void whenBatchFails_thenTicketsFailed() throws Exception {
+        // Given
+        when(update.executeBatch()).thenThrow(new BatchUpdateException());
+        queue.start();
+
+        // When
+        EvaluationTicket ticket = queue.submit(evaluation(5L), "E4");
+        EvaluationTicket failed = queue.completion(ticket.ticket()).orElseThrow().get(5, TimeUnit.SECONDS);
+
+        // Then
+        assertEquals(EvaluationTicket.FAILED, failed.status());
+        assertNull(failed.evaluationId());
+    }
+
+    @Test
+    void whenQueueNotRunning_thenReject() {
+        assertThrows(RejectedExecutionException.class, () -> queue.submit(evaluation(5L), "E4"));
+        assertTrue(queue.status("desconocido").isEmpty());
+    }
+
+    private static CreditEvaluationEntity evaluation(long requestId) {
+        CreditEvaluationEntity evaluation = new CreditEvaluationEntity();
+        evaluation.setIdRquest(requestId);
+        return evaluation;
+    }
+}
@@ -1,7 +1,15 @@
 package com.example.prestaBanco.servicesTest;
 
+import com.example.prestaBanco.dtos.EvaluationTicket;
+import com.example.prestaBanco.dtos.RuleEvaluationRequest;
+import com.example.prestaBanco.dtos.RuleEvaluationResult;
+import com.example.prestaBanco.entities.ApplicantProfile;
 import com.example.prestaBanco.entities.CreditEvaluationEntity;
 import com.example.prestaBanco.entities.CreditRequestEntity;
+import com.example.prestaBanco.evaluation.CreditCriterion;
+import com.example.prestaBanco.evaluation.CreditEvaluationQueue;
+import com.example.prestaBanco.evaluation.CreditRuleEngine;
+import com.example.prestaBanco.evaluation.RuleReport;
 import com.example.prestaBanco.repositories.CreditEvaluationRepository;
 import com.example.prestaBanco.services.ClientService;
 import com.example.prestaBanco.services.CreditEvaluationService;
@@ -13,7 +21,14 @@ import org.mockito.MockitoAnnotations;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 
+import java.time.Duration;
 import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -31,6 +46,12 @@ public class CreditEvaluationServiceTest {
     @Mock
     private ClientService clientService;
 
+    @Mock
+    private CreditEvaluationQueue creditEvaluationQueue;
+
+    @Mock
+    private CreditRuleEngine creditRuleEngine;
+
     @InjectMocks
     private CreditEvaluationService creditEvaluationService;
 
@@ -39,7 +60,7 @@ public class CreditEvaluationServiceTest {
     }
 
     @Test
-    public void testEvaluateCredit_AllTrue() {
+    public void testSubmitEvaluation_AllTrue() {
         CreditEvaluationEntity evaluation = new CreditEvaluationEntity();
         evaluation.setIncomeQuota(true);
         evaluation.setCreditHistory(true);
@@ -50,17 +71,18 @@ public class CreditEvaluationServiceTest {
         evaluation.setSavingsCapacity(true);
         evaluation.setIdRquest(1L);
 
-        when(creditEvaluationRepository.save(any(CreditEvaluationEntity.class))).thenReturn(evaluation);
+        when(creditEvaluationQueue.submit(evaluation, "E4")).thenReturn(EvaluationTicket.pending("t", "E4"));
 
-        CreditEvaluationEntity result = creditEvaluationService.evaluateCredit(evaluation);
+        EvaluationTicket result = creditEvaluationService.submitEvaluation(evaluation);
 
-        assertEquals(evaluation, result);
-        verify(creditRequestService, times(1)).editStatus("E4", 1L);
-        verify(creditEvaluationRepository, times(1)).save(evaluation);
+        assertEquals("E4", result.state());
+        verify(creditEvaluationQueue, times(1)).submit(evaluation, "E4");
+        verify(creditRequestService, times(0)).editStatus(anyString(), anyLong());
+        verify(creditEvaluationRepository, times(0)).save(any(CreditEvaluationEntity.class));
     }
 
     @Test
-    public void testEvaluateCredit_NotAllTrue() {
+    public void testSubmitEvaluation_NotAllTrue() {
         CreditEvaluationEntity evaluation = new CreditEvaluationEntity();
         evaluation.setIncomeQuota(false);
         evaluation.setCreditHistory(true);
@@ -71,26 +93,18 @@ public class CreditEvaluationServiceTest {
         evaluation.setSavingsCapacity(true);
         evaluation.setIdRquest(1L);
 
-        when(creditEvaluationRepository.save(any(CreditEvaluationEntity.class))).thenReturn(evaluation);
+        when(creditEvaluationQueue.submit(evaluation, "E7")).thenReturn(EvaluationTicket.pending("t", "E7"));
 
-        CreditEvaluationEntity result = creditEvaluationService.evaluateCredit(evaluation);
-
-        assertEquals(evaluation, result);
-        verify(creditRequestService, times(1)).editStatus("E7", 1L);
-        verify(creditEvaluationRepository, times(1)).save(evaluation);
-    }
+        EvaluationTicket result = creditEvaluationService.submitEvaluation(evaluation);
 
-    @Test
-    public void testEvaluateCredit_NullEvaluation() {
-        CreditEvaluationEntity result = creditEvaluationService.evaluateCredit(null);
-
-        assertEquals(null, result);
+        assertEquals("E7", result.state());
+        verify(creditEvaluationQueue, times(1)).submit(evaluation, "E7");
         verify(creditRequestService, times(0)).editStatus(anyString(), anyLong());
         verify(creditEvaluationRepository, times(0)).save(any(CreditEvaluationEntity.class));
     }
 
     @Test
-    public void testEvaluateCredit_SomeTrueSomeFalse() {
+    public void testSubmitEvaluation_SomeTrueSomeFalse() {
         CreditEvaluationEntity evaluation = new CreditEvaluationEntity();
         evaluation.setIncomeQuota(true);
         evaluation.setCreditHistory(false);
@@ -101,35 +115,37 @@ public class CreditEvaluationServiceTest {
         evaluation.setSavingsCapacity(true);
         evaluation.setIdRquest(1L);
 
-        when(creditEvaluationRepository.save(any(CreditEvaluationEntity.class))).thenReturn(evaluation);
+        when(creditEvaluationQueue.submit(evaluation, "E7")).thenReturn(EvaluationTicket.pending("t", "E7"));
 
-        CreditEvaluationEntity result = creditEvaluationService.evaluateCredit(evaluation);
-
-        assertEquals(evaluation, result);
-        verify(creditRequestService, times(1)).editStatus("E7", 1L);
-        verify(creditEvaluationRepository, times(1)).save(evaluation);
+        EvaluationTicket result = creditEvaluationService.submitEvaluation(evaluation);
 
+        assertEquals("E7", result.state());
+        verify(creditEvaluationQueue, times(1)).submit(evaluation, "E7");
+        verify(creditRequestService, times(0)).editStatus(anyString(), anyLong());
+        verify(creditEvaluationRepository, times(0)).save(any(CreditEvaluationEntity.class));
     }
-        @Test
-        public void testEvaluateCredit_AllFalse() {
-            CreditEvaluationEntity evaluation = new CreditEvaluationEntity();
-            evaluation.setIncomeQuota(false);
-            evaluation.setCreditHistory(false);
-            evaluation.setEmploymentSeniority(false);
-            evaluation.setIncomeDebtRelation(false);
-            evaluation.setFinancingLimit(false);
-            evaluation.setApplicantAge(false);
-            evaluation.setSavingsCapacity(false);
-            evaluation.setIdRquest(1L);
 
-            when(creditEvaluationRepository.save(any(CreditEvaluationEntity.class))).thenReturn(evaluation);
+    @Test
+    public void testSubmitEvaluation_AllFalse() {
+        CreditEvaluationEntity evaluation = new CreditEvaluationEntity();
+        evaluation.setIncomeQuota(false);
+        evaluation.setCreditHistory(false);
+        evaluation.setEmploymentSeniority(false);
+        evaluation.setIncomeDebtRelation(false);
+        evaluation.setFinancingLimit(false);
+        evaluation.setApplicantAge(false);
+        evaluation.setSavingsCapacity(false);
+        evaluation.setIdRquest(1L);
+
+        when(creditEvaluationQueue.submit(evaluation, "E7")).thenReturn(EvaluationTicket.pending("t", "E7"));
 
-            CreditEvaluationEntity result = creditEvaluationService.evaluateCredit(evaluation);
+        EvaluationTicket result = creditEvaluationService.submitEvaluation(evaluation);
 
-            assertEquals(evaluation, result);
-            verify(creditRequestService, times(1)).editStatus("E7", 1L);
-            verify(creditEvaluationRepository, times(1)).save(evaluation);
-        }
+        assertEquals("E7", result.state());
+        verify(creditEvaluationQueue, times(1)).submit(evaluation, "E7");
+        verify(creditRequestService, times(0)).editStatus(anyString(), anyLong());
+        verify(creditEvaluationRepository, times(0)).save(any(CreditEvaluationEntity.class));
+    }
 
     @Test
     public void testAgeApplicant_ApplicantYoungerThan70() {
@@ -239,4 +255,152 @@ public class CreditEvaluationServiceTest {
 
         assertEquals(15587800, result);
     }
-}
\ No newline at end of file
+
+    @Test
+    void whenSubmitEvaluation_thenQueueWithResultState() {
+        // Given
+        CreditEvaluationEntity approved = evaluation(true);
+        CreditEvaluationEntity rejected = evaluation(false);
+        when(creditEvaluationQueue.submit(approved, "E4")).thenReturn(EvaluationTicket.pending("a", "E4"));
+        when(creditEvaluationQueue.submit(rejected, "E7")).thenReturn(EvaluationTicket.pending("b", "E7"));
+
+        // When
+        EvaluationTicket first = creditEvaluationService.submitEvaluation(approved);
+        EvaluationTicket second = creditEvaluationService.submitEvaluation(rejected);
+
+        // Then
+        assertEquals("E4", first.state());
+        assertEquals("E7", second.state());
+        assertEquals(EvaluationTicket.PENDING, first.status());
+        verify(creditRequestService, never()).editStatus(anyString(), anyLong());
+        verify(creditEvaluationRepository, never()).save(any(CreditEvaluationEntity.class));
+    }
+
+    @Test
+    void whenSubmitEvaluationWithApplicant_thenScoredByTheServer() {
+        // Given
+        CreditEvaluationEntity evaluation = evaluation(true);
+        evaluation.setApplicant(new ApplicantProfile());
+        CreditRequestEntity request = new CreditRequestEntity();
+        request.setId(1L);
+        when(creditRequestService.findById(1L)).thenReturn(request);
+        int allButHistory = CreditCriterion.ALL & ~CreditCriterion.CREDIT_HISTORY.bit();
+        when(creditRuleEngine.evaluate(request, evaluation.getApplicant(), CreditRuleEngine.Mode.FULL_REPORT))
+                .thenReturn(new RuleReport(1L, CreditCriterion.ALL, allButHistory));
+        when(creditEvaluationQueue.submit(evaluation, "E7")).thenReturn(EvaluationTicket.pending("a", "E7"));
+
+        // When
+        EvaluationTicket ticket = creditEvaluationService.submitEvaluation(evaluation);
+
+        // Then
+        assertEquals("E7", ticket.state());
+        assertFalse(evaluation.isCreditHistory());
+        assertTrue(evaluation.isIncomeQuota());
+    }
+
+    @Test
+    void whenScoreRequestsWithoutApplicant_thenUseLastSavedInputs() {
+        // Given
+        CreditRequestEntity request = new CreditRequestEntity();
+        request.setId(5L);
+        ApplicantProfile old = new ApplicantProfile();
+        old.setMonthlyIncome(1L);
+        ApplicantProfile last = new ApplicantProfile();
+        last.setMonthlyIncome(2L);
+        CreditEvaluationEntity first = evaluation(true);
+        first.setIdRquest(5L);
+        first.setApplicant(old);
+        CreditEvaluationEntity second = evaluation(true);
+        second.setIdRquest(5L);
+        second.setApplicant(last);
+        when(creditRequestService.findAllById(Set.of(5L))).thenReturn(List.of(request));
+        when(creditEvaluationRepository.findByIdRquestInOrderByIdAsc(Set.of(5L))).thenReturn(List.of(first, second));
+        when(creditRuleEngine.evaluateAll(List.of(request), List.of(last), CreditRuleEngine.Mode.SHORT_CIRCUIT))
+                .thenReturn(new RuleReport[]{new RuleReport(5L, CreditCriterion.CREDIT_HISTORY.bit(), 0)});
+
+        // When
+        List<RuleEvaluationResult> results = creditEvaluationService.scoreRequests(
+                List.of(new RuleEvaluationRequest(5L, null)), CreditRuleEngine.Mode.SHORT_CIRCUIT);
+
+        // Then
+        assertEquals(1, results.size());
+        assertEquals("E7", results.get(0).state());
+        assertEquals(Map.of("creditHistory", false), results.get(0).criteria());
+    }
+
+    @Test
+    void whenScoreUnknownRequest_thenRejected() {
+        // Given
+        when(creditRequestService.findAllById(Set.of(9L))).thenReturn(List.of());
+
+        // When / Then
+        assertThrows(IllegalArgumentException.class, () -> creditEvaluationService.scoreRequests(
+                List.of(new RuleEvaluationRequest(9L, new ApplicantProfile())), CreditRuleEngine.Mode.FULL_REPORT));
+        verify(creditRuleEngine, never()).evaluateAll(any(), any(), any());
+    }
+
+    @Test
+    void whenTicketOfAnotherBackend_thenLookUpSavedEvaluation() {
+        // Given
+        UUID ticket = UUID.randomUUID();
+        CreditEvaluationEntity saved = evaluation(true);
+        saved.setId(7L);
+        saved.setTicket(ticket);
+        when(creditEvaluationQueue.status(ticket.toString())).thenReturn(Optional.empty());
+        when(creditEvaluationRepository.findByTicket(ticket)).thenReturn(Optional.of(saved));
+
+        // When
+        Optional<EvaluationTicket> result = creditEvaluationService.getEvaluation(ticket.toString());
+
+        // Then
+        assertTrue(result.isPresent());
+        assertEquals(EvaluationTicket.DONE, result.get().status());
+        assertEquals("E4", result.get().state());
+        assertEquals(7L, result.get().evaluationId());
+    }
+
+    @Test
+    void whenTicketMalformed_thenEmpty() {
+        // Given
+        when(creditEvaluationQueue.status("no-es-un-ticket")).thenReturn(Optional.empty());
+
+        // When
+        Optional<EvaluationTicket> result = creditEvaluationService.getEvaluation("no-es-un-ticket");
+
+        // Then
+        assertTrue(result.isEmpty());
+        verify(creditEvaluationRepository, never()).findByTicket(any());
+    }
+
+    @Test
+    void whenAwaitPendingEvaluation_thenAnswerOnCompletionOrTimeout() {
+        // Given
+        CompletableFuture<EvaluationTicket> completion = new CompletableFuture<>();
+        EvaluationTicket pending = EvaluationTicket.pending("t", "E4");
+        when(creditEvaluationQueue.completion("t")).thenReturn(Optional.of(completion));
+        when(creditEvaluationQueue.status("t")).thenReturn(Optional.of(pending));
+
+        // When
+        Optional<EvaluationTicket> timedOut = creditEvaluationService.awaitEvaluation("t", Duration.ofMillis(20)).join();
+        CompletableFuture<Optional<EvaluationTicket>> waiting = creditEvaluationService.awaitEvaluation("t", Duration.ofSeconds(5));
+        completion.complete(new EvaluationTicket("t", EvaluationTicket.DONE, "E4", 3L, "Estado actualizado correctamente"));
+
+        // Then
+        assertEquals(EvaluationTicket.PENDING, timedOut.orElseThrow().status());
+        assertFalse(completion.isCompletedExceptionally());
+        assertEquals(3L, waiting.join().orElseThrow().evaluationId());
+    }
+
+    private static CreditEvaluationEntity evaluation(boolean approved) {
+        CreditEvaluationEntity evaluation = new CreditEvaluationEntity();
+        evaluation.setIncomeQuota(true);
+        evaluation.setCreditHistory(true);
+        evaluation.setEmploymentSeniority(true);
+        evaluation.setIncomeDebtRelation(true);
+        evaluation.setFinancingLimit(true);
+        evaluation.setApplicantAge(true);
+        evaluation.setSavingsCapacity(approved);
+        evaluation.setIdRquest(1L);
+        return evaluation;
+    }
+}
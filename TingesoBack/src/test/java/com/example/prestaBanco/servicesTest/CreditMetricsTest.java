@@ -0,0 +1,81 @@
+package com.example.prestaBanco.servicesTest;
+
+import com.example.prestaBanco.metrics.CreditMetrics;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CreditMetricsTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final CreditMetrics creditMetrics = new CreditMetrics();
+
+    CreditMetricsTest() {
+        ReflectionTestUtils.setField(creditMetrics, "meterRegistry", registry);
+    }
+
+    @Test
+    void whenTimerStopped_thenTaggedByLoanTypeAndState() {
+        // Given
+        Timer.Sample sample = creditMetrics.start();
+
+        // When
+        creditMetrics.stop(sample, CreditMetrics.EDIT_STATUS, "firstHome", "E4");
+
+        // Then
+        Timer timer = registry.find(CreditMetrics.EDIT_STATUS).tag("loanType", "firstHome").tag("state", "E4").timer();
+        assertNotNull(timer);
+        assertEquals(1, timer.count());
+    }
+
+    @Test
+    void whenTagMissing_thenUseNone() {
+        // When
+        creditMetrics.stop(creditMetrics.start(), CreditMetrics.SIMULATION, null, "");
+
+        // Then
+        assertNotNull(registry.find(CreditMetrics.SIMULATION).tag("loanType", "none").tag("state", "none").timer());
+    }
+
+    @Test
+    void whenDocumentUploaded_thenCountBytes() {
+        // When
+        creditMetrics.documentUploaded("remodeling", "E1", "proofIncome", 1000, false);
+        creditMetrics.documentUploaded("remodeling", "E1", "proofIncome", 24, true);
+
+        // Then
+        double bytes = registry.get("prestabanco.documents.uploaded")
+                .tags("loanType", "remodeling", "state", "E1", "document", "proofIncome").counter().count();
+        assertEquals(1024, bytes);
+        double shared = registry.get("prestabanco.documents.deduplicated")
+                .tags("loanType", "remodeling", "state", "E1", "document", "proofIncome").counter().count();
+        assertEquals(24, shared);
+    }
+
+    @Test
+    void whenDocumentWritten_thenBytesOnDiskAndTimeByCodec() {
+        // When
+        creditMetrics.documentWritten("remodeling", "E1", "remodelingBudget", "GZIP", 300, 1500);
+
+        // Then
+        double stored = registry.get("prestabanco.documents.stored")
+                .tags("loanType", "remodeling", "state", "E1", "document", "remodelingBudget", "codec", "GZIP").counter().count();
+        assertEquals(300, stored);
+        Timer timer = registry.get("prestabanco.documents.write").tags("codec", "GZIP").timer();
+        assertEquals(1, timer.count());
+        assertEquals(1.5, timer.totalTime(TimeUnit.MILLISECONDS), 0.001);
+    }
+
+    @Test
+    void whenStateNotACode_thenGroupAsOther() {
+        assertEquals("E7", CreditMetrics.stateTag("E7"));
+        assertEquals("other", CreditMetrics.stateTag("E10"));
+        assertEquals("other", CreditMetrics.stateTag("Aprobada"));
+        assertEquals("other", CreditMetrics.stateTag(null));
+    }
+}
@@ -1,24 +1,49 @@
 package com.example.prestaBanco.servicesTest;
 
+import com.example.prestaBanco.cache.LoanCatalog;
+import com.example.prestaBanco.cache.LoanProduct;
+import com.example.prestaBanco.cache.RutBloomFilter;
+import com.example.prestaBanco.dtos.CreditStatusPage;
+import com.example.prestaBanco.dtos.CreditStatusRow;
 import com.example.prestaBanco.entities.ClientEntity;
 import com.example.prestaBanco.entities.CreditRequestEntity;
+import com.example.prestaBanco.entities.CreditDocumentEntity;
+import com.example.prestaBanco.entities.CreditDocumentId;
+import com.example.prestaBanco.entities.RequestState;
+import com.example.prestaBanco.metrics.CreditMetrics;
+import com.example.prestaBanco.notifications.RequestStatusChanged;
+import com.example.prestaBanco.notifications.RequestStatusStream;
 import com.example.prestaBanco.repositories.ClientRepository;
+import com.example.prestaBanco.repositories.CreditDocumentRepository;
 import com.example.prestaBanco.repositories.CreditRequestRepository;
 import com.example.prestaBanco.services.CreditRequestService;
+import com.example.prestaBanco.services.LoanDocumentProfile;
+import com.example.prestaBanco.storage.DocumentReferences;
+import com.example.prestaBanco.storage.DocumentStore;
+import com.example.prestaBanco.storage.StoredDocument;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.data.domain.Limit;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.*;
 import java.util.zip.ZipEntry;
+import java.util.stream.Stream;
 import java.util.zip.ZipInputStream;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -33,6 +58,33 @@ public class CreditRequestServiceTest {
     @Mock
     private CreditRequestRepository creditRequestRepository;
 
+    @Mock
+    private CreditDocumentRepository creditDocumentRepository;
+
+    @Mock
+    private DocumentStore documentStore;
+
+    @Mock
+    private DocumentReferences documentReferences;
+
+    @Mock
+    private RutBloomFilter rutBloomFilter;
+
+    @Mock
+    private LoanCatalog loanCatalog;
+
+    @Mock
+    private CreditMetrics creditMetrics;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private RequestStatusStream requestStatusStream;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
     @InjectMocks
     private CreditRequestService creditRequestService;
 
@@ -54,17 +106,29 @@ public class CreditRequestServiceTest {
         MultipartFile workCertificate = new MockMultipartFile("file", "workCertificate.pdf", "application/pdf", "workCertificate".getBytes());
 
         ClientEntity client = new ClientEntity();
+        client.setId(10L);
         client.setRut(rut);
         when(clientRepository.findByRut(rut)).thenReturn(Optional.of(client));
 
         CreditRequestEntity savedCreditRequest = new CreditRequestEntity();
         when(creditRequestRepository.save(any(CreditRequestEntity.class))).thenReturn(savedCreditRequest);
+        when(documentStore.store(any(MultipartFile.class))).thenReturn(new StoredDocument("doc-1", 11L, "abc"));
 
-        CreditRequestEntity result = creditRequestService.saveFirstHouse(rut, typeLoan, term, interestRate, maximumAmount, proofIncome, creditHistory, appraisalCertificate, bankAccountState, workCertificate);
+        CreditRequestEntity result = creditRequestService.createRequest(LoanDocumentProfile.FIRST_HOME, rut, typeLoan, term, interestRate, maximumAmount, Map.of("proofIncome", proofIncome, "creditHistory", creditHistory, "appraisalCertificate", appraisalCertificate, "bankAccountState", bankAccountState, "workCertificate", workCertificate));
 
         assertNotNull(result);
+        assertEquals(10L, result.getClientId());
         verify(clientRepository, times(1)).findByRut(rut);
+        verify(clientRepository, never()).save(any(ClientEntity.class));
+        verify(documentStore, times(5)).store(any(MultipartFile.class));
+        verify(documentReferences, times(5)).acquire(any(StoredDocument.class), any(MultipartFile.class));
         verify(creditRequestRepository, times(1)).save(any(CreditRequestEntity.class));
+        verify(creditDocumentRepository, times(1)).saveAll(argThat(documents -> {
+            List<CreditDocumentEntity> list = new ArrayList<>();
+            documents.forEach(list::add);
+            return list.size() == 5 && list.stream().allMatch(document -> "doc-1".equals(document.getStorageId())
+                    && document.getSize() == 11L && "application/pdf".equals(document.getContentType()));
+        }));
     }
 
     @Test
@@ -81,7 +145,7 @@ public class CreditRequestServiceTest {
         MultipartFile workCertificate = new MockMultipartFile("file", "workCertificate.pdf", "application/pdf", "workCertificate".getBytes());
 
         assertThrows(IllegalArgumentException.class, () -> {
-            creditRequestService.saveFirstHouse(rut, typeLoan, term, interestRate, maximumAmount, proofIncome, creditHistory, appraisalCertificate, bankAccountState, workCertificate);
+            creditRequestService.createRequest(LoanDocumentProfile.FIRST_HOME, rut, typeLoan, term, interestRate, maximumAmount, Map.of("proofIncome", proofIncome, "creditHistory", creditHistory, "appraisalCertificate", appraisalCertificate, "bankAccountState", bankAccountState, "workCertificate", workCertificate));
         });
     }
 
@@ -99,7 +163,7 @@ public class CreditRequestServiceTest {
         MultipartFile workCertificate = new MockMultipartFile("file", "workCertificate.pdf", "application/pdf", "workCertificate".getBytes());
 
         assertThrows(IllegalArgumentException.class, () -> {
-            creditRequestService.saveFirstHouse(rut, typeLoan, term, interestRate, maximumAmount, proofIncome, creditHistory, appraisalCertificate, bankAccountState, workCertificate);
+            creditRequestService.createRequest(LoanDocumentProfile.FIRST_HOME, rut, typeLoan, term, interestRate, maximumAmount, Map.of("proofIncome", proofIncome, "creditHistory", creditHistory, "appraisalCertificate", appraisalCertificate, "bankAccountState", bankAccountState, "workCertificate", workCertificate));
         });
     }
 
@@ -117,7 +181,7 @@ public class CreditRequestServiceTest {
         MultipartFile workCertificate = new MockMultipartFile("file", "workCertificate.pdf", "application/pdf", "workCertificate".getBytes());
 
         assertThrows(IllegalArgumentException.class, () -> {
-            creditRequestService.saveFirstHouse(rut, typeLoan, term, interestRate, maximumAmount, proofIncome, creditHistory, appraisalCertificate, bankAccountState, workCertificate);
+            creditRequestService.createRequest(LoanDocumentProfile.FIRST_HOME, rut, typeLoan, term, interestRate, maximumAmount, Map.of("proofIncome", proofIncome, "creditHistory", creditHistory, "appraisalCertificate", appraisalCertificate, "bankAccountState", bankAccountState, "workCertificate", workCertificate));
         });
     }
 
@@ -135,10 +199,52 @@ public class CreditRequestServiceTest {
         MultipartFile workCertificate = new MockMultipartFile("file", "workCertificate.pdf", "application/pdf", "workCertificate".getBytes());
 
         assertThrows(IllegalArgumentException.class, () -> {
-            creditRequestService.saveFirstHouse(rut, typeLoan, term, interestRate, maximumAmount, proofIncome, creditHistory, appraisalCertificate, bankAccountState, workCertificate);
+            creditRequestService.createRequest(LoanDocumentProfile.FIRST_HOME, rut, typeLoan, term, interestRate, maximumAmount, Map.of("proofIncome", proofIncome, "creditHistory", creditHistory, "appraisalCertificate", appraisalCertificate, "bankAccountState", bankAccountState, "workCertificate", workCertificate));
         });
     }
 
+    @Test
+    public void testCreateRequest_DocumentOfTheProfileNotSent() throws IOException {
+        // Given
+        MultipartFile proofIncome = new MockMultipartFile("file", "proofIncome.pdf", "application/pdf", "proofIncome".getBytes());
+        Map<String, MultipartFile> documents = Map.of("proofIncome", proofIncome, "appraisalCertificate", proofIncome,
+                "businessFinancialStatement", proofIncome, "bankAccountState", proofIncome, "workCertificate", proofIncome);
+
+        // When / Then
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () ->
+                creditRequestService.createRequest(LoanDocumentProfile.COMMERCIAL, "12345678-9", "Comercial", 20, 5, 1000, documents));
+        assertEquals("All documents must be provided", e.getMessage());
+        verify(documentStore, never()).store(any(MultipartFile.class));
+        verify(creditRequestRepository, never()).save(any(CreditRequestEntity.class));
+    }
+
+    @Test
+    public void testCreateRequest_OnlyProfileDocumentsAreStored() throws IOException {
+        // Given
+        MultipartFile file = new MockMultipartFile("file", "doc.pdf", "application/pdf", "doc".getBytes());
+        Map<String, MultipartFile> documents = new HashMap<>();
+        for (String documentType : LoanDocumentProfile.REMODELING.documents()) {
+            documents.put(documentType, file);
+        }
+        documents.put("businessPlan", file);
+        ClientEntity client = new ClientEntity();
+        client.setId(10L);
+        when(clientRepository.findByRut("12345678-9")).thenReturn(Optional.of(client));
+        when(documentStore.store(any(MultipartFile.class))).thenReturn(new StoredDocument("doc-1", 3L, "abc"));
+
+        // When
+        CreditRequestEntity result = creditRequestService.createRequest(LoanDocumentProfile.REMODELING, "12345678-9", "Remodelación", 10, 5, 1000, documents);
+
+        // Then
+        assertEquals(RequestState.INITIAL_REVIEW, result.getStateRequest());
+        verify(documentStore, times(5)).store(any(MultipartFile.class));
+        verify(creditDocumentRepository).saveAll(argThat(saved -> {
+            List<String> types = new ArrayList<>();
+            saved.forEach(document -> types.add(document.getDocumentType()));
+            return types.equals(LoanDocumentProfile.REMODELING.documents());
+        }));
+    }
+
     @Test
     public void testSaveSecondHouse_ValidInput() throws IOException {
         String rut = "12345678-9";
@@ -154,13 +260,15 @@ public class CreditRequestServiceTest {
         MultipartFile workCertificate = new MockMultipartFile("file", "workCertificate.pdf", "application/pdf", "workCertificate".getBytes());
 
         ClientEntity client = new ClientEntity();
+        client.setId(10L);
         client.setRut(rut);
         when(clientRepository.findByRut(rut)).thenReturn(Optional.of(client));
 
         CreditRequestEntity savedCreditRequest = new CreditRequestEntity();
         when(creditRequestRepository.save(any(CreditRequestEntity.class))).thenReturn(savedCreditRequest);
+        when(documentStore.store(any(MultipartFile.class))).thenReturn(new StoredDocument("doc-1", 11L, "abc"));
 
-        CreditRequestEntity result = creditRequestService.saveSecondHouse(rut, typeLoan, term, interestRate, maximumAmount, proofIncome, creditHistory, appraisalCertificate, propertyWriting, bankAccountState, workCertificate);
+        CreditRequestEntity result = creditRequestService.createRequest(LoanDocumentProfile.SECOND_HOME, rut, typeLoan, term, interestRate, maximumAmount, Map.of("proofIncome", proofIncome, "creditHistory", creditHistory, "appraisalCertificate", appraisalCertificate, "propertyWriting", propertyWriting, "bankAccountState", bankAccountState, "workCertificate", workCertificate));
 
         assertNotNull(result);
         verify(clientRepository, times(1)).findByRut(rut);
@@ -183,7 +291,7 @@ public class CreditRequestServiceTest {
 
         when(clientRepository.findByRut(rut)).thenReturn(Optional.empty());
 
-        CreditRequestEntity result = creditRequestService.saveSecondHouse(rut, typeLoan, term, interestRate, maximumAmount, proofIncome, creditHistory, appraisalCertificate, propertyWriting, bankAccountState, workCertificate);
+        CreditRequestEntity result = creditRequestService.createRequest(LoanDocumentProfile.SECOND_HOME, rut, typeLoan, term, interestRate, maximumAmount, Map.of("proofIncome", proofIncome, "creditHistory", creditHistory, "appraisalCertificate", appraisalCertificate, "propertyWriting", propertyWriting, "bankAccountState", bankAccountState, "workCertificate", workCertificate));
 
         assertNull(result);
         verify(clientRepository, times(1)).findByRut(rut);
@@ -205,7 +313,7 @@ public class CreditRequestServiceTest {
         MultipartFile workCertificate = new MockMultipartFile("file", "workCertificate.pdf", "application/pdf", new byte[0]);
 
         assertThrows(IllegalArgumentException.class, () -> {
-            creditRequestService.saveSecondHouse(rut, typeLoan, term, interestRate, maximumAmount, proofIncome, creditHistory, appraisalCertificate, propertyWriting, bankAccountState, workCertificate);
+            creditRequestService.createRequest(LoanDocumentProfile.SECOND_HOME, rut, typeLoan, term, interestRate, maximumAmount, Map.of("proofIncome", proofIncome, "creditHistory", creditHistory, "appraisalCertificate", appraisalCertificate, "propertyWriting", propertyWriting, "bankAccountState", bankAccountState, "workCertificate", workCertificate));
         });
     }
 
@@ -224,7 +332,7 @@ public class CreditRequestServiceTest {
         MultipartFile workCertificate = new MockMultipartFile("file", "workCertificate.pdf", "application/pdf", "workCertificate".getBytes());
 
         assertThrows(IllegalArgumentException.class, () -> {
-            creditRequestService.saveSecondHouse(rut, typeLoan, term, interestRate, maximumAmount, proofIncome, creditHistory, appraisalCertificate, propertyWriting, bankAccountState, workCertificate);
+            creditRequestService.createRequest(LoanDocumentProfile.SECOND_HOME, rut, typeLoan, term, interestRate, maximumAmount, Map.of("proofIncome", proofIncome, "creditHistory", creditHistory, "appraisalCertificate", appraisalCertificate, "propertyWriting", propertyWriting, "bankAccountState", bankAccountState, "workCertificate", workCertificate));
         });
     }
 
@@ -243,7 +351,7 @@ public class CreditRequestServiceTest {
         MultipartFile workCertificate = new MockMultipartFile("file", "workCertificate.pdf", "application/pdf", "workCertificate".getBytes());
 
         assertThrows(IllegalArgumentException.class, () -> {
-            creditRequestService.saveSecondHouse(rut, typeLoan, term, interestRate, maximumAmount, proofIncome, creditHistory, appraisalCertificate, propertyWriting, bankAccountState, workCertificate);
+            creditRequestService.createRequest(LoanDocumentProfile.SECOND_HOME, rut, typeLoan, term, interestRate, maximumAmount, Map.of("proofIncome", proofIncome, "creditHistory", creditHistory, "appraisalCertificate", appraisalCertificate, "propertyWriting", propertyWriting, "bankAccountState", bankAccountState, "workCertificate", workCertificate));
         });
     }
 
@@ -262,13 +370,15 @@ public class CreditRequestServiceTest {
         MultipartFile workCertificate = new MockMultipartFile("file", "workCertificate.pdf", "application/pdf", "workCertificate".getBytes());
 
         ClientEntity client = new ClientEntity();
+        client.setId(10L);
         client.setRut(rut);
         when(clientRepository.findByRut(rut)).thenReturn(Optional.of(client));
 
         CreditRequestEntity savedCreditRequest = new CreditRequestEntity();
         when(creditRequestRepository.save(any(CreditRequestEntity.class))).thenReturn(savedCreditRequest);
+        when(documentStore.store(any(MultipartFile.class))).thenReturn(new StoredDocument("doc-1", 11L, "abc"));
 
-        CreditRequestEntity result = creditRequestService.saveCommercialProperty(rut, typeLoan, term, interestRate, maximumAmount, proofIncome, appraisalCertificate, businessFinancialStatement, businessPlan, bankAccountState, workCertificate);
+        CreditRequestEntity result = creditRequestService.createRequest(LoanDocumentProfile.COMMERCIAL, rut, typeLoan, term, interestRate, maximumAmount, Map.of("proofIncome", proofIncome, "appraisalCertificate", appraisalCertificate, "businessFinancialStatement", businessFinancialStatement, "businessPlan", businessPlan, "bankAccountState", bankAccountState, "workCertificate", workCertificate));
 
         assertNotNull(result);
         verify(clientRepository, times(1)).findByRut(rut);
@@ -291,7 +401,7 @@ public class CreditRequestServiceTest {
 
         when(clientRepository.findByRut(rut)).thenReturn(Optional.empty());
 
-        CreditRequestEntity result = creditRequestService.saveCommercialProperty(rut, typeLoan, term, interestRate, maximumAmount, proofIncome, appraisalCertificate, businessFinancialStatement, businessPlan, bankAccountState, workCertificate);
+        CreditRequestEntity result = creditRequestService.createRequest(LoanDocumentProfile.COMMERCIAL, rut, typeLoan, term, interestRate, maximumAmount, Map.of("proofIncome", proofIncome, "appraisalCertificate", appraisalCertificate, "businessFinancialStatement", businessFinancialStatement, "businessPlan", businessPlan, "bankAccountState", bankAccountState, "workCertificate", workCertificate));
 
         assertNull(result);
         verify(clientRepository, times(1)).findByRut(rut);
@@ -313,7 +423,7 @@ public class CreditRequestServiceTest {
         MultipartFile workCertificate = new MockMultipartFile("file", "workCertificate.pdf", "application/pdf", new byte[0]);
 
         assertThrows(IllegalArgumentException.class, () -> {
-            creditRequestService.saveCommercialProperty(rut, typeLoan, term, interestRate, maximumAmount, proofIncome, appraisalCertificate, businessFinancialStatement, businessPlan, bankAccountState, workCertificate);
+            creditRequestService.createRequest(LoanDocumentProfile.COMMERCIAL, rut, typeLoan, term, interestRate, maximumAmount, Map.of("proofIncome", proofIncome, "appraisalCertificate", appraisalCertificate, "businessFinancialStatement", businessFinancialStatement, "businessPlan", businessPlan, "bankAccountState", bankAccountState, "workCertificate", workCertificate));
         });
     }
 
@@ -332,7 +442,7 @@ public class CreditRequestServiceTest {
         MultipartFile workCertificate = new MockMultipartFile("file", "workCertificate.pdf", "application/pdf", "workCertificate".getBytes());
 
         assertThrows(IllegalArgumentException.class, () -> {
-            creditRequestService.saveCommercialProperty(rut, typeLoan, term, interestRate, maximumAmount, proofIncome, appraisalCertificate, businessFinancialStatement, businessPlan, bankAccountState, workCertificate);
+            creditRequestService.createRequest(LoanDocumentProfile.COMMERCIAL, rut, typeLoan, term, interestRate, maximumAmount, Map.of("proofIncome", proofIncome, "appraisalCertificate", appraisalCertificate, "businessFinancialStatement", businessFinancialStatement, "businessPlan", businessPlan, "bankAccountState", bankAccountState, "workCertificate", workCertificate));
         });
     }
 
@@ -351,7 +461,7 @@ public class CreditRequestServiceTest {
         MultipartFile workCertificate = new MockMultipartFile("file", "workCertificate.pdf", "application/pdf", "workCertificate".getBytes());
 
         assertThrows(IllegalArgumentException.class, () -> {
-            creditRequestService.saveCommercialProperty(rut, typeLoan, term, interestRate, maximumAmount, proofIncome, appraisalCertificate, businessFinancialStatement, businessPlan, bankAccountState, workCertificate);
+            creditRequestService.createRequest(LoanDocumentProfile.COMMERCIAL, rut, typeLoan, term, interestRate, maximumAmount, Map.of("proofIncome", proofIncome, "appraisalCertificate", appraisalCertificate, "businessFinancialStatement", businessFinancialStatement, "businessPlan", businessPlan, "bankAccountState", bankAccountState, "workCertificate", workCertificate));
         });
     }
 
@@ -369,13 +479,15 @@ public class CreditRequestServiceTest {
         MultipartFile workCertificate = new MockMultipartFile("file", "workCertificate.pdf", "application/pdf", "workCertificate".getBytes());
 
         ClientEntity client = new ClientEntity();
+        client.setId(10L);
         client.setRut(rut);
         when(clientRepository.findByRut(rut)).thenReturn(Optional.of(client));
 
         CreditRequestEntity savedCreditRequest = new CreditRequestEntity();
         when(creditRequestRepository.save(any(CreditRequestEntity.class))).thenReturn(savedCreditRequest);
+        when(documentStore.store(any(MultipartFile.class))).thenReturn(new StoredDocument("doc-1", 11L, "abc"));
 
-        CreditRequestEntity result = creditRequestService.saveRemodeling(rut, typeLoan, term, interestRate, maximumAmount, proofIncome, appraisalCertificate, remodelingBudget, bankAccountState, workCertificate);
+        CreditRequestEntity result = creditRequestService.createRequest(LoanDocumentProfile.REMODELING, rut, typeLoan, term, interestRate, maximumAmount, Map.of("proofIncome", proofIncome, "appraisalCertificate", appraisalCertificate, "remodelingBudget", remodelingBudget, "bankAccountState", bankAccountState, "workCertificate", workCertificate));
 
         assertNotNull(result);
         verify(clientRepository, times(1)).findByRut(rut);
@@ -397,7 +509,7 @@ public class CreditRequestServiceTest {
 
         when(clientRepository.findByRut(rut)).thenReturn(Optional.empty());
 
-        CreditRequestEntity result = creditRequestService.saveRemodeling(rut, typeLoan, term, interestRate, maximumAmount, proofIncome, appraisalCertificate, remodelingBudget, bankAccountState, workCertificate);
+        CreditRequestEntity result = creditRequestService.createRequest(LoanDocumentProfile.REMODELING, rut, typeLoan, term, interestRate, maximumAmount, Map.of("proofIncome", proofIncome, "appraisalCertificate", appraisalCertificate, "remodelingBudget", remodelingBudget, "bankAccountState", bankAccountState, "workCertificate", workCertificate));
 
         assertNull(result);
         verify(clientRepository, times(1)).findByRut(rut);
@@ -418,7 +530,7 @@ public class CreditRequestServiceTest {
         MultipartFile workCertificate = new MockMultipartFile("file", "workCertificate.pdf", "application/pdf", new byte[0]);
 
         assertThrows(IllegalArgumentException.class, () -> {
-            creditRequestService.saveRemodeling(rut, typeLoan, term, interestRate, maximumAmount, proofIncome, appraisalCertificate, remodelingBudget, bankAccountState, workCertificate);
+            creditRequestService.createRequest(LoanDocumentProfile.REMODELING, rut, typeLoan, term, interestRate, maximumAmount, Map.of("proofIncome", proofIncome, "appraisalCertificate", appraisalCertificate, "remodelingBudget", remodelingBudget, "bankAccountState", bankAccountState, "workCertificate", workCertificate));
         });
     }
 
@@ -436,7 +548,7 @@ public class CreditRequestServiceTest {
         MultipartFile workCertificate = new MockMultipartFile("file", "workCertificate.pdf", "application/pdf", "workCertificate".getBytes());
 
         assertThrows(IllegalArgumentException.class, () -> {
-            creditRequestService.saveRemodeling(rut, typeLoan, term, interestRate, maximumAmount, proofIncome, appraisalCertificate, remodelingBudget, bankAccountState, workCertificate);
+            creditRequestService.createRequest(LoanDocumentProfile.REMODELING, rut, typeLoan, term, interestRate, maximumAmount, Map.of("proofIncome", proofIncome, "appraisalCertificate", appraisalCertificate, "remodelingBudget", remodelingBudget, "bankAccountState", bankAccountState, "workCertificate", workCertificate));
         });
     }
 
@@ -454,123 +566,106 @@ public class CreditRequestServiceTest {
         MultipartFile workCertificate = new MockMultipartFile("file", "workCertificate.pdf", "application/pdf", "workCertificate".getBytes());
 
         assertThrows(IllegalArgumentException.class, () -> {
-            creditRequestService.saveRemodeling(rut, typeLoan, term, interestRate, maximumAmount, proofIncome, appraisalCertificate, remodelingBudget, bankAccountState, workCertificate);
+            creditRequestService.createRequest(LoanDocumentProfile.REMODELING, rut, typeLoan, term, interestRate, maximumAmount, Map.of("proofIncome", proofIncome, "appraisalCertificate", appraisalCertificate, "remodelingBudget", remodelingBudget, "bankAccountState", bankAccountState, "workCertificate", workCertificate));
         });
     }
 
     @Test
-    public void testGetClientsWithCreditStatus_ValidClientWithRequests() {
-        ClientEntity client = new ClientEntity();
-        client.setRut("12345678-9");
-        client.setName("John");
-        client.setLastName("Doe");
-        client.setListRequestId("1-2");
-
-        CreditRequestEntity creditRequest1 = new CreditRequestEntity();
-        creditRequest1.setId(1L);
-        creditRequest1.setStateRequest("Approved");
-
-        CreditRequestEntity creditRequest2 = new CreditRequestEntity();
-        creditRequest2.setId(2L);
-        creditRequest2.setStateRequest("Pending");
+    public void testGetCreditStatusPage_RowsFromOneQuery() {
+        when(creditRequestRepository.findCreditStatusAfter(0L, null, null, Limit.of(50))).thenReturn(Arrays.asList(
+                new CreditStatusRow(1L, "12345678-9", "John", "Doe", "firstHome", RequestState.APPROVED),
+                new CreditStatusRow(2L, "12345678-9", "John", "Doe", "secondHome", RequestState.PENDING_DOCUMENTATION)));
+
+        CreditStatusPage result = creditRequestService.getCreditStatusPage(null, null, null, 50);
+
+        assertEquals(2, result.items().size());
+        assertEquals("12345678-9", result.items().get(0).rut());
+        assertEquals("John", result.items().get(0).name());
+        assertEquals("Doe", result.items().get(0).lastName());
+        assertEquals(RequestState.APPROVED, result.items().get(0).status());
+        assertEquals(RequestState.PENDING_DOCUMENTATION, result.items().get(1).status());
+        assertNull(result.nextAfterId());
+        verify(clientRepository, never()).findAll();
+        verify(creditRequestRepository, never()).findById(anyLong());
+        verify(creditMetrics).stop(any(), eq(CreditMetrics.CREDIT_STATUS_LISTING), eq(CreditMetrics.ALL), eq(CreditMetrics.ALL));
+    }
 
-        when(clientRepository.findAll()).thenReturn(Collections.singletonList(client));
-        when(creditRequestRepository.findById(1L)).thenReturn(Optional.of(creditRequest1));
-        when(creditRequestRepository.findById(2L)).thenReturn(Optional.of(creditRequest2));
+    @Test
+    public void testGetCreditStatusPage_FullPageHasCursor() {
+        when(creditRequestRepository.findCreditStatusAfter(0L, RequestState.APPROVED, null, Limit.of(2))).thenReturn(Arrays.asList(
+                new CreditStatusRow(3L, "12345678-9", "John", "Doe", "firstHome", RequestState.APPROVED),
+                new CreditStatusRow(8L, "98765432-1", "Jane", "Smith", "remodeling", RequestState.APPROVED)));
 
-        List<Map<String, Object>> result = creditRequestService.getClientsWithCreditStatus();
+        CreditStatusPage result = creditRequestService.getCreditStatusPage(null, "Aprobada", null, 2);
 
-        assertEquals(2, result.size());
-        assertEquals("12345678-9", result.get(0).get("rut"));
-        assertEquals("John", result.get(0).get("name"));
-        assertEquals("Doe", result.get(0).get("lastName"));
-        assertEquals("Approved", result.get(0).get("status"));
-        assertEquals(1L, result.get(0).get("id"));
-        assertEquals("Pending", result.get(1).get("status"));
-        assertEquals(2L, result.get(1).get("id"));
+        assertEquals(2, result.items().size());
+        assertEquals(8L, result.nextAfterId());
     }
 
     @Test
-    public void testGetClientsWithCreditStatus_ClientWithoutRequests() {
-        ClientEntity client = new ClientEntity();
-        client.setRut("12345678-9");
-        client.setName("John");
-        client.setLastName("Doe");
-        client.setListRequestId("");
-
-        when(clientRepository.findAll()).thenReturn(Collections.singletonList(client));
+    public void testGetCreditStatusPage_StatusByCode() {
+        when(creditRequestRepository.findCreditStatusAfter(anyLong(), any(), any(), any(Limit.class))).thenReturn(Collections.emptyList());
 
-        List<Map<String, Object>> result = creditRequestService.getClientsWithCreditStatus();
+        creditRequestService.getCreditStatusPage(null, "E4", null, 10);
 
-        assertTrue(result.isEmpty());
+        verify(creditRequestRepository).findCreditStatusAfter(0L, RequestState.PRE_APPROVED, null, Limit.of(10));
     }
 
-
     @Test
-    public void testGetClientsWithCreditStatus_MultipleClients() {
-        ClientEntity client1 = new ClientEntity();
-        client1.setRut("12345678-9");
-        client1.setName("John");
-        client1.setLastName("Doe");
-        client1.setListRequestId("1");
+    public void testGetCreditStatusPage_UnknownStatus() {
+        assertThrows(IllegalArgumentException.class, () -> creditRequestService.getCreditStatusPage(null, "Aprobadísima", null, 10));
+    }
 
-        ClientEntity client2 = new ClientEntity();
-        client2.setRut("98765432-1");
-        client2.setName("Jane");
-        client2.setLastName("Smith");
-        client2.setListRequestId("2");
+    @Test
+    public void testGetCreditStatusPage_LastPageHasNoCursor() {
+        when(creditRequestRepository.findCreditStatusAfter(8L, null, "firstHome", Limit.of(2))).thenReturn(
+                List.of(new CreditStatusRow(9L, "12345678-9", "John", "Doe", "firstHome", RequestState.APPROVED)));
 
-        CreditRequestEntity creditRequest1 = new CreditRequestEntity();
-        creditRequest1.setId(1L);
-        creditRequest1.setStateRequest("Approved");
+        CreditStatusPage result = creditRequestService.getCreditStatusPage(8L, null, "firstHome", 2);
 
-        CreditRequestEntity creditRequest2 = new CreditRequestEntity();
-        creditRequest2.setId(2L);
-        creditRequest2.setStateRequest("Pending");
+        assertEquals(1, result.items().size());
+        assertNull(result.nextAfterId());
+    }
 
-        when(clientRepository.findAll()).thenReturn(Arrays.asList(client1, client2));
-        when(creditRequestRepository.findById(1L)).thenReturn(Optional.of(creditRequest1));
-        when(creditRequestRepository.findById(2L)).thenReturn(Optional.of(creditRequest2));
+    @Test
+    public void testGetCreditStatusPage_SizeIsCapped() {
+        when(creditRequestRepository.findCreditStatusAfter(anyLong(), any(), any(), any(Limit.class))).thenReturn(Collections.emptyList());
 
-        List<Map<String, Object>> result = creditRequestService.getClientsWithCreditStatus();
+        creditRequestService.getCreditStatusPage(null, null, null, 100000);
 
-        assertEquals(2, result.size());
-        assertEquals("12345678-9", result.get(0).get("rut"));
-        assertEquals("John", result.get(0).get("name"));
-        assertEquals("Doe", result.get(0).get("lastName"));
-        assertEquals("Approved", result.get(0).get("status"));
-        assertEquals(1L, result.get(0).get("id"));
-        assertEquals("98765432-1", result.get(1).get("rut"));
-        assertEquals("Jane", result.get(1).get("name"));
-        assertEquals("Smith", result.get(1).get("lastName"));
-        assertEquals("Pending", result.get(1).get("status"));
-        assertEquals(2L, result.get(1).get("id"));
+        verify(creditRequestRepository).findCreditStatusAfter(0L, null, null, Limit.of(500));
     }
 
     @Test
-    public void testGetClientsWithCreditStatus_NoClients() {
-        when(clientRepository.findAll()).thenReturn(Collections.emptyList());
-
-        List<Map<String, Object>> result = creditRequestService.getClientsWithCreditStatus();
-
-        assertTrue(result.isEmpty());
+    public void testExportCreditStatus_WritesJsonArray() throws IOException {
+        when(creditRequestRepository.streamCreditStatus(null, null)).thenReturn(Stream.of(
+                new CreditStatusRow(1L, "12345678-9", "John", "Doe", "firstHome", RequestState.APPROVED),
+                new CreditStatusRow(2L, "98765432-1", "Jane", "Smith", "remodeling", RequestState.REJECTED)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        creditRequestService.exportCreditStatus(null, null, out);
+
+        List<Map<String, Object>> rows = new ObjectMapper().readValue(out.toByteArray(), new TypeReference<>() {});
+        assertEquals(2, rows.size());
+        assertEquals("12345678-9", rows.get(0).get("rut"));
+        assertEquals("Rechazada", rows.get(1).get("status"));
+        assertEquals(2, rows.get(1).get("id"));
     }
 
     @Test
     public void testGetCreditDocumentByType_ValidIdAndDocumentType() {
         Long id = 1L;
         String documentType = "proofIncome";
-        byte[] document = "proofIncomeDocument".getBytes();
 
-        CreditRequestEntity creditRequest = new CreditRequestEntity();
-        creditRequest.setProofIncome(document);
+        CreditDocumentEntity creditDocument = new CreditDocumentEntity(id, documentType, "doc-1", 19, "abc", "application/pdf", "proofIncome.pdf");
 
-        when(creditRequestRepository.findById(id)).thenReturn(Optional.of(creditRequest));
+        when(creditDocumentRepository.findById(new CreditDocumentId(id, documentType))).thenReturn(Optional.of(creditDocument));
 
-        Optional<byte[]> result = creditRequestService.getCreditDocumentByType(id, documentType);
+        Optional<CreditDocumentEntity> result = creditRequestService.getCreditDocumentByType(id, documentType);
 
         assertTrue(result.isPresent());
-        assertArrayEquals(document, result.get());
+        assertEquals("doc-1", result.get().getStorageId());
+        verifyNoInteractions(documentStore);
     }
 
     @Test
@@ -578,11 +673,9 @@ public class CreditRequestServiceTest {
         Long id = 1L;
         String documentType = "invalidType";
 
-        CreditRequestEntity creditRequest = new CreditRequestEntity();
+        when(creditDocumentRepository.findById(new CreditDocumentId(id, documentType))).thenReturn(Optional.empty());
 
-        when(creditRequestRepository.findById(id)).thenReturn(Optional.of(creditRequest));
-
-        Optional<byte[]> result = creditRequestService.getCreditDocumentByType(id, documentType);
+        Optional<CreditDocumentEntity> result = creditRequestService.getCreditDocumentByType(id, documentType);
 
         assertFalse(result.isPresent());
     }
@@ -592,9 +685,9 @@ public class CreditRequestServiceTest {
         Long id = 1L;
         String documentType = "proofIncome";
 
-        when(creditRequestRepository.findById(id)).thenReturn(Optional.empty());
+        when(creditDocumentRepository.findById(new CreditDocumentId(id, documentType))).thenReturn(Optional.empty());
 
-        Optional<byte[]> result = creditRequestService.getCreditDocumentByType(id, documentType);
+        Optional<CreditDocumentEntity> result = creditRequestService.getCreditDocumentByType(id, documentType);
 
         assertFalse(result.isPresent());
     }
@@ -603,31 +696,38 @@ public class CreditRequestServiceTest {
     public void testGetCreditDocumentByType_ValidIdAndEmptyDocument() {
         Long id = 1L;
         String documentType = "proofIncome";
-        byte[] document = new byte[0];
 
-        CreditRequestEntity creditRequest = new CreditRequestEntity();
-        creditRequest.setProofIncome(document);
+        CreditDocumentEntity creditDocument = new CreditDocumentEntity(id, documentType, "doc-1", 0, "abc", "application/pdf", "proofIncome.pdf");
 
-        when(creditRequestRepository.findById(id)).thenReturn(Optional.of(creditRequest));
+        when(creditDocumentRepository.findById(new CreditDocumentId(id, documentType))).thenReturn(Optional.of(creditDocument));
 
-        Optional<byte[]> result = creditRequestService.getCreditDocumentByType(id, documentType);
+        Optional<CreditDocumentEntity> result = creditRequestService.getCreditDocumentByType(id, documentType);
 
         assertFalse(result.isPresent());
     }
 
     @Test
-    public void testGetCreditDocumentByType_ValidIdAndNullDocument() {
+    public void testGetCreditDocumentByType_DoesNotLoadRequest() {
         Long id = 1L;
         String documentType = "proofIncome";
 
-        CreditRequestEntity creditRequest = new CreditRequestEntity();
-        creditRequest.setProofIncome(null);
+        when(creditDocumentRepository.findById(new CreditDocumentId(id, documentType))).thenReturn(Optional.empty());
 
-        when(creditRequestRepository.findById(id)).thenReturn(Optional.of(creditRequest));
+        creditRequestService.getCreditDocumentByType(id, documentType);
+
+        verify(creditRequestRepository, times(0)).findById(anyLong());
+    }
+
+    @Test
+    public void testGetDocumentContent_LoadsFromStore() throws IOException {
+        CreditDocumentEntity creditDocument = new CreditDocumentEntity(1L, "proofIncome", "doc-1", 19, "abc", "application/pdf", "proofIncome.pdf");
+        Resource content = new ByteArrayResource("proofIncomeDocument".getBytes());
 
-        Optional<byte[]> result = creditRequestService.getCreditDocumentByType(id, documentType);
+        when(documentStore.load("doc-1")).thenReturn(content);
 
-        assertFalse(result.isPresent());
+        Resource result = creditRequestService.getDocumentContent(creditDocument);
+
+        assertSame(content, result);
     }
 
     @Test
@@ -639,7 +739,7 @@ public class CreditRequestServiceTest {
         creditRequest.setTerm(20);
         creditRequest.setInterestRate(4.5);
         creditRequest.setMaximumAmount(100000000);
-        creditRequest.setStateRequest("Approved");
+        creditRequest.setStateRequest(RequestState.APPROVED);
 
         when(creditRequestRepository.findById(id)).thenReturn(Optional.of(creditRequest));
 
@@ -651,7 +751,7 @@ public class CreditRequestServiceTest {
         assertEquals(20, result.get(0).get("term"));
         assertEquals(4.5, result.get(0).get("interestRate"));
         assertEquals(100000000, result.get(0).get("maximumAmount"));
-        assertEquals("Approved", result.get(0).get("stateRequest"));
+        assertEquals(RequestState.APPROVED, result.get(0).get("stateRequest"));
     }
 
     @Test
@@ -716,7 +816,7 @@ public class CreditRequestServiceTest {
         String result = creditRequestService.editStatus("E2", id);
 
         assertEquals("Estado actualizado correctamente", result);
-        assertEquals("Pendiente de Documentación", creditRequest.getStateRequest());
+        assertEquals(RequestState.PENDING_DOCUMENTATION, creditRequest.getStateRequest());
         verify(creditRequestRepository, times(1)).save(creditRequest);
     }
 
@@ -729,7 +829,7 @@ public class CreditRequestServiceTest {
         String result = creditRequestService.editStatus("E6", id);
 
         assertEquals("Estado actualizado correctamente", result);
-        assertEquals("Aprobada", creditRequest.getStateRequest());
+        assertEquals(RequestState.APPROVED, creditRequest.getStateRequest());
         verify(creditRequestRepository, times(1)).save(creditRequest);
     }
 
@@ -745,6 +845,47 @@ public class CreditRequestServiceTest {
         verify(creditRequestRepository, times(0)).save(creditRequest);
     }
 
+    @Test
+    public void testEditStatus_TransitionNotAllowed() {
+        Long id = 1L;
+        CreditRequestEntity creditRequest = new CreditRequestEntity();
+        creditRequest.setStateRequest(RequestState.REJECTED);
+        when(creditRequestRepository.findById(id)).thenReturn(Optional.of(creditRequest));
+
+        assertThrows(IllegalStateException.class, () -> creditRequestService.editStatus("E6", id));
+        assertEquals(RequestState.REJECTED, creditRequest.getStateRequest());
+        verify(creditRequestRepository, never()).save(any(CreditRequestEntity.class));
+    }
+
+    @Test
+    public void testEditStatus_SameStateAllowed() {
+        Long id = 1L;
+        CreditRequestEntity creditRequest = new CreditRequestEntity();
+        creditRequest.setStateRequest(RequestState.PRE_APPROVED);
+        when(creditRequestRepository.findById(id)).thenReturn(Optional.of(creditRequest));
+
+        String result = creditRequestService.editStatus("E4", id);
+
+        assertEquals("Estado actualizado correctamente", result);
+        verify(creditRequestRepository, times(1)).save(creditRequest);
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+    }
+
+    @Test
+    public void testEditStatus_PublishesStatusChange() {
+        Long id = 1L;
+        CreditRequestEntity creditRequest = new CreditRequestEntity();
+        creditRequest.setId(id);
+        creditRequest.setClientId(7L);
+        creditRequest.setTypeLoan("firstHome");
+        creditRequest.setStateRequest(RequestState.PRE_APPROVED);
+        when(creditRequestRepository.findById(id)).thenReturn(Optional.of(creditRequest));
+
+        creditRequestService.editStatus("E5", id);
+
+        verify(eventPublisher).publishEvent(new RequestStatusChanged(id, 7L, RequestState.FINAL_APPROVAL, "firstHome"));
+    }
+
     @Test
     public void testEditStatus_RequestNotFound() {
         Long id = 1L;
@@ -765,7 +906,7 @@ public class CreditRequestServiceTest {
         String result = creditRequestService.editStatus("E9", id);
 
         assertEquals("Estado actualizado correctamente", result);
-        assertEquals("En Desembolso", creditRequest.getStateRequest());
+        assertEquals(RequestState.DISBURSEMENT, creditRequest.getStateRequest());
         verify(creditRequestRepository, times(1)).save(creditRequest);
     }
 
@@ -886,20 +1027,109 @@ public class CreditRequestServiceTest {
     }
 
     @Test
-    public void testDeleteRequest_ValidId() {
+    public void testDeleteRequest_ValidId() throws IOException {
+        Long id = 1L;
+
+        boolean result = creditRequestService.deleteRequest(id);
+
+        assertTrue(result);
+        verify(creditRequestRepository, times(1)).deleteById(id);
+    }
+
+    @Test
+    public void testDeleteRequest_ReleasesStoredDocuments() throws IOException {
         Long id = 1L;
+        List<CreditDocumentEntity> documents = List.of(
+                new CreditDocumentEntity(id, "proofIncome", "doc-1", 10, "abc", "application/pdf", "proofIncome.pdf"),
+                new CreditDocumentEntity(id, "workCertificate", "doc-2", 10, "def", "application/pdf", "workCertificate.pdf"));
+
+        when(creditDocumentRepository.findByRequestId(id)).thenReturn(documents);
 
         boolean result = creditRequestService.deleteRequest(id);
 
         assertTrue(result);
         verify(creditRequestRepository, times(1)).deleteById(id);
+        verify(creditDocumentRepository, times(1)).deleteAll(documents);
+        verify(documentReferences, times(1)).release("doc-1");
+        verify(documentReferences, times(1)).release("doc-2");
+        verify(documentStore, never()).delete(any());
     }
 
     @Test
-    public void testDeleteRequest_NullId() {
+    public void testDeleteRequest_NullId() throws IOException {
         boolean result = creditRequestService.deleteRequest(null);
 
         assertFalse(result);
         verify(creditRequestRepository, times(0)).deleteById(any());
     }
-}
\ No newline at end of file
+
+    @Test
+    void whenLoanTypeInCatalog_thenReturnInfo() {
+        // Given
+        Map<String, String> info = Map.of("Plazo", "30 años", "Tasa Interés (Anual)", "3.5% - 5.0%");
+        LoanProduct product = new LoanProduct("firstHome", "Primera Vivienda", 30, 3.5, 5.0, 100000000, info, "\"1\"");
+        when(loanCatalog.find("Primera Vivienda")).thenReturn(Optional.of(product));
+
+        // When
+        Map<String, String> result = creditRequestService.getLoanTypeInfo("Primera Vivienda");
+
+        // Then
+        assertEquals(info, result);
+    }
+
+    @Test
+    void whenLoanTypeNotInCatalog_thenReturnEmptyMap() {
+        // Given
+        when(loanCatalog.find("Inexistente")).thenReturn(Optional.empty());
+
+        // When
+        Map<String, String> result = creditRequestService.getLoanTypeInfo("Inexistente");
+
+        // Then
+        assertTrue(result.isEmpty());
+    }
+
+    @Test
+    public void testSaveFirstHouse_OutsideProductLimits() throws IOException {
+        Map<String, String> info = Map.of("Plazo", "30 años", "Tasa Interés (Anual)", "3.5% - 5.0%");
+        LoanProduct product = new LoanProduct("firstHome", "Primera Vivienda", 30, 3.5, 5.0, 100000000, info, "\"1\"");
+        when(loanCatalog.find("firstHome")).thenReturn(Optional.of(product));
+        MultipartFile proofIncome = new MockMultipartFile("file", "proofIncome.pdf", "application/pdf", "proofIncome".getBytes());
+        MultipartFile creditHistory = new MockMultipartFile("file", "creditHistory.pdf", "application/pdf", "creditHistory".getBytes());
+        MultipartFile appraisalCertificate = new MockMultipartFile("file", "appraisalCertificate.pdf", "application/pdf", "appraisalCertificate".getBytes());
+        MultipartFile bankAccountState = new MockMultipartFile("file", "bankAccountState.pdf", "application/pdf", "bankAccountState".getBytes());
+        MultipartFile workCertificate = new MockMultipartFile("file", "workCertificate.pdf", "application/pdf", "workCertificate".getBytes());
+
+        IllegalArgumentException term = assertThrows(IllegalArgumentException.class, () ->
+                creditRequestService.createRequest(LoanDocumentProfile.FIRST_HOME, "12345678-5", "firstHome", 35, 4.5, 50000000, Map.of("proofIncome", proofIncome, "creditHistory", creditHistory, "appraisalCertificate", appraisalCertificate, "bankAccountState", bankAccountState, "workCertificate", workCertificate)));
+        IllegalArgumentException rate = assertThrows(IllegalArgumentException.class, () ->
+                creditRequestService.createRequest(LoanDocumentProfile.FIRST_HOME, "12345678-5", "firstHome", 20, 5.5, 50000000, Map.of("proofIncome", proofIncome, "creditHistory", creditHistory, "appraisalCertificate", appraisalCertificate, "bankAccountState", bankAccountState, "workCertificate", workCertificate)));
+        IllegalArgumentException amount = assertThrows(IllegalArgumentException.class, () ->
+                creditRequestService.createRequest(LoanDocumentProfile.FIRST_HOME, "12345678-5", "firstHome", 20, 4.5, 150000000, Map.of("proofIncome", proofIncome, "creditHistory", creditHistory, "appraisalCertificate", appraisalCertificate, "bankAccountState", bankAccountState, "workCertificate", workCertificate)));
+
+        assertEquals("El plazo máximo para Primera Vivienda es 30 años", term.getMessage());
+        assertEquals("La tasa de interés para Primera Vivienda debe estar entre 3.5% y 5.0%", rate.getMessage());
+        assertEquals("El monto máximo para Primera Vivienda es 100000000", amount.getMessage());
+        verify(clientRepository, never()).findByRut(anyString());
+        verify(documentStore, never()).store(any(MultipartFile.class));
+        verify(creditRequestRepository, never()).save(any(CreditRequestEntity.class));
+    }
+
+    @Test
+    void whenEditStatus_thenRecordTimerWithProductAndState() {
+        // Given
+        CreditRequestEntity request = new CreditRequestEntity();
+        request.setTypeLoan("Primera Vivienda");
+        LoanProduct product = new LoanProduct("firstHome", "Primera Vivienda", 30, 3.5, 5.0, 100000000, Map.of(), "\"1\"");
+        when(creditRequestRepository.findById(1L)).thenReturn(Optional.of(request));
+        when(loanCatalog.find("Primera Vivienda")).thenReturn(Optional.of(product));
+
+        // When
+        String result = creditRequestService.editStatus("E3", 1L);
+
+        // Then
+        assertEquals("Estado actualizado correctamente", result);
+        assertEquals(RequestState.IN_EVALUATION, request.getStateRequest());
+        verify(creditMetrics).stop(any(), eq(CreditMetrics.EDIT_STATUS), eq("firstHome"), eq("E3"));
+    }
+}
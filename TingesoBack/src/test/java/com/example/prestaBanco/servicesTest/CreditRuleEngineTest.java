@@ -0,0 +1,260 @@
+package com.example.prestaBanco.servicesTest;
+
+import com.example.prestaBanco.cache.LoanCatalog;
+import com.example.prestaBanco.dtos.RuleEvaluationResult;
+import com.example.prestaBanco.entities.ApplicantProfile;
+import com.example.prestaBanco.entities.CreditEvaluationEntity;
+import com.example.prestaBanco.entities.CreditRequestEntity;
+import com.example.prestaBanco.entities.LoanEntity;
+import com.example.prestaBanco.evaluation.CreditCriterion;
+import com.example.prestaBanco.evaluation.CreditRuleEngine;
+import com.example.prestaBanco.evaluation.EvaluationPolicy;
+import com.example.prestaBanco.evaluation.RuleReport;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static com.example.prestaBanco.evaluation.CreditRuleEngine.Mode.FULL_REPORT;
+import static com.example.prestaBanco.evaluation.CreditRuleEngine.Mode.SHORT_CIRCUIT;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CreditRuleEngineTest {
+
+    private static final EvaluationPolicy POLICY = new EvaluationPolicy(35, 1, 2, 50,
+            Map.of("firstHome", 80.0, "secondHome", 70.0, "commercial", 60.0, "remodeling", 50.0), 70,
+            5, 10, 50, 5, 2, 20, 10, 30);
+
+    private final CreditRuleEngine engine = new CreditRuleEngine();
+
+    public CreditRuleEngineTest() {
+        LoanEntity firstHome = new LoanEntity(1L, "firstHome", "Primera Vivienda", 30, 3.5, 5, 100000000);
+        LoanCatalog catalog = new LoanCatalog();
+        catalog.load(List.of(firstHome));
+        ReflectionTestUtils.setField(engine, "loanCatalog", catalog);
+        engine.compile(POLICY);
+    }
+
+    // 100.000.000 a 20 años al 4,5%: cuota de 632.649
+    private static CreditRequestEntity request(String typeLoan) {
+        CreditRequestEntity request = new CreditRequestEntity();
+        request.setId(1L);
+        request.setTypeLoan(typeLoan);
+        request.setMaximumAmount(100000000);
+        request.setTerm(20);
+        request.setInterestRate(4.5);
+        return request;
+    }
+
+    // Cumple los siete criterios con la política por defecto
+    private static ApplicantProfile applicant() {
+        ApplicantProfile applicant = new ApplicantProfile();
+        applicant.setMonthlyIncome(2000000L);
+        applicant.setCurrentDebts(300000L);
+        applicant.setPropertyValue(150000000L);
+        applicant.setEmploymentYears(3.0);
+        applicant.setSelfEmployed(false);
+        applicant.setRecentDelinquencies(false);
+        applicant.setBirthDate(LocalDate.now().minusYears(40));
+        applicant.setSavingsBalance(20000000L);
+        applicant.setSavingsAccountYears(3.0);
+        applicant.setMonthlyDeposits(150000L);
+        applicant.setMaxWithdrawal12m(20.0);
+        applicant.setMaxWithdrawal6m(10.0);
+        return applicant;
+    }
+
+    @Test
+    void whenAllCriteriaMet_thenApproved() {
+        // When
+        RuleReport report = engine.evaluate(request("firstHome"), applicant(), FULL_REPORT);
+
+        // Then
+        assertTrue(report.approved());
+        assertEquals("E4", report.state());
+        assertEquals(CreditCriterion.ALL, report.evaluated());
+    }
+
+    @Test
+    void whenRequestUsesDisplayName_thenFinancingLimitOfTheProduct() {
+        // Given
+        ApplicantProfile applicant = applicant();
+        applicant.setPropertyValue(125000000L);
+
+        // When
+        RuleReport byName = engine.evaluate(request("Primera Vivienda"), applicant, FULL_REPORT);
+        applicant.setPropertyValue(110000000L);
+        RuleReport overLimit = engine.evaluate(request("firstHome"), applicant, FULL_REPORT);
+
+        // Then
+        assertTrue(byName.isMet(CreditCriterion.FINANCING_LIMIT));
+        assertFalse(overLimit.isMet(CreditCriterion.FINANCING_LIMIT));
+    }
+
+    @Test
+    void whenFullReport_thenEveryFailureIsReported() {
+        // Given
+        ApplicantProfile applicant = applicant();
+        applicant.setMonthlyIncome(1500000L);
+        applicant.setRecentDelinquencies(true);
+
+        // When
+        RuleReport report = engine.evaluate(request("firstHome"), applicant, FULL_REPORT);
+
+        // Then
+        assertEquals("E7", report.state());
+        assertEquals(CreditCriterion.ALL, report.evaluated());
+        assertFalse(report.isMet(CreditCriterion.INCOME_QUOTA));
+        assertFalse(report.isMet(CreditCriterion.CREDIT_HISTORY));
+        assertFalse(report.isMet(CreditCriterion.INCOME_DEBT_RELATION));
+        assertTrue(report.isMet(CreditCriterion.SAVINGS_CAPACITY));
+    }
+
+    @Test
+    void whenShortCircuit_thenStopsAtFirstFailure() {
+        // Given
+        ApplicantProfile applicant = applicant();
+        applicant.setRecentDelinquencies(true);
+        applicant.setMonthlyIncome(1500000L);
+
+        // When
+        RuleEvaluationResult result = engine.evaluate(request("firstHome"), applicant, SHORT_CIRCUIT).toResult();
+
+        // Then
+        assertFalse(result.approved());
+        assertEquals(Map.of("creditHistory", false), result.criteria());
+    }
+
+    @Test
+    void whenShortCircuitAndApproved_thenEveryCriterionEvaluated() {
+        // When
+        RuleReport report = engine.evaluate(request("firstHome"), applicant(), SHORT_CIRCUIT);
+
+        // Then
+        assertTrue(report.approved());
+        assertEquals(CreditCriterion.ALL, report.evaluated());
+    }
+
+    @Test
+    void whenInputsMissing_thenCriteriaNotMet() {
+        // When
+        RuleReport report = engine.evaluate(request("firstHome"), new ApplicantProfile(), FULL_REPORT);
+
+        // Then
+        assertEquals(0, report.met());
+    }
+
+    @Test
+    void whenSelfEmployed_thenIncomeHistoryCounts() {
+        // Given
+        ApplicantProfile applicant = applicant();
+        applicant.setEmploymentYears(0.5);
+        applicant.setSelfEmployed(true);
+        applicant.setIncomeHistoryYears(2.5);
+
+        // When
+        boolean met = engine.evaluate(request("firstHome"), applicant, FULL_REPORT).isMet(CreditCriterion.EMPLOYMENT_SENIORITY);
+        applicant.setIncomeHistoryYears(1.0);
+        boolean withoutHistory = engine.evaluate(request("firstHome"), applicant, FULL_REPORT).isMet(CreditCriterion.EMPLOYMENT_SENIORITY);
+
+        // Then
+        assertTrue(met);
+        assertFalse(withoutHistory);
+    }
+
+    @Test
+    void whenApplicantTooOldAtEndOfLoan_thenAgeNotMet() {
+        // Given
+        ApplicantProfile applicant = applicant();
+        applicant.setBirthDate(LocalDate.now().minusYears(51));
+
+        // When
+        RuleReport report = engine.evaluate(request("firstHome"), applicant, FULL_REPORT);
+
+        // Then
+        assertFalse(report.isMet(CreditCriterion.APPLICANT_AGE));
+    }
+
+    @Test
+    void whenFourSavingsChecksMet_thenSavingsCapacityNotMet() {
+        // Given: cuenta nueva, necesita 20% del monto
+        ApplicantProfile applicant = applicant();
+        applicant.setSavingsBalance(15000000L);
+        applicant.setSavingsAccountYears(1.0);
+
+        // When
+        RuleReport report = engine.evaluate(request("firstHome"), applicant, FULL_REPORT);
+
+        // Then
+        assertFalse(report.isMet(CreditCriterion.SAVINGS_CAPACITY));
+    }
+
+    @Test
+    void whenPolicyRecompiled_thenNewThresholdsApply() {
+        // Given
+        CreditRequestEntity request = request("firstHome");
+        ApplicantProfile applicant = applicant();
+        assertTrue(engine.evaluate(request, applicant, FULL_REPORT).isMet(CreditCriterion.INCOME_QUOTA));
+
+        // When
+        engine.compile(new EvaluationPolicy(30, 1, 2, 50, POLICY.financingLimits(), 70, 5, 10, 50, 5, 2, 20, 10, 30));
+
+        // Then
+        assertFalse(engine.evaluate(request, applicant, FULL_REPORT).isMet(CreditCriterion.INCOME_QUOTA));
+    }
+
+    @Test
+    void whenReportApplied_thenEvaluationHasTheSevenResults() {
+        // Given
+        ApplicantProfile applicant = applicant();
+        applicant.setRecentDelinquencies(true);
+        CreditEvaluationEntity evaluation = new CreditEvaluationEntity();
+        evaluation.setCreditHistory(true);
+
+        // When
+        engine.evaluate(request("firstHome"), applicant, FULL_REPORT).applyTo(evaluation);
+
+        // Then
+        assertTrue(evaluation.isIncomeQuota());
+        assertFalse(evaluation.isCreditHistory());
+        assertTrue(evaluation.isSavingsCapacity());
+    }
+
+    @Test
+    void whenBulkEvaluated_thenSameAsOneByOne() {
+        // Given: más que el umbral de la evaluación en paralelo
+        List<CreditRequestEntity> requests = new ArrayList<>();
+        List<ApplicantProfile> applicants = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            CreditRequestEntity request = request("firstHome");
+            request.setId((long) i);
+            request.setMaximumAmount(50000000 + i * 20000);
+            ApplicantProfile applicant = applicant();
+            applicant.setMonthlyIncome(1000000L + i * 500L);
+            applicant.setCurrentDebts(100000L);
+            requests.add(request);
+            applicants.add(i % 7 == 0 ? null : applicant);
+        }
+
+        // When
+        RuleReport[] reports = engine.evaluateAll(requests, applicants, FULL_REPORT);
+
+        // Then
+        for (int i = 0; i < requests.size(); i++) {
+            assertEquals(engine.evaluate(requests.get(i), applicants.get(i), FULL_REPORT), reports[i]);
+        }
+        assertTrue(reports[1].approved());
+        assertFalse(reports[4999].approved());
+        assertEquals(0, reports[0].met());
+    }
+
+    @Test
+    void whenBulkListsDiffer_thenRejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> engine.evaluateAll(List.of(request("firstHome")), Collections.emptyList(), FULL_REPORT));
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.prestaBanco.servicesTest;
+
+import com.example.prestaBanco.ingestion.CsvReader;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CsvReaderTest {
+
+    @Test
+    void whenFieldsQuoted_thenDelimitersQuotesAndLineBreaksKept() throws Exception {
+        // Given
+        CsvReader reader = new CsvReader(new StringReader("rut,name\r\n\"1-9\",\"Pérez, \"\"Juan\"\"\nSegundo\"\r\n2-7,Ana\n"));
+
+        // When / Then
+        assertEquals(List.of("rut", "name"), reader.next());
+        assertEquals(List.of("1-9", "Pérez, \"Juan\"\nSegundo"), reader.next());
+        assertEquals(2, reader.recordLine());
+        assertEquals(List.of("2-7", "Ana"), reader.next());
+        assertEquals(4, reader.recordLine());
+        assertNull(reader.next());
+    }
+
+    @Test
+    void whenExcelFile_thenSemicolonAndByteOrderMarkHandled() throws Exception {
+        // Given
+        CsvReader reader = new CsvReader(new StringReader("\uFEFFrut;name\n\n1-9;\"a;b\"\n;\n"));
+
+        // When / Then
+        assertEquals(';', reader.delimiter());
+        assertEquals(List.of("rut", "name"), reader.next());
+        assertEquals(List.of("1-9", "a;b"), reader.next());
+        assertEquals(3, reader.recordLine());
+        assertEquals(List.of("", ""), reader.next());
+        assertNull(reader.next());
+    }
+
+    @Test
+    void whenQuoteNeverClosed_thenRejectedAtTheLineWhereItOpens() throws Exception {
+        // Given
+        CsvReader reader = new CsvReader(new StringReader("rut,name\n1-9,\"Juan\n2-7,Ana\n"));
+        reader.next();
+
+        // When
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, reader::next);
+
+        // Then
+        assertEquals(2, reader.recordLine());
+        assertTrue(e.getMessage().contains("line 2"));
+    }
+
+    @Test
+    void whenRecordTooLong_thenRejected() throws Exception {
+        // Given
+        CsvReader reader = new CsvReader(new StringReader("\"" + "x".repeat(CsvReader.MAX_RECORD + 1)));
+
+        // When / Then
+        assertThrows(IllegalArgumentException.class, reader::next);
+    }
+}
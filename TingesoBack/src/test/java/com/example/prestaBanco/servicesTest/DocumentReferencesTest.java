@@ -0,0 +1,205 @@
+package com.example.prestaBanco.servicesTest;
+
+import com.example.prestaBanco.storage.DocumentReferences;
+import com.example.prestaBanco.storage.DocumentStore;
+import com.example.prestaBanco.storage.StoredDocument;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+public class DocumentReferencesTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private DocumentStore documentStore;
+
+    @InjectMocks
+    private DocumentReferences documentReferences;
+
+    private final StoredDocument stored = new StoredDocument("ab12", 11L, "ab12");
+    private final MockMultipartFile file = new MockMultipartFile("file", "proofIncome.pdf", "application/pdf", "proofIncome".getBytes());
+
+    DocumentReferencesTest() {
+        MockitoAnnotations.openMocks(this);
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(mock(TransactionStatus.class));
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+
+    @Test
+    void whenDocumentAlreadyReferenced_thenShared() throws IOException {
+        // Given
+        when(jdbcTemplate.queryForObject(startsWith("INSERT INTO document_blob"), eq(Integer.class), eq("ab12"), eq("ab12"), eq(11L),
+                eq("NONE"), eq(11L), eq(0L)))
+                .thenReturn(3);
+
+        // When
+        boolean shared = documentReferences.acquire(stored, file);
+
+        // Then
+        assertTrue(shared);
+        verify(documentStore, never()).exists(any());
+    }
+
+    @Test
+    void whenFirstReferenceAndFileStillThere_thenNothingWritten() throws IOException {
+        // Given
+        when(jdbcTemplate.queryForObject(startsWith("INSERT INTO document_blob"), eq(Integer.class), any(), any(), any(), any(), any(), any())).thenReturn(1);
+        when(documentStore.exists("ab12")).thenReturn(true);
+
+        // When
+        boolean shared = documentReferences.acquire(stored, file);
+
+        // Then
+        assertFalse(shared);
+        verify(documentStore, never()).store(any());
+    }
+
+    @Test
+    void whenFileDeletedByAConcurrentRelease_thenWrittenAgain() throws IOException {
+        // Given
+        when(jdbcTemplate.queryForObject(startsWith("INSERT INTO document_blob"), eq(Integer.class), any(), any(), any(), any(), any(), any())).thenReturn(1);
+        when(documentStore.exists("ab12")).thenReturn(false);
+
+        // When
+        documentReferences.acquire(stored, file);
+
+        // Then
+        verify(documentStore).store(file);
+    }
+
+    @Test
+    void whenLastReferenceReleased_thenFileDeleted() throws IOException {
+        // Given
+        when(jdbcTemplate.update(startsWith("DELETE FROM document_blob"), eq("ab12"))).thenReturn(1);
+
+        // When
+        documentReferences.release("ab12");
+
+        // Then
+        verify(jdbcTemplate).update(startsWith("UPDATE document_blob SET ref_count = ref_count - 1"), eq("ab12"));
+        verify(documentStore).delete("ab12");
+    }
+
+    @Test
+    void whenOtherReferencesRemain_thenFileKept() throws IOException {
+        // Given
+        when(jdbcTemplate.update(startsWith("DELETE FROM document_blob"), eq("ab12"))).thenReturn(0);
+
+        // When
+        documentReferences.release("ab12");
+
+        // Then
+        verify(documentStore, never()).delete(any());
+    }
+
+    @Test
+    void whenFileCannotBeDeleted_thenReleaseStillSucceeds() throws IOException {
+        // Given
+        when(jdbcTemplate.update(startsWith("DELETE FROM document_blob"), eq("ab12"))).thenReturn(1);
+        doThrow(new IOException("disco de solo lectura")).when(documentStore).delete("ab12");
+
+        // When / Then
+        assertDoesNotThrow(() -> documentReferences.release("ab12"));
+    }
+
+    @Test
+    void whenRequestRolledBack_thenUnreferencedFileDeleted() throws IOException {
+        // Given
+        when(jdbcTemplate.queryForObject(startsWith("INSERT INTO document_blob"), eq(Integer.class), any(), any(), any(), any(), any(), any())).thenReturn(1);
+        when(documentStore.exists("ab12")).thenReturn(true);
+        when(jdbcTemplate.update(startsWith("DELETE FROM document_blob"), eq("ab12"))).thenReturn(1);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            documentReferences.acquire(stored, file);
+
+            // When
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        // Then
+        verify(jdbcTemplate).update(startsWith("INSERT INTO document_blob"), eq("ab12"), eq("ab12"), eq(11L), eq("NONE"), eq(11L), eq(0L));
+        verify(documentStore).delete("ab12");
+    }
+
+    @Test
+    void whenRequestCommitted_thenNothingDiscarded() throws IOException {
+        // Given
+        when(jdbcTemplate.queryForObject(startsWith("INSERT INTO document_blob"), eq(Integer.class), any(), any(), any(), any(), any(), any())).thenReturn(2);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            documentReferences.acquire(stored, file);
+
+            // When
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        // Then
+        verify(documentStore, never()).delete(any());
+    }
+
+    @Test
+    void whenReferenceCannotBeAdded_thenStoredFileDiscardedOnRollback() throws IOException {
+        // Given
+        when(jdbcTemplate.queryForObject(startsWith("INSERT INTO document_blob"), eq(Integer.class), any(), any(), any(), any(), any(), any()))
+                .thenThrow(new QueryTimeoutException("canceling statement due to statement timeout"));
+        when(jdbcTemplate.update(startsWith("DELETE FROM document_blob"), eq("ab12"))).thenReturn(1);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            assertThrows(QueryTimeoutException.class, () -> documentReferences.acquire(stored, file));
+
+            // When
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        // Then
+        verify(jdbcTemplate).update(startsWith("INSERT INTO document_blob"), eq("ab12"), eq("ab12"), eq(11L), eq("NONE"), eq(11L), eq(0L));
+        verify(documentStore).delete("ab12");
+    }
+
+    @Test
+    void whenReferenceCannotBeAddedOutsideATransaction_thenStoredFileDiscarded() throws IOException {
+        // Given
+        when(jdbcTemplate.queryForObject(startsWith("INSERT INTO document_blob"), eq(Integer.class), any(), any(), any(), any(), any(), any()))
+                .thenThrow(new QueryTimeoutException("canceling statement due to statement timeout"));
+        when(jdbcTemplate.update(startsWith("DELETE FROM document_blob"), eq("ab12"))).thenReturn(1);
+
+        // When
+        assertThrows(QueryTimeoutException.class, () -> documentReferences.acquire(stored, file));
+
+        // Then
+        verify(documentStore).delete("ab12");
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.prestaBanco.servicesTest;
+
+import com.example.prestaBanco.cache.LoanCatalog;
+import com.example.prestaBanco.cache.LoanProduct;
+import com.example.prestaBanco.config.LoanBoundsInterceptor;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class LoanBoundsInterceptorTest {
+
+    @Mock
+    private LoanCatalog loanCatalog;
+
+    private final LoanBoundsInterceptor interceptor;
+
+    public LoanBoundsInterceptorTest() {
+        MockitoAnnotations.openMocks(this);
+        interceptor = new LoanBoundsInterceptor(loanCatalog);
+        LoanProduct product = new LoanProduct("remodeling", "Remodelación", 15, 4.5, 6.0, 100000000,
+                Map.of("Plazo", "15 años", "Tasa Interés (Anual)", "4.5% - 6.0%"), "\"1\"");
+        when(loanCatalog.find("remodeling")).thenReturn(Optional.of(product));
+    }
+
+    private static MockHttpServletRequest upload(String path, String query) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", path);
+        request.setQueryString(query);
+        request.setContentType("multipart/form-data; boundary=x");
+        return request;
+    }
+
+    @Test
+    public void whenDeclaredValuesOutsideLimits_thenRejectWith400() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        boolean proceed = interceptor.preHandle(upload("/api/v1/creditRequest/remodeling", "declaredTerm=20&declaredInterestRate=5&declaredAmount=1000000"), response, null);
+
+        assertFalse(proceed);
+        assertEquals(400, response.getStatus());
+        assertEquals("El plazo máximo para Remodelación es 15 años", response.getContentAsString());
+    }
+
+    @Test
+    public void whenDeclaredValuesWithinLimits_thenContinue() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        boolean proceed = interceptor.preHandle(upload("/api/v1/creditRequest/remodeling", "declaredTerm=15&declaredInterestRate=4.5&declaredAmount=1000000"), response, null);
+
+        assertTrue(proceed);
+        assertEquals(200, response.getStatus());
+    }
+
+    @Test
+    public void whenNoDeclaredValues_thenLeftToTheService() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertTrue(interceptor.preHandle(upload("/api/v1/creditRequest/remodeling", null), response, null));
+        assertTrue(interceptor.preHandle(upload("/api/v1/creditRequest/firstHouse", "declaredTerm=99"), response, null));
+    }
+
+    @Test
+    public void whenDeclaredValueIsNotANumber_thenReject() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertFalse(interceptor.preHandle(upload("/api/v1/creditRequest/remodeling", "declaredAmount=mucho"), response, null));
+        assertEquals(400, response.getStatus());
+    }
+}
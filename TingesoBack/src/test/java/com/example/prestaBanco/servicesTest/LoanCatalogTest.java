@@ -0,0 +1,61 @@
+package com.example.prestaBanco.servicesTest;
+
+import com.example.prestaBanco.cache.LoanCatalog;
+import com.example.prestaBanco.cache.LoanProduct;
+import com.example.prestaBanco.entities.LoanEntity;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LoanCatalogTest {
+
+    private static LoanEntity loan(String typeLoan, String name, double term, double min, double max) {
+        LoanEntity loan = new LoanEntity();
+        loan.setTypeLoan(typeLoan);
+        loan.setName(name);
+        loan.setMaximumTerm(term);
+        loan.setInterestRateMin(min);
+        loan.setInterestRateMax(max);
+        loan.setMaximumAmount(100000000);
+        return loan;
+    }
+
+    @Test
+    void whenLoaded_thenFoundByCodeAndByName() {
+        LoanCatalog catalog = new LoanCatalog();
+        catalog.load(List.of(loan("firstHome", "Primera Vivienda", 30, 3.5, 5.0), loan("remodeling", "Remodelación", 15, 4.5, 6.0)));
+
+        LoanProduct byCode = catalog.find("firstHome").orElseThrow();
+        LoanProduct byName = catalog.find("Primera Vivienda").orElseThrow();
+
+        assertSame(byCode, byName);
+        assertEquals(30, byCode.maximumTerm());
+        assertTrue(catalog.find("commercial").isEmpty());
+        assertTrue(catalog.find(null).isEmpty());
+    }
+
+    @Test
+    void whenLoaded_thenInfoMatchesPreviousFormat() {
+        LoanCatalog catalog = new LoanCatalog();
+        catalog.load(List.of(loan("secondHome", "Segunda Vivienda", 20, 4.0, 6.0)));
+
+        Map<String, String> info = catalog.find("Segunda Vivienda").orElseThrow().info();
+
+        assertEquals(Map.of("Plazo", "20 años", "Tasa Interés (Anual)", "4.0% - 6.0%"), info);
+    }
+
+    @Test
+    void whenReloaded_thenOldProductsReplacedAndEtagChanges() {
+        LoanCatalog catalog = new LoanCatalog();
+        catalog.load(List.of(loan("commercial", "Propiedades Comerciales", 25, 5.0, 7.0)));
+        String etag = catalog.find("commercial").orElseThrow().etag();
+
+        catalog.load(List.of(loan("commercial", "Propiedades Comerciales", 25, 5.5, 7.0)));
+
+        assertNotEquals(etag, catalog.find("commercial").orElseThrow().etag());
+        assertEquals("5.5% - 7.0%", catalog.find("commercial").orElseThrow().info().get("Tasa Interés (Anual)"));
+    }
+}
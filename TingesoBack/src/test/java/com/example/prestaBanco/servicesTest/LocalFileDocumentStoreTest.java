@@ -0,0 +1,178 @@
+package com.example.prestaBanco.servicesTest;
+
+import com.example.prestaBanco.storage.DocumentCodec;
+import com.example.prestaBanco.storage.LocalFileDocumentStore;
+import com.example.prestaBanco.storage.StoredDocument;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.Resource;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LocalFileDocumentStoreTest {
+
+    @TempDir
+    Path root;
+
+    @Test
+    public void testStore_WritesContentAndReturnsReference() throws IOException {
+        LocalFileDocumentStore store = new LocalFileDocumentStore(root.toString());
+        byte[] content = "proofIncome".getBytes();
+
+        StoredDocument stored = store.store(new MockMultipartFile("file", "proofIncome.pdf", "application/pdf", content));
+
+        assertNotNull(stored.getId());
+        assertEquals(content.length, stored.getSize());
+        assertEquals("7e09b4f99b9209e62900a58d2e49497153440a46ccaf3131e47954a3a22320ca", stored.getSha256());
+        try (InputStream in = store.open(stored.getId())) {
+            assertArrayEquals(content, in.readAllBytes());
+        }
+    }
+
+    @Test
+    public void testStore_SameContentIsStoredOnce() throws IOException {
+        LocalFileDocumentStore store = new LocalFileDocumentStore(root.toString());
+
+        StoredDocument first = store.store(new MockMultipartFile("file", "a.pdf", "application/pdf", "same".getBytes()));
+        StoredDocument second = store.store(new MockMultipartFile("file", "b.pdf", "application/pdf", "same".getBytes()));
+
+        assertEquals(first.getId(), second.getId());
+        assertEquals(first.getSha256(), second.getSha256());
+        assertTrue(store.exists(first.getId()));
+        try (Stream<Path> files = Files.list(root.resolve(first.getId().substring(0, 2)))) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    public void testStore_LeavesNoTemporaryFiles() throws IOException {
+        LocalFileDocumentStore store = new LocalFileDocumentStore(root.toString());
+
+        store.store(new MockMultipartFile("file", "a.pdf", "application/pdf", "content".getBytes()));
+
+        try (Stream<Path> tmp = Files.list(root.resolve("tmp"))) {
+            assertEquals(0, tmp.count());
+        }
+    }
+
+    @Test
+    public void testLoad_ReturnsFileResourceWithLength() throws IOException {
+        LocalFileDocumentStore store = new LocalFileDocumentStore(root.toString());
+        StoredDocument stored = store.store(new MockMultipartFile("file", "a.pdf", "application/pdf", "content".getBytes()));
+
+        Resource resource = store.load(stored.getId());
+
+        assertTrue(resource.isFile());
+        assertEquals(7, resource.contentLength());
+    }
+
+    @Test
+    public void testStore_CompressesTextDocuments() throws IOException {
+        LocalFileDocumentStore store = new LocalFileDocumentStore(root.toString());
+        byte[] content = "Presupuesto de remodelación; partida; monto\n".repeat(2000).getBytes(StandardCharsets.UTF_8);
+
+        StoredDocument stored = store.store(new MockMultipartFile("file", "budget.csv", "text/csv", content));
+
+        assertEquals(DocumentCodec.GZIP, stored.getCodec());
+        assertEquals(content.length, stored.getSize());
+        assertTrue(stored.getStoredSize() < content.length / 10);
+        assertTrue(Files.isRegularFile(root.resolve(stored.getId().substring(0, 2)).resolve(stored.getId() + ".gz")));
+        try (InputStream in = store.open(stored.getId())) {
+            assertArrayEquals(content, in.readAllBytes());
+        }
+        Resource resource = store.load(stored.getId());
+        assertFalse(resource.isFile());
+        assertEquals(content.length, resource.contentLength());
+        try (InputStream in = resource.getInputStream()) {
+            assertArrayEquals(content, in.readAllBytes());
+        }
+    }
+
+    @Test
+    public void testStore_LeavesIncompressibleDocumentsAsIs() throws IOException {
+        LocalFileDocumentStore store = new LocalFileDocumentStore(root.toString());
+        byte[] content = new byte[200_000];
+        new Random(7).nextBytes(content);
+
+        StoredDocument stored = store.store(new MockMultipartFile("file", "scan.pdf", "application/pdf", content));
+
+        assertEquals(DocumentCodec.NONE, stored.getCodec());
+        assertEquals(content.length, stored.getStoredSize());
+        assertTrue(store.load(stored.getId()).isFile());
+    }
+
+    @Test
+    public void testStore_CompressionDisabled() throws IOException {
+        LocalFileDocumentStore store = new LocalFileDocumentStore(root.toString(), false, 1, 10);
+        byte[] content = "a".repeat(10_000).getBytes();
+
+        StoredDocument stored = store.store(new MockMultipartFile("file", "a.txt", "text/plain", content));
+
+        assertEquals(DocumentCodec.NONE, stored.getCodec());
+        assertEquals(content.length, store.load(stored.getId()).contentLength());
+    }
+
+    @Test
+    public void testStore_StoredSizeIsTheSizeOnDisk() throws IOException {
+        LocalFileDocumentStore store = new LocalFileDocumentStore(root.toString());
+        byte[] content = "Liquidación de sueldo; haberes; descuentos\n".repeat(2000).getBytes(StandardCharsets.UTF_8);
+
+        StoredDocument stored = store.store(new MockMultipartFile("file", "salary.csv", "text/csv", content));
+        StoredDocument again = store.store(new MockMultipartFile("file", "salary.csv", "text/csv", content));
+
+        long onDisk = Files.size(root.resolve(stored.getId().substring(0, 2)).resolve(stored.getId() + ".gz"));
+        assertEquals(onDisk, stored.getStoredSize());
+        assertEquals(onDisk, again.getStoredSize());
+    }
+
+    @Test
+    public void testStore_AlreadyStoredCompressed_ReportsTheStoredFile() throws IOException {
+        byte[] content = "a".repeat(10_000).getBytes();
+        StoredDocument compressed = new LocalFileDocumentStore(root.toString())
+                .store(new MockMultipartFile("file", "a.txt", "text/plain", content));
+
+        StoredDocument stored = new LocalFileDocumentStore(root.toString(), false, 1, 10)
+                .store(new MockMultipartFile("file", "a.txt", "text/plain", content));
+
+        assertEquals(DocumentCodec.GZIP, stored.getCodec());
+        assertEquals(compressed.getStoredSize(), stored.getStoredSize());
+    }
+
+    @Test
+    public void testDelete_RemovesCompressedDocument() throws IOException {
+        LocalFileDocumentStore store = new LocalFileDocumentStore(root.toString());
+        StoredDocument stored = store.store(new MockMultipartFile("file", "a.txt", "text/plain", "a".repeat(10_000).getBytes()));
+
+        store.delete(stored.getId());
+
+        assertFalse(store.exists(stored.getId()));
+        assertThrows(IOException.class, () -> store.load(stored.getId()));
+    }
+
+    @Test
+    public void testDelete_RemovesDocument() throws IOException {
+        LocalFileDocumentStore store = new LocalFileDocumentStore(root.toString());
+        StoredDocument stored = store.store(new MockMultipartFile("file", "a.pdf", "application/pdf", "content".getBytes()));
+
+        store.delete(stored.getId());
+
+        assertThrows(IOException.class, () -> store.open(stored.getId()));
+        assertThrows(IOException.class, () -> store.load(stored.getId()));
+    }
+
+    @Test
+    public void testOpen_RejectsPathTraversal() {
+        LocalFileDocumentStore store = new LocalFileDocumentStore(root.toString());
+
+        assertThrows(IllegalArgumentException.class, () -> store.open("../../etc/passwd"));
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.prestaBanco.servicesTest;
+
+import com.example.prestaBanco.notifications.NotificationListener;
+import com.example.prestaBanco.notifications.PgNotificationBus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.postgresql.PGConnection;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.DriverPropertyInfo;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Properties;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Logger;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+public class PgNotificationBusTest {
+
+    private static final String URL = "jdbc:notification-bus-test:prestabanco";
+
+    private final FakeDriver driver = new FakeDriver();
+
+    private final PgNotificationBus bus = new PgNotificationBus();
+
+    PgNotificationBusTest() throws SQLException {
+        DriverManager.registerDriver(driver);
+        ReflectionTestUtils.setField(bus, "url", URL);
+        ReflectionTestUtils.setField(bus, "reconnectDelayMs", 10L);
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        bus.stop();
+        DriverManager.deregisterDriver(driver);
+    }
+
+    @Test
+    void whenConnectionDrops_thenListenersToldAndLoadedAgainAfterReconnect() throws SQLException {
+        // Given: la primera conexión se cae en el primer sondeo y la segunda sigue viva
+        PGConnection dropped = mock(PGConnection.class);
+        when(dropped.getNotifications(anyInt())).thenThrow(new SQLException("An I/O error occurred while sending to the backend"));
+        PGConnection alive = mock(PGConnection.class);
+        when(alive.getNotifications(anyInt())).thenAnswer(invocation -> {
+            LockSupport.parkNanos(10_000_000L);
+            return null;
+        });
+        driver.connections.add(connection(dropped));
+        driver.connections.add(connection(alive));
+        NotificationListener listener = mock(NotificationListener.class);
+        bus.subscribe("client_registered", listener);
+
+        // When
+        bus.start();
+
+        // Then
+        InOrder order = inOrder(listener);
+        order.verify(listener, timeout(2000)).onListen();
+        order.verify(listener, timeout(2000)).onDisconnect();
+        order.verify(listener, timeout(2000)).onListen();
+    }
+
+    private static Connection connection(PGConnection pg) throws SQLException {
+        Connection connection = mock(Connection.class);
+        when(connection.unwrap(PGConnection.class)).thenReturn(pg);
+        when(connection.createStatement()).thenReturn(mock(Statement.class));
+        return connection;
+    }
+
+    // DriverManager solo usa drivers que puede cargar por nombre, así que no sirve un mock
+    private static class FakeDriver implements Driver {
+
+        private final Queue<Connection> connections = new ConcurrentLinkedQueue<>();
+
+        @Override
+        public Connection connect(String url, Properties info) throws SQLException {
+            if (!acceptsURL(url)) {
+                return null;
+            }
+            Connection connection = connections.poll();
+            if (connection == null) {
+                throw new SQLException("Connection refused");
+            }
+            return connection;
+        }
+
+        @Override
+        public boolean acceptsURL(String url) {
+            return URL.equals(url);
+        }
+
+        @Override
+        public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) {
+            return new DriverPropertyInfo[0];
+        }
+
+        @Override
+        public int getMajorVersion() {
+            return 1;
+        }
+
+        @Override
+        public int getMinorVersion() {
+            return 0;
+        }
+
+        @Override
+        public boolean jdbcCompliant() {
+            return false;
+        }
+
+        @Override
+        public Logger getParentLogger() {
+            return Logger.getGlobal();
+        }
+    }
+}
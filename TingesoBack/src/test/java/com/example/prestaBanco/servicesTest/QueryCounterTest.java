@@ -0,0 +1,119 @@
+package com.example.prestaBanco.servicesTest;
+
+import com.example.prestaBanco.metrics.CreditMetrics;
+import com.example.prestaBanco.metrics.QueryCountInterceptor;
+import com.example.prestaBanco.metrics.QueryCounter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class QueryCounterTest {
+
+    @Mock
+    private DataSource dataSource;
+
+    @Mock
+    private Connection connection;
+
+    @Mock
+    private PreparedStatement preparedStatement;
+
+    @Mock
+    private Statement statement;
+
+    private final QueryCounter queryCounter = new QueryCounter();
+
+    QueryCounterTest() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @AfterEach
+    void clearRequest() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void whenStatementsRunThroughTheDataSource_thenEachExecutionCounted() throws Exception {
+        // Given
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        when(connection.createStatement()).thenReturn(statement);
+        DataSource counted = (DataSource) queryCounter.postProcessAfterInitialization(dataSource, "dataSource");
+        QueryCounter.reset();
+
+        // When
+        Connection wrapped = counted.getConnection();
+        PreparedStatement update = wrapped.prepareStatement("UPDATE form_credit SET state = ? WHERE id = ?");
+        update.setString(1, "E4");
+        update.addBatch();
+        update.executeBatch();
+        update.executeUpdate();
+        wrapped.createStatement().execute("SELECT 1");
+        update.close();
+
+        // Then
+        assertEquals(3, QueryCounter.count());
+        verify(preparedStatement).setString(1, "E4");
+        verify(preparedStatement).executeBatch();
+        verify(statement).execute("SELECT 1");
+        assertEquals(wrapped, wrapped);
+        assertSame(counted, queryCounter.postProcessAfterInitialization(counted, "dataSource"));
+    }
+
+    @Test
+    void whenRequestCompletes_thenQueriesTaggedWithTheResolvedLoanTypeAndState() {
+        // Given
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        CreditMetrics creditMetrics = new CreditMetrics();
+        ReflectionTestUtils.setField(creditMetrics, "meterRegistry", registry);
+        QueryCountInterceptor interceptor = new QueryCountInterceptor(creditMetrics);
+        MockHttpServletRequest request = new MockHttpServletRequest("PUT", "/api/v1/creditRequest/EditStatus/7/E4");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/v1/creditRequest/EditStatus/{id}/{state}");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        // When
+        interceptor.preHandle(request, new MockHttpServletResponse(), null);
+        creditMetrics.stop(creditMetrics.start(), CreditMetrics.EDIT_STATUS, "firstHome", "E4");
+        interceptor.afterCompletion(request, new MockHttpServletResponse(), null, null);
+
+        // Then
+        DistributionSummary queries = registry.get(CreditMetrics.DB_QUERIES)
+                .tags("method", "PUT", "uri", "/api/v1/creditRequest/EditStatus/{id}/{state}", "loanType", "firstHome", "state", "E4")
+                .summary();
+        assertEquals(1, queries.count());
+    }
+
+    @Test
+    void whenRequestRecordsNoOperation_thenQueriesTaggedNone() {
+        // Given
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        CreditMetrics creditMetrics = new CreditMetrics();
+        ReflectionTestUtils.setField(creditMetrics, "meterRegistry", registry);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/client/");
+
+        // When
+        new QueryCountInterceptor(creditMetrics).afterCompletion(request, new MockHttpServletResponse(), null, null);
+
+        // Then
+        assertNotNull(registry.find(CreditMetrics.DB_QUERIES)
+                .tags("uri", "UNKNOWN", "loanType", "none", "state", "none").summary());
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.prestaBanco.servicesTest;
+
+import com.example.prestaBanco.entities.RequestState;
+import com.example.prestaBanco.entities.RequestStateConverter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RequestStateTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void whenCodeOrLabel_thenSameState() {
+        // When / Then
+        for (RequestState state : RequestState.values()) {
+            assertEquals(state, RequestState.fromCode(state.code()));
+            assertEquals(state, RequestState.parse(state.label()));
+            assertEquals(state, RequestState.fromId(state.id()));
+        }
+        assertEquals(RequestState.PRE_APPROVED, RequestState.parse("E4"));
+    }
+
+    @Test
+    void whenUnknownState_thenRejected() {
+        assertThrows(IllegalArgumentException.class, () -> RequestState.fromCode("E0"));
+        assertThrows(IllegalArgumentException.class, () -> RequestState.fromCode("E10"));
+        assertThrows(IllegalArgumentException.class, () -> RequestState.parse("Aprobadísima"));
+        assertThrows(IllegalArgumentException.class, () -> RequestState.fromId((short) 10));
+    }
+
+    @Test
+    void whenFinalState_thenOnlyItself() {
+        // When / Then
+        for (RequestState state : EnumSet.of(RequestState.REJECTED, RequestState.CANCELLED, RequestState.DISBURSEMENT)) {
+            for (RequestState target : RequestState.values()) {
+                assertEquals(state == target, state.canMoveTo(target));
+            }
+        }
+    }
+
+    @Test
+    void whenEvaluated_thenPreApprovedOrRejectedFromReview() {
+        // Then
+        assertTrue(RequestState.IN_EVALUATION.canMoveTo(RequestState.PRE_APPROVED));
+        assertTrue(RequestState.PRE_APPROVED.canMoveTo(RequestState.REJECTED));
+        assertFalse(RequestState.APPROVED.canMoveTo(RequestState.PRE_APPROVED));
+        assertFalse(RequestState.INITIAL_REVIEW.canMoveTo(RequestState.APPROVED));
+        assertTrue(RequestState.canMove(null, RequestState.APPROVED));
+        assertEquals(EnumSet.of(RequestState.INITIAL_REVIEW, RequestState.PENDING_DOCUMENTATION, RequestState.IN_EVALUATION,
+                RequestState.PRE_APPROVED), RequestState.predecessors(RequestState.PRE_APPROVED));
+    }
+
+    @Test
+    void whenSerialized_thenLabel() throws Exception {
+        // When
+        String json = objectMapper.writeValueAsString(RequestState.PRE_APPROVED);
+
+        // Then
+        assertEquals("\"Pre-Aprobada\"", json);
+        assertEquals(RequestState.PRE_APPROVED, objectMapper.readValue("\"E4\"", RequestState.class));
+    }
+
+    @Test
+    void whenConverted_thenStoredAsItsNumber() {
+        // Given
+        RequestStateConverter converter = new RequestStateConverter();
+
+        // When / Then
+        assertEquals((short) 7, converter.convertToDatabaseColumn(RequestState.REJECTED));
+        assertEquals(RequestState.REJECTED, converter.convertToEntityAttribute((short) 7));
+        assertNull(converter.convertToDatabaseColumn(null));
+        assertNull(converter.convertToEntityAttribute(null));
+    }
+}
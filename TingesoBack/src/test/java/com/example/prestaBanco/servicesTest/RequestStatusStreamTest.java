@@ -0,0 +1,173 @@
+package com.example.prestaBanco.servicesTest;
+
+import com.example.prestaBanco.entities.RequestState;
+import com.example.prestaBanco.notifications.PgNotificationBus;
+import com.example.prestaBanco.notifications.RequestStatusChanged;
+import com.example.prestaBanco.notifications.RequestStatusStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class RequestStatusStreamTest {
+
+    @Mock
+    private PgNotificationBus notificationBus;
+
+    @InjectMocks
+    private RequestStatusStream stream;
+
+    RequestStatusStreamTest() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(stream, "timeout", Duration.ofMinutes(1));
+        ReflectionTestUtils.setField(stream, "heartbeatInterval", Duration.ofSeconds(20));
+        ReflectionTestUtils.setField(stream, "maxSubscribers", 2);
+        ReflectionTestUtils.setField(stream, "queueCapacity", 2);
+        ReflectionTestUtils.setField(stream, "sendTimeout", Duration.ofSeconds(10));
+    }
+
+    @AfterEach
+    void stop() {
+        stream.destroy();
+    }
+
+    @Test
+    void whenStatusChanged_thenPublishedForTheOtherBackends() {
+        // When
+        stream.onStatusChanged(new RequestStatusChanged(5L, 3L, RequestState.PRE_APPROVED, "Primera Vivienda"));
+
+        // Then
+        ArgumentCaptor<String> payload = ArgumentCaptor.forClass(String.class);
+        verify(notificationBus).publish(eq(RequestStatusStream.CHANNEL), payload.capture());
+        assertTrue(payload.getValue().endsWith(",5,3,4,Primera Vivienda"));
+    }
+
+    @Test
+    void whenRequestWithoutClient_thenPublishedWithEmptyClient() {
+        // When
+        stream.onStatusChanged(new RequestStatusChanged(5L, null, RequestState.REJECTED, null));
+
+        // Then
+        ArgumentCaptor<String> payload = ArgumentCaptor.forClass(String.class);
+        verify(notificationBus).publish(eq(RequestStatusStream.CHANNEL), payload.capture());
+        assertTrue(payload.getValue().endsWith(",5,,7,"));
+    }
+
+    @Test
+    void whenNotificationReceived_thenNotPublishedAgain() {
+        // Given
+        stream.subscribeExecutive();
+
+        // When
+        stream.onNotification("otro,5,3,4,firstHome");
+        stream.onNotification("mal formado");
+
+        // Then
+        verify(notificationBus, never()).publish(anyString(), anyString());
+    }
+
+    @Test
+    void whenBusFails_thenStateChangeIsNotRolledBack() {
+        // Given
+        doThrow(new IllegalStateException("sin conexión")).when(notificationBus).publish(anyString(), anyString());
+
+        // When / Then
+        assertDoesNotThrow(() -> stream.onStatusChanged(new RequestStatusChanged(5L, 3L, RequestState.PRE_APPROVED, "firstHome")));
+    }
+
+    @Test
+    void whenTooManyStreams_thenRejected() {
+        // Given
+        stream.subscribeClient(3L);
+        stream.subscribeExecutive();
+
+        // When / Then
+        assertThrows(RejectedExecutionException.class, () -> stream.subscribeClient(4L));
+        assertEquals(2, stream.subscribers());
+    }
+
+    @Test
+    void whenStreamStalls_thenOtherStreamsStillServedAndTheStalledOneClosed() throws Exception {
+        // Given
+        CountDownLatch unblock = new CountDownLatch(1);
+        CountDownLatch stalledClosed = new CountDownLatch(1);
+        Semaphore delivered = new Semaphore(0);
+        connect(stream.subscribeExecutive(), (proxy, method, args) -> {
+            if (method.getName().equals("send")) {
+                unblock.await();
+            } else if (method.getName().equals("complete")) {
+                stalledClosed.countDown();
+            }
+            return null;
+        });
+        connect(stream.subscribeExecutive(), (proxy, method, args) -> {
+            if (method.getName().equals("send")) {
+                delivered.release();
+            }
+            return null;
+        });
+
+        // When / Then
+        for (int i = 0; i < 5; i++) {
+            stream.onNotification("otro," + i + ",3,4,firstHome");
+            assertTrue(delivered.tryAcquire(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, stream.subscribers());
+        unblock.countDown();
+        assertTrue(stalledClosed.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void whenWriteTakesLongerThanTheSendTimeout_thenStreamClosedOnTheNextEvent() throws Exception {
+        // Given
+        ReflectionTestUtils.setField(stream, "queueCapacity", 100);
+        ReflectionTestUtils.setField(stream, "sendTimeout", Duration.ofMillis(50));
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch unblock = new CountDownLatch(1);
+        CountDownLatch closed = new CountDownLatch(1);
+        connect(stream.subscribeClient(3L), (proxy, method, args) -> {
+            if (method.getName().equals("send")) {
+                sending.countDown();
+                unblock.await();
+            } else if (method.getName().equals("complete")) {
+                closed.countDown();
+            }
+            return null;
+        });
+        stream.onNotification("otro,5,3,4,firstHome");
+        assertTrue(sending.await(5, TimeUnit.SECONDS));
+        Thread.sleep(100);
+
+        // When
+        stream.onNotification("otro,6,3,7,firstHome");
+
+        // Then
+        assertEquals(0, stream.subscribers());
+        unblock.countDown();
+        assertTrue(closed.await(5, TimeUnit.SECONDS));
+    }
+
+    // Conecta el emitter a una respuesta, como Spring MVC cuando el controlador lo devuelve
+    private static void connect(SseEmitter emitter, InvocationHandler response) throws Exception {
+        Class<?> handler = Class.forName("org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter$Handler");
+        ReflectionTestUtils.invokeMethod(emitter, "initialize",
+                Proxy.newProxyInstance(handler.getClassLoader(), new Class<?>[]{handler}, response));
+    }
+}
@@ -0,0 +1,254 @@
+package com.example.prestaBanco.servicesTest;
+
+import com.example.prestaBanco.entities.CreditRequestEntity;
+import com.example.prestaBanco.entities.RequestState;
+import com.example.prestaBanco.entities.RescoreJobEntity;
+import com.example.prestaBanco.evaluation.CreditCriterion;
+import com.example.prestaBanco.evaluation.CreditRuleEngine;
+import com.example.prestaBanco.evaluation.RescoreJob;
+import com.example.prestaBanco.evaluation.RuleReport;
+import com.example.prestaBanco.metrics.CreditMetrics;
+import com.example.prestaBanco.notifications.RequestStatusChanged;
+import com.example.prestaBanco.repositories.RescoreJobRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+public class RescoreJobTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private DataSource dataSource;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private RescoreJobRepository rescoreJobRepository;
+
+    @Mock
+    private CreditRuleEngine creditRuleEngine;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private CreditMetrics creditMetrics;
+
+    @Mock
+    private Connection lockConnection;
+
+    @Mock
+    private PreparedStatement lockStatement;
+
+    @Mock
+    private ResultSet lockResult;
+
+    @Mock
+    private Connection connection;
+
+    @Mock
+    private PreparedStatement updateState;
+
+    @Mock
+    private PreparedStatement updateEvaluation;
+
+    @Mock
+    private PreparedStatement updateProgress;
+
+    @InjectMocks
+    private RescoreJob rescoreJob;
+
+    @SuppressWarnings("unchecked")
+    RescoreJobTest() throws Exception {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(rescoreJob, "chunkSize", 500);
+        ReflectionTestUtils.setField(rescoreJob, "parallelism", 2);
+        when(dataSource.getConnection()).thenReturn(lockConnection);
+        when(lockConnection.prepareStatement(anyString())).thenReturn(lockStatement);
+        when(lockStatement.executeQuery()).thenReturn(lockResult);
+        when(lockResult.next()).thenReturn(true);
+        when(lockResult.getBoolean(1)).thenReturn(true);
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(mock(TransactionStatus.class));
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        when(jdbcTemplate.execute(any(ConnectionCallback.class)))
+                .thenAnswer(invocation -> invocation.<ConnectionCallback<?>>getArgument(0).doInConnection(connection));
+        when(connection.prepareStatement(startsWith("UPDATE form_credit"))).thenReturn(updateState);
+        when(connection.prepareStatement(startsWith("UPDATE credit_evaluation"))).thenReturn(updateEvaluation);
+        when(connection.prepareStatement(startsWith("UPDATE rescore_job"))).thenReturn(updateProgress);
+        when(updateEvaluation.executeBatch()).thenReturn(new int[]{1});
+        when(updateState.executeBatch()).thenReturn(new int[]{1});
+        // Todas las solicitudes con datos resultan rechazadas
+        when(creditRuleEngine.evaluateAll(any(), any(), any())).thenAnswer(invocation -> {
+            List<CreditRequestEntity> requests = invocation.getArgument(0);
+            return requests.stream().map(request -> new RuleReport(request.getId(), CreditCriterion.ALL, 0)).toArray(RuleReport[]::new);
+        });
+    }
+
+    @AfterEach
+    void stop() throws Exception {
+        rescoreJob.destroy();
+    }
+
+    private static RescoreJobEntity runningJob() {
+        RescoreJobEntity job = new RescoreJobEntity();
+        job.setId(1L);
+        job.setStatus(RescoreJobEntity.RUNNING);
+        job.setMode(CreditRuleEngine.Mode.FULL_REPORT.name());
+        job.setLastRequestId(10L);
+        return job;
+    }
+
+    // Fila del lote; con ingresos la evaluación tiene datos del solicitante
+    private static ResultSet row(long id, RequestState state, Long evaluationId, Long monthlyIncome) throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getLong("id")).thenReturn(id);
+        when(rs.getObject("client_id", Long.class)).thenReturn(3L);
+        when(rs.getString("type_loan")).thenReturn("firstHome");
+        when(rs.getInt("maximum_amount")).thenReturn(100000000);
+        when(rs.getInt("term")).thenReturn(20);
+        when(rs.getDouble("interest_rate")).thenReturn(4.5);
+        when(rs.getShort("state")).thenReturn(state.id());
+        when(rs.getObject("evaluation_id", Long.class)).thenReturn(evaluationId);
+        when(rs.getObject("monthly_income", Long.class)).thenReturn(monthlyIncome);
+        return rs;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void chunks(ResultSet... rows) {
+        when(jdbcTemplate.query(startsWith("SELECT f.id"), any(RowMapper.class), any(), any(), eq(10L), any()))
+                .thenAnswer(invocation -> {
+                    RowMapper<Object> mapper = invocation.getArgument(1);
+                    List<Object> mapped = new ArrayList<>();
+                    for (int i = 0; i < rows.length; i++) {
+                        mapped.add(mapper.mapRow(rows[i], i));
+                    }
+                    return mapped;
+                });
+        when(jdbcTemplate.query(startsWith("SELECT f.id"), any(RowMapper.class), any(), any(), eq(12L), any()))
+                .thenReturn(List.of());
+    }
+
+    @Test
+    void whenJobResumed_thenContinuesFromCursorAndSavesProgress() throws Exception {
+        // Given
+        when(rescoreJobRepository.findById(1L)).thenReturn(Optional.of(runningJob()));
+        chunks(row(11L, RequestState.PRE_APPROVED, 7L, 2000000L), row(12L, RequestState.IN_EVALUATION, 8L, null));
+
+        // When
+        rescoreJob.resume(1L);
+
+        // Then
+        verify(jdbcTemplate, timeout(5000)).update(startsWith("UPDATE rescore_job SET status"),
+                eq(RescoreJobEntity.DONE), any(), any(), eq(1L));
+        verify(updateState).setShort(1, RequestState.REJECTED.id());
+        verify(updateState).setLong(2, 11L);
+        verify(updateState).setShort(3, RequestState.PRE_APPROVED.id());
+        verify(updateState, times(1)).addBatch();
+        verify(updateEvaluation).setLong(8, 7L);
+        verify(updateEvaluation, times(1)).addBatch();
+        verify(updateProgress).setLong(1, 2);
+        verify(updateProgress).setLong(2, 1);
+        verify(updateProgress).setLong(3, 1);
+        verify(updateProgress).setLong(4, 12L);
+        verify(lockStatement, atLeastOnce()).setLong(1, 4_003L);
+        verify(eventPublisher).publishEvent(new RequestStatusChanged(11L, 3L, RequestState.REJECTED, "firstHome"));
+    }
+
+    @Test
+    void whenStateChangedMeanwhile_thenEvaluationOnlyRewrittenInTheStateItLeadsTo() throws Exception {
+        // Given: un ejecutivo cambia la solicitud 11 entre la lectura y la escritura
+        when(rescoreJobRepository.findById(1L)).thenReturn(Optional.of(runningJob()));
+        chunks(row(11L, RequestState.PRE_APPROVED, 7L, 2000000L), row(12L, RequestState.IN_EVALUATION, 8L, null));
+        when(updateState.executeBatch()).thenReturn(new int[]{0});
+
+        // When
+        rescoreJob.resume(1L);
+
+        // Then: la evaluación se guarda solo si la solicitud quedó rechazada, después del cambio de estado
+        verify(jdbcTemplate, timeout(5000)).update(startsWith("UPDATE rescore_job SET status"),
+                eq(RescoreJobEntity.DONE), any(), any(), eq(1L));
+        verify(connection).prepareStatement(contains("AND EXISTS (SELECT 1 FROM form_credit f WHERE f.id = ? AND f.state = ?)"));
+        verify(updateEvaluation).setLong(9, 11L);
+        verify(updateEvaluation).setShort(10, RequestState.REJECTED.id());
+        InOrder order = inOrder(updateState, updateEvaluation);
+        order.verify(updateState).executeBatch();
+        order.verify(updateEvaluation).executeBatch();
+        verify(updateProgress).setLong(2, 0);
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+    }
+
+    @Test
+    void whenLockHeldByAnotherBackend_thenNothingIsRead() throws Exception {
+        // Given
+        when(lockResult.next()).thenReturn(true);
+        when(lockResult.getBoolean(1)).thenReturn(false);
+        when(rescoreJobRepository.findById(1L)).thenReturn(Optional.of(runningJob()));
+
+        // When
+        rescoreJob.resume(1L);
+        rescoreJob.destroy();
+
+        // Then
+        verify(jdbcTemplate, never()).query(anyString(), any(RowMapper.class), any(), any(), anyLong(), any());
+        verify(jdbcTemplate, never()).execute(any(ConnectionCallback.class));
+    }
+
+    @Test
+    void whenAnotherJobRunning_thenStartRejected() {
+        // Given
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class), any(), any())).thenReturn(3L);
+        when(rescoreJobRepository.saveAndFlush(any())).thenThrow(new DataIntegrityViolationException("uq_rescore_job_running"));
+
+        // When / Then
+        assertThrows(IllegalStateException.class, () -> rescoreJob.start(CreditRuleEngine.Mode.FULL_REPORT));
+    }
+
+    @Test
+    void whenChunkFails_thenJobMarkedFailed() {
+        // Given
+        when(rescoreJobRepository.findById(1L)).thenReturn(Optional.of(runningJob()));
+        when(jdbcTemplate.query(startsWith("SELECT f.id"), any(RowMapper.class), any(), any(), anyLong(), any()))
+                .thenThrow(new IllegalStateException("conexión perdida"));
+
+        // When
+        rescoreJob.resume(1L);
+
+        // Then
+        verify(jdbcTemplate, timeout(5000)).update(startsWith("UPDATE rescore_job SET status"),
+                eq(RescoreJobEntity.FAILED), eq("conexión perdida"), any(), eq(1L), eq(RescoreJobEntity.RUNNING));
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.prestaBanco.servicesTest;
+
+import com.example.prestaBanco.cache.RutBloomFilter;
+import com.example.prestaBanco.notifications.PgNotificationBus;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+public class RutBloomFilterTest {
+
+    @Test
+    void whenNotLoaded_thenNeverDefinitelyAbsent() {
+        RutBloomFilter filter = new RutBloomFilter(1000, 0.01);
+
+        assertFalse(filter.isDefinitelyAbsent("12345678-5"));
+    }
+
+    @Test
+    void whenRutAdded_thenNotDefinitelyAbsent() {
+        RutBloomFilter filter = new RutBloomFilter(1000, 0.01);
+        filter.add("12345678-5");
+        filter.add("10000013-K");
+        filter.markReady();
+
+        assertFalse(filter.isDefinitelyAbsent("12345678-5"));
+        assertFalse(filter.isDefinitelyAbsent("12.345.678-5"));
+        assertFalse(filter.isDefinitelyAbsent("10000013-k"));
+        assertTrue(filter.isDefinitelyAbsent("1234567-4"));
+    }
+
+    @Test
+    void whenValueIsNotARut_thenNeverDefinitelyAbsent() {
+        RutBloomFilter filter = new RutBloomFilter(1000, 0.01);
+        filter.markReady();
+
+        assertFalse(filter.isDefinitelyAbsent(null));
+        assertFalse(filter.isDefinitelyAbsent("invalidRut"));
+        assertFalse(filter.isDefinitelyAbsent(""));
+    }
+
+    @Test
+    void whenManyRutsAdded_thenNoFalseNegativesAndFewFalsePositives() {
+        RutBloomFilter filter = new RutBloomFilter(10_000, 0.01);
+        for (int body = 10_000_000; body < 10_010_000; body++) {
+            filter.add(body + "-" + (body % 10));
+        }
+        filter.markReady();
+
+        for (int body = 10_000_000; body < 10_010_000; body++) {
+            assertFalse(filter.isDefinitelyAbsent(body + "-" + (body % 10)));
+        }
+        int falsePositives = 0;
+        for (int body = 20_000_000; body < 20_010_000; body++) {
+            if (!filter.isDefinitelyAbsent(body + "-" + (body % 10))) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 300, "false positives: " + falsePositives);
+    }
+
+    @Test
+    void whenManyRutsRegistered_thenFewNotificationsThatOtherBackendsRead() {
+        // Given
+        RutBloomFilter filter = new RutBloomFilter(10_000, 0.01);
+        PgNotificationBus bus = mock(PgNotificationBus.class);
+        ReflectionTestUtils.setField(filter, "notificationBus", bus);
+        List<String> ruts = new ArrayList<>();
+        for (int body = 10_000_000; body < 10_002_000; body++) {
+            ruts.add(body + "-" + (body % 10));
+        }
+
+        // When
+        filter.registerAll(ruts);
+
+        // Then: 2000 RUT de 10 caracteres caben en 3 avisos de menos de 8000 bytes
+        ArgumentCaptor<String> payloads = ArgumentCaptor.forClass(String.class);
+        verify(bus, atLeast(1)).publish(eq(RutBloomFilter.CHANNEL), payloads.capture());
+        assertEquals(3, payloads.getAllValues().size());
+        RutBloomFilter other = new RutBloomFilter(10_000, 0.01);
+        for (String payload : payloads.getAllValues()) {
+            assertTrue(payload.length() < 8000);
+            other.onNotification(payload);
+        }
+        other.markReady();
+        for (String rut : ruts) {
+            assertFalse(other.isDefinitelyAbsent(rut));
+        }
+    }
+
+    @Test
+    void whenNotificationConnectionLost_thenLookupsGoToTheDatabaseUntilReloaded() {
+        // Given
+        RutBloomFilter filter = new RutBloomFilter(1000, 0.01);
+        ReflectionTestUtils.setField(filter, "jdbcTemplate", mock(JdbcTemplate.class));
+        filter.onListen();
+        assertTrue(filter.isDefinitelyAbsent("12345678-5"));
+
+        // When: un RUT registrado en otro backend mientras no hay LISTEN
+        filter.onDisconnect();
+
+        // Then
+        assertFalse(filter.isDefinitelyAbsent("12345678-5"));
+        filter.onListen();
+        assertTrue(filter.isDefinitelyAbsent("12345678-5"));
+    }
+}
@@ -199,14 +199,17 @@ const EvaluationRequest = () => {
     try {
       console.log(formValues);
       const response = await evaluationService.dataEvaluation(formValues);
-      if (response.status === 200) {
+      // 202: la evaluación quedó en cola y se guarda en segundo plano
+      if (response.status === 202) {
         navigate('/home');
         setSuccess(true);
       } else {
         setError('Error al enviar la solicitud. Intenta nuevamente.');
       }
     } catch (error) {
-      if (error.response && error.response.status === 500) {
+      if (error.response && error.response.status === 503) {
+        setError('Hay demasiadas evaluaciones en curso. Intenta nuevamente en unos segundos.');
+      } else if (error.response && error.response.status === 500) {
         setError('Error del servidor. Intenta nuevamente más tarde.');
       } else {
         setError('Error al enviar la solicitud. Intenta nuevamente.');
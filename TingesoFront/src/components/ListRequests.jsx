@@ -1,4 +1,4 @@
-import React, { useState, useEffect } from 'react';
+import React, { useState, useEffect, useRef } from 'react';
 import {
   Container, Typography, Table, TableBody, TableCell, TableContainer,
   TableHead, TableRow, Paper, Button, Alert, Divider, CircularProgress, List, ListItem, ListItemText
@@ -14,10 +14,13 @@ import IconButton from '@mui/material/IconButton';
 
 const ListRequests = () => {
   const [requests, setRequests] = useState([]);
+  const [nextAfterId, setNextAfterId] = useState(null);
   const [loading, setLoading] = useState(false);
   const [error, setError] = useState(null);
   const [helpAnchorEl, setHelpAnchorEl] = useState(null);
   const navigate = useNavigate();
+  const requestsRef = useRef([]);
+  const nextAfterIdRef = useRef(null);
 
   const INSTRUCTIONAL_GUIDE = (
     <List>
@@ -35,11 +38,36 @@ const ListRequests = () => {
 
   useEffect(() => { fetchRequests(); }, []);
 
-  const fetchRequests = async () => {
+  useEffect(() => { requestsRef.current = requests; }, [requests]);
+
+  useEffect(() => { nextAfterIdRef.current = nextAfterId; }, [nextAfterId]);
+
+  // Los cambios de estado llegan por el stream del backend. Una solicitud nueva se agrega si ya se cargó
+  // la última página; si no, aparecerá al cargar las siguientes
+  useEffect(() => {
+    const events = service.statusEvents();
+    events.addEventListener('status', (event) => {
+      const { id, status } = JSON.parse(event.data);
+      if (!requestsRef.current.some(request => request.id === id)) {
+        if (nextAfterIdRef.current === null) {
+          const last = requestsRef.current[requestsRef.current.length - 1];
+          fetchRequests(last ? last.id : null);
+        }
+        return;
+      }
+      setRequests(prev => prev.map(request => request.id === id ? { ...request, status } : request));
+    });
+    return () => events.close();
+  }, []);
+
+  // Sin afterId trae la primera página; con afterId agrega la siguiente a la lista
+  const fetchRequests = async (afterId = null) => {
     setLoading(true);
     try {
-      const { data } = await service.getAllRequests();
-      setRequests(data);
+      const { data } = await service.getRequestStatusPage(afterId);
+      setRequests(prev => afterId === null ? data.items
+        : [...prev, ...data.items.filter(item => !prev.some(request => request.id === item.id))]);
+      setNextAfterId(data.nextAfterId);
       setError(null);
     } catch {
       setError('Error al obtener las solicitudes.');
@@ -157,6 +185,18 @@ const ListRequests = () => {
         ) : (
           <Alert severity="info">No hay solicitudes para mostrar</Alert>
         )}
+
+        {nextAfterId !== null && (
+          <Button
+            onClick={() => fetchRequests(nextAfterId)}
+            variant="outlined"
+            color="primary"
+            disabled={loading}
+            sx={{ mt: 2 }}
+          >
+            Cargar más
+          </Button>
+        )}
       </Paper>
     </Container>
   );
@@ -1,4 +1,4 @@
-import React, { useState } from 'react';
+import React, { useState, useEffect } from 'react';
 import { TextField, Button, Container, Typography, Paper, Table, TableBody, TableCell, TableContainer, TableHead, TableRow, Box, Divider, InputAdornment, Alert, CircularProgress, IconButton, Popover, List, ListItem, ListItemIcon, ListItemText } from '@mui/material';
 import { Person, Search, CheckCircle, Cancel, MonetizationOn, Delete as DeleteIcon, HelpOutline } from '@mui/icons-material';
 import service from '../services/client.service';
@@ -40,6 +40,20 @@ const StatusRequest = () => {
   const [helpAnchorEl, setHelpAnchorEl] = useState(null);
   const [fieldErrors, setFieldErrors] = useState({});
   const [showDetails, setShowDetails] = useState(false); 
+  const [subscribedRut, setSubscribedRut] = useState(null);
+
+  // Los cambios de estado llegan por el stream del backend, sin volver a consultar
+  useEffect(() => {
+    if (!subscribedRut) return undefined;
+    const events = service.statusEvents(subscribedRut);
+    events.addEventListener('status', (event) => {
+      const { id, status } = JSON.parse(event.data);
+      setRequests(prev => prev.some(request => String(request.id) === String(id))
+        ? prev.map(request => String(request.id) === String(id) ? { ...request, status } : request)
+        : [...prev, { status, id: String(id) }]);
+    });
+    return () => events.close();
+  }, [subscribedRut]);
 
   const handleRutChange = (e) => {
     setRut(e.target.value);
@@ -74,6 +88,7 @@ const StatusRequest = () => {
         setError('No se encontró ninguna solicitud vigente para el RUT ingresado.');
       } else {
         setRequests(formattedRequests);
+        setSubscribedRut(rut);
         setError(null);
       }
     } catch (error) {
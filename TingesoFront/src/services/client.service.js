@@ -4,6 +4,11 @@ const simulation = ({ amount, interestRate, term }) => {
   return httpClient.get(`/api/v1/clients/simulation/${amount}/${interestRate}/${term}`);
 };
 
+// scenarios: [{ amount, interestRate, term }] o bien { amounts, interestRates, terms } para combinar
+const simulationBatch = (data) => {
+  return httpClient.post('/api/v1/clients/simulation/batch', data);
+};
+
 const saveClient = (data) => {
   return httpClient.post('/api/v1/clients/save', data);
 };
@@ -16,6 +21,11 @@ const getAllStatus = (rut) => {
   return httpClient.get(`/api/v1/clients/statusRequest/${rut}`);
 };
 
+// Cambios de estado de las solicitudes del cliente, enviados por el backend (evento "status")
+const statusEvents = (rut) => {
+  return new EventSource(`${httpClient.defaults.baseURL}/api/v1/clients/statusRequest/${rut}/events`);
+};
+
 const validateRutAndPassword = ({ rut, password }) => {
   return httpClient.get(`/api/v1/clients/validateRutAndPassword/${rut}/${password}`);
 }
@@ -24,4 +34,4 @@ const validateRut = (rut) => {
   return httpClient.get(`/api/v1/clients/validateRut/${rut}`);
 };
 
-export default { simulation, saveClient, login, getAllStatus, validateRutAndPassword, validateRut };
\ No newline at end of file
+export default { simulation, simulationBatch, saveClient, login, getAllStatus, statusEvents, validateRutAndPassword, validateRut };
\ No newline at end of file
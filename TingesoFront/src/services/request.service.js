@@ -1,7 +1,15 @@
 import httpClient from '../http-common';
 
+// Se repiten en la URL para que el backend rechace montos, tasas o plazos fuera de rango antes de recibir los documentos
+const declaredValues = (data) => ({
+    declaredTerm: data.get('term'),
+    declaredInterestRate: data.get('interestRate'),
+    declaredAmount: data.get('maximumAmount')
+});
+
 const firstHouse = (data) => {
     return httpClient.post('/api/v1/creditRequest/firstHouse', data, {
+        params: declaredValues(data),
         headers: {
             'Content-Type': 'multipart/form-data'
         }
@@ -10,6 +18,7 @@ const firstHouse = (data) => {
 
 const secondHouse = (data) => {
     return httpClient.post('/api/v1/creditRequest/secondHouse', data, {
+        params: declaredValues(data),
         headers: {
             'Content-Type': 'multipart/form-data'
         }
@@ -18,6 +27,7 @@ const secondHouse = (data) => {
 
 const commercialProperty = (data) => {
     return httpClient.post('/api/v1/creditRequest/commercialProperty', data, {
+        params: declaredValues(data),
         headers: {
             'Content-Type': 'multipart/form-data'
         }
@@ -26,14 +36,21 @@ const commercialProperty = (data) => {
 
 const remodeling = (data) => {
     return httpClient.post('/api/v1/creditRequest/remodeling', data, {
+        params: declaredValues(data),
         headers: {
             'Content-Type': 'multipart/form-data'
         }
     });
 }
 
-const getAllRequests = () => {
-    return httpClient.get('/api/v1/creditRequest/allRquestStatus/');
+// Página de solicitudes ordenadas por id: afterId es el nextAfterId de la página anterior (null en la primera)
+const getRequestStatusPage = (afterId, size = 50) => {
+    return httpClient.get('/api/v1/creditRequest/requestStatus', { params: { afterId, size } });
+}
+
+// Cambios de estado de todas las solicitudes, para la vista del ejecutivo (evento "status")
+const statusEvents = () => {
+    return new EventSource(`${httpClient.defaults.baseURL}/api/v1/creditRequest/requestStatus/events`);
 }
 
 const getDocument = (id, documentType) => {
@@ -56,4 +73,4 @@ const getLoanTypeInfo = (loanType) => {
     return httpClient.get(`/api/v1/creditRequest/loanTypes/${loanType}`);
 };
 
-export default { firstHouse, secondHouse, commercialProperty, remodeling, getAllRequests, getDocument, getRequest, editStates, deleteRequest, getLoanTypeInfo };
\ No newline at end of file
+export default { firstHouse, secondHouse, commercialProperty, remodeling, getRequestStatusPage, statusEvents, getDocument, getRequest, editStates, deleteRequest, getLoanTypeInfo };
\ No newline at end of file
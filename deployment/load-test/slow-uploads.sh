@@ -0,0 +1,44 @@
+#!/usr/bin/env bash
+# Prueba de carga: subidas lentas de solicitudes de crédito mientras se mide la latencia de un endpoint rápido.
+# Con el modelo de un hilo de plataforma por petición las subidas ocupan los 200 hilos del servidor y las
+# demás peticiones esperan; con VIRTUAL_THREADS=true cada subida lenta solo ocupa un hilo virtual.
+#
+# Uso: ./slow-uploads.sh [url-base] [subidas] [bytes/s por subida] [consultas]
+#   ./slow-uploads.sh http://localhost:8091 300 5k 30
+set -euo pipefail
+
+BASE_URL=${1:-http://localhost:8090}
+UPLOADS=${2:-300}
+RATE=${3:-5k}
+PROBES=${4:-30}
+
+WORK=$(mktemp -d)
+trap 'kill $(jobs -p) 2>/dev/null || true; rm -rf "$WORK"' EXIT
+
+# Cinco documentos de 64 KB: cada subida dura ~64 s a 5 KB/s
+for doc in proofIncome creditHistory appraisalCertificate bankAccountState workCertificate; do
+    head -c 65536 /dev/urandom > "$WORK/$doc.pdf"
+done
+
+for i in $(seq 1 "$UPLOADS"); do
+    curl -s -o /dev/null --limit-rate "$RATE" -m 300 \
+        -F rut=11111111-1 -F typeLoan=firstHome -F term=20 -F interestRate=4.5 -F maximumAmount=50000000 \
+        -F proofIncome=@"$WORK/proofIncome.pdf" -F creditHistory=@"$WORK/creditHistory.pdf" \
+        -F appraisalCertificate=@"$WORK/appraisalCertificate.pdf" -F bankAccountState=@"$WORK/bankAccountState.pdf" \
+        -F workCertificate=@"$WORK/workCertificate.pdf" \
+        "$BASE_URL/api/v1/creditRequest/firstHouse" &
+done
+
+# Se deja que las subidas ocupen los hilos antes de medir
+sleep 3
+
+# Las consultas se lanzan cada medio segundo sin esperar a la anterior, así cada una mide su propia espera
+for i in $(seq 1 "$PROBES"); do
+    curl -s -o /dev/null -m 120 -w '%{time_total}\n' "$BASE_URL/api/v1/clients/simulation/100000000/4.5/20" >> "$WORK/probes" &
+    sleep 0.5
+done
+while [ "$(wc -l < "$WORK/probes" 2>/dev/null || echo 0)" -lt "$PROBES" ]; do
+    sleep 1
+done
+sort -n "$WORK/probes" | awk '{ t[NR] = $1; sum += $1 }
+    END { printf "consultas=%d media=%.3fs p50=%.3fs p90=%.3fs max=%.3fs\n", NR, sum / NR, t[int(NR * 0.5)], t[int(NR * 0.9)], t[NR] }'